@@ -44,6 +44,8 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
   protected volatile String remoteHopServerName;
   private ReadWriteLock lock;
 
+  protected volatile RowSetSignal signal;
+
   public BaseRowSet() {
     // not done putting data into this IRowSet
     done = new AtomicBoolean( false );
@@ -130,6 +132,27 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
   @Override
   public void setDone() {
     done.set( true );
+    signalChange();
+  }
+
+  /**
+   * Let the reader know that a row was added or that this row set is done.
+   */
+  protected void signalChange() {
+    RowSetSignal s = signal;
+    if ( s != null ) {
+      s.signal();
+    }
+  }
+
+  @Override
+  public RowSetSignal getSignal() {
+    return signal;
+  }
+
+  @Override
+  public void setSignal( RowSetSignal signal ) {
+    this.signal = signal;
   }
 
   /*
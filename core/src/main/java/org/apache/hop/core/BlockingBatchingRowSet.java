@@ -19,38 +19,107 @@ package org.apache.hop.core;
 
 import org.apache.hop.core.row.IRowMeta;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Contains a buffer of rows. Instead of passing rows along the chain immediately we will batch them up to lower locking
- * overhead. The row set will start in accepting mode (accepting = true) It will remain there until the buffer is full.
- * Then it will switch to delivering mode (accepting = false) It will remain there until the buffer is empty.
+ * overhead. The writer fills a batch and hands it over to the reader in one go once it's full.
  * <p>
- * When the row set is done and no more rows will be entering the row set we will switch to delivering mode.
+ * A batch is also handed over when the row set is flagged as done. When the reader runs out of rows while the writer
+ * sits on a partially filled batch for longer than the flush delay, the reader takes that batch over itself. That way
+ * a handful of rows never gets stuck in a batch which is never going to fill up.
+ * <p>
+ * This row set supports exactly one writing thread and one reading thread.
  *
  * @author Matt
  * @since 04-05-2011
  */
 public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
-  private BlockingQueue<Object[][]> putArray, getArray;
 
-  private int putIndex, getIndex;
-  private Object[][] inputBuffer, outputBuffer;
+  /**
+   * The default number of milliseconds a partially filled batch can sit idle before the reader takes it over.
+   */
+  public static final long DEFAULT_FLUSH_DELAY_MILLIS = 1L;
+
+  /**
+   * Flags a batch as handed over, set in the state together with the number of rows in the batch.
+   */
+  private static final long SEALED = 1L << 31;
+  private static final long COUNT_MASK = SEALED - 1;
+
+  private final BlockingQueue<Batch> putArray;
+  private final BlockingQueue<Batch> getArray;
 
-  private int size;
+  private final int size;
 
   private final int BATCHSIZE = 2;
 
-  // private long inputTID = -1, outputTID = -1;
+  private final int timeoutPut;
+  private final int timeoutGet;
+  private final long flushDelayNanos;
+
+  /**
+   * The batch the writer is filling, null if the writer has none.
+   */
+  private volatile Batch inputBuffer;
+
+  /**
+   * The generation of the input batch (high 32 bits), the number of rows in it and the SEALED flag (low 32 bits).
+   * Only the writer increases the row count, whoever seals the batch first owns the hand-over.
+   */
+  private final AtomicLong inputState = new AtomicLong();
+
+  /**
+   * When the writer put the first row in the current input batch
+   */
+  private volatile long inputBatchStartNanos;
+
+  /**
+   * The writer's generation counter
+   */
+  private long nextPutGeneration;
+
+  /**
+   * The number of rows in batches handed over to the reader and not read yet
+   */
+  private final AtomicInteger handedOverRows = new AtomicInteger();
+
+  /**
+   * The batch the reader is reading from
+   */
+  private Batch outputBuffer;
+  private int getIndex;
+
+  /**
+   * The generation the reader expects next. Batches taken over by the reader can overtake batches handed over by the
+   * writer, these are kept aside until it's their turn.
+   */
+  private long nextGetGeneration;
+  private final List<Batch> earlyBatches = new ArrayList<>();
 
   /**
-   * Create new non-blocking-queue with maxSize capacity.
+   * Create new batching row set with maxSize capacity.
    *
    * @param maxSize
    */
   public BlockingBatchingRowSet( int maxSize ) {
+    this( maxSize, Const.toLong( System.getProperty( Const.HOP_BATCHING_ROWSET_FLUSH_DELAY ),
+      DEFAULT_FLUSH_DELAY_MILLIS ) );
+  }
+
+  /**
+   * Create new batching row set with maxSize capacity.
+   *
+   * @param maxSize          the total capacity, divided over the batches
+   * @param flushDelayMillis how long a partial batch can sit idle before the reader takes it over
+   */
+  public BlockingBatchingRowSet( int maxSize, long flushDelayMillis ) {
     super();
 
     // create a fixed sized queue for max performance
@@ -58,54 +127,97 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
     putArray = new ArrayBlockingQueue<>( BATCHSIZE, true );
     getArray = new ArrayBlockingQueue<>( BATCHSIZE, true );
 
-    size = maxSize / BATCHSIZE; // each buffer's size
-    Object[][] buffer;
+    size = Math.max( 1, maxSize / BATCHSIZE ); // each buffer's size
     for ( int i = 0; i < BATCHSIZE; i++ ) {
-      buffer = new Object[ size ][];
-      putArray.offer( buffer );
+      putArray.offer( new Batch( size ) );
     }
     outputBuffer = null;
-    putIndex = getIndex = size;
+    inputBuffer = null;
+
+    flushDelayNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0L, flushDelayMillis ) );
+    timeoutGet = Const.toInt( System.getProperty( Const.HOP_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.HOP_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
   }
 
   @Override
   public boolean putRow( IRowMeta rowMeta, Object[] rowData ) {
 
-    return putRowWait( rowMeta, rowData, Const.TIMEOUT_PUT_MILLIS, TimeUnit.MILLISECONDS );
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
   }
 
   /**
-   * We need to wait until
+   * Add the row to the current input batch. If we don't have one we block until a free batch becomes available. When
+   * the batch is full it's handed over to the reader.
    */
   @Override
   public boolean putRowWait( IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu ) {
 
     this.rowMeta = rowMeta;
 
-    // If we're not accepting we block until we do
-    //
-    if ( inputBuffer == null ) {
-      try {
-        inputBuffer = putArray.poll( time, tu );
-      } catch ( InterruptedException e ) {
-        return false;
+    while ( true ) {
+      Batch batch = inputBuffer;
+      if ( batch == null ) {
+        try {
+          batch = putArray.poll( time, tu );
+        } catch ( InterruptedException e ) {
+          return false;
+        }
+        if ( batch == null ) {
+          return false;
+        }
+        batch.generation = nextPutGeneration++;
+        inputState.set( batch.generation << 32 );
+        inputBatchStartNanos = System.nanoTime();
+        inputBuffer = batch;
       }
-      if ( inputBuffer == null ) {
-        return false;
+
+      long state = inputState.get();
+      if ( ( state & SEALED ) != 0 ) {
+        // The reader took over this batch, start a new one
+        //
+        inputBuffer = null;
+        continue;
       }
-      putIndex = 0;
-    }
-    inputBuffer[ putIndex++ ] = rowData;
-    if ( putIndex == size ) {
-      try {
-        getArray.offer( inputBuffer, time, tu );
+      int index = (int) ( state & COUNT_MASK );
+      batch.rows[ index ] = rowData;
+      if ( !inputState.compareAndSet( state, state + 1 ) ) {
+        // The reader took over the batch before this row was part of it
+        //
         inputBuffer = null;
-      } catch ( InterruptedException e ) {
-        return false;
+        continue;
       }
+
+      if ( index + 1 == size ) {
+        handOver( batch );
+      } else if ( index == 0 ) {
+        // Let a waiting reader know there is something to flush
+        //
+        signalChange();
+      }
+      return true;
     }
+  }
 
-    return true;
+  /**
+   * Seal the writer's current batch and give it to the reader, unless the reader already took it over. An empty batch
+   * stays with the writer: the reader can't take it over either, and handing it over would use up its generation.
+   */
+  private void handOver( Batch batch ) {
+    if ( ( inputState.get() & COUNT_MASK ) == 0 ) {
+      return;
+    }
+    long state = inputState.getAndUpdate( s -> s | SEALED );
+    inputBuffer = null;
+    if ( ( state & SEALED ) != 0 ) {
+      return;
+    }
+    int count = (int) ( state & COUNT_MASK );
+    batch.count = count;
+    handedOverRows.addAndGet( count );
+    // There is always room: there are only BATCHSIZE batches
+    //
+    getArray.offer( batch );
+    signalChange();
   }
 
   // default getRow with wait time = 100ms
@@ -117,7 +229,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
    */
   @Override
   public Object[] getRow() {
-    return getRowWait( Const.TIMEOUT_GET_MILLIS, TimeUnit.MILLISECONDS );
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
   }
 
   /*
@@ -127,58 +239,186 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
    */
   @Override
   public Object[] getRowImmediate() {
-
-    return getRow();
+    if ( outputBuffer == null ) {
+      outputBuffer = nextBatch( isDone() );
+      if ( outputBuffer == null ) {
+        return null;
+      }
+      getIndex = 0;
+    }
+    return nextRow();
   }
 
   @Override
   public Object[] getRowWait( long timeout, TimeUnit tu ) {
     if ( outputBuffer == null ) {
-      try {
-        outputBuffer = getArray.poll( timeout, tu );
-      } catch ( InterruptedException e ) {
-        return null;
-      }
-      if ( outputBuffer == null ) {
-        return null;
+      long deadline = System.nanoTime() + tu.toNanos( timeout );
+      while ( true ) {
+        outputBuffer = nextBatch( isDone() );
+        if ( outputBuffer != null ) {
+          break;
+        }
+        long nanosLeft = deadline - System.nanoTime();
+        if ( nanosLeft <= 0 ) {
+          return null;
+        }
+
+        // Wait for the writer to hand over a batch but not longer than it takes before we can flush a partial batch
+        //
+        Batch batch;
+        try {
+          batch = getArray.poll( Math.min( nanosLeft, Math.max( flushDelayNanos, 100000L ) ), TimeUnit.NANOSECONDS );
+        } catch ( InterruptedException e ) {
+          return null;
+        }
+        if ( batch != null ) {
+          keepAside( batch );
+        }
       }
       getIndex = 0;
     }
+    return nextRow();
+  }
 
-    Object[] row = outputBuffer[ getIndex ];
-    outputBuffer[ getIndex++ ] = null; // prevent any hold-up to GC
-    if ( getIndex == size ) {
+  private Object[] nextRow() {
+    Object[] row = outputBuffer.rows[ getIndex ];
+    outputBuffer.rows[ getIndex++ ] = null; // prevent any hold-up to GC
+    if ( getIndex == outputBuffer.count ) {
+      handedOverRows.addAndGet( -outputBuffer.count );
       putArray.offer( outputBuffer );
       outputBuffer = null;
     }
-
     return row;
   }
 
+  /**
+   * Find the next batch to read in the right order: batches handed over by the writer first, then the writer's
+   * partially filled batch if it has been sitting idle long enough or if we're forced to.
+   *
+   * @param force take over a partial batch regardless of how long it's been idle
+   * @return the next batch or null if there is none yet
+   */
+  private Batch nextBatch( boolean force ) {
+    Batch batch = takeEarlyBatch();
+    if ( batch != null ) {
+      return batch;
+    }
+    while ( ( batch = getArray.poll() ) != null ) {
+      keepAside( batch );
+      batch = takeEarlyBatch();
+      if ( batch != null ) {
+        return batch;
+      }
+    }
+    if ( takeOverInputBatch( force ) ) {
+      // Anything the writer handed over before we took over is older
+      //
+      while ( ( batch = getArray.poll() ) != null ) {
+        keepAside( batch );
+      }
+      return takeEarlyBatch();
+    }
+    return null;
+  }
+
+  private void keepAside( Batch batch ) {
+    earlyBatches.add( batch );
+  }
+
+  private Batch takeEarlyBatch() {
+    for ( int i = 0; i < earlyBatches.size(); i++ ) {
+      Batch batch = earlyBatches.get( i );
+      if ( batch.generation == nextGetGeneration ) {
+        earlyBatches.remove( i );
+        nextGetGeneration++;
+        return batch;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Seal the writer's partially filled batch so that it becomes ours.
+   *
+   * @return true if we took over a batch with rows in it
+   */
+  private boolean takeOverInputBatch( boolean force ) {
+    long state = inputState.get();
+    if ( ( state & SEALED ) != 0 || ( state & COUNT_MASK ) == 0 ) {
+      return false;
+    }
+    if ( !force && System.nanoTime() - inputBatchStartNanos < flushDelayNanos ) {
+      return false;
+    }
+    // The batch which goes with the state we just read: the writer only moves on after it's sealed
+    //
+    Batch batch = inputBuffer;
+    if ( batch == null || !inputState.compareAndSet( state, state | SEALED ) ) {
+      return false;
+    }
+    batch.count = (int) ( state & COUNT_MASK );
+    handedOverRows.addAndGet( batch.count );
+    keepAside( batch );
+    return true;
+  }
+
+  /**
+   * @return the number of rows handed over to the reader. Rows in the writer's partial batch are not included.
+   */
   @Override
   public int size() {
-    // does BlockingQueue.size() grab a lock? If so, frequent call to this method
-    // may stress the locking system
-    return size - getIndex + size * getArray.size();
+    // Reading getIndex from another thread gives an approximation, which is all we need here
+    //
+    int read = outputBuffer != null ? getIndex : 0;
+    return Math.max( 0, handedOverRows.get() - read );
   }
 
+  /**
+   * Hand over the partially filled batch, then flag the row set as done.
+   */
   @Override
   public void setDone() {
-    super.setDone();
-    if ( putIndex > 0 && putIndex < size && inputBuffer != null ) {
-      inputBuffer[ putIndex ] = null; // signal the end of buffer
-      for ( int i = putIndex + 1; i < size; i++ ) {
-        inputBuffer[ i ] = null;
-      }
-      getArray.offer( inputBuffer );
+    Batch batch = inputBuffer;
+    if ( batch != null ) {
+      handOver( batch );
     }
-    putArray.clear();
+    super.setDone();
   }
 
   @Override
   public void clear() {
     putArray.clear();
     getArray.clear();
+    earlyBatches.clear();
+    for ( int i = 0; i < BATCHSIZE; i++ ) {
+      putArray.offer( new Batch( size ) );
+    }
+    inputBuffer = null;
+    outputBuffer = null;
+    inputState.set( 0L );
+    handedOverRows.set( 0 );
+    nextPutGeneration = 0L;
+    nextGetGeneration = 0L;
     done.set( false );
   }
+
+  /**
+   * @return how long a partially filled batch can sit idle before the reader takes it over
+   */
+  public long getFlushDelayMillis() {
+    return TimeUnit.NANOSECONDS.toMillis( flushDelayNanos );
+  }
+
+  /**
+   * A buffer of rows, passed back and forth between the writer and the reader.
+   */
+  private static final class Batch {
+    private final Object[][] rows;
+    private int count;
+    private long generation;
+
+    private Batch( int size ) {
+      rows = new Object[ size ][];
+    }
+  }
 }
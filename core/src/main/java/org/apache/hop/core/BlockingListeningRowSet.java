@@ -74,6 +74,9 @@ public class BlockingListeningRowSet extends BaseRowSet implements Comparable<IR
       blocking.set( true );
       boolean b = queArray.offer( rowData, time, tu );
       blocking.set( false );
+      if ( b ) {
+        signalChange();
+      }
       return b;
     } catch ( InterruptedException e ) {
       blocking.set( false );
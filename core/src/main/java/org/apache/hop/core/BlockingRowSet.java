@@ -19,6 +19,8 @@ package org.apache.hop.core;
 
 import org.apache.hop.core.row.IRowMeta;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +35,11 @@ import java.util.concurrent.TimeUnit;
 public class BlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
   private BlockingQueue<Object[]> queArray;
 
+  /**
+   * Re-used by the reading thread to drain batches of rows from the queue
+   */
+  private final List<Object[]> drainBuffer = new ArrayList<>();
+
   private int timeoutPut;
   private int timeoutGet;
 
@@ -71,8 +78,11 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, I
   public boolean putRowWait( IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu ) {
     this.rowMeta = rowMeta;
     try {
-
-      return queArray.offer( rowData, time, tu );
+      if ( queArray.offer( rowData, time, tu ) ) {
+        signalChange();
+        return true;
+      }
+      return false;
     } catch ( InterruptedException e ) {
       return false;
     } catch ( NullPointerException e ) {
@@ -119,6 +129,19 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, I
     }
   }
 
+  /**
+   * Drains the available rows from the queue in one go instead of locking the queue for every row.
+   */
+  @Override
+  public int getRowsImmediate( Object[][] rows, int offset, int max ) {
+    int count = queArray.drainTo( drainBuffer, max );
+    for ( int i = 0; i < count; i++ ) {
+      rows[ offset + i ] = drainBuffer.get( i );
+    }
+    drainBuffer.clear();
+    return count;
+  }
+
   @Override
   public int size() {
     return queArray.size();
@@ -542,6 +542,20 @@ public class Condition implements Cloneable, IXml {
     return retval;
   }
 
+  /**
+   * Prepare this condition for rows with the given layout. Field positions are looked up, constants are converted to
+   * the data type of the fields they're compared with and regular expressions are compiled once instead of for every
+   * row.
+   * <p>
+   * The evaluator doesn't follow changes made to this condition afterwards, compile it again if needed.
+   *
+   * @param rowMeta the row metadata of the rows to evaluate
+   * @return an evaluator which gives the same results as {@link #evaluate(IRowMeta, Object[])} for this row layout
+   */
+  public IConditionEvaluator compile( IRowMeta rowMeta ) {
+    return ConditionCompiler.compile( this, rowMeta );
+  }
+
   public void addCondition( Condition cb ) {
     if ( isAtomic() && getLeftValuename() != null ) {
       /*
@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.ValueMetaAndData;
+import org.apache.hop.core.util.Utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a condition tree into a tree of evaluators for a given row layout. The evaluators give the same results as
+ * {@link Condition#evaluate(IRowMeta, Object[])} but don't look up fields, convert constants, split lists or compile
+ * regular expressions for every row.
+ * <p>
+ * Whatever can't be prepared up front (for example a constant which doesn't convert to the data type of the field) is
+ * left to the condition itself so the behavior doesn't change.
+ */
+class ConditionCompiler {
+
+  private ConditionCompiler() {
+  }
+
+  static IConditionEvaluator compile( Condition condition, IRowMeta rowMeta ) {
+    if ( condition.isComposite() ) {
+      int size = condition.nrConditions();
+      IConditionEvaluator[] evaluators = new IConditionEvaluator[ size ];
+      int[] operators = new int[ size ];
+      for ( int i = 0; i < size; i++ ) {
+        Condition subCondition = condition.getCondition( i );
+        evaluators[ i ] = compile( subCondition, rowMeta );
+        operators[ i ] = subCondition.getOperator();
+      }
+      return new CompositeEvaluator( condition, evaluators, operators );
+    }
+    return compileAtomic( condition, rowMeta );
+  }
+
+  private static IConditionEvaluator compileAtomic( Condition condition, IRowMeta rowMeta ) {
+    int function = condition.getFunction();
+    boolean negate = condition.isNegated();
+
+    if ( function == Condition.FUNC_TRUE ) {
+      return negate ? FALSE : TRUE;
+    }
+
+    int leftIndex = indexOfValue( rowMeta, condition.getLeftValuename() );
+    if ( leftIndex < 0 ) {
+      return FALSE; // no fields to evaluate, never negated
+    }
+    IValueMeta leftMeta = rowMeta.getValueMeta( leftIndex );
+
+    if ( function == Condition.FUNC_NULL || function == Condition.FUNC_NOT_NULL ) {
+      return new NullEvaluator( condition, leftIndex, leftMeta, function == Condition.FUNC_NOT_NULL );
+    }
+
+    ValueMetaAndData rightExact = condition.getRightExact();
+    if ( rightExact != null && rightExact.getValueData() != null ) {
+      IConditionEvaluator evaluator = compileConstant( condition, leftIndex, leftMeta, rightExact );
+      if ( evaluator != null ) {
+        return evaluator;
+      }
+    } else {
+      int rightIndex = indexOfValue( rowMeta, condition.getRightValuename() );
+      if ( rightIndex >= 0 && isComparison( function ) ) {
+        IValueMeta rightMeta = rowMeta.getValueMeta( rightIndex );
+        return new FieldCompareEvaluator( condition, leftIndex, leftMeta, rightIndex, rightMeta );
+      }
+    }
+
+    return new InterpretedEvaluator( condition, rowMeta );
+  }
+
+  /**
+   * @return an evaluator against the constant on the right hand side or null if the constant can't be prepared.
+   */
+  private static IConditionEvaluator compileConstant( Condition condition, int leftIndex, IValueMeta leftMeta,
+                                                      ValueMetaAndData rightExact ) {
+    int function = condition.getFunction();
+    IValueMeta rightMeta = rightExact.getValueMeta();
+    Object rightData = rightExact.getValueData();
+    if ( rightMeta == null ) {
+      return null;
+    }
+
+    try {
+      if ( isComparison( function ) ) {
+        Object value = convertForCompare( leftMeta, rightMeta, rightData );
+        if ( value == null ) {
+          return null;
+        }
+        return new ConstantCompareEvaluator( condition, leftIndex, leftMeta, value );
+      }
+
+      switch ( function ) {
+        case Condition.FUNC_REGEXP:
+          return new PatternEvaluator( condition, leftIndex, leftMeta,
+            Pattern.compile( rightMeta.getCompatibleString( rightData ) ) );
+        case Condition.FUNC_LIKE:
+          String regex = rightMeta.getCompatibleString( rightData );
+          regex = regex.replace( "%", ".*" );
+          regex = regex.replace( "?", "." );
+          return new PatternEvaluator( condition, leftIndex, leftMeta, Pattern.compile( regex ) );
+        case Condition.FUNC_IN_LIST:
+          String[] inList = Const.splitString( rightMeta.getString( rightData ), ';', true );
+          for ( int i = 0; i < inList.length; i++ ) {
+            inList[ i ] = inList[ i ] == null ? null : inList[ i ].replace( "\\", "" );
+          }
+          return new InListEvaluator( condition, leftIndex, leftMeta, new HashSet<>( Arrays.asList( inList ) ) );
+        case Condition.FUNC_CONTAINS:
+        case Condition.FUNC_STARTS_WITH:
+        case Condition.FUNC_ENDS_WITH:
+          String rightString = rightMeta.getCompatibleString( rightData );
+          if ( rightString == null ) {
+            return null;
+          }
+          return new StringEvaluator( condition, leftIndex, leftMeta, function, rightString );
+        default:
+          return null;
+      }
+    } catch ( Exception e ) {
+      // Leave it to the condition to report the problem on the rows
+      //
+      return null;
+    }
+  }
+
+  /**
+   * Does the same conversion of the right hand value as {@link IValueMeta#compare(Object, IValueMeta, Object)} does for
+   * every row.
+   *
+   * @return the value to compare the left hand values with or null if the conversion depends on the row.
+   */
+  private static Object convertForCompare( IValueMeta leftMeta, IValueMeta rightMeta, Object rightData )
+    throws HopValueException {
+    if ( leftMeta.getType() == rightMeta.getType() ) {
+      if ( leftMeta.getStorageType() == rightMeta.getStorageType() ) {
+        return rightData;
+      }
+      if ( leftMeta.getStorageType() == IValueMeta.STORAGE_TYPE_NORMAL ) {
+        return rightMeta.convertToNormalStorageType( rightData );
+      }
+      return null;
+    }
+    if ( leftMeta.getType() == IValueMeta.TYPE_INTEGER && rightMeta.getType() == IValueMeta.TYPE_NUMBER ) {
+      return null;
+    }
+    return leftMeta.convertData( rightMeta, rightData );
+  }
+
+  private static int indexOfValue( IRowMeta rowMeta, String valueName ) {
+    return Utils.isEmpty( valueName ) ? -1 : rowMeta.indexOfValue( valueName );
+  }
+
+  private static boolean isComparison( int function ) {
+    switch ( function ) {
+      case Condition.FUNC_EQUAL:
+      case Condition.FUNC_NOT_EQUAL:
+      case Condition.FUNC_SMALLER:
+      case Condition.FUNC_SMALLER_EQUAL:
+      case Condition.FUNC_LARGER:
+      case Condition.FUNC_LARGER_EQUAL:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static final IConditionEvaluator TRUE = r -> true;
+
+  private static final IConditionEvaluator FALSE = r -> false;
+
+  /**
+   * Evaluates one atomic condition, negates the result if needed and reports errors the same way the condition does.
+   */
+  private abstract static class AtomicEvaluator implements IConditionEvaluator {
+    private final Condition condition;
+    private final boolean negate;
+    protected final int leftIndex;
+    protected final IValueMeta leftMeta;
+
+    AtomicEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta ) {
+      this.condition = condition;
+      this.negate = condition.isNegated();
+      this.leftIndex = leftIndex;
+      this.leftMeta = leftMeta;
+    }
+
+    @Override
+    public final boolean evaluate( Object[] r ) {
+      try {
+        return test( r ) != negate;
+      } catch ( Exception e ) {
+        throw new RuntimeException( "Unexpected error evaluation condition [" + condition.toString() + "]", e );
+      }
+    }
+
+    protected abstract boolean test( Object[] r ) throws HopValueException;
+  }
+
+  /**
+   * Compares the left hand field with another value using the condition function.
+   */
+  private abstract static class CompareEvaluator extends AtomicEvaluator {
+    private final int function;
+
+    CompareEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta ) {
+      super( condition, leftIndex, leftMeta );
+      this.function = condition.getFunction();
+    }
+
+    @Override
+    protected boolean test( Object[] r ) throws HopValueException {
+      Object field = r[ leftIndex ];
+      switch ( function ) {
+        case Condition.FUNC_EQUAL:
+          return compare( field, r ) == 0;
+        case Condition.FUNC_NOT_EQUAL:
+          return compare( field, r ) != 0;
+        case Condition.FUNC_SMALLER:
+          return !leftMeta.isNull( field ) && compare( field, r ) < 0;
+        case Condition.FUNC_SMALLER_EQUAL:
+          return !leftMeta.isNull( field ) && compare( field, r ) <= 0;
+        case Condition.FUNC_LARGER:
+          return compare( field, r ) > 0;
+        case Condition.FUNC_LARGER_EQUAL:
+          return compare( field, r ) >= 0;
+        default:
+          return false;
+      }
+    }
+
+    protected abstract int compare( Object field, Object[] r ) throws HopValueException;
+  }
+
+  /**
+   * Compares with a constant which is already converted to the data type and storage of the left hand field.
+   */
+  private static class ConstantCompareEvaluator extends CompareEvaluator {
+    private final Object value;
+
+    ConstantCompareEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta, Object value ) {
+      super( condition, leftIndex, leftMeta );
+      this.value = value;
+    }
+
+    @Override
+    protected int compare( Object field, Object[] r ) throws HopValueException {
+      return leftMeta.compare( field, value );
+    }
+  }
+
+  /**
+   * Compares two fields of the row.
+   */
+  private static class FieldCompareEvaluator extends CompareEvaluator {
+    private final int rightIndex;
+    private final IValueMeta rightMeta;
+
+    FieldCompareEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta, int rightIndex,
+                           IValueMeta rightMeta ) {
+      super( condition, leftIndex, leftMeta );
+      this.rightIndex = rightIndex;
+      this.rightMeta = rightMeta;
+    }
+
+    @Override
+    protected int compare( Object field, Object[] r ) throws HopValueException {
+      return leftMeta.compare( field, rightMeta, r[ rightIndex ] );
+    }
+  }
+
+  private static class NullEvaluator extends AtomicEvaluator {
+    private final boolean notNull;
+
+    NullEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta, boolean notNull ) {
+      super( condition, leftIndex, leftMeta );
+      this.notNull = notNull;
+    }
+
+    @Override
+    protected boolean test( Object[] r ) throws HopValueException {
+      return leftMeta.isNull( r[ leftIndex ] ) != notNull;
+    }
+  }
+
+  /**
+   * REGEXP and LIKE against a constant: the pattern is compiled once.
+   */
+  private static class PatternEvaluator extends AtomicEvaluator {
+    private final Pattern pattern;
+
+    PatternEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta, Pattern pattern ) {
+      super( condition, leftIndex, leftMeta );
+      this.pattern = pattern;
+    }
+
+    @Override
+    protected boolean test( Object[] r ) throws HopValueException {
+      Object field = r[ leftIndex ];
+      if ( leftMeta.isNull( field ) ) {
+        return false;
+      }
+      return pattern.matcher( leftMeta.getCompatibleString( field ) ).matches();
+    }
+  }
+
+  /**
+   * IN LIST against a constant: the list is split once.
+   */
+  private static class InListEvaluator extends AtomicEvaluator {
+    private final Set<String> inList;
+
+    InListEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta, Set<String> inList ) {
+      super( condition, leftIndex, leftMeta );
+      this.inList = inList;
+    }
+
+    @Override
+    protected boolean test( Object[] r ) throws HopValueException {
+      String searchString = leftMeta.getCompatibleString( r[ leftIndex ] );
+      return searchString != null && inList.contains( searchString );
+    }
+  }
+
+  /**
+   * CONTAINS, STARTS WITH and ENDS WITH against a constant: the constant is converted to a string once.
+   */
+  private static class StringEvaluator extends AtomicEvaluator {
+    private final int function;
+    private final String rightString;
+
+    StringEvaluator( Condition condition, int leftIndex, IValueMeta leftMeta, int function, String rightString ) {
+      super( condition, leftIndex, leftMeta );
+      this.function = function;
+      this.rightString = rightString;
+    }
+
+    @Override
+    protected boolean test( Object[] r ) throws HopValueException {
+      String string = leftMeta.getCompatibleString( r[ leftIndex ] );
+      switch ( function ) {
+        case Condition.FUNC_CONTAINS:
+          return string != null && string.contains( rightString );
+        case Condition.FUNC_STARTS_WITH:
+          return string != null && string.startsWith( rightString );
+        case Condition.FUNC_ENDS_WITH:
+          return !Utils.isEmpty( string ) && string.endsWith( rightString );
+        default:
+          return false;
+      }
+    }
+  }
+
+  /**
+   * Everything we can't prepare is evaluated by the condition itself.
+   */
+  private static class InterpretedEvaluator implements IConditionEvaluator {
+    private final Condition condition;
+    private final IRowMeta rowMeta;
+
+    InterpretedEvaluator( Condition condition, IRowMeta rowMeta ) {
+      this.condition = condition;
+      this.rowMeta = rowMeta;
+    }
+
+    @Override
+    public boolean evaluate( Object[] r ) {
+      return condition.evaluate( rowMeta, r );
+    }
+  }
+
+  /**
+   * Evaluates the sub-conditions in the order in which they are found, short-circuiting where possible.
+   */
+  private static class CompositeEvaluator implements IConditionEvaluator {
+    private final Condition condition;
+    private final boolean negate;
+    private final IConditionEvaluator[] evaluators;
+    private final int[] operators;
+
+    CompositeEvaluator( Condition condition, IConditionEvaluator[] evaluators, int[] operators ) {
+      this.condition = condition;
+      this.negate = condition.isNegated();
+      this.evaluators = evaluators;
+      this.operators = operators;
+    }
+
+    @Override
+    public boolean evaluate( Object[] r ) {
+      try {
+        boolean retval = evaluators[ 0 ].evaluate( r );
+        for ( int i = 1; i < evaluators.length; i++ ) {
+          switch ( operators[ i ] ) {
+            case Condition.OPERATOR_OR:
+              retval = retval || evaluators[ i ].evaluate( r );
+              break;
+            case Condition.OPERATOR_AND:
+              retval = retval && evaluators[ i ].evaluate( r );
+              break;
+            case Condition.OPERATOR_OR_NOT:
+              retval = retval || !evaluators[ i ].evaluate( r );
+              break;
+            case Condition.OPERATOR_AND_NOT:
+              retval = retval && !evaluators[ i ].evaluate( r );
+              break;
+            case Condition.OPERATOR_XOR:
+              retval = retval ^ evaluators[ i ].evaluate( r );
+              break;
+            default:
+              break;
+          }
+        }
+        return retval != negate;
+      } catch ( Exception e ) {
+        throw new RuntimeException( "Unexpected error evaluation condition [" + condition.toString() + "]", e );
+      }
+    }
+  }
+}
@@ -105,6 +105,9 @@ public class Const {
   /** Size of rowset: bigger = faster for large amounts of data */
   public static final int ROWS_IN_ROWSET = 10000;
 
+  /** Maximum number of rows a batch capable transform handles in one go (the default) */
+  public static final int ROWS_IN_BATCH = 256;
+
   /** Fetch size in rows when querying a database */
   public static final int FETCH_SIZE = 10000;
 
@@ -418,6 +421,32 @@ public class Const {
   public static final String HOP_COMPATIBILITY_MEMORY_GROUP_BY_SUM_AVERAGE_RETURN_NUMBER_TYPE =
       "HOP_COMPATIBILITY_MEMORY_GROUP_BY_SUM_AVERAGE_RETURN_NUMBER_TYPE";
 
+  /**
+   * Set this variable to N to make the Memory Group By transform always keep its aggregates in objects per group
+   * instead of in primitive arrays when only count, sum, average, minimum and maximum on Integer and Number fields are
+   * calculated.
+   */
+  public static final String HOP_MEMORY_GROUP_BY_PRIMITIVE_AGGREGATION =
+      "HOP_MEMORY_GROUP_BY_PRIMITIVE_AGGREGATION";
+
+  /**
+   * The number of threads the Sort rows transform uses to sort large buffers of rows. 0 or empty uses the number of
+   * available processors, 1 sorts on the transform thread only.
+   */
+  public static final String HOP_SORT_ROWS_PARALLELISM = "HOP_SORT_ROWS_PARALLELISM";
+
+  /**
+   * The maximum number of temporary files the Sort rows transform merges at once. When there are more files they are
+   * first merged in groups. 0 or empty means there is no limit.
+   */
+  public static final String HOP_SORT_ROWS_MAX_MERGE_FILES = "HOP_SORT_ROWS_MAX_MERGE_FILES";
+
+  /**
+   * The number of threads the Fuzzy match transform uses to score the lookup values against a row. 0 or empty uses the
+   * number of available processors, 1 scores on the transform thread only.
+   */
+  public static final String HOP_FUZZY_MATCH_PARALLELISM = "HOP_FUZZY_MATCH_PARALLELISM";
+
   /**
    * You can use this variable to speed up hostname lookup. Hostname lookup is performed by Hop so
    * that it is capable of logging the server on which a workflow or pipeline is executed.
@@ -584,9 +613,58 @@ public class Const {
    */
   public static final String HOP_ROWSET_PUT_TIMEOUT = "HOP_ROWSET_PUT_TIMEOUT";
 
-  /** Set this variable to Y if you want to test a more efficient batching row set. (default = N) */
+  /**
+   * Set this variable to Y to use batching row sets for all pipelines, regardless of the run configuration.
+   * (default = N)
+   */
   public static final String HOP_BATCHING_ROWSET = "HOP_BATCHING_ROWSET";
 
+  /**
+   * The number of milliseconds a partially filled batch can sit idle in a batching row set before the reading
+   * transform takes it over. (default = 1)
+   */
+  public static final String HOP_BATCHING_ROWSET_FLUSH_DELAY = "HOP_BATCHING_ROWSET_FLUSH_DELAY";
+
+  /**
+   * Set this variable to N if you don't want to use the lock-free single producer/single consumer row set on hops
+   * between single transform copies. (default = Y)
+   */
+  public static final String HOP_SPSC_ROWSET = "HOP_SPSC_ROWSET";
+
+  /**
+   * The number of times a lock-free row set busy-spins on an empty or full buffer before yielding.
+   */
+  public static final String HOP_ROWSET_SPIN_COUNT = "HOP_ROWSET_SPIN_COUNT";
+
+  /**
+   * The number of times a lock-free row set yields on an empty or full buffer before parking the thread.
+   */
+  public static final String HOP_ROWSET_YIELD_COUNT = "HOP_ROWSET_YIELD_COUNT";
+
+  /**
+   * The maximum number of nanoseconds a lock-free row set parks a waiting thread in one go.
+   */
+  public static final String HOP_ROWSET_PARK_NANOS = "HOP_ROWSET_PARK_NANOS";
+
+  /**
+   * Set this variable to Y to let transforms sleep until one of their input row sets signals new data instead of
+   * polling them with short timeouts. This also applies to pausing and to waiting for the pipeline to start.
+   * (default = N)
+   */
+  public static final String HOP_ROWSET_SIGNALING = "HOP_ROWSET_SIGNALING";
+
+  /**
+   * The maximum number of rows a transform which supports it reads, processes and writes in one batch. Set it to 1 to
+   * process all rows one at a time. (default = 256)
+   */
+  public static final String HOP_ROW_BATCH_SIZE = "HOP_ROW_BATCH_SIZE";
+
+  /**
+   * The maximum number of filenames for which HopVfs keeps the resolved file object. Set it to 0 to resolve every
+   * filename from scratch. (default = 1000)
+   */
+  public static final String HOP_VFS_CACHE_SIZE = "HOP_VFS_CACHE_SIZE";
+
   /**
    * Set this variable to limit max number of files the Text File Output transform can have open at
    * one time.
@@ -700,6 +778,12 @@ public class Const {
   /** A variable to configure refresh for carte workflow/pipeline status page */
   public static final String HOP_SERVER_REFRESH_STATUS = "HOP_SERVER_REFRESH_STATUS";
 
+  /**
+   * The maximum number of pipeline status streams a hop server keeps open at the same time. Every stream occupies a
+   * server thread, clients asking for more streams get a 503 and poll the status instead. 0 means there is no limit.
+   */
+  public static final String HOP_SERVER_MAX_STATUS_STREAMS = "HOP_SERVER_MAX_STATUS_STREAMS";
+
   /** A variable to configure s3vfs to use a temporary file on upload data to S3 Amazon." */
   public static final String S3VFS_USE_TEMPORARY_FILE_ON_UPLOAD_DATA =
       "s3.vfs.useTempFileOnUploadData";
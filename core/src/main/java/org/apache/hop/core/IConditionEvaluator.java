@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+/**
+ * A condition which is prepared for one specific row layout, see {@link Condition#compile(org.apache.hop.core.row.IRowMeta)}.
+ * Field positions, converted constants and regular expressions are all resolved up front so that evaluating a row
+ * does as little work as possible.
+ */
+public interface IConditionEvaluator {
+
+  /**
+   * Evaluate the condition for a row with the layout the evaluator was compiled for.
+   *
+   * @param r the row data
+   * @return true if the condition evaluates to true.
+   */
+  boolean evaluate( Object[] r );
+}
@@ -67,6 +67,45 @@ public interface IRowSet {
    */
   Object[] getRowWait( long timeout, TimeUnit tu );
 
+  /**
+   * Offer a batch of rows to this rowset. Waits for room in the buffer the same way {@link #putRow(IRowMeta, Object[])}
+   * does, but row sets can hand over the whole batch at once.
+   *
+   * @param rowMeta The description of the row data
+   * @param rows    the rows of data
+   * @param offset  the index of the first row to put
+   * @param count   the number of rows to put
+   * @return the number of rows added to the rowset, less than count if this buffer stayed full for too long.
+   */
+  default int putRows( IRowMeta rowMeta, Object[][] rows, int offset, int count ) {
+    for ( int i = 0; i < count; i++ ) {
+      if ( !putRow( rowMeta, rows[ offset + i ] ) ) {
+        return i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Get the rows which are available immediately, up to a maximum.
+   *
+   * @param rows   the array to store the rows in
+   * @param offset the index in the array of the first row to store
+   * @param max    the maximum number of rows to get
+   * @return the number of rows stored in the array, 0 if no row is available.
+   */
+  default int getRowsImmediate( Object[][] rows, int offset, int max ) {
+    int count = 0;
+    while ( count < max ) {
+      Object[] row = getRowImmediate();
+      if ( row == null ) {
+        break;
+      }
+      rows[ offset + count++ ] = row;
+    }
+    return count;
+  }
+
   /**
    * @return Set indication that there is no more input
    */
@@ -139,4 +178,20 @@ public interface IRowSet {
    * Clear this rowset: remove all rows and remove the "done" flag.
    */
   void clear();
+
+  /**
+   * Set the signal to raise whenever a row is added to this row set or when it is flagged as done.
+   * Row sets which don't support signaling simply ignore it.
+   *
+   * @param signal the signal to raise or null if nobody is interested
+   */
+  default void setSignal( RowSetSignal signal ) {
+  }
+
+  /**
+   * @return the signal raised when a row is added or the row set is done, or null if there is none
+   */
+  default RowSetSignal getSignal() {
+    return null;
+  }
 }
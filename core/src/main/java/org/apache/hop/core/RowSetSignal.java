@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A "something changed" signal shared by all the input row sets of a transform copy. Row sets call {@link #signal()}
+ * after a row was added or when they are flagged as done. The reading thread calls
+ * {@link #await(BooleanSupplier, long, TimeUnit)} to sleep until that happens instead of polling every row set with a
+ * timeout.
+ * <p>
+ * Only one thread waits on a signal at any time: the thread of the transform copy owning it. Waits are always bounded
+ * so a missed wake-up costs at most the timeout, never a stall.
+ */
+public class RowSetSignal {
+
+  private volatile Thread waiter;
+
+  /**
+   * Wake up the thread waiting on this signal, if any.
+   */
+  public void signal() {
+    Thread thread = waiter;
+    if ( thread != null ) {
+      LockSupport.unpark( thread );
+    }
+  }
+
+  /**
+   * Wait until the condition is met, the signal is raised or the timeout expires, whichever comes first.
+   *
+   * @param condition the condition to wait for, evaluated after registering as the waiting thread
+   * @param timeout   the maximum time to wait
+   * @param tu        the unit of the timeout
+   * @return true if the condition was met
+   */
+  public boolean await( BooleanSupplier condition, long timeout, TimeUnit tu ) {
+    waiter = Thread.currentThread();
+    try {
+      // Check after registering: anything happening from now on will unpark us
+      //
+      if ( condition.getAsBoolean() ) {
+        return true;
+      }
+      LockSupport.parkNanos( this, tu.toNanos( timeout ) );
+      return condition.getAsBoolean();
+    } finally {
+      waiter = null;
+    }
+  }
+
+  /**
+   * @return true if a thread is currently waiting on this signal
+   */
+  public boolean hasWaiter() {
+    return waiter != null;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Describes how a lock-free row set waits for its peer thread when the buffer is empty (reader) or full (writer).
+ * <p>
+ * The first <code>spinCount</code> attempts busy-spin, the next <code>yieldCount</code> attempts yield the CPU and after
+ * that the thread is parked for <code>parkNanos</code> nanoseconds at a time. A parked thread is woken up early by its
+ * peer as soon as there is something to do.
+ */
+public class RowSetWaitStrategy {
+
+  public static final int DEFAULT_SPIN_COUNT = 100;
+  public static final int DEFAULT_YIELD_COUNT = 10;
+  public static final long DEFAULT_PARK_NANOS = 50000L;
+
+  private final int spinCount;
+  private final int yieldCount;
+  private final long parkNanos;
+
+  public RowSetWaitStrategy( int spinCount, int yieldCount, long parkNanos ) {
+    this.spinCount = Math.max( 0, spinCount );
+    this.yieldCount = Math.max( 0, yieldCount );
+    this.parkNanos = Math.max( 1L, parkNanos );
+  }
+
+  /**
+   * @return The wait strategy configured with the HOP_ROWSET_SPIN_COUNT, HOP_ROWSET_YIELD_COUNT and
+   * HOP_ROWSET_PARK_NANOS system properties, falling back to the defaults.
+   */
+  public static RowSetWaitStrategy fromSystemProperties() {
+    return new RowSetWaitStrategy(
+      Const.toInt( System.getProperty( Const.HOP_ROWSET_SPIN_COUNT ), DEFAULT_SPIN_COUNT ),
+      Const.toInt( System.getProperty( Const.HOP_ROWSET_YIELD_COUNT ), DEFAULT_YIELD_COUNT ),
+      Const.toLong( System.getProperty( Const.HOP_ROWSET_PARK_NANOS ), DEFAULT_PARK_NANOS ) );
+  }
+
+  /**
+   * Wait a little while.
+   *
+   * @param attempt      The number of times we already waited for the same condition, starting at 0
+   * @param nanosLeft    The maximum number of nanoseconds we're allowed to wait
+   */
+  public void idle( int attempt, long nanosLeft ) {
+    if ( attempt < spinCount ) {
+      return;
+    }
+    if ( attempt < spinCount + yieldCount ) {
+      Thread.yield();
+      return;
+    }
+    LockSupport.parkNanos( this, Math.min( parkNanos, Math.max( 1L, nanosLeft ) ) );
+  }
+
+  /**
+   * @param attempt The number of times we already waited for the same condition, starting at 0
+   * @return true if this attempt parks the thread, meaning that it needs to be woken up
+   */
+  public boolean isParking( int attempt ) {
+    return attempt >= spinCount + yieldCount;
+  }
+
+  /**
+   * @return the number of busy spins before yielding
+   */
+  public int getSpinCount() {
+    return spinCount;
+  }
+
+  /**
+   * @return the number of yields before parking
+   */
+  public int getYieldCount() {
+    return yieldCount;
+  }
+
+  /**
+   * @return the maximum time a waiting thread is parked in one go
+   */
+  public long getParkNanos() {
+    return parkNanos;
+  }
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free row buffer for exactly one writing thread and exactly one reading thread. This is the situation for every
+ * hop between a single copy of a transform and a single copy of the next transform.
+ * <p>
+ * Rows are kept in a ring of slots. The writer only ever moves the tail sequence, the reader only ever moves the head
+ * sequence. Both sequences are padded to live on their own cache line so the two threads don't invalidate each other's
+ * caches. When the buffer is empty (reader) or full (writer) the thread waits according to a {@link RowSetWaitStrategy}.
+ * <p>
+ * Do NOT use this row set when more than one thread can write or read at the same time.
+ */
+public class SpscRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
+
+  private final Object[][] ring;
+  private final int mask;
+  private final int capacity;
+
+  /**
+   * The reader's sequence. Its cached value is the reader's last known copy of the tail.
+   */
+  private final PaddedSequence head = new PaddedSequence();
+
+  /**
+   * The writer's sequence. Its cached value is the writer's last known copy of the head.
+   */
+  private final PaddedSequence tail = new PaddedSequence();
+
+  private volatile Thread waitingReader;
+  private volatile Thread waitingWriter;
+
+  private final RowSetWaitStrategy waitStrategy;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new single producer, single consumer row set with the given capacity and the wait strategy configured in
+   * the system properties.
+   *
+   * @param maxSize the maximum number of rows in the buffer
+   */
+  public SpscRowSet( int maxSize ) {
+    this( maxSize, RowSetWaitStrategy.fromSystemProperties() );
+  }
+
+  /**
+   * Create a new single producer, single consumer row set.
+   *
+   * @param maxSize      the maximum number of rows in the buffer
+   * @param waitStrategy how to wait on an empty or full buffer
+   */
+  public SpscRowSet( int maxSize, RowSetWaitStrategy waitStrategy ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    int ringSize = Integer.highestOneBit( capacity );
+    if ( ringSize < capacity ) {
+      ringSize <<= 1;
+    }
+    ring = new Object[ ringSize ][];
+    mask = ringSize - 1;
+
+    this.waitStrategy = waitStrategy;
+
+    timeoutGet = Const.toInt( System.getProperty( Const.HOP_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.HOP_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( IRowMeta rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    // Don't dirty the cache line the reader is reading from if nothing changes
+    //
+    if ( this.rowMeta != rowMeta ) {
+      this.rowMeta = rowMeta;
+    }
+    if ( rowData == null ) {
+      return false;
+    }
+
+    long currentTail = tail.value;
+    if ( currentTail - tail.cached >= capacity ) {
+      tail.cached = head.value;
+      if ( currentTail - tail.cached >= capacity ) {
+        // The buffer is full, wait for the reader to make room
+        //
+        long deadline = System.nanoTime() + tu.toNanos( time );
+        int attempt = 0;
+        try {
+          while ( currentTail - tail.cached >= capacity ) {
+            long nanosLeft = deadline - System.nanoTime();
+            if ( nanosLeft <= 0 || Thread.currentThread().isInterrupted() ) {
+              return false;
+            }
+            if ( waitStrategy.isParking( attempt ) ) {
+              waitingWriter = Thread.currentThread();
+            }
+            waitStrategy.idle( attempt++, nanosLeft );
+            tail.cached = head.value;
+          }
+        } finally {
+          if ( waitingWriter != null ) {
+            waitingWriter = null;
+          }
+        }
+      }
+    }
+
+    ring[ (int) currentTail & mask ] = rowData;
+    tail.lazySet( currentTail + 1 );
+
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+    signalChange();
+    return true;
+  }
+
+  /**
+   * Copies as many rows as fit in the ring in one go and publishes them with a single ordered write. Only waits when
+   * the ring is completely full.
+   */
+  @Override
+  public int putRows( IRowMeta rowMeta, Object[][] rows, int offset, int count ) {
+    if ( this.rowMeta != rowMeta ) {
+      this.rowMeta = rowMeta;
+    }
+    int put = 0;
+    while ( put < count ) {
+      long currentTail = tail.value;
+      long free = capacity - ( currentTail - tail.cached );
+      if ( free <= 0 ) {
+        tail.cached = head.value;
+        free = capacity - ( currentTail - tail.cached );
+      }
+      if ( free <= 0 ) {
+        // The buffer is full: wait for room for a single row
+        //
+        if ( !putRowWait( rowMeta, rows[ offset + put ], timeoutPut, TimeUnit.MILLISECONDS ) ) {
+          return put;
+        }
+        put++;
+        continue;
+      }
+
+      int batch = (int) Math.min( free, count - put );
+      for ( int i = 0; i < batch; i++ ) {
+        ring[ (int) ( currentTail + i ) & mask ] = rows[ offset + put + i ];
+      }
+      tail.lazySet( currentTail + batch );
+      put += batch;
+
+      Thread reader = waitingReader;
+      if ( reader != null ) {
+        LockSupport.unpark( reader );
+      }
+      signalChange();
+    }
+    return put;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    long currentHead = head.value;
+    if ( currentHead >= head.cached ) {
+      head.cached = tail.value;
+      if ( currentHead >= head.cached ) {
+        return null;
+      }
+    }
+    return take( currentHead );
+  }
+
+  /**
+   * Takes all available rows up to the maximum and releases their slots with a single ordered write.
+   */
+  @Override
+  public int getRowsImmediate( Object[][] rows, int offset, int max ) {
+    long currentHead = head.value;
+    if ( currentHead + max > head.cached ) {
+      head.cached = tail.value;
+    }
+    int count = (int) Math.min( max, head.cached - currentHead );
+    if ( count <= 0 ) {
+      return 0;
+    }
+    for ( int i = 0; i < count; i++ ) {
+      int index = (int) ( currentHead + i ) & mask;
+      rows[ offset + i ] = ring[ index ];
+      ring[ index ] = null; // prevent any hold-up to GC
+    }
+    head.lazySet( currentHead + count );
+
+    Thread writer = waitingWriter;
+    if ( writer != null ) {
+      LockSupport.unpark( writer );
+    }
+    return count;
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    long currentHead = head.value;
+    if ( currentHead >= head.cached ) {
+      head.cached = tail.value;
+      if ( currentHead >= head.cached ) {
+        // The buffer is empty, wait for the writer to hand us a row
+        //
+        long deadline = System.nanoTime() + tu.toNanos( timeout );
+        int attempt = 0;
+        try {
+          while ( currentHead >= head.cached ) {
+            long nanosLeft = deadline - System.nanoTime();
+            if ( nanosLeft <= 0 || Thread.currentThread().isInterrupted() ) {
+              return null;
+            }
+            if ( waitStrategy.isParking( attempt ) ) {
+              waitingReader = Thread.currentThread();
+            }
+            waitStrategy.idle( attempt++, nanosLeft );
+            head.cached = tail.value;
+          }
+        } finally {
+          if ( waitingReader != null ) {
+            waitingReader = null;
+          }
+        }
+      }
+    }
+    return take( currentHead );
+  }
+
+  private Object[] take( long currentHead ) {
+    int index = (int) currentHead & mask;
+    Object[] row = ring[ index ];
+    ring[ index ] = null; // prevent any hold-up to GC
+    head.lazySet( currentHead + 1 );
+
+    Thread writer = waitingWriter;
+    if ( writer != null ) {
+      LockSupport.unpark( writer );
+    }
+    return row;
+  }
+
+  @Override
+  public int size() {
+    long size = tail.value - head.value;
+    if ( size < 0 ) {
+      return 0;
+    }
+    return (int) Math.min( size, capacity );
+  }
+
+  /**
+   * Clear this rowset. This is only safe when neither the writer nor the reader is active.
+   */
+  @Override
+  public void clear() {
+    for ( int i = 0; i < ring.length; i++ ) {
+      ring[ i ] = null;
+    }
+    long currentTail = tail.value;
+    head.lazySet( currentTail );
+    head.cached = currentTail;
+    tail.cached = currentTail;
+    done.set( false );
+  }
+
+  /**
+   * @return the wait strategy used when the buffer is empty or full
+   */
+  public RowSetWaitStrategy getWaitStrategy() {
+    return waitStrategy;
+  }
+
+  /**
+   * Cache line padding before the sequence value.
+   */
+  @SuppressWarnings( "unused" )
+  private abstract static class LeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+  }
+
+  /**
+   * The sequence value itself. Superclass fields are laid out before subclass fields so the value ends up between the
+   * two paddings.
+   */
+  private abstract static class SequenceValue extends LeftPadding {
+    protected volatile long value;
+  }
+
+  /**
+   * A sequence which doesn't share its cache line with anything else.
+   */
+  @SuppressWarnings( "unused" )
+  private static final class PaddedSequence extends SequenceValue {
+    private static final AtomicLongFieldUpdater<SequenceValue> UPDATER =
+      AtomicLongFieldUpdater.newUpdater( SequenceValue.class, "value" );
+
+    /**
+     * The owning thread's copy of the other side's sequence
+     */
+    long cached;
+
+    protected long p9, p10, p11, p12, p13, p14, p15;
+
+    /**
+     * Ordered write: cheaper than a volatile write but still guarantees that the row in the slot is visible before the
+     * new sequence value.
+     */
+    void lazySet( long newValue ) {
+      UPDATER.lazySet( this, newValue );
+    }
+  }
+}
@@ -1921,6 +1921,99 @@ public abstract class BaseDatabaseMeta implements Cloneable, IDatabase {
     return "DROP TABLE IF EXISTS " + tableName;
   }
 
+  /**
+   * Merges with standard correlated sub-queries: an UPDATE of the target rows which exist in the source, followed by an
+   * INSERT of the source rows which don't exist in the target. Databases with a MERGE statement or an UPDATE ... FROM
+   * construct should override this.
+   */
+  @Override
+  public String[] getSqlMergeFromTable( String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                        String[] updateFields, String[] insertFields ) {
+    List<String> statements = new ArrayList<>();
+    if ( updateFields.length > 0 ) {
+      String sourceRow =
+        " FROM " + sourceSchemaTable + " s WHERE " + getSqlMergeKeyCondition( keyFields, schemaTable, "s" );
+      StringBuilder sql = new StringBuilder( "UPDATE " ).append( schemaTable ).append( " SET " );
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( updateFields[ i ] ).append( " = ( SELECT s." ).append( updateFields[ i ] ).append( sourceRow )
+          .append( " )" );
+      }
+      sql.append( " WHERE EXISTS ( SELECT 1" ).append( sourceRow ).append( " )" );
+      statements.add( sql.toString() );
+    }
+    if ( insertFields.length > 0 ) {
+      statements.add( getSqlMergeInsertMissing( schemaTable, sourceSchemaTable, keyFields, insertFields ) );
+    }
+    return statements.toArray( new String[ 0 ] );
+  }
+
+  /**
+   * @return The INSERT ... SELECT statement which copies the source rows without a matching target row
+   */
+  protected String getSqlMergeInsertMissing( String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                             String[] insertFields ) {
+    return "INSERT INTO " + schemaTable + " ( " + String.join( ", ", insertFields ) + " ) SELECT "
+      + getSqlMergeColumns( insertFields, "s" ) + " FROM " + sourceSchemaTable + " s WHERE NOT EXISTS ( SELECT 1 FROM "
+      + schemaTable + " t WHERE " + getSqlMergeKeyCondition( keyFields, "t", "s" ) + " )";
+  }
+
+  /**
+   * @return A standard MERGE INTO ... USING statement for databases which support it. Key columns can't be in the update
+   * columns.
+   */
+  protected String getSqlMergeStatement( String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                         String[] updateFields, String[] insertFields ) {
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( schemaTable ).append( " t USING " )
+      .append( sourceSchemaTable ).append( " s ON ( " ).append( getSqlMergeKeyCondition( keyFields, "t", "s" ) )
+      .append( " )" );
+    if ( updateFields.length > 0 ) {
+      sql.append( " WHEN MATCHED THEN UPDATE SET " );
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( updateFields[ i ] ).append( " = s." ).append( updateFields[ i ] );
+      }
+    }
+    if ( insertFields.length > 0 ) {
+      sql.append( " WHEN NOT MATCHED THEN INSERT ( " ).append( String.join( ", ", insertFields ) ).append( " ) VALUES ( " )
+        .append( getSqlMergeColumns( insertFields, "s" ) ).append( " )" );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * @return The key columns of both tables compared for equality: t.k1 = s.k1 AND t.k2 = s.k2
+   */
+  protected String getSqlMergeKeyCondition( String[] keyFields, String targetAlias, String sourceAlias ) {
+    StringBuilder condition = new StringBuilder();
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      if ( i > 0 ) {
+        condition.append( " AND " );
+      }
+      condition.append( targetAlias ).append( '.' ).append( keyFields[ i ] ).append( " = " )
+        .append( sourceAlias ).append( '.' ).append( keyFields[ i ] );
+    }
+    return condition.toString();
+  }
+
+  /**
+   * @return The columns prefixed with the alias and separated by commas
+   */
+  protected String getSqlMergeColumns( String[] fields, String alias ) {
+    StringBuilder columns = new StringBuilder();
+    for ( int i = 0; i < fields.length; i++ ) {
+      if ( i > 0 ) {
+        columns.append( ", " );
+      }
+      columns.append( alias ).append( '.' ).append( fields[ i ] );
+    }
+    return columns.toString();
+  }
+
   @Override
   public boolean fullExceptionLog( Exception e ) {
     return true;
@@ -2224,6 +2224,27 @@ public class DatabaseMeta extends HopMetadataBase implements Cloneable, IHopMeta
     return iDatabase.getDropTableIfExistsStatement(tableName);
   }
 
+  /**
+   * Get the statements which merge the rows of a source table into a target table: matching target rows are updated,
+   * the other source rows are inserted.
+   *
+   * @param schemaTable The quoted schema-table combination of the target table
+   * @param sourceSchemaTable The quoted schema-table combination of the source table
+   * @param keyFields The quoted columns to match source and target rows on
+   * @param updateFields The quoted columns to update, empty to leave matching rows alone
+   * @param insertFields The quoted columns to insert, empty to only update
+   * @return The statements to execute, in order
+   */
+  public String[] getSqlMergeFromTable(
+      String schemaTable,
+      String sourceSchemaTable,
+      String[] keyFields,
+      String[] updateFields,
+      String[] insertFields) {
+    return iDatabase.getSqlMergeFromTable(
+        schemaTable, sourceSchemaTable, keyFields, updateFields, insertFields);
+  }
+
   /** For testing */
   protected ILogChannel getGeneralLogger() {
     return LogChannel.GENERAL;
@@ -1077,6 +1077,22 @@ public interface IDatabase extends Cloneable {
    */
   String getDropTableIfExistsStatement( String tableName );
 
+  /**
+   * Get the statements which merge the rows of a source table into a target table: target rows with the same key values
+   * as a source row are updated, the other source rows are inserted. The source table has a column with the same name
+   * for every key, update and insert column and no two of its rows have the same key values. All table and column names
+   * are passed quoted.
+   *
+   * @param schemaTable       The schema-table combination of the target table
+   * @param sourceSchemaTable The schema-table combination of the source table
+   * @param keyFields         The columns to match source and target rows on
+   * @param updateFields      The columns to update in matching target rows, empty to leave them alone
+   * @param insertFields      The columns to insert for source rows without a match, empty to only update
+   * @return The statements to execute, in order
+   */
+  String[] getSqlMergeFromTable( String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                 String[] updateFields, String[] insertFields );
+
   /**
    * Returns false if exception doesn't require
    * full exception log. Could be used in cases of DB vendor
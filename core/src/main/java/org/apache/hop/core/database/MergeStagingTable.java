@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database;
+
+import org.apache.hop.core.Result;
+import org.apache.hop.core.RowMetaAndData;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A work table to write rows to a target table in sets instead of one by one. Rows are collected with {@link
+ * #addRow(Object[])}, {@link #merge()} batch inserts them into the staging table and then moves them into the target
+ * table with the statements of {@link DatabaseMeta#getSqlMergeFromTable(String, String, String[], String[],
+ * String[])}.
+ *
+ * <p>The staging table has a column for every key, update and insert column of the target table, the keys come first.
+ * It is created when it doesn't exist yet and in that case {@link #close()} drops it again. The rows in the staging
+ * table are deleted at the start and after every merge, so a staging table can't be shared by runs which execute at the
+ * same time: see {@link #getDefaultStagingTableName(String, String)}.
+ *
+ * <p>Rows with a null key value never match a row of the target table, like they don't when they are looked up one by
+ * one. They are staged as they are, without replacing each other.
+ */
+public class MergeStagingTable {
+  /** The number of rows per set when the transform doesn't commit in blocks */
+  public static final int DEFAULT_SET_SIZE = 1000;
+
+  private final Database db;
+  private final DatabaseMeta databaseMeta;
+  private final String schemaName;
+  private final String stagingTableName;
+  private final String stagingSchemaTable;
+  private final IRowMeta stagingRowMeta;
+  private final IRowMeta keyRowMeta;
+  private final int nrKeys;
+  private final boolean updateOnly;
+  private final String[] mergeStatements;
+
+  /** The rows to stage by key: the last row with a given key wins */
+  private final Map<Object, Object[]> rows = new LinkedHashMap<>();
+
+  private PreparedStatement insertStatement;
+  private boolean created;
+
+  /** The staging table can hold rows of a failed merge when there was no transaction to roll back */
+  private boolean dirty;
+
+  /**
+   * @param db The connected database
+   * @param schemaName The schema of the target and staging table
+   * @param tableName The target table
+   * @param stagingTableName The staging table
+   * @param stagingRowMeta The staging table columns, named after the target table columns, keys first
+   * @param nrKeys The number of key columns at the start of the staging row
+   * @param updateFields The target columns to update, never a key column
+   * @param insertFields The target columns to insert, empty to only update existing rows
+   */
+  public MergeStagingTable(
+      Database db,
+      String schemaName,
+      String tableName,
+      String stagingTableName,
+      IRowMeta stagingRowMeta,
+      int nrKeys,
+      String[] updateFields,
+      String[] insertFields) {
+    this.db = db;
+    this.databaseMeta = db.getDatabaseMeta();
+    this.schemaName = schemaName;
+    this.stagingTableName = stagingTableName;
+    this.stagingRowMeta = stagingRowMeta;
+    this.nrKeys = nrKeys;
+    this.updateOnly = insertFields.length == 0;
+
+    keyRowMeta = new RowMeta();
+    for (int i = 0; i < nrKeys; i++) {
+      keyRowMeta.addValueMeta(stagingRowMeta.getValueMeta(i));
+    }
+
+    String schemaTable = databaseMeta.getQuotedSchemaTableCombination(db, schemaName, tableName);
+    stagingSchemaTable =
+        databaseMeta.getQuotedSchemaTableCombination(db, schemaName, stagingTableName);
+    mergeStatements =
+        databaseMeta.getSqlMergeFromTable(
+            schemaTable,
+            stagingSchemaTable,
+            quoteFields(Arrays.copyOf(stagingRowMeta.getFieldNames(), nrKeys)),
+            quoteFields(updateFields),
+            quoteFields(insertFields));
+  }
+
+  private String[] quoteFields(String[] fields) {
+    String[] quoted = new String[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      quoted[i] = databaseMeta.quoteField(fields[i]);
+    }
+    return quoted;
+  }
+
+  /**
+   * Create the staging table if it doesn't exist, otherwise empty it, and prepare the insert
+   * statement.
+   *
+   * @throws HopDatabaseException
+   */
+  public void open() throws HopDatabaseException {
+    if (db.checkTableExists(schemaName, stagingTableName)) {
+      // Leftovers of an earlier run that didn't finish
+      db.execStatement("DELETE FROM " + stagingSchemaTable);
+    } else {
+      db.execStatement(
+          db.getCreateTableStatement(stagingSchemaTable, stagingRowMeta, null, false, null, false));
+      created = true;
+    }
+    db.commit(true);
+    insertStatement =
+        db.prepareSql(db.getInsertStatement(schemaName, stagingTableName, stagingRowMeta));
+  }
+
+  /**
+   * @param tableName The target table
+   * @param runId An id which is unique for every run of the transform copy, e.g. its log channel id
+   * @return The name of a staging table which no other run uses: the name of the target table followed by _STG_ and 8
+   *     characters of the run id
+   */
+  public static String getDefaultStagingTableName(String tableName, String runId) {
+    String suffix = runId == null ? "" : runId.replaceAll("[^A-Za-z0-9]", "");
+    if (suffix.length() < 8) {
+      suffix = UUID.randomUUID().toString().replace("-", "");
+    }
+    return tableName + "_STG_" + suffix.substring(0, 8).toUpperCase();
+  }
+
+  /**
+   * Add a row to the next merge. A row with the same key values as an earlier row replaces it, unless one of the key
+   * values is null.
+   *
+   * @param stagingRow The row, in the layout of the staging row metadata
+   */
+  public void addRow(Object[] stagingRow) {
+    for (int i = 0; i < nrKeys; i++) {
+      if (stagingRow[i] == null) {
+        rows.put(new Object(), stagingRow);
+        return;
+      }
+    }
+    rows.put(new RowMetaAndData(keyRowMeta, Arrays.copyOf(stagingRow, nrKeys)), stagingRow);
+  }
+
+  /** @return The number of distinct rows waiting for the next merge, rows with a null key are all counted */
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * Stage the collected rows and merge them into the target table. Doesn't commit: the caller
+   * decides when the target table changes are safe.
+   *
+   * @return The number of updated and inserted (output) rows. A single MERGE statement which also
+   *     inserts reports all its rows as output.
+   * @throws HopDatabaseException
+   */
+  public Result merge() throws HopDatabaseException {
+    Result result = new Result();
+    if (rows.isEmpty()) {
+      return result;
+    }
+    try {
+      if (dirty) {
+        executeUpdate("DELETE FROM " + stagingSchemaTable);
+      }
+      dirty = true;
+      boolean batch = db.getUseBatchInsert(true);
+      for (Object[] row : rows.values()) {
+        db.setValues(stagingRowMeta, row, insertStatement);
+        if (batch) {
+          insertStatement.addBatch();
+        } else {
+          insertStatement.executeUpdate();
+        }
+      }
+      if (batch) {
+        insertStatement.executeBatch();
+        insertStatement.clearBatch();
+      }
+      rows.clear();
+
+      for (String sql : mergeStatements) {
+        long count = executeUpdate(sql);
+        if (updateOnly || sql.startsWith("UPDATE")) {
+          result.setNrLinesUpdated(result.getNrLinesUpdated() + count);
+        } else {
+          result.setNrLinesOutput(result.getNrLinesOutput() + count);
+        }
+      }
+      executeUpdate("DELETE FROM " + stagingSchemaTable);
+      dirty = false;
+    } catch (SQLException e) {
+      rows.clear();
+      throw new HopDatabaseException(
+          "Unable to merge the rows of staging table " + stagingSchemaTable, e);
+    }
+    return result;
+  }
+
+  private long executeUpdate(String sql) throws SQLException {
+    try (Statement statement = db.getConnection().createStatement()) {
+      return Math.max(0, statement.executeUpdate(databaseMeta.stripCR(sql)));
+    }
+  }
+
+  /**
+   * Close the insert statement and drop the staging table if it was created by {@link #open()}.
+   *
+   * @throws HopDatabaseException
+   */
+  public void close() throws HopDatabaseException {
+    rows.clear();
+    if (insertStatement != null) {
+      db.closePreparedStatement(insertStatement);
+      insertStatement = null;
+    }
+    if (created) {
+      created = false;
+      db.execStatement(databaseMeta.getDropTableIfExistsStatement(stagingSchemaTable));
+      db.commit(true);
+    }
+  }
+
+  /** @return The statements which move the staged rows into the target table */
+  public String[] getMergeStatements() {
+    return mergeStatements;
+  }
+
+  /** @return true if the staging table was created by {@link #open()} */
+  public boolean isCreated() {
+    return created;
+  }
+}
@@ -19,12 +19,22 @@ package org.apache.hop.core.hash;
 
 import org.apache.hop.core.exception.HopValueException;
 
+import java.util.Arrays;
+
+/**
+ * A long/long hash index. Keys and values are kept in primitive arrays using open addressing with linear probing so
+ * there is no object allocated per entry.
+ * <p>
+ * Subclasses can use the slot methods to look up and store values without boxing.
+ */
 public class LongHashIndex {
 
   private static final int STANDARD_INDEX_SIZE = 512;
   private static final float STANDARD_LOAD_FACTOR = 0.78f;
 
-  private LongHashIndexEntry[] index;
+  private long[] keys;
+  private long[] values;
+  private boolean[] used;
   private int size;
   private int resizeThresHold;
 
@@ -36,14 +46,12 @@ public class LongHashIndex {
   public LongHashIndex( int size ) {
 
     // Find a suitable capacity being a factor of 2:
-    int factor2Size = 1;
+    int factor2Size = 2;
     while ( factor2Size < size ) {
       factor2Size <<= 1; // Multiply by 2
     }
 
-    this.resizeThresHold = (int) ( factor2Size * STANDARD_LOAD_FACTOR );
-
-    index = new LongHashIndexEntry[ factor2Size ];
+    allocate( factor2Size );
   }
 
   /**
@@ -62,54 +70,88 @@ public class LongHashIndex {
   }
 
   public Long get( long key ) throws HopValueException {
-    int hashCode = generateHashCode( key );
-
-    int indexPointer = indexFor( hashCode, index.length );
-    LongHashIndexEntry check = index[ indexPointer ];
-
-    while ( check != null ) {
-      if ( check.hashCode == hashCode && check.equalsKey( key ) ) {
-        return check.value;
-      }
-      check = check.nextEntry;
+    int slot = findSlot( key );
+    if ( slot < 0 ) {
+      return null;
     }
-    return null;
+    return values[ slot ];
   }
 
   public void put( long key, Long value ) throws HopValueException {
-    int hashCode = generateHashCode( key );
-    int indexPointer = indexFor( hashCode, index.length );
-
-    LongHashIndexEntry check = index[ indexPointer ];
-    LongHashIndexEntry previousCheck = null;
-
-    while ( check != null ) {
-
-      // If there is an identical entry in there, we replace the entry
-      // And then we just return...
+    int slot = findSlot( key );
+    if ( slot >= 0 ) {
+      // If there is an identical entry in there, we replace the value
       //
-      if ( check.hashCode == hashCode && check.equalsKey( key ) ) {
-        check.value = value;
-        return;
-      }
-      previousCheck = check;
-      check = check.nextEntry;
+      values[ slot ] = value;
+    } else {
+      insertAt( -slot - 1, key, value );
     }
+  }
 
-    // Don't forget to link to the previous check entry if there was any...
-    //
-    if ( previousCheck != null ) {
-      previousCheck.nextEntry = new LongHashIndexEntry( hashCode, key, value, null );
-    } else {
-      index[ indexPointer ] = new LongHashIndexEntry( hashCode, key, value, null );
+  /**
+   * Look up the slot of a key.
+   *
+   * @param key the key to look for
+   * @return the slot holding the key or, if the key is not in the index, -(slot + 1) where slot is the free slot to pass
+   * to {@link #insertAt(int, long, long)}
+   */
+  protected final int findSlot( long key ) {
+    int mask = keys.length - 1;
+    int slot = indexFor( mix( key ), keys.length );
+    while ( used[ slot ] ) {
+      if ( keys[ slot ] == key ) {
+        return slot;
+      }
+      slot = ( slot + 1 ) & mask;
     }
+    return -slot - 1;
+  }
+
+  /**
+   * @param slot a slot returned by {@link #findSlot(long)}
+   * @return the value stored in the slot
+   */
+  protected final long getValueAt( int slot ) {
+    return values[ slot ];
+  }
+
+  /**
+   * Store a new key in a free slot. The slot is only valid until the next insert so always get it from
+   * {@link #findSlot(long)} first.
+   *
+   * @param slot  the free slot returned by {@link #findSlot(long)}
+   * @param key   the new key
+   * @param value the value of the new key
+   */
+  protected final void insertAt( int slot, long key, long value ) {
+    used[ slot ] = true;
+    keys[ slot ] = key;
+    values[ slot ] = value;
 
     // If required, resize the table...
     //
     resize();
   }
 
-  private final void resize() {
+  /**
+   * Remove all keys, keeping the current capacity.
+   */
+  public void clear() {
+    Arrays.fill( used, false );
+    size = 0;
+  }
+
+  private void allocate( int capacity ) {
+    keys = new long[ capacity ];
+    values = new long[ capacity ];
+    used = new boolean[ capacity ];
+
+    // Always keep at least one free slot to end the probe sequences
+    //
+    resizeThresHold = Math.max( 1, Math.min( capacity - 1, (int) ( capacity * STANDARD_LOAD_FACTOR ) ) );
+  }
+
+  private void resize() {
     // Increase the size of the index...
     //
     size++;
@@ -117,49 +159,41 @@ public class LongHashIndex {
     // See if we've reached our resize threshold...
     //
     if ( size >= resizeThresHold ) {
-
-      LongHashIndexEntry[] oldIndex = index;
+      long[] oldKeys = keys;
+      long[] oldValues = values;
+      boolean[] oldUsed = used;
 
       // Double the size to keep the size of the index a factor of 2...
-      // Allocate the new array...
       //
-      int newSize = 2 * index.length;
-
-      LongHashIndexEntry[] newIndex = new LongHashIndexEntry[ newSize ];
+      allocate( 2 * oldKeys.length );
 
-      // Loop over the old index and re-distribute the entries
-      // We want to make sure that the calculation
-      // entry.hashCode & ( size - 1)
-      // ends up in the right location after re-sizing...
+      // Re-distribute the entries over the new arrays
       //
-      for ( int i = 0; i < oldIndex.length; i++ ) {
-        LongHashIndexEntry entry = oldIndex[ i ];
-        if ( entry != null ) {
-          oldIndex[ i ] = null;
-
-          // Make sure we follow all the linked entries...
-          // This is a bit of extra work, TODO: see how we can avoid it!
-          //
-          do {
-            LongHashIndexEntry next = entry.nextEntry;
-            int indexPointer = indexFor( entry.hashCode, newSize );
-            entry.nextEntry = newIndex[ indexPointer ];
-            newIndex[ indexPointer ] = entry;
-            entry = next;
-          } while ( entry != null );
+      int mask = keys.length - 1;
+      for ( int i = 0; i < oldKeys.length; i++ ) {
+        if ( oldUsed[ i ] ) {
+          int slot = indexFor( mix( oldKeys[ i ] ), keys.length );
+          while ( used[ slot ] ) {
+            slot = ( slot + 1 ) & mask;
+          }
+          used[ slot ] = true;
+          keys[ slot ] = oldKeys[ i ];
+          values[ slot ] = oldValues[ i ];
         }
       }
-
-      // Replace the old index with the new one we just created...
-      //
-      index = newIndex;
-
-      // Also change the resize threshold...
-      //
-      resizeThresHold = (int) ( newSize * STANDARD_LOAD_FACTOR );
     }
   }
 
+  /**
+   * Spread the bits of the key so that keys following a pattern (sequences, multiples of a power of 2) don't end up
+   * in long runs of neighbouring slots.
+   */
+  private static int mix( long key ) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    int hash = (int) ( h ^ ( h >>> 32 ) );
+    return hash ^ ( hash >>> 16 );
+  }
+
   public static int generateHashCode( Long key ) throws HopValueException {
     return key.hashCode();
   }
@@ -167,28 +201,4 @@ public class LongHashIndex {
   public static int indexFor( int hash, int length ) {
     return hash & ( length - 1 );
   }
-
-  private static final class LongHashIndexEntry {
-    private int hashCode;
-    private long key;
-    private long value;
-    private LongHashIndexEntry nextEntry;
-
-    /**
-     * @param hashCode
-     * @param key
-     * @param value
-     * @param nextEntry
-     */
-    public LongHashIndexEntry( int hashCode, Long key, Long value, LongHashIndexEntry nextEntry ) {
-      this.hashCode = hashCode;
-      this.key = key;
-      this.value = value;
-      this.nextEntry = nextEntry;
-    }
-
-    public boolean equalsKey( long cmpKey ) {
-      return key == cmpKey;
-    }
-  }
 }
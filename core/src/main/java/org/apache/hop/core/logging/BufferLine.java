@@ -22,12 +22,31 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class BufferLine {
   private static AtomicInteger sequence = new AtomicInteger( 0 );
 
-  private int nr;
-  private HopLoggingEvent event;
+  private final int nr;
+  private final HopLoggingEvent event;
+
+  /**
+   * The position of this line in the ring of the logging buffer which holds it
+   */
+  private final long seq;
 
   public BufferLine( HopLoggingEvent event ) {
+    this( event, -1L );
+  }
+
+  BufferLine( HopLoggingEvent event, long seq ) {
     this.event = event;
     this.nr = sequence.incrementAndGet();
+    this.seq = seq;
+  }
+
+  /**
+   * Copy a line to another position, keeping its number.
+   */
+  BufferLine( BufferLine line, long seq ) {
+    this.event = line.event;
+    this.nr = line.nr;
+    this.seq = seq;
   }
 
   public int getNr() {
@@ -38,6 +57,10 @@ public class BufferLine {
     return event;
   }
 
+  long getSeq() {
+    return seq;
+  }
+
   @Override
   public String toString() {
     return event.toString();
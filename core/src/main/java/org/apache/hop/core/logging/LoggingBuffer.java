@@ -21,28 +21,51 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.hop.core.Const;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * This class keeps the last N lines in a buffer
+ * <p>
+ * The lines are kept in a ring in the order in which they were appended, so their line numbers are ascending and a
+ * range of line numbers is found with a binary search. Next to the ring every log channel has an index with its own
+ * lines, which means that reading the log of an execution only touches the lines of that execution and its children.
+ * <p>
+ * Readers never lock: they work on the ring as it was when they started. Appends and the maintenance operations
+ * (clearing, removing lines, changing the maximum number of lines) only serialize among themselves.
  *
  * @author matt
  */
 public class LoggingBuffer {
+
+  /**
+   * The initial capacity of the ring of a buffer without a maximum number of lines. It doubles whenever it fills up.
+   */
+  private static final int UNLIMITED_INITIAL_CAPACITY = 1024;
+
+  private static final int INDEX_INITIAL_CAPACITY = 16;
+
   private String name;
 
-  private List<BufferLine> buffer;
-  private ReadWriteLock lock = new ReentrantReadWriteLock();
+  /**
+   * The lines in the buffer. Appends write into this ring, the maintenance operations replace it.
+   */
+  private volatile Ring ring;
+
+  /**
+   * Serializes the writers: appends and maintenance operations. Readers never take it.
+   */
+  private final Object writeLock = new Object();
 
-  private int bufferSize;
+  private volatile int bufferSize;
 
   private HopLogLayout layout;
 
@@ -52,10 +75,7 @@ public class LoggingBuffer {
 
   public LoggingBuffer( int bufferSize ) {
     this.bufferSize = bufferSize;
-    // The buffer overflow protection allows it to be overflowed for 1 item within a single thread.
-    // Considering a possible high contention, let's set it's max overflow size to be 10%.
-    // Anyway, even an overflow goes higher than 10%, it wouldn't cost us too much.
-    buffer = new ArrayList<>( (int) ( bufferSize * 1.1 ) );
+    ring = new Ring( getCapacity( bufferSize, 0 ), bufferSize > 0 );
     layout = new HopLogLayout( true );
     eventListeners = new CopyOnWriteArrayList<>();
   }
@@ -64,16 +84,13 @@ public class LoggingBuffer {
    * @return the number (sequence, 1..N) of the last log line. If no records are present in the buffer, 0 is returned.
    */
   public int getLastBufferLineNr() {
-    lock.readLock().lock();
-    try {
-      if ( buffer.size() > 0 ) {
-        return buffer.get( buffer.size() - 1 ).getNr();
-      } else {
-        return 0;
-      }
-    } finally {
-      lock.readLock().unlock();
+    Ring current = ring;
+    long tail = current.tail;
+    if ( tail == current.getHead( tail ) ) {
+      return 0;
     }
+    BufferLine line = current.getLine( tail - 1 );
+    return line == null ? 0 : line.getNr();
   }
 
   /**
@@ -85,19 +102,43 @@ public class LoggingBuffer {
    */
   public List<HopLoggingEvent> getLogBufferFromTo( List<String> channelId, boolean includeGeneral, int from,
                                                    int to ) {
-    lock.readLock().lock();
-    try {
-      Stream<BufferLine> bufferStream = buffer.stream().filter( line -> line.getNr() > from && line.getNr() <= to );
-      if ( channelId != null ) {
-        bufferStream = bufferStream.filter( line -> {
-          String logChannelId = getLogChId( line );
-          return includeGeneral ? isGeneral( logChannelId ) || channelId.contains( logChannelId ) : channelId.contains( logChannelId );
-        } );
+    Ring current = ring;
+    long tail = current.tail;
+    long head = current.getHead( tail );
+
+    List<BufferLine> lines = new ArrayList<>();
+    if ( channelId == null ) {
+      current.collect( head, tail, from, to, lines );
+    } else {
+      // Only look at the lines of the requested channels, every channel only once
+      //
+      Set<ChannelIndex> indexes = new HashSet<>();
+      for ( String id : channelId ) {
+        ChannelIndex index = current.getIndex( id );
+        if ( index != null ) {
+          indexes.add( index );
+        }
+      }
+      if ( includeGeneral ) {
+        for ( Map.Entry<String, ChannelIndex> entry : current.channels.entrySet() ) {
+          if ( isGeneral( entry.getKey() ) ) {
+            indexes.add( entry.getValue() );
+          }
+        }
       }
-      return bufferStream.map( BufferLine::getEvent ).collect( Collectors.toList() );
-    } finally {
-      lock.readLock().unlock();
+      for ( ChannelIndex index : indexes ) {
+        index.collect( head, tail, from, to, lines );
+      }
+      if ( indexes.size() > 1 ) {
+        lines.sort( Comparator.comparingInt( BufferLine::getNr ) );
+      }
+    }
+
+    List<HopLoggingEvent> events = new ArrayList<>( lines.size() );
+    for ( BufferLine line : lines ) {
+      events.add( line.getEvent() );
     }
+    return events;
   }
 
   /**
@@ -147,14 +188,14 @@ public class LoggingBuffer {
 
   public void doAppend( HopLoggingEvent event ) {
     if ( event.getMessage() instanceof LogMessage ) {
-      lock.writeLock().lock();
-      try {
-        buffer.add( new BufferLine( event ) );
-        while ( bufferSize > 0 && buffer.size() > bufferSize ) {
-          buffer.remove( 0 );
+      synchronized ( writeLock ) {
+        Ring current = ring;
+        long seq = current.tail;
+        if ( !current.bounded && seq == current.lines.length ) {
+          current = new Ring( current, current.lines.length * 2 );
+          ring = current;
         }
-      } finally {
-        lock.writeLock().unlock();
+        current.append( new BufferLine( event, seq ) );
       }
     }
   }
@@ -180,11 +221,9 @@ public class LoggingBuffer {
   }
 
   public void clear() {
-    lock.writeLock().lock();
-    try {
-      buffer.clear();
-    } finally {
-      lock.writeLock().unlock();
+    synchronized ( writeLock ) {
+      int maxNrLines = bufferSize;
+      ring = new Ring( getCapacity( maxNrLines, 0 ), maxNrLines > 0 );
     }
   }
 
@@ -199,14 +238,20 @@ public class LoggingBuffer {
    * @param maxNrLines the maximum number of lines that this buffer should contain, 0 or lower means: no limit
    */
   public void setMaxNrLines( int maxNrLines ) {
-    this.bufferSize = maxNrLines;
+    synchronized ( writeLock ) {
+      if ( maxNrLines == bufferSize ) {
+        return;
+      }
+      bufferSize = maxNrLines;
+      rebuild( getLines( ring ) );
+    }
   }
 
   /**
    * @return the nrLines
    */
   public int getNrLines() {
-    return buffer.size();
+    return size();
   }
 
   /**
@@ -215,24 +260,25 @@ public class LoggingBuffer {
    * @param id the id of the logging channel to remove
    */
   public void removeChannelFromBuffer( String id ) {
-    lock.writeLock().lock();
-    try {
-      buffer.removeIf( line -> id.equals( getLogChId( line ) ) );
-    } finally {
-      lock.writeLock().unlock();
+    synchronized ( writeLock ) {
+      if ( ring.getIndex( id ) != null ) {
+        removeLines( line -> id.equals( getLogChId( line ) ) );
+      }
     }
   }
 
   public int size() {
-    return buffer.size();
+    Ring current = ring;
+    long tail = current.tail;
+    return (int) ( tail - current.getHead( tail ) );
   }
 
   public void removeGeneralMessages() {
-    lock.writeLock().lock();
-    try {
-      buffer.removeIf( line -> isGeneral( getLogChId( line ) ) );
-    } finally {
-      lock.writeLock().unlock();
+    synchronized ( writeLock ) {
+      removeLines( line -> {
+        String logChannelId = getLogChId( line );
+        return logChannelId != null && isGeneral( logChannelId );
+      } );
     }
   }
 
@@ -246,7 +292,7 @@ public class LoggingBuffer {
   @Deprecated
   @VisibleForTesting
   public Iterator<BufferLine> getBufferIterator() {
-    return buffer.iterator();
+    return getLines( ring ).iterator();
   }
 
   /**
@@ -255,17 +301,12 @@ public class LoggingBuffer {
   @Deprecated
   public String dump() {
     StringBuilder buf = new StringBuilder( 50000 );
-    lock.readLock().lock();
-    try {
-      buffer.forEach( line -> {
-        LogMessage message = (LogMessage) line.getEvent().getMessage();
-        buf.append( message.getLogChannelId() ).append( "\t" )
-          .append( message.getSubject() ).append( "\n" );
-      } );
-      return buf.toString();
-    } finally {
-      lock.readLock().unlock();
-    }
+    getLines( ring ).forEach( line -> {
+      LogMessage message = (LogMessage) line.getEvent().getMessage();
+      buf.append( message.getLogChannelId() ).append( "\t" )
+        .append( message.getSubject() ).append( "\n" );
+    } );
+    return buf.toString();
   }
 
   /**
@@ -275,11 +316,11 @@ public class LoggingBuffer {
    */
   @Deprecated
   public void removeBufferLines( List<BufferLine> linesToRemove ) {
-    lock.writeLock().lock();
-    try {
-      buffer.removeAll( linesToRemove );
-    } finally {
-      lock.writeLock().unlock();
+    // Match on the line number: the maintenance operations copy the lines they keep
+    //
+    Set<Integer> nrsToRemove = linesToRemove.stream().map( BufferLine::getNr ).collect( Collectors.toSet() );
+    synchronized ( writeLock ) {
+      removeLines( line -> nrsToRemove.contains( line.getNr() ) );
     }
   }
 
@@ -290,34 +331,26 @@ public class LoggingBuffer {
    */
   @Deprecated
   public List<BufferLine> getBufferLinesBefore( long minTimeBoundary ) {
-    lock.readLock().lock();
-    try {
-      return buffer.stream().filter( line -> line.getEvent().timeStamp < minTimeBoundary )
-        .collect( Collectors.toList() );
-    } finally {
-      lock.readLock().unlock();
-    }
+    return getLines( ring ).stream().filter( line -> line.getEvent().timeStamp < minTimeBoundary )
+      .collect( Collectors.toList() );
   }
 
   public void removeBufferLinesBefore( long minTimeBoundary ) {
-    // Using HashSet even though BufferLine does not implement hashcode and equals,
-    // we just need to remove the exact objects we have found and put in the set.
-    Set<BufferLine> linesToRemove = new HashSet<>();
-    lock.writeLock().lock();
-    try {
-      for ( BufferLine bufferLine : buffer ) {
-        if ( bufferLine.getEvent().timeStamp < minTimeBoundary ) {
-          linesToRemove.add( bufferLine );
-        } else {
-          break;
-        }
+    synchronized ( writeLock ) {
+      Ring current = ring;
+      long tail = current.tail;
+      long head = current.getHead( tail );
+
+      // The lines are in the order in which they were logged: only the first ones can be too old.
+      //
+      long seq = head;
+      while ( seq < tail && current.getLine( seq ).getEvent().timeStamp < minTimeBoundary ) {
+        seq++;
+      }
+      if ( seq > head ) {
+        List<BufferLine> lines = getLines( current );
+        rebuild( lines.subList( (int) ( seq - head ), lines.size() ) );
       }
-      // removeAll should run fast against a HashSet,
-      // since ArrayList.batchRemove check for each element of a collection given if it is in the ArrayList.
-      // Thus, removeAll should run in a linear time.
-      buffer.removeAll( linesToRemove );
-    } finally {
-      lock.writeLock().unlock();
     }
   }
 
@@ -334,6 +367,58 @@ public class LoggingBuffer {
     eventListeners.remove( listener );
   }
 
+  /**
+   * Keep the lines which don't match the predicate. The caller holds the write lock.
+   */
+  private void removeLines( Predicate<BufferLine> remove ) {
+    List<BufferLine> lines = getLines( ring );
+    List<BufferLine> keep = new ArrayList<>( lines.size() );
+    for ( BufferLine line : lines ) {
+      if ( !remove.test( line ) ) {
+        keep.add( line );
+      }
+    }
+    if ( keep.size() < lines.size() ) {
+      rebuild( keep );
+    }
+  }
+
+  /**
+   * Replace the ring with a new one holding copies of the given lines, as far as they fit. Readers which are still
+   * busy with the old ring can safely finish. The caller holds the write lock.
+   */
+  private void rebuild( List<BufferLine> lines ) {
+    int maxNrLines = bufferSize;
+    if ( maxNrLines > 0 && lines.size() > maxNrLines ) {
+      lines = lines.subList( lines.size() - maxNrLines, lines.size() );
+    }
+    Ring rebuilt = new Ring( getCapacity( maxNrLines, lines.size() ), maxNrLines > 0 );
+    long seq = 0;
+    for ( BufferLine line : lines ) {
+      rebuilt.append( new BufferLine( line, seq++ ) );
+    }
+    ring = rebuilt;
+  }
+
+  private static List<BufferLine> getLines( Ring ring ) {
+    long tail = ring.tail;
+    long head = ring.getHead( tail );
+    List<BufferLine> lines = new ArrayList<>( (int) ( tail - head ) );
+    ring.collect( head, tail, Integer.MIN_VALUE, Integer.MAX_VALUE, lines );
+    return lines;
+  }
+
+  private static int getCapacity( int maxNrLines, int nrLines ) {
+    if ( maxNrLines > 0 ) {
+      return maxNrLines;
+    }
+    int capacity = UNLIMITED_INITIAL_CAPACITY;
+    while ( capacity < nrLines ) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
   private boolean isGeneral( String logChannelId ) {
     ILoggingObject loggingObject = loggingRegistry.getLoggingObject( logChannelId );
     return loggingObject != null && LoggingObjectType.GENERAL.equals( loggingObject.getObjectType() );
@@ -342,4 +427,219 @@ public class LoggingBuffer {
   private static String getLogChId( BufferLine bufferLine ) {
     return ( (LogMessage) bufferLine.getEvent().getMessage() ).getLogChannelId();
   }
+
+  /**
+   * The lines of a buffer by position (sequence). A bounded ring overwrites its oldest line when it is full, an
+   * unbounded ring is replaced by a bigger copy before that happens. Only the thread holding the write lock appends, the
+   * volatile tail publishes the appended lines to the readers.
+   */
+  private static final class Ring {
+    private final BufferLine[] lines;
+    private final boolean bounded;
+
+    /**
+     * The lines of every log channel
+     */
+    private final Map<String, ChannelIndex> channels;
+
+    /**
+     * The lines without a log channel
+     */
+    private final ChannelIndex noChannel;
+
+    /**
+     * The sequence of the next line to append
+     */
+    private volatile long tail;
+
+    Ring( int capacity, boolean bounded ) {
+      this.lines = new BufferLine[ capacity ];
+      this.bounded = bounded;
+      this.channels = new ConcurrentHashMap<>();
+      this.noChannel = new ChannelIndex();
+    }
+
+    /**
+     * A bigger copy of an unbounded ring. The lines keep their positions so the channel indexes are shared.
+     */
+    Ring( Ring ring, int capacity ) {
+      this.lines = new BufferLine[ capacity ];
+      this.bounded = ring.bounded;
+      this.channels = ring.channels;
+      this.noChannel = ring.noChannel;
+      long last = ring.tail;
+      for ( long seq = ring.getHead( last ); seq < last; seq++ ) {
+        lines[ getSlot( seq ) ] = ring.lines[ ring.getSlot( seq ) ];
+      }
+      this.tail = last;
+    }
+
+    private int getSlot( long seq ) {
+      return (int) ( seq % lines.length );
+    }
+
+    /**
+     * @return the sequence of the oldest line still in the ring when the tail is at the given sequence
+     */
+    long getHead( long tail ) {
+      return bounded ? Math.max( 0L, tail - lines.length ) : 0L;
+    }
+
+    /**
+     * @return the line at the given position or null if it was overwritten in the mean time
+     */
+    BufferLine getLine( long seq ) {
+      BufferLine line = lines[ getSlot( seq ) ];
+      return line != null && line.getSeq() == seq ? line : null;
+    }
+
+    ChannelIndex getIndex( String logChannelId ) {
+      return logChannelId == null ? noChannel : channels.get( logChannelId );
+    }
+
+    void append( BufferLine line ) {
+      long seq = line.getSeq();
+      lines[ getSlot( seq ) ] = line;
+
+      String logChannelId = getLogChId( line );
+      ChannelIndex index = getIndex( logChannelId );
+      if ( index == null ) {
+        index = new ChannelIndex();
+        channels.put( logChannelId, index );
+      }
+      long head = getHead( seq + 1 );
+      index.add( line, head );
+
+      tail = seq + 1;
+
+      // Every time the ring went round, forget the channels which have no lines left in it
+      //
+      if ( bounded && seq > 0 && seq % lines.length == 0 ) {
+        channels.values().removeIf( channelIndex -> channelIndex.isEvicted( head ) );
+        if ( noChannel.isEvicted( head ) ) {
+          noChannel.reset();
+        }
+      }
+    }
+
+    /**
+     * Add the lines between head and tail with a number after from, up to and including to.
+     */
+    void collect( long head, long tail, int from, int to, List<BufferLine> result ) {
+      // Binary search for the first line after from. A line which was overwritten is older than any line left.
+      //
+      long low = head;
+      long high = tail;
+      while ( low < high ) {
+        long mid = ( low + high ) >>> 1;
+        BufferLine line = getLine( mid );
+        if ( line == null || line.getNr() <= from ) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for ( long seq = low; seq < tail; seq++ ) {
+        BufferLine line = getLine( seq );
+        if ( line == null ) {
+          continue;
+        }
+        if ( line.getNr() > to ) {
+          break;
+        }
+        result.add( line );
+      }
+    }
+  }
+
+  /**
+   * The lines of a single log channel in the order of the ring. Only the thread holding the write lock adds lines, the
+   * volatile size of a segment publishes them to the readers. A full segment is replaced by a bigger one without the
+   * lines which already left the ring.
+   */
+  private static final class ChannelIndex {
+    private volatile Segment segment = new Segment( new BufferLine[ INDEX_INITIAL_CAPACITY ], 0 );
+
+    void add( BufferLine line, long head ) {
+      Segment current = segment;
+      int size = current.size;
+      if ( size < current.lines.length ) {
+        current.lines[ size ] = line;
+        current.size = size + 1;
+        return;
+      }
+      int first = findSeq( current.lines, size, head );
+      int live = size - first;
+      BufferLine[] lines = new BufferLine[ Math.max( INDEX_INITIAL_CAPACITY, ( live + 1 ) * 2 ) ];
+      System.arraycopy( current.lines, first, lines, 0, live );
+      lines[ live ] = line;
+      segment = new Segment( lines, live + 1 );
+    }
+
+    boolean isEvicted( long head ) {
+      Segment current = segment;
+      int size = current.size;
+      return size > 0 && current.lines[ size - 1 ].getSeq() < head;
+    }
+
+    void reset() {
+      segment = new Segment( new BufferLine[ INDEX_INITIAL_CAPACITY ], 0 );
+    }
+
+    /**
+     * Add the lines between head and tail with a number after from, up to and including to.
+     */
+    void collect( long head, long tail, int from, int to, List<BufferLine> result ) {
+      Segment current = segment;
+      int size = current.size;
+      BufferLine[] lines = current.lines;
+
+      // Binary search for the first line after from
+      //
+      int low = 0;
+      int high = size;
+      while ( low < high ) {
+        int mid = ( low + high ) >>> 1;
+        if ( lines[ mid ].getNr() <= from ) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for ( int i = Math.max( low, findSeq( lines, size, head ) ); i < size; i++ ) {
+        BufferLine line = lines[ i ];
+        if ( line.getNr() > to || line.getSeq() >= tail ) {
+          break;
+        }
+        result.add( line );
+      }
+    }
+
+    /**
+     * @return the index of the first line at or after the given position
+     */
+    private static int findSeq( BufferLine[] lines, int size, long seq ) {
+      int low = 0;
+      int high = size;
+      while ( low < high ) {
+        int mid = ( low + high ) >>> 1;
+        if ( lines[ mid ].getSeq() < seq ) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  private static final class Segment {
+    private final BufferLine[] lines;
+    private volatile int size;
+
+    Segment( BufferLine[] lines, int size ) {
+      this.lines = lines;
+      this.size = size;
+    }
+  }
 }
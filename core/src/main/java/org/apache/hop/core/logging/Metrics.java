@@ -129,6 +129,15 @@ public class Metrics implements IMetrics {
     MetricsSnapshotType.COUNT, "METRIC_LOGGING_REGISTRY_GET_CHILDREN_COUNT",
     "Number of times retrieved log registry children" );
 
+  // Lookup caches
+  //
+  public static Metrics METRIC_LOOKUP_CACHE_HITS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_LOOKUP_CACHE_HITS", "Number of lookups served from the cache" );
+  public static Metrics METRIC_LOOKUP_CACHE_MISSES = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_LOOKUP_CACHE_MISSES", "Number of lookups not found in the cache" );
+  public static Metrics METRIC_LOOKUP_CACHE_EVICTIONS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_LOOKUP_CACHE_EVICTIONS", "Number of entries evicted from the cache" );
+
   // Workflow
   //
   public static Metrics METRIC_WORKFLOW_START = new Metrics(
@@ -46,8 +46,9 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HopVfs {
   private static final Class<?> PKG = HopVfs.class; // For Translator
@@ -57,24 +58,39 @@ public class HopVfs {
   private static final int TIMEOUT_LIMIT = 9000;
   private static final int TIME_TO_SLEEP_TRANSFORM = 50;
 
-  private static DefaultFileSystemManager fsm;
+  /**
+   * The default maximum number of filenames for which the resolved file object is kept
+   */
+  public static final int DEFAULT_CACHE_SIZE = 1000;
+
+  private static volatile DefaultFileSystemManager fsm;
+
+  private static final Object fsmLock = new Object();
 
-  private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  /**
+   * The last resolved filenames, see {@link #getFileObject(String)}
+   */
+  private static final Map<String, ResolvedFile> resolvedFiles = new ConcurrentHashMap<>();
+
+  private static final int cacheSize =
+    Const.toInt( System.getProperty( Const.HOP_VFS_CACHE_SIZE ), DEFAULT_CACHE_SIZE );
 
   public static DefaultFileSystemManager getFileSystemManager() {
-    lock.readLock().lock();
-    try {
-      if ( fsm == null ) {
-        try {
-          fsm = createFileSystemManager();
-        } catch ( Exception e ) {
-          throw new RuntimeException( "Error initializing file system manager : ", e );
+    DefaultFileSystemManager fsManager = fsm;
+    if ( fsManager == null ) {
+      synchronized ( fsmLock ) {
+        fsManager = fsm;
+        if ( fsManager == null ) {
+          try {
+            fsManager = createFileSystemManager();
+          } catch ( Exception e ) {
+            throw new RuntimeException( "Error initializing file system manager : ", e );
+          }
+          fsm = fsManager;
         }
       }
-      return fsm;
-    } finally {
-      lock.readLock().unlock();
     }
+    return fsManager;
   }
 
   /**
@@ -144,66 +160,107 @@ public class HopVfs {
     }
   }
 
-  public synchronized static FileObject getFileObject( String vfsFilename ) throws HopFileException {
-    lock.readLock().lock();
-    try {
-      DefaultFileSystemManager fsManager = getFileSystemManager();
+  /**
+   * Resolve a filename or URL to a file object. Threads resolve files concurrently.
+   * <p>
+   * The result is kept for the last used filenames: resolving the same filename again skips the scheme detection and
+   * parsing of the name. The file object is refreshed on every hit, like the file system manager does with its own cache.
+   * Files in layered file systems (zip, tar, gz, ...) are looked up again every time, these file systems can be closed
+   * by their users.
+   *
+   * @param vfsFilename the filename or URL with all variables resolved
+   * @return the file object
+   * @throws HopFileException
+   */
+  public static FileObject getFileObject( String vfsFilename ) throws HopFileException {
+    DefaultFileSystemManager fsManager = getFileSystemManager();
 
+    ResolvedFile resolved = vfsFilename == null ? null : resolvedFiles.get( vfsFilename );
+    if ( resolved != null && resolved.fsManager == fsManager ) {
       try {
-        // We have one problem with VFS: if the file is in a subdirectory of the current one: somedir/somefile
-        // In that case, VFS doesn't parse the file correctly.
-        // We need to put file: in front of it to make it work.
-        // However, how are we going to verify this?
-        //
-        // We are going to see if the filename starts with one of the known protocols like file: zip: ram: smb: jar: etc.
-        // If not, we are going to assume it's a file.
+        if ( resolved.fileObject != null ) {
+          resolved.fileObject.refresh();
+          return resolved.fileObject;
+        }
+        return fsManager.resolveFile( resolved.filename );
+      } catch ( Exception e ) {
+        // Forget about it and resolve the filename from scratch
         //
-        boolean relativeFilename = true;
-        String[] initialSchemes = fsManager.getSchemes();
+        resolvedFiles.remove( vfsFilename );
+      }
+    }
 
-        relativeFilename = checkForScheme( initialSchemes, relativeFilename, vfsFilename );
+    try {
+      // We have one problem with VFS: if the file is in a subdirectory of the current one: somedir/somefile
+      // In that case, VFS doesn't parse the file correctly.
+      // We need to put file: in front of it to make it work.
+      // However, how are we going to verify this?
+      //
+      // We are going to see if the filename starts with one of the known protocols like file: zip: ram: smb: jar: etc.
+      // If not, we are going to assume it's a file.
+      //
+      boolean relativeFilename = true;
+      String[] initialSchemes = fsManager.getSchemes();
 
-        int timeOut = TIMEOUT_LIMIT;
+      relativeFilename = checkForScheme( initialSchemes, relativeFilename, vfsFilename );
 
-        boolean hasScheme = vfsFilename != null && vfsFilename.contains( "://" ); // check for bigData providers
-        //we have to check for hasScheme even if it is marked as a relative path because that scheme could not
-        //be available by getSchemes at the time we validate our relativeFilename flag.
-        //So we check if even it is marked as relative path if it contains a possible scheme format
-        //if it does, then give it some time to be loaded, until we get it our timeout is up.
+      int timeOut = TIMEOUT_LIMIT;
 
-        while ( relativeFilename && hasScheme && timeOut > 0 ) {
-          String[] schemes = fsManager.getSchemes();
-          try {
-            Thread.sleep( TIME_TO_SLEEP_TRANSFORM );
-            timeOut -= TIME_TO_SLEEP_TRANSFORM;
-            relativeFilename = checkForScheme( schemes, relativeFilename, vfsFilename );
-          } catch ( InterruptedException e ) {
-            relativeFilename = false;
-            Thread.currentThread().interrupt();
-            break;
-          }
+      boolean hasScheme = vfsFilename != null && vfsFilename.contains( "://" ); // check for bigData providers
+      //we have to check for hasScheme even if it is marked as a relative path because that scheme could not
+      //be available by getSchemes at the time we validate our relativeFilename flag.
+      //So we check if even it is marked as relative path if it contains a possible scheme format
+      //if it does, then give it some time to be loaded, until we get it our timeout is up.
+
+      while ( relativeFilename && hasScheme && timeOut > 0 ) {
+        String[] schemes = fsManager.getSchemes();
+        try {
+          Thread.sleep( TIME_TO_SLEEP_TRANSFORM );
+          timeOut -= TIME_TO_SLEEP_TRANSFORM;
+          relativeFilename = checkForScheme( schemes, relativeFilename, vfsFilename );
+        } catch ( InterruptedException e ) {
+          relativeFilename = false;
+          Thread.currentThread().interrupt();
+          break;
         }
+      }
 
-        String filename;
-        if ( vfsFilename.startsWith( "\\\\" ) ) {
+      String filename;
+      if ( vfsFilename.startsWith( "\\\\" ) ) {
+        File file = new File( vfsFilename );
+        filename = file.toURI().toString();
+      } else {
+        if ( relativeFilename ) {
           File file = new File( vfsFilename );
-          filename = file.toURI().toString();
+          filename = file.getAbsolutePath();
         } else {
-          if ( relativeFilename ) {
-            File file = new File( vfsFilename );
-            filename = file.getAbsolutePath();
-          } else {
-            filename = vfsFilename;
-          }
+          filename = vfsFilename;
         }
+      }
 
-        return fsManager.resolveFile( filename );
-      } catch ( Exception e ) {
-        throw new HopFileException( "Unable to get VFS File object for filename '" + cleanseFilename( vfsFilename ) + "' : " + e.getMessage(), e );
+      FileObject fileObject = fsManager.resolveFile( filename );
+
+      // Don't remember a filename with a scheme which isn't registered (yet)
+      //
+      if ( !( relativeFilename && hasScheme ) ) {
+        cacheResolvedFile( vfsFilename, filename, fileObject, fsManager );
       }
-    } finally {
-      lock.readLock().unlock();
+      return fileObject;
+    } catch ( Exception e ) {
+      throw new HopFileException( "Unable to get VFS File object for filename '" + cleanseFilename( vfsFilename ) + "' : " + e.getMessage(), e );
+    }
+  }
+
+  private static void cacheResolvedFile( String vfsFilename, String filename, FileObject fileObject,
+                                         DefaultFileSystemManager fsManager ) throws FileSystemException {
+    if ( cacheSize <= 0 ) {
+      return;
     }
+    if ( resolvedFiles.size() >= cacheSize ) {
+      resolvedFiles.clear();
+    }
+    boolean layered = fileObject.getFileSystem().getParentLayer() != null;
+    resolvedFiles.put( vfsFilename, new ResolvedFile( filename, layered ? null : fileObject, fsManager ) );
   }
 
   protected static boolean checkForScheme( String[] initialSchemes, boolean relativeFilename, String vfsFilename ) {
@@ -384,7 +441,7 @@ public class HopVfs {
    * @return FileObject
    * @throws HopFileException
    */
-  public synchronized static FileObject createTempFile( String prefix, String suffix, String directory ) throws HopFileException {
+  public static FileObject createTempFile( String prefix, String suffix, String directory ) throws HopFileException {
     try {
       FileObject fileObject;
       do {
@@ -451,40 +508,55 @@ public class HopVfs {
    * @return boolean
    */
   public static boolean startsWithScheme( String vfsFileName ) {
-    lock.readLock().lock();
-    try {
-
-      DefaultFileSystemManager fsManager = getFileSystemManager();
-
-      boolean found = false;
-      String[] schemes = fsManager.getSchemes();
-      for ( int i = 0; i < schemes.length; i++ ) {
-        if ( vfsFileName.startsWith( schemes[ i ] + ":" ) ) {
-          found = true;
-          break;
-        }
+    DefaultFileSystemManager fsManager = getFileSystemManager();
+
+    boolean found = false;
+    String[] schemes = fsManager.getSchemes();
+    for ( int i = 0; i < schemes.length; i++ ) {
+      if ( vfsFileName.startsWith( schemes[ i ] + ":" ) ) {
+        found = true;
+        break;
       }
-
-      return found;
-    } finally {
-      lock.readLock().unlock();
     }
+
+    return found;
   }
 
   /**
    * @see StandardFileSystemManager#freeUnusedResources()
    */
   public static void freeUnusedResources() {
-    if (fsm!=null) {
-      fsm.freeUnusedResources();
+    DefaultFileSystemManager fsManager = fsm;
+    if ( fsManager != null ) {
+      resolvedFiles.clear();
+      fsManager.freeUnusedResources();
     }
   }
 
   public static void reset() {
-    if (fsm!=null) {
-      fsm.freeUnusedResources();
-      fsm.close();
-      fsm = null;
+    synchronized ( fsmLock ) {
+      resolvedFiles.clear();
+      if ( fsm != null ) {
+        fsm.freeUnusedResources();
+        fsm.close();
+        fsm = null;
+      }
+    }
+  }
+
+  /**
+   * A filename as it was passed to the file system manager and the file object it resolved to. The file object is null
+   * if it can't be reused.
+   */
+  private static final class ResolvedFile {
+    private final String filename;
+    private final FileObject fileObject;
+    private final DefaultFileSystemManager fsManager;
+
+    ResolvedFile( String filename, FileObject fileObject, DefaultFileSystemManager fsManager ) {
+      this.filename = filename;
+      this.fileObject = fileObject;
+      this.fsManager = fsManager;
     }
   }
 
@@ -27,11 +27,15 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -120,4 +124,114 @@ public class BlockingBatchingRowSetTest {
     assertNotNull( r );
     assertArrayEquals( rows.get( 2 ), r );
   }
+
+  /**
+   * A few rows which never fill up a batch must not get stuck when the writer goes idle without being done.
+   */
+  @Test
+  public void testSmallRowCountIsFlushedOnIdle() {
+    BlockingBatchingRowSet set = new BlockingBatchingRowSet( 10000, 1L );
+    IRowMeta rm = createRowMetaInterface();
+
+    Object[] r1 = new Object[] { 1L };
+    Object[] r2 = new Object[] { 2L };
+    set.putRow( rm, r1 );
+    set.putRow( rm, r2 );
+
+    // The writer is idle now. The reader takes the partial batch over after the flush delay.
+    //
+    assertSame( r1, set.getRowWait( 5, TimeUnit.SECONDS ) );
+    assertSame( r2, set.getRowWait( 5, TimeUnit.SECONDS ) );
+    assertNull( set.getRowWait( 10, TimeUnit.MILLISECONDS ) );
+
+    // The writer continues in a new batch
+    //
+    Object[] r3 = new Object[] { 3L };
+    set.putRow( rm, r3 );
+    assertSame( r3, set.getRowWait( 5, TimeUnit.SECONDS ) );
+    assertFalse( set.isDone() );
+  }
+
+  /**
+   * A partial batch is handed over as soon as the row set is done.
+   */
+  @Test
+  public void testPartialBatchHandedOverOnDone() {
+    BlockingBatchingRowSet set = new BlockingBatchingRowSet( 10000, TimeUnit.HOURS.toMillis( 1 ) );
+    IRowMeta rm = createRowMetaInterface();
+
+    Object[] r1 = new Object[] { 1L };
+    set.putRow( rm, r1 );
+
+    // Way below the flush delay: nothing yet
+    //
+    assertNull( set.getRowImmediate() );
+
+    set.setDone();
+    assertTrue( set.isDone() );
+    assertEquals( 1, set.size() );
+    assertSame( r1, set.getRowImmediate() );
+    assertNull( set.getRowImmediate() );
+    assertEquals( 0, set.size() );
+  }
+
+  /**
+   * Rows keep their order when the reader takes over partial batches while the writer is busy.
+   */
+  @Test
+  public void testOrderWithConcurrentFlushes() throws Exception {
+    final int nrRows = 100000;
+    final BlockingBatchingRowSet set = new BlockingBatchingRowSet( 64, 0L );
+    final IRowMeta rm = createRowMetaInterface();
+    final AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread writer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] row = new Object[] { i };
+        while ( !set.putRow( rm, row ) ) {
+          if ( Thread.currentThread().isInterrupted() ) {
+            return;
+          }
+        }
+        if ( i % 1000 == 0 ) {
+          // Give the reader the chance to take over a partial batch
+          //
+          Thread.yield();
+        }
+      }
+      set.setDone();
+    } );
+
+    Thread reader = new Thread( () -> {
+      long expected = 0;
+      while ( true ) {
+        Object[] row = set.getRowImmediate();
+        if ( row == null ) {
+          if ( set.isDone() ) {
+            row = set.getRowImmediate();
+            if ( row == null ) {
+              break;
+            }
+          } else {
+            continue;
+          }
+        }
+        if ( (Long) row[ 0 ] != expected ) {
+          failure.set( "Expected row " + expected + " but got " + row[ 0 ] );
+          return;
+        }
+        expected++;
+      }
+      if ( expected != nrRows ) {
+        failure.set( "Expected " + nrRows + " rows but got " + expected );
+      }
+    } );
+
+    writer.start();
+    reader.start();
+    writer.join( 60000 );
+    reader.join( 60000 );
+
+    assertNull( failure.get() );
+  }
 }
@@ -22,12 +22,17 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.ValueMetaAndData;
 import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.junit.rules.RestoreHopEnvironment;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ConditionTest {
   @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
@@ -77,4 +82,95 @@ public class ConditionTest {
     condition = new Condition( left, Condition.FUNC_SMALLER_EQUAL, null, rightExact );
     assertFalse( condition.evaluate( rowMeta1, new Object[] { null, "test" } ) );
   }
+
+  @Test
+  public void testCompiledConditionsEvaluateLikeInterpreted() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "limit" ) );
+
+    Object[][] rows = new Object[][] {
+      { "apple", 1L, 1.0, 2L },
+      { "banana", 2L, 2.5, 2L },
+      { "cherry", 3L, 3.0, 1L },
+      { null, null, null, null },
+      { "", 10L, -1.0, 10L },
+    };
+
+    ValueMetaAndData two = new ValueMetaAndData( new ValueMetaInteger( "constant" ), 2L );
+    ValueMetaAndData twoAsString = new ValueMetaAndData( new ValueMetaString( "constant" ), "2" );
+    ValueMetaAndData pattern = new ValueMetaAndData( new ValueMetaString( "constant" ), "b.*a" );
+    ValueMetaAndData like = new ValueMetaAndData( new ValueMetaString( "constant" ), "%err?" );
+    ValueMetaAndData list = new ValueMetaAndData( new ValueMetaString( "constant" ), "cherry;apple;kiwi" );
+    ValueMetaAndData an = new ValueMetaAndData( new ValueMetaString( "constant" ), "an" );
+
+    Condition[] conditions = new Condition[] {
+      new Condition( "id", Condition.FUNC_EQUAL, null, two ),
+      new Condition( "id", Condition.FUNC_NOT_EQUAL, null, twoAsString ),
+      new Condition( "id", Condition.FUNC_SMALLER, null, two ),
+      new Condition( "id", Condition.FUNC_SMALLER_EQUAL, "limit", null ),
+      new Condition( "amount", Condition.FUNC_LARGER, null, two ),
+      new Condition( "id", Condition.FUNC_LARGER_EQUAL, "amount", null ),
+      new Condition( "name", Condition.FUNC_REGEXP, null, pattern ),
+      new Condition( "name", Condition.FUNC_LIKE, null, like ),
+      new Condition( "name", Condition.FUNC_NULL, null, null ),
+      new Condition( true, "name", Condition.FUNC_NOT_NULL, null, null ),
+      new Condition( "name", Condition.FUNC_IN_LIST, null, list ),
+      new Condition( "name", Condition.FUNC_CONTAINS, null, an ),
+      new Condition( "name", Condition.FUNC_STARTS_WITH, null, an ),
+      new Condition( true, "name", Condition.FUNC_ENDS_WITH, null, an ),
+      new Condition( "missing", Condition.FUNC_NOT_NULL, null, null ),
+      new Condition( true, null, Condition.FUNC_TRUE, null, null ),
+    };
+
+    for ( Condition condition : conditions ) {
+      assertSameResults( condition, rowMeta, rows );
+    }
+
+    int[] operators = new int[] {
+      Condition.OPERATOR_OR, Condition.OPERATOR_AND, Condition.OPERATOR_OR_NOT, Condition.OPERATOR_AND_NOT,
+      Condition.OPERATOR_XOR,
+    };
+    Condition composite = new Condition();
+    composite.addCondition( (Condition) conditions[ 0 ].clone() );
+    for ( int i = 1; i < conditions.length; i++ ) {
+      Condition subCondition = (Condition) conditions[ i ].clone();
+      subCondition.setOperator( operators[ i % operators.length ] );
+      composite.addCondition( subCondition );
+
+      assertSameResults( composite, rowMeta, rows );
+      composite.negate();
+      assertSameResults( composite, rowMeta, rows );
+    }
+  }
+
+  @Test
+  public void testCompiledConditionReportsErrors() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    // Not a number: the comparison can't be prepared and fails for every row, just like before
+    //
+    ValueMetaAndData notANumber = new ValueMetaAndData( new ValueMetaString( "constant" ), "abc" );
+    Condition condition = new Condition( "id", Condition.FUNC_EQUAL, null, notANumber );
+    IConditionEvaluator evaluator = condition.compile( rowMeta );
+
+    try {
+      evaluator.evaluate( new Object[] { "apple", 1L } );
+      fail( "Expected an evaluation error" );
+    } catch ( RuntimeException e ) {
+      assertTrue( e.getMessage().startsWith( "Unexpected error evaluation condition" ) );
+    }
+  }
+
+  private void assertSameResults( Condition condition, IRowMeta rowMeta, Object[][] rows ) {
+    IConditionEvaluator evaluator = condition.compile( rowMeta );
+    for ( Object[] row : rows ) {
+      assertEquals( condition.toString() + " for " + Arrays.toString( row ),
+        condition.evaluate( rowMeta, row ), evaluator.evaluate( row ) );
+    }
+  }
 }
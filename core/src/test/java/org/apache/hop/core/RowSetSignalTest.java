@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RowSetSignalTest {
+
+  @Test
+  public void testConditionAlreadyMet() {
+    RowSetSignal signal = new RowSetSignal();
+    long start = System.nanoTime();
+    assertTrue( signal.await( () -> true, 10, TimeUnit.SECONDS ) );
+    assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 5 ) );
+    assertFalse( signal.hasWaiter() );
+  }
+
+  @Test
+  public void testTimeout() {
+    RowSetSignal signal = new RowSetSignal();
+    assertFalse( signal.await( () -> false, 1, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testRowSetsRaiseSignal() throws Exception {
+    final RowSetSignal signal = new RowSetSignal();
+    final IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    final IRowSet[] rowSets = { new BlockingRowSet( 10 ), new SpscRowSet( 10 ), new BlockingListeningRowSet( 10 ) };
+    for ( IRowSet rowSet : rowSets ) {
+      rowSet.setSignal( signal );
+      assertSame( signal, rowSet.getSignal() );
+    }
+
+    for ( final IRowSet rowSet : rowSets ) {
+      Thread writer = new Thread( () -> {
+        while ( !signal.hasWaiter() ) {
+          Thread.yield();
+        }
+        rowSet.putRow( rowMeta, new Object[] { 1L } );
+      } );
+      writer.start();
+
+      long start = System.nanoTime();
+      assertTrue( signal.await( () -> rowSet.size() > 0, 30, TimeUnit.SECONDS ) );
+      assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 20 ) );
+      writer.join();
+      rowSet.getRowImmediate();
+    }
+  }
+
+  @Test
+  public void testSetDoneRaisesSignal() throws Exception {
+    final RowSetSignal signal = new RowSetSignal();
+    final IRowSet rowSet = new BlockingRowSet( 10 );
+    rowSet.setSignal( signal );
+
+    Thread writer = new Thread( () -> {
+      while ( !signal.hasWaiter() ) {
+        Thread.yield();
+      }
+      rowSet.setDone();
+    } );
+    writer.start();
+
+    assertTrue( signal.await( rowSet::isDone, 30, TimeUnit.SECONDS ) );
+    writer.join();
+    assertNull( rowSet.getRowImmediate() );
+  }
+}
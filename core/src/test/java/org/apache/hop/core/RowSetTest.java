@@ -27,6 +27,7 @@ import org.junit.ClassRule;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -165,6 +166,33 @@ public class RowSetTest {
      **********************************************************************/
   }
 
+  /**
+   * Putting and getting rows in batches.
+   */
+  @Test
+  public void testBatches() {
+    IRowSet set = new BlockingRowSet( 3 );
+    IRowMeta rm = createRowMetaInterface();
+
+    Object[][] rows = { { 1L }, { 2L }, { 3L }, { 4L } };
+
+    // The last row doesn't fit
+    //
+    assertEquals( 3, set.putRows( rm, rows, 0, 4 ) );
+    assertEquals( 3, set.size() );
+
+    Object[][] batch = new Object[ 5 ][];
+    assertEquals( 2, set.getRowsImmediate( batch, 1, 2 ) );
+    assertSame( rows[ 0 ], batch[ 1 ] );
+    assertSame( rows[ 1 ], batch[ 2 ] );
+
+    assertEquals( 1, set.putRows( rm, rows, 3, 1 ) );
+    assertEquals( 2, set.getRowsImmediate( batch, 0, 5 ) );
+    assertSame( rows[ 2 ], batch[ 0 ] );
+    assertSame( rows[ 3 ], batch[ 1 ] );
+    assertEquals( 0, set.getRowsImmediate( batch, 0, 5 ) );
+  }
+
   /**
    * Names test. Just for completeness.
    */
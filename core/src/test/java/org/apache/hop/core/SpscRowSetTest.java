@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the lock-free single producer, single consumer row set.
+ */
+public class SpscRowSetTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    IRowSet set = new SpscRowSet( 10 );
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testFifoAndCapacity() {
+    // A capacity which isn't a power of 2 must still be honored exactly
+    //
+    SpscRowSet set = new SpscRowSet( 3, new RowSetWaitStrategy( 0, 0, 1000L ) );
+    IRowMeta rm = createRowMeta();
+
+    Object[] r1 = new Object[] { 1L };
+    Object[] r2 = new Object[] { 2L };
+    Object[] r3 = new Object[] { 3L };
+    Object[] r4 = new Object[] { 4L };
+
+    assertTrue( set.putRowWait( rm, r1, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, r2, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, r3, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+
+    // Full: this one times out
+    //
+    assertFalse( set.putRowWait( rm, r4, 1, TimeUnit.MILLISECONDS ) );
+    assertSame( rm, set.getRowMeta() );
+
+    assertSame( r1, set.getRow() );
+    assertTrue( set.putRowWait( rm, r4, 1, TimeUnit.MILLISECONDS ) );
+    assertSame( r2, set.getRowImmediate() );
+    assertSame( r3, set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertSame( r4, set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertNull( set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testClear() {
+    SpscRowSet set = new SpscRowSet( 4 );
+    IRowMeta rm = createRowMeta();
+
+    set.putRow( rm, new Object[] { 1L } );
+    set.putRow( rm, new Object[] { 2L } );
+    set.setDone();
+    set.clear();
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+
+    Object[] row = new Object[] { 3L };
+    set.putRow( rm, row );
+    assertSame( row, set.getRowImmediate() );
+  }
+
+  @Test
+  public void testBatches() {
+    SpscRowSet set = new SpscRowSet( 5, new RowSetWaitStrategy( 0, 0, 1000L ) );
+    IRowMeta rm = createRowMeta();
+
+    Object[][] rows = new Object[ 8 ][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ] = new Object[] { (long) i };
+    }
+
+    // Only 5 rows fit, the rest times out
+    //
+    assertEquals( 3, set.putRows( rm, rows, 0, 3 ) );
+    assertEquals( 2, set.putRows( rm, rows, 3, 5 ) );
+    assertEquals( 5, set.size() );
+    assertSame( rm, set.getRowMeta() );
+
+    Object[][] batch = new Object[ 10 ][];
+    assertEquals( 2, set.getRowsImmediate( batch, 1, 2 ) );
+    assertNull( batch[ 0 ] );
+    assertSame( rows[ 0 ], batch[ 1 ] );
+    assertSame( rows[ 1 ], batch[ 2 ] );
+
+    assertEquals( 2, set.putRows( rm, rows, 5, 2 ) );
+    assertEquals( 5, set.getRowsImmediate( batch, 0, 10 ) );
+    for ( int i = 0; i < 5; i++ ) {
+      assertSame( rows[ i + 2 ], batch[ i ] );
+    }
+    assertEquals( 0, set.getRowsImmediate( batch, 0, 10 ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testProducerConsumerInBatches() throws Exception {
+    final int nrRows = 200000;
+    final SpscRowSet set = new SpscRowSet( 100 );
+    final IRowMeta rm = createRowMeta();
+    final AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      Object[][] batch = new Object[ 37 ][];
+      for ( long i = 0; i < nrRows; i += batch.length ) {
+        int count = (int) Math.min( batch.length, nrRows - i );
+        for ( int j = 0; j < count; j++ ) {
+          batch[ j ] = new Object[] { i + j };
+        }
+        int offset = 0;
+        while ( offset < count ) {
+          offset += set.putRows( rm, batch, offset, count - offset );
+          if ( Thread.currentThread().isInterrupted() ) {
+            return;
+          }
+        }
+      }
+      set.setDone();
+    } );
+
+    Thread consumer = new Thread( () -> {
+      Object[][] batch = new Object[ 50 ][];
+      long expected = 0;
+      while ( !set.isDone() || set.size() > 0 ) {
+        int count = set.getRowsImmediate( batch, 0, batch.length );
+        for ( int j = 0; j < count; j++ ) {
+          if ( ( (Long) batch[ j ][ 0 ] ) != expected ) {
+            failure.set( "Expected row " + expected + " but got " + batch[ j ][ 0 ] );
+            return;
+          }
+          expected++;
+        }
+      }
+      if ( expected != nrRows ) {
+        failure.set( "Expected " + nrRows + " rows but got " + expected );
+      }
+    } );
+
+    producer.start();
+    consumer.start();
+    producer.join( 60000 );
+    consumer.join( 60000 );
+
+    assertNull( failure.get() );
+  }
+
+  @Test
+  public void testProducerConsumer() throws Exception {
+    final int nrRows = 200000;
+    final SpscRowSet set = new SpscRowSet( 16 );
+    final IRowMeta rm = createRowMeta();
+    final AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] row = new Object[] { i };
+        while ( !set.putRow( rm, row ) ) {
+          if ( Thread.currentThread().isInterrupted() ) {
+            return;
+          }
+        }
+      }
+      set.setDone();
+    } );
+
+    Thread consumer = new Thread( () -> {
+      long expected = 0;
+      while ( true ) {
+        Object[] row = set.getRow();
+        if ( row == null ) {
+          if ( set.isDone() && set.size() == 0 ) {
+            break;
+          }
+          continue;
+        }
+        if ( ( (Long) row[ 0 ] ) != expected ) {
+          failure.set( "Expected row " + expected + " but got " + row[ 0 ] );
+          return;
+        }
+        expected++;
+      }
+      if ( expected != nrRows ) {
+        failure.set( "Expected " + nrRows + " rows but got " + expected );
+      }
+    } );
+
+    producer.start();
+    consumer.start();
+    producer.join( 60000 );
+    consumer.join( 60000 );
+
+    assertNull( failure.get() );
+  }
+}
@@ -287,4 +287,23 @@ public class BaseDatabaseMetaTest {
 
   }
 
+  @Test
+  public void testSqlMergeFromTable() {
+    String[] keys = { "ID" };
+    String[] values = { "A", "B" };
+    String[] columns = { "ID", "A", "B" };
+    assertArrayEquals( new String[] {
+      "UPDATE FOO SET A = ( SELECT s.A FROM FOO_STG s WHERE FOO.ID = s.ID ), "
+        + "B = ( SELECT s.B FROM FOO_STG s WHERE FOO.ID = s.ID ) WHERE EXISTS ( SELECT 1 FROM FOO_STG s WHERE FOO.ID = s.ID )",
+      "INSERT INTO FOO ( ID, A, B ) SELECT s.ID, s.A, s.B FROM FOO_STG s WHERE NOT EXISTS ( SELECT 1 FROM FOO t WHERE t.ID = s.ID )" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, values, columns ) );
+    assertArrayEquals( new String[] {
+      "INSERT INTO FOO ( K1, K2 ) SELECT s.K1, s.K2 FROM FOO_STG s WHERE NOT EXISTS "
+        + "( SELECT 1 FROM FOO t WHERE t.K1 = s.K1 AND t.K2 = s.K2 )" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", new String[] { "K1", "K2" }, new String[ 0 ],
+        new String[] { "K1", "K2" } ) );
+    assertArrayEquals( new String[] {
+      "UPDATE FOO SET A = ( SELECT s.A FROM FOO_STG s WHERE FOO.ID = s.ID ) WHERE EXISTS ( SELECT 1 FROM FOO_STG s WHERE FOO.ID = s.ID )" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[] { "A" }, new String[ 0 ] ) );
+  }
 }
@@ -22,6 +22,7 @@ import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -105,4 +106,30 @@ public class LongHashIndexTest {
     assertThat( "Not empty index should return false.", index.isEmpty(), is( false ) );
   }
 
+  @Test
+  public void testManyElements() throws HopValueException {
+    LongHashIndex index = new LongHashIndex( 0 );
+    for ( long i = 0; i < 100000; i++ ) {
+      // Keys sharing their low bits, including negative ones
+      index.put( ( i - 50000 ) * 4096, i );
+    }
+    assertThat( "Some elements were not added.", index.getSize(), equalTo( 100000 ) );
+    for ( long i = 0; i < 100000; i++ ) {
+      assertThat( "Element has uncorrect value.", index.get( ( i - 50000 ) * 4096 ), equalTo( i ) );
+    }
+    assertThat( "Unknown key should not be found.", index.get( 1L ), nullValue() );
+  }
+
+  @Test
+  public void testReplaceAndClear() throws HopValueException {
+    LongHashIndex index = new LongHashIndex();
+    index.put( Long.MIN_VALUE, 1L );
+    index.put( Long.MIN_VALUE, 2L );
+    assertThat( "Incorrect size of index.", index.getSize(), equalTo( 1 ) );
+    assertThat( "Element has uncorrect value.", index.get( Long.MIN_VALUE ), equalTo( 2L ) );
+
+    index.clear();
+    assertThat( "Cleared index should be empty.", index.isEmpty(), is( true ) );
+    assertThat( "Cleared element should not be found.", index.get( Long.MIN_VALUE ), nullValue() );
+  }
 }
@@ -22,7 +22,9 @@ import org.apache.hop.core.Const;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -172,4 +174,82 @@ public class LoggingBufferTest {
     Assert.assertEquals( 10, loggingBuffer.size() );
   }
 
+  @Test
+  public void testChannelRange() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer( 100 );
+    String[] channels = { "a", "b", "c" };
+    for ( int i = 0; i < 30; i++ ) {
+      HopLoggingEvent event = new HopLoggingEvent();
+      event.setMessage( new LogMessage( "line " + i, channels[ i % 3 ], LogLevel.BASIC ) );
+      event.setTimeStamp( i );
+      loggingBuffer.addLogggingEvent( event );
+    }
+    int last = loggingBuffer.getLastBufferLineNr();
+    int first = last - 30;
+
+    List<HopLoggingEvent> events = loggingBuffer.getLogBufferFromTo( Arrays.asList( "a", "c" ), false, first, last );
+    Assert.assertEquals( 20, events.size() );
+    long previous = -1;
+    for ( HopLoggingEvent event : events ) {
+      Assert.assertNotEquals( "b", ( (LogMessage) event.getMessage() ).getLogChannelId() );
+      Assert.assertTrue( event.getTimeStamp() > previous );
+      previous = event.getTimeStamp();
+    }
+
+    // Lines 11 up to 20 were logged at 10 up to 19: 4 of them belong to channel b
+    //
+    events = loggingBuffer.getLogBufferFromTo( Arrays.asList( "b", "b" ), false, first + 10, first + 20 );
+    Assert.assertEquals( 4, events.size() );
+    Assert.assertEquals( 10, events.get( 0 ).getTimeStamp() );
+    Assert.assertEquals( 19, events.get( 3 ).getTimeStamp() );
+
+    Assert.assertEquals( 30, loggingBuffer.getLogBufferFromTo( (List<String>) null, false, first, last ).size() );
+    Assert.assertEquals( 0, loggingBuffer.getLogBufferFromTo( Arrays.asList( "x" ), false, first, last ).size() );
+  }
+
+  @Test
+  public void testChannelRangeAfterWrapAround() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer( 10 );
+    for ( int i = 0; i < 25; i++ ) {
+      HopLoggingEvent event = new HopLoggingEvent();
+      event.setMessage( new LogMessage( "line " + i, i < 20 ? "old" : "new", LogLevel.BASIC ) );
+      event.setTimeStamp( i );
+      loggingBuffer.addLogggingEvent( event );
+    }
+    int last = loggingBuffer.getLastBufferLineNr();
+
+    // Only the last 10 lines are left: 15 up to 19 for the old channel
+    //
+    List<HopLoggingEvent> events = loggingBuffer.getLogBufferFromTo( Arrays.asList( "old" ), false, 0, last );
+    Assert.assertEquals( 5, events.size() );
+    Assert.assertEquals( 15, events.get( 0 ).getTimeStamp() );
+    Assert.assertEquals( 5, loggingBuffer.getLogBufferFromTo( Arrays.asList( "new" ), false, 0, last ).size() );
+
+    loggingBuffer.removeChannelFromBuffer( "old" );
+    Assert.assertEquals( 5, loggingBuffer.size() );
+    Assert.assertEquals( last, loggingBuffer.getLastBufferLineNr() );
+    Assert.assertEquals( 0, loggingBuffer.getLogBufferFromTo( Arrays.asList( "old" ), false, 0, last ).size() );
+    Assert.assertEquals( 5, loggingBuffer.getLogBufferFromTo( Arrays.asList( "new" ), false, 0, last ).size() );
+  }
+
+  @Test
+  public void testUnlimitedBufferGrows() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer( 0 );
+    for ( int i = 0; i < 5000; i++ ) {
+      HopLoggingEvent event = new HopLoggingEvent();
+      event.setMessage( new LogMessage( "line " + i, String.valueOf( i % 7 ), LogLevel.BASIC ) );
+      event.setTimeStamp( i );
+      loggingBuffer.addLogggingEvent( event );
+    }
+    Assert.assertEquals( 5000, loggingBuffer.size() );
+    int last = loggingBuffer.getLastBufferLineNr();
+    List<HopLoggingEvent> events = loggingBuffer.getLogBufferFromTo( Arrays.asList( "3" ), false, 0, last );
+    Assert.assertEquals( 714, events.size() );
+    Assert.assertEquals( 3, events.get( 0 ).getTimeStamp() );
+
+    loggingBuffer.setMaxNrLines( 100 );
+    Assert.assertEquals( 100, loggingBuffer.size() );
+    Assert.assertEquals( last, loggingBuffer.getLastBufferLineNr() );
+  }
+
 }
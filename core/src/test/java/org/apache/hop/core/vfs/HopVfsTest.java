@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
@@ -73,4 +75,22 @@ public class HopVfsTest {
       outputStream.write( "Test-content".getBytes() );
     }
   }
+
+  @Test
+  public void testResolvedFileCache() throws Exception {
+    String filename = "ram:///cached-file.txt";
+    FileObject fileObject = HopVfs.getFileObject( filename );
+    assertFalse( fileObject.exists() );
+    assertSame( fileObject, HopVfs.getFileObject( filename ) );
+
+    try ( OutputStream outputStream = fileObject.getContent().getOutputStream() ) {
+      outputStream.write( "Test-content".getBytes() );
+    }
+    assertTrue( HopVfs.getFileObject( filename ).exists() );
+
+    HopVfs.reset();
+    FileObject newFileObject = HopVfs.getFileObject( filename );
+    assertNotSame( fileObject, newFileObject );
+    assertFalse( newFileObject.exists() );
+  }
 }
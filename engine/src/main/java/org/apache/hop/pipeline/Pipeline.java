@@ -28,6 +28,7 @@ import org.apache.hop.core.IExecutor;
 import org.apache.hop.core.IExtensionData;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.SpscRowSet;
 import org.apache.hop.core.Result;
 import org.apache.hop.core.ResultFile;
 import org.apache.hop.core.RowMetaAndData;
@@ -470,6 +471,11 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
 
   protected int rowSetSize;
 
+  /**
+   * Whether hops between single transform copies hand over rows in batches.
+   */
+  protected boolean batchingRowSets;
+
   /**
    * Whether the feedback is shown.
    */
@@ -792,15 +798,15 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
             IRowSet rowSet;
             switch ( pipelineMeta.getPipelineType() ) {
               case Normal:
-                // This is a temporary patch until the batching rowset has proven
-                // to be working in all situations.
-                // Currently there are stalling problems when dealing with small
-                // amounts of rows.
+                // Batching is chosen in the run configuration or for all pipelines with HOP_BATCHING_ROWSET.
+                // Each of these row sets has exactly one writing and one reading transform copy.
                 //
-                Boolean batchingRowSet =
-                  ValueMetaString.convertStringToBoolean( System.getProperty( Const.HOP_BATCHING_ROWSET ) );
-                if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
+                if ( isBatchingRowSetsEnabled() ) {
                   rowSet = new BlockingBatchingRowSet( rowSetSize );
+                } else if ( dispatchType == TYPE_DISP_1_1 && isSpscRowSetEnabled() ) {
+                  // Exactly one thread writes and one thread reads: no locking needed
+                  //
+                  rowSet = new SpscRowSet( rowSetSize );
                 } else {
                   rowSet = new BlockingRowSet( rowSetSize );
                 }
@@ -3021,6 +3027,27 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
     this.previousResult = previousResult;
   }
 
+  /**
+   * @return true if batching row sets are enabled in the run configuration or with the HOP_BATCHING_ROWSET variable
+   */
+  protected boolean isBatchingRowSetsEnabled() {
+    if ( batchingRowSets ) {
+      return true;
+    }
+    Boolean batchingRowSet = ValueMetaString.convertStringToBoolean( System.getProperty( Const.HOP_BATCHING_ROWSET ) );
+    return batchingRowSet != null && batchingRowSet.booleanValue();
+  }
+
+  /**
+   * The lock-free single producer/single consumer row set is used for 1:1 hops unless HOP_SPSC_ROWSET is set to N.
+   *
+   * @return true if 1:1 hops should use a {@link SpscRowSet}
+   */
+  protected boolean isSpscRowSetEnabled() {
+    Boolean spscRowSet = ValueMetaString.convertStringToBoolean( System.getProperty( Const.HOP_SPSC_ROWSET ) );
+    return spscRowSet == null || spscRowSet.booleanValue();
+  }
+
   /**
    * Clear the error in the pipeline, clear all the rows from all the row sets, to make sure the pipeline
    * can continue with other data. This is intended for use when running single threaded.
@@ -3469,6 +3496,22 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets batchingRowSets
+   *
+   * @return value of batchingRowSets
+   */
+  public boolean isBatchingRowSets() {
+    return batchingRowSets;
+  }
+
+  /**
+   * @param batchingRowSets The batchingRowSets to set
+   */
+  public void setBatchingRowSets( boolean batchingRowSets ) {
+    this.batchingRowSets = batchingRowSets;
+  }
+
   /**
    * Gets feedbackShown
    *
@@ -44,6 +44,19 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   @HopMetadataProperty(key="rowset_size")
   protected String rowSetSize;
 
+  /**
+   * Whether rows are handed over between transforms in batches rather than one by one.
+   */
+  @GuiWidgetElement(
+    id = "batchingRowSets",
+    order = "15",
+    parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+    type = GuiElementType.CHECKBOX,
+    label = "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.BatchingRowSets.Label"
+  )
+  @HopMetadataProperty(key="batching_rowsets")
+  protected boolean batchingRowSets;
+
   @GuiWidgetElement(
     id = "safeModeEnabled",
     order = "20",
@@ -143,6 +156,7 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   public LocalPipelineRunConfiguration( LocalPipelineRunConfiguration config ) {
     super( config );
     this.rowSetSize = config.rowSetSize;
+    this.batchingRowSets = config.batchingRowSets;
     this.feedbackShown = config.feedbackShown;
     this.feedbackSize = config.feedbackSize;
     this.safeModeEnabled = config.safeModeEnabled;
@@ -179,6 +193,22 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets batchingRowSets
+   *
+   * @return value of batchingRowSets
+   */
+  public boolean isBatchingRowSets() {
+    return batchingRowSets;
+  }
+
+  /**
+   * @param batchingRowSets The batchingRowSets to set
+   */
+  public void setBatchingRowSets( boolean batchingRowSets ) {
+    this.batchingRowSets = batchingRowSets;
+  }
+
   /**
    * Gets safeModeEnabled
    *
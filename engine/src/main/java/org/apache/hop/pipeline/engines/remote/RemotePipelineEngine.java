@@ -17,11 +17,13 @@
 
 package org.apache.hop.pipeline.engines.remote;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.hop.core.parameters.INamedParameterDefinitions;
 import org.apache.hop.core.parameters.INamedParameters;
 import org.apache.hop.server.HopServer;
+import org.apache.hop.server.HopServerServiceUnsupportedException;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.Result;
@@ -65,6 +67,7 @@ import org.apache.hop.resource.ResourceUtil;
 import org.apache.hop.resource.TopLevelResource;
 import org.apache.hop.workflow.WorkflowMeta;
 import org.apache.hop.workflow.engine.IWorkflowEngine;
+import org.apache.hop.www.PipelineStatusStream;
 import org.apache.hop.www.PrepareExecutionPipelineServlet;
 import org.apache.hop.www.RegisterPackageServlet;
 import org.apache.hop.www.RegisterPipelineServlet;
@@ -165,6 +168,12 @@ public class RemotePipelineEngine extends Variables implements IPipelineEngine<P
 
   protected long serverPollDelay;
   protected long serverPollInterval;
+  protected boolean statusStreaming;
+
+  /**
+   * Set when the server doesn't know the binary sniff format so we don't keep trying. Other errors don't set it.
+   */
+  private volatile boolean binarySniffUnsupported;
 
   public RemotePipelineEngine() {
     super();
@@ -219,6 +228,7 @@ public class RemotePipelineEngine extends Variables implements IPipelineEngine<P
 
       serverPollDelay = Const.toLong( resolve( remotePipelineRunConfiguration.getServerPollDelay() ), 1000L );
       serverPollInterval = Const.toLong( resolve( remotePipelineRunConfiguration.getServerPollInterval() ), 2000L );
+      statusStreaming = remotePipelineRunConfiguration.isStatusStreaming();
 
       hopServer = metadataProvider.getSerializer( HopServer.class ).load( hopServerName );
       if ( hopServer == null ) {
@@ -350,15 +360,12 @@ public class RemotePipelineEngine extends Variables implements IPipelineEngine<P
         // So the pipeline has been successfully started.
         // That doesn't mean that the execution itself is without error
         // To know that we need to monitor the execution remotely
-        // We monitor this every 2 seconds after a 1 second delay (configurable)
         //
-        TimerTask refreshTask = new TimerTask() {
-          @Override public void run() {
-            getPipelineStatus();
-          }
-        };
-        refreshTimer = new Timer();
-        refreshTimer.schedule( refreshTask, serverPollDelay, serverPollInterval );
+        if ( statusStreaming ) {
+          startStatusStream();
+        } else {
+          startStatusPolling();
+        }
 
         readyToStart = false;
         running = true;
@@ -370,70 +377,119 @@ public class RemotePipelineEngine extends Variables implements IPipelineEngine<P
     }
   }
 
+  /**
+   * Poll the status every 2 seconds after a 1 second delay (configurable)
+   */
+  private void startStatusPolling() {
+    TimerTask refreshTask = new TimerTask() {
+      @Override public void run() {
+        getPipelineStatus();
+      }
+    };
+    refreshTimer = new Timer();
+    refreshTimer.schedule( refreshTask, serverPollDelay, serverPollInterval );
+  }
+
+  /**
+   * Let the server push the status to us every poll interval. When the server doesn't support this or the stream
+   * breaks off before the pipeline finished we fall back to polling.
+   */
+  @VisibleForTesting
+  void startStatusStream() {
+    Thread statusThread = new Thread( () -> {
+      try ( PipelineStatusStream stream = hopServer.openPipelineStatusStream( this, subject.getName(), containerId, lastLogLineNr, serverPollInterval ) ) {
+        HopServerPipelineStatus pipelineStatus;
+        while ( !finished && ( pipelineStatus = stream.next() ) != null ) {
+          updatePipelineStatus( pipelineStatus );
+        }
+        if ( !finished ) {
+          logChannel.logDetailed( "The status stream of the pipeline from hop server '" + hopServer.getName() + "' ended before the pipeline finished, polling it instead" );
+        }
+      } catch ( Exception e ) {
+        if ( !finished ) {
+          logChannel.logDetailed( "Unable to stream the status of the pipeline from hop server '" + hopServer.getName() + "', polling it instead: " + e.getMessage() );
+        }
+      }
+      // Whatever ended the stream, keep track of the pipeline until it finishes
+      //
+      if ( !finished ) {
+        startStatusPolling();
+      }
+    }, "Remote pipeline status: " + subject.getName() );
+    statusThread.setDaemon( true );
+    statusThread.start();
+  }
+
   private synchronized void getPipelineStatus() throws RuntimeException {
     try {
-      HopServerPipelineStatus pipelineStatus = hopServer.getPipelineStatus( this, subject.getName(), containerId, lastLogLineNr );
-      synchronized ( engineMetrics ) {
-        hasHaltedComponents = false;
-        engineMetrics.setStartDate( pipelineStatus.getExecutionStartDate() );
-        engineMetrics.setEndDate( pipelineStatus.getExecutionEndDate() );
-        engineMetrics.getComponents().clear();
-        engineMetrics.getComponentRunningMap().clear();
-        engineMetrics.getComponentSpeedMap().clear();
-        engineMetrics.getComponentMetricsMap().clear();
-
-        for ( TransformStatus transformStatus : pipelineStatus.getTransformStatusList() ) {
-          EngineComponent component = new EngineComponent( transformStatus.getTransformName(), transformStatus.getCopy() );
-          component.setErrors( transformStatus.getErrors() );
-          status = ComponentExecutionStatus.getStatusFromDescription( transformStatus.getStatusDescription() );
-          statusDescription = status.getDescription();
-          boolean running = status == ComponentExecutionStatus.STATUS_RUNNING;
-          component.setRunning( running );
-          boolean halted = status == ComponentExecutionStatus.STATUS_HALTED || status == ComponentExecutionStatus.STATUS_HALTING;
-          if ( halted ) {
-            hasHaltedComponents = true;
-          }
-          engineMetrics.setComponentStatus( component, transformStatus.getStatusDescription() );
-          engineMetrics.setComponentRunning( component, running );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_READ, transformStatus.getLinesRead() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_WRITTEN, transformStatus.getLinesWritten() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_INPUT, transformStatus.getLinesInput() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_OUTPUT, transformStatus.getLinesOutput() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_REJECTED, transformStatus.getLinesRejected() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_UPDATED, transformStatus.getLinesUpdated() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_ERROR, transformStatus.getErrors() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_BUFFER_IN, transformStatus.getInputBufferSize() );
-          engineMetrics.setComponentMetric( component, Pipeline.METRIC_BUFFER_OUT, transformStatus.getOutputBufferSize() );
-          engineMetrics.setComponentSpeed( component, transformStatus.getSpeed() );
-          engineMetrics.getComponents().add( component );
+      updatePipelineStatus( hopServer.getPipelineStatus( this, subject.getName(), containerId, lastLogLineNr ) );
+    } catch ( Exception e ) {
+      throw new RuntimeException( "Error getting the status of pipeline '" + subject.getName() + "' on hop server '" + hopServer.getName() + "' with object ID '" + containerId + "'", e );
+    }
+  }
+
+  private synchronized void updatePipelineStatus( HopServerPipelineStatus pipelineStatus ) throws HopException {
+    boolean wasFinished = finished;
+    synchronized ( engineMetrics ) {
+      hasHaltedComponents = false;
+      engineMetrics.setStartDate( pipelineStatus.getExecutionStartDate() );
+      engineMetrics.setEndDate( pipelineStatus.getExecutionEndDate() );
+      engineMetrics.getComponents().clear();
+      engineMetrics.getComponentRunningMap().clear();
+      engineMetrics.getComponentSpeedMap().clear();
+      engineMetrics.getComponentMetricsMap().clear();
+
+      for ( TransformStatus transformStatus : pipelineStatus.getTransformStatusList() ) {
+        EngineComponent component = new EngineComponent( transformStatus.getTransformName(), transformStatus.getCopy() );
+        component.setErrors( transformStatus.getErrors() );
+        status = ComponentExecutionStatus.getStatusFromDescription( transformStatus.getStatusDescription() );
+        statusDescription = status.getDescription();
+        boolean running = status == ComponentExecutionStatus.STATUS_RUNNING;
+        component.setRunning( running );
+        boolean halted = status == ComponentExecutionStatus.STATUS_HALTED || status == ComponentExecutionStatus.STATUS_HALTING;
+        if ( halted ) {
+          hasHaltedComponents = true;
         }
+        engineMetrics.setComponentStatus( component, transformStatus.getStatusDescription() );
+        engineMetrics.setComponentRunning( component, running );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_READ, transformStatus.getLinesRead() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_WRITTEN, transformStatus.getLinesWritten() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_INPUT, transformStatus.getLinesInput() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_OUTPUT, transformStatus.getLinesOutput() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_REJECTED, transformStatus.getLinesRejected() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_UPDATED, transformStatus.getLinesUpdated() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_ERROR, transformStatus.getErrors() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_BUFFER_IN, transformStatus.getInputBufferSize() );
+        engineMetrics.setComponentMetric( component, Pipeline.METRIC_BUFFER_OUT, transformStatus.getOutputBufferSize() );
+        engineMetrics.setComponentSpeed( component, transformStatus.getSpeed() );
+        engineMetrics.getComponents().add( component );
+      }
 
-        running = pipelineStatus.isRunning();
-        finished = pipelineStatus.isFinished();
-        stopped = pipelineStatus.isStopped();
-        paused = pipelineStatus.isPaused();
-        errors = (int) pipelineStatus.getNrTransformErrors();
+      running = pipelineStatus.isRunning();
+      finished = pipelineStatus.isFinished();
+      stopped = pipelineStatus.isStopped();
+      paused = pipelineStatus.isPaused();
+      errors = (int) pipelineStatus.getNrTransformErrors();
 
-        lastLogLineNr = pipelineStatus.getLastLoggingLineNr();
+      lastLogLineNr = pipelineStatus.getLastLoggingLineNr();
 
-        // Also pass the remote log to this log channel as BASIC logging...
-        // TODO: make this configurable and split up the log lines individually so we can do a better job of this.
-        // Now it's a bit garbled
-        //
-        if ( StringUtils.isNotEmpty( pipelineStatus.getLoggingString() ) ) {
-          logChannel.logBasic( pipelineStatus.getLoggingString() );
-        }
+      // Also pass the remote log to this log channel as BASIC logging...
+      // TODO: make this configurable and split up the log lines individually so we can do a better job of this.
+      // Now it's a bit garbled
+      //
+      if ( StringUtils.isNotEmpty( pipelineStatus.getLoggingString() ) ) {
+        logChannel.logBasic( pipelineStatus.getLoggingString() );
+      }
 
-        // If the pipeline is finished, cancel the timer task
-        //
-        if ( finished ) {
-          firePipelineExecutionFinishedListeners();
+      // If the pipeline is finished, cancel the timer task
+      //
+      if ( finished && !wasFinished ) {
+        firePipelineExecutionFinishedListeners();
+        if ( refreshTimer != null ) {
           refreshTimer.cancel();
-          logChannel.logBasic( "Execution finished on a remote pipeline engine with run configuration '" + pipelineRunConfiguration.getName() + "'" );
         }
+        logChannel.logBasic( "Execution finished on a remote pipeline engine with run configuration '" + pipelineRunConfiguration.getName() + "'" );
       }
-    } catch ( Exception e ) {
-      throw new RuntimeException( "Error getting the status of pipeline '" + subject.getName() + "' on hop server '" + hopServer.getName() + "' with object ID '" + containerId + "'", e );
     }
   }
 
@@ -595,10 +651,27 @@ public class RemotePipelineEngine extends Variables implements IPipelineEngine<P
     try {
       Runnable runnable = () -> {
         try {
-          String rowBufferXml = hopServer.sniffTransform( this, subject.getName(), componentName, containerId, "" + copyNr, nrRows, SniffTransformServlet.TYPE_OUTPUT );
-          Node rowBufferNode = XmlHandler.getSubNode( XmlHandler.loadXmlString( rowBufferXml ), RowBuffer.XML_TAG );
-          if ( rowBufferNode != null ) {
-            RowBuffer rowBuffer = new RowBuffer( rowBufferNode );
+          RowBuffer rowBuffer = null;
+          if ( !binarySniffUnsupported ) {
+            try {
+              rowBuffer = hopServer.sniffTransformRows( this, subject.getName(), componentName, containerId, "" + copyNr, nrRows, SniffTransformServlet.TYPE_OUTPUT );
+            } catch ( HopServerServiceUnsupportedException e ) {
+              logChannel.logDetailed( "Hop server '" + hopServer.getName() + "' doesn't send rows in binary format, using XML from now on: " + e.getMessage() );
+              binarySniffUnsupported = true;
+            } catch ( Exception e ) {
+              // Something else went wrong, the binary format is tried again the next time
+              //
+              logChannel.logDetailed( "Unable to get the rows in binary format from hop server '" + hopServer.getName() + "', using XML instead: " + e.getMessage() );
+            }
+          }
+          if ( rowBuffer == null ) {
+            String rowBufferXml = hopServer.sniffTransform( this, subject.getName(), componentName, containerId, "" + copyNr, nrRows, SniffTransformServlet.TYPE_OUTPUT );
+            Node rowBufferNode = XmlHandler.getSubNode( XmlHandler.loadXmlString( rowBufferXml ), RowBuffer.XML_TAG );
+            if ( rowBufferNode != null ) {
+              rowBuffer = new RowBuffer( rowBufferNode );
+            }
+          }
+          if ( rowBuffer != null ) {
             rowsReceived.rowsReceived( RemotePipelineEngine.this, rowBuffer );
           }
         } catch ( Exception e ) {
@@ -74,6 +74,15 @@ public class RemotePipelineRunConfiguration extends EmptyPipelineRunConfiguratio
   @HopMetadataProperty( key = "server_poll_interval" )
   protected String serverPollInterval;
 
+  @GuiWidgetElement(
+    order = "50",
+    parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+    type = GuiElementType.CHECKBOX,
+    label = "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.StatusStreaming.Label"
+  )
+  @HopMetadataProperty( key = "status_streaming" )
+  protected boolean statusStreaming = true;
+
 
   public RemotePipelineRunConfiguration() {
     super();
@@ -85,6 +94,7 @@ public class RemotePipelineRunConfiguration extends EmptyPipelineRunConfiguratio
     this.runConfigurationName = config.runConfigurationName;
     this.serverPollDelay = config.serverPollDelay;
     this.serverPollInterval = config.serverPollInterval;
+    this.statusStreaming = config.statusStreaming;
   }
 
   public List<String> getHopServerNames( ILogChannel log, IHopMetadataProvider metadataProvider ) {
@@ -178,4 +188,20 @@ public class RemotePipelineRunConfiguration extends EmptyPipelineRunConfiguratio
   public void setServerPollInterval( String serverPollInterval ) {
     this.serverPollInterval = serverPollInterval;
   }
+
+  /**
+   * Gets statusStreaming
+   *
+   * @return true if the status of the pipeline is streamed by the server, false to poll for it
+   */
+  public boolean isStatusStreaming() {
+    return statusStreaming;
+  }
+
+  /**
+   * @param statusStreaming The statusStreaming to set
+   */
+  public void setStatusStreaming( boolean statusStreaming ) {
+    this.statusStreaming = statusStreaming;
+  }
 }
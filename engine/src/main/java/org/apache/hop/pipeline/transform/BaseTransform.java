@@ -26,6 +26,7 @@ import org.apache.hop.core.Const;
 import org.apache.hop.core.IExtensionData;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.ResultFile;
+import org.apache.hop.core.RowSetSignal;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopRowException;
 import org.apache.hop.core.exception.HopTransformException;
@@ -66,6 +67,7 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -148,8 +150,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private IPipelineEngine<PipelineMeta> pipeline;
 
-  private final Object statusCountersLock = new Object();
-
   protected Date initStartDate;
   protected Date executionStartDate;
   protected Date firstRowReadDate;
@@ -159,43 +159,43 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   /**
    * Number of lines read from previous transform(s)
    */
-  private long linesRead;
+  private final AtomicLong linesRead = new AtomicLong();
 
   /**
    * Number of lines written to next transform(s)
    */
-  private long linesWritten;
+  private final AtomicLong linesWritten = new AtomicLong();
 
   /**
    * Number of lines read from file or database 
    */
-  private long linesInput;
+  private final AtomicLong linesInput = new AtomicLong();
 
   /**
    * Number of lines written to file or database  
    */
-  private long linesOutput;
+  private final AtomicLong linesOutput = new AtomicLong();
 
   /**
    * Number of updates in a database table or file
    */
-  private long linesUpdated;
+  private final AtomicLong linesUpdated = new AtomicLong();
 
   /**
    * Number of lines skipped
    */
-  private long linesSkipped;
+  private final AtomicLong linesSkipped = new AtomicLong();
 
   /**
    * Number of lines rejected to an error handling transform
    */
-  private long linesRejected;
+  private final AtomicLong linesRejected = new AtomicLong();
 
   private boolean distributed;
 
   private IRowDistribution rowDistribution;
 
-  private long errors;
+  private volatile long errors;
 
   private TransformMeta[] nextTransforms;
 
@@ -315,6 +315,11 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private int blockPointer;
 
+  /**
+   * The maximum number of rows a batch capable transform reads and writes in one go
+   */
+  private int rowBatchSize;
+
   private List<ITransformFinishedListener> transformFinishedListeners;
   private List<ITransformStartedListener> transformStartedListeners;
 
@@ -368,6 +373,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private AtomicBoolean markStopped;
 
+  /**
+   * Raised by the input row sets when rows arrive and when this transform is resumed or stopped.
+   * This is null when the transform polls its input row sets (HOP_ROWSET_SIGNALING is not enabled).
+   */
+  private RowSetSignal rowSetSignal;
+
   /**
    * This is the base transform that forms that basis for all transforms. You can derive from this class to implement your own
    * transforms.
@@ -412,16 +423,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     init = false;
 
-    synchronized ( statusCountersLock ) {
-      linesRead = 0L;
-      linesWritten = 0L;
-      linesUpdated = 0L;
-      linesSkipped = 0L;
-      linesRejected = 0L;
-      linesInput = 0L;
-      linesOutput = 0L;
-    }
-
     inputRowSets = null;
     outputRowSets = null;
     nextTransforms = null;
@@ -452,11 +453,17 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     blockPointer = 0;
 
+    rowBatchSize = Math.max( 1, Const.toInt( System.getProperty( Const.HOP_ROW_BATCH_SIZE ), Const.ROWS_IN_BATCH ) );
+
     transformFinishedListeners = Collections.synchronizedList( new ArrayList<>() );
     transformStartedListeners = Collections.synchronizedList( new ArrayList<>() );
 
     markStopped = new AtomicBoolean( false );
 
+    if ( isRowSetSignalingEnabled() ) {
+      rowSetSignal = new RowSetSignal();
+    }
+
     dispatch();
 
     upperBufferBoundary = (int) ( pipeline.getRowSetSize() * 0.99 );
@@ -620,9 +627,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesRead() {
-    synchronized ( statusCountersLock ) {
-      return linesRead;
-    }
+    return linesRead.get();
   }
 
   /**
@@ -631,9 +636,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long incrementLinesRead() {
-    synchronized ( statusCountersLock ) {
-      return ++linesRead;
-    }
+    return linesRead.incrementAndGet();
   }
 
   /**
@@ -642,9 +645,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long decrementLinesRead() {
-    synchronized ( statusCountersLock ) {
-      return --linesRead;
-    }
+    return linesRead.decrementAndGet();
   }
 
   /**
@@ -653,9 +654,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesRead()}, {@link #incrementLinesRead()}, {@link #decrementLinesRead()}
    */
   public void setLinesRead( long newLinesReadValue ) {
-    synchronized ( statusCountersLock ) {
-      linesRead = newLinesReadValue;
-    }
+    linesRead.set( newLinesReadValue );
   }
 
   /**
@@ -665,9 +664,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesInput() {
-    synchronized ( statusCountersLock ) {
-      return linesInput;
-    }
+    return linesInput.get();
   }
 
   /**
@@ -677,9 +674,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return the new incremented value
    */
   public long incrementLinesInput() {
-    synchronized ( statusCountersLock ) {
-      return ++linesInput;
-    }
+    return linesInput.incrementAndGet();
   }
 
   /**
@@ -689,9 +684,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesInput()} or {@link #incrementLinesInput()}
    */
   public void setLinesInput( long newLinesInputValue ) {
-    synchronized ( statusCountersLock ) {
-      linesInput = newLinesInputValue;
-    }
+    linesInput.set( newLinesInputValue );
   }
 
   /**
@@ -701,9 +694,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesOutput() {
-    synchronized ( statusCountersLock ) {
-      return linesOutput;
-    }
+    return linesOutput.get();
   }
 
   /**
@@ -714,9 +705,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesOutput()}, {@link #setLinesOutput()}
    */
   public long incrementLinesOutput() {
-    synchronized ( statusCountersLock ) {
-      return ++linesOutput;
-    }
+    return linesOutput.incrementAndGet();
   }
 
   /**
@@ -725,9 +714,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesOutput()} or {@link #incrementLinesOutput()}
    */
   public void setLinesOutput( long newLinesOutputValue ) {
-    synchronized ( statusCountersLock ) {
-      linesOutput = newLinesOutputValue;
-    }
+    linesOutput.set( newLinesOutputValue );
   }
 
   /**
@@ -738,9 +725,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesWritten() {
-    synchronized ( statusCountersLock ) {
-      return linesWritten;
-    }
+    return linesWritten.get();
   }
 
   /**
@@ -750,9 +735,14 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long incrementLinesWritten() {
-    synchronized ( statusCountersLock ) {
-      return ++linesWritten;
-    }
+    return linesWritten.incrementAndGet();
+  }
+
+  /**
+   * Increments the number of lines written to next transforms by a whole batch at once
+   */
+  private void addLinesWritten( long lines ) {
+    linesWritten.addAndGet( lines );
   }
 
   /**
@@ -762,9 +752,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long decrementLinesWritten() {
-    synchronized ( statusCountersLock ) {
-      return --linesWritten;
-    }
+    return linesWritten.decrementAndGet();
   }
 
   /**
@@ -775,9 +763,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesWritten()}, {@link #incrementLinesWritten()}, or {@link #decrementLinesWritten()}
    */
   public void setLinesWritten( long newLinesWrittenValue ) {
-    synchronized ( statusCountersLock ) {
-      linesWritten = newLinesWrittenValue;
-    }
+    linesWritten.set( newLinesWrittenValue );
   }
 
   /**
@@ -787,9 +773,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesUpdated() {
-    synchronized ( statusCountersLock ) {
-      return linesUpdated;
-    }
+    return linesUpdated.get();
   }
 
   /**
@@ -800,9 +784,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesUpdated()}, {@link #setLinesUpdated()}
    */
   public long incrementLinesUpdated() {
-    synchronized ( statusCountersLock ) {
-      return ++linesUpdated;
-    }
+    return linesUpdated.incrementAndGet();
   }
 
   /**
@@ -811,9 +793,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesUpdated()}, {@link #incrementLinesUpdated()}
    */
   public void setLinesUpdated( long newLinesUpdatedValue ) {
-    synchronized ( statusCountersLock ) {
-      linesUpdated = newLinesUpdatedValue;
-    }
+    linesUpdated.set( newLinesUpdatedValue );
   }
 
   /**
@@ -824,9 +804,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesRejected() {
-    synchronized ( statusCountersLock ) {
-      return linesRejected;
-    }
+    return linesRejected.get();
   }
 
   /**
@@ -836,9 +814,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return the new incremented value
    */
   public long incrementLinesRejected() {
-    synchronized ( statusCountersLock ) {
-      return ++linesRejected;
-    }
+    return linesRejected.incrementAndGet();
   }
 
   /**
@@ -848,9 +824,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public void setLinesRejected( long newLinesRejectedValue ) {
-    synchronized ( statusCountersLock ) {
-      linesRejected = newLinesRejectedValue;
-    }
+    linesRejected.set( newLinesRejectedValue );
   }
 
   /**
@@ -859,9 +833,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #setLinesSkipped()}, {@link #incrementLinesSkipped()}
    */
   public long getLinesSkipped() {
-    synchronized ( statusCountersLock ) {
-      return linesSkipped;
-    }
+    return linesSkipped.get();
   }
 
   /**
@@ -872,9 +844,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesSkipped()}, {@link #setLinesSkipped()}
    */
   public long incrementLinesSkipped() {
-    synchronized ( statusCountersLock ) {
-      return ++linesSkipped;
-    }
+    return linesSkipped.incrementAndGet();
   }
 
   /**
@@ -883,9 +853,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesSkipped()}, {@link #incrementLinesSkipped()}
    */
   public void setLinesSkipped( long newLinesSkippedValue ) {
-    synchronized ( statusCountersLock ) {
-      linesSkipped = newLinesSkippedValue;
-    }
+    linesSkipped.set( newLinesSkippedValue );
   }
 
   @Override public boolean isSelected() {
@@ -1002,6 +970,46 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public void putRow( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+    verifyFieldNamesAndTypes( rowMeta );
+    getRowHandler().putRow( rowMeta, row );
+
+    // This transform is not reading data, only writing
+    //
+    if (firstRowReadDate==null) {
+      firstRowReadDate = new Date();
+    }
+  }
+
+  /**
+   * putRows is the batch version of {@link #putRow(IRowMeta, Object[])}: the rows are handed to the output row sets
+   * in one go. Pausing, stopping and the row set bookkeeping are handled once per batch instead of once per row. Row
+   * listeners are still called for every row.
+   *
+   * @param rowMeta The row metadata of all the rows in the batch
+   * @param rows    The rows to put to the destination rowset(s), the array can be larger than the batch
+   * @param count   The number of rows in the batch
+   * @throws HopTransformException
+   */
+  @Override
+  public void putRows( IRowMeta rowMeta, Object[][] rows, int count ) throws HopTransformException {
+    if ( count <= 0 ) {
+      return;
+    }
+    if ( count == 1 ) {
+      putRow( rowMeta, rows[ 0 ] );
+      return;
+    }
+    verifyFieldNamesAndTypes( rowMeta );
+    getRowHandler().putRows( rowMeta, rows, count );
+
+    // This transform is not reading data, only writing
+    //
+    if (firstRowReadDate==null) {
+      firstRowReadDate = new Date();
+    }
+  }
+
+  private void verifyFieldNamesAndTypes( IRowMeta rowMeta ) throws HopTransformException {
     if ( rowMeta != null ) {
       if ( !allowEmptyFieldNamesAndTypes ) {
         // check row meta for empty field name (BACKLOG-18004)
@@ -1015,25 +1023,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         }
       }
     }
-    getRowHandler().putRow( rowMeta, row );
-
-    // This transform is not reading data, only writing
-    //
-    if (firstRowReadDate==null) {
-      firstRowReadDate = new Date();
-    }
   }
 
   private void handlePutRow( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
     // Are we pausing the transform? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 1 );
-      } catch ( InterruptedException e ) {
-        throw new HopTransformException( e );
-      }
-    }
+    waitWhilePaused( 1 );
 
     // Right after the pause loop we have to check if this thread is stopped or
     // not.
@@ -1050,16 +1045,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
     //
-    if ( this.checkPipelineRunning == false ) {
-      while ( !pipeline.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore
-        }
-      }
-      this.checkPipelineRunning = true;
-    }
+    waitUntilPipelineIsStarted();
 
     // call all row listeners...
     //
@@ -1088,24 +1074,115 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         return; // we're done here!
       }
 
-      // Repartitioning happens when the current transform is not partitioned, but the next one is.
-      // That means we need to look up the partitioning information in the next transform..
-      // If there are multiple transforms, we need to look at the first (they should be all the same)
+      putRowToOutputRowSets( rowMeta, row );
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Send a row to the output row sets according to the partitioning and distribution rules. Call this while holding
+   * the output row sets lock.
+   */
+  private void putRowToOutputRowSets( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+    // Repartitioning happens when the current transform is not partitioned, but the next one is.
+    // That means we need to look up the partitioning information in the next transform..
+    // If there are multiple transforms, we need to look at the first (they should be all the same)
+    //
+    switch ( repartitioning ) {
+      case TransformPartitioningMeta.PARTITIONING_METHOD_NONE:
+        noPartitioning( rowMeta, row );
+        break;
+
+      case TransformPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
+        specialPartitioning( rowMeta, row );
+        break;
+      case TransformPartitioningMeta.PARTITIONING_METHOD_MIRROR:
+        mirrorPartitioning( rowMeta, row );
+        break;
+      default:
+        throw new HopTransformException( "Internal error: invalid repartitioning type: " + repartitioning );
+    }
+  }
+
+  private void handlePutRows( IRowMeta rowMeta, Object[][] rows, int count ) throws HopTransformException {
+    // Are we pausing the transform? If so, stall forever...
+    //
+    waitWhilePaused( 1 );
+
+    if ( stopped.get() && !safeStopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseTransform.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    waitUntilPipelineIsStarted();
+
+    // call all row listeners...
+    //
+    if ( !rowListeners.isEmpty() ) {
+      for ( int i = 0; i < count; i++ ) {
+        for ( IRowListener listener : rowListeners ) {
+          listener.rowWrittenEvent( rowMeta, rows[ i ] );
+        }
+      }
+    }
+
+    // Keep adding to terminator_rows buffer...
+    //
+    if ( terminator && terminatorRows != null ) {
+      try {
+        for ( int i = 0; i < count; i++ ) {
+          terminatorRows.add( rowMeta.cloneRow( rows[ i ] ) );
+        }
+      } catch ( HopValueException e ) {
+        throw new HopTransformException( "Unable to clone row while adding rows to the terminator rows.", e );
+      }
+    }
+
+    outputRowSetsLock.readLock().lock();
+    try {
+      if ( outputRowSets.isEmpty() ) {
+        // No more output rowsets!
+        // Still update the nr of lines written.
+        //
+        addLinesWritten( count );
+        return;
+      }
+
+      // Only plain copying or distributing to a single row set can hand over the whole batch at once.
+      // Everything else goes row by row.
       //
-      switch ( repartitioning ) {
-        case TransformPartitioningMeta.PARTITIONING_METHOD_NONE:
-          noPartitioning( rowMeta, row );
-          break;
+      boolean copyBatch = repartitioning == TransformPartitioningMeta.PARTITIONING_METHOD_NONE
+        && ( !distributed || ( rowDistribution == null && outputRowSets.size() == 1 ) );
+      if ( !copyBatch ) {
+        for ( int i = 0; i < count; i++ ) {
+          putRowToOutputRowSets( rowMeta, rows[ i ] );
+        }
+        return;
+      }
 
-        case TransformPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
-          specialPartitioning( rowMeta, row );
-          break;
-        case TransformPartitioningMeta.PARTITIONING_METHOD_MIRROR:
-          mirrorPartitioning( rowMeta, row );
-          break;
-        default:
-          throw new HopTransformException( "Internal error: invalid repartitioning type: " + repartitioning );
+      // Copy the rows to the other output rowsets...
+      //
+      for ( int o = 1; o < outputRowSets.size(); o++ ) { // start at 1
+        Object[][] copies = new Object[ count ][];
+        try {
+          for ( int i = 0; i < count; i++ ) {
+            copies[ i ] = rowMeta.cloneRow( rows[ i ] );
+          }
+        } catch ( HopValueException e ) {
+          throw new HopTransformException( "Unable to clone row while copying rows to multiple target transforms", e );
+        }
+        putRowsToRowSet( outputRowSets.get( o ), rowMeta, copies, count );
+        addLinesWritten( count );
       }
+
+      // ... and hand the batch itself to the first output rowset
+      //
+      putRowsToRowSet( outputRowSets.get( 0 ), rowMeta, rows, count );
+      addLinesWritten( count );
     } finally {
       outputRowSetsLock.readLock().unlock();
     }
@@ -1195,7 +1272,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
 
-        if ( !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
+        if ( rowSetSignal == null && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
           try {
             Thread.sleep( 0, 1 );
           } catch ( InterruptedException e ) {
@@ -1231,7 +1308,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
 
-        if ( !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
+        if ( rowSetSignal == null && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
           try {
             Thread.sleep( 0, 1 );
           } catch ( InterruptedException e ) {
@@ -1275,6 +1352,19 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     }
   }
 
+  private void putRowsToRowSet( IRowSet rs, IRowMeta rowMeta, Object[][] rows, int count ) {
+    IRowMeta metaFromRs = rs.getRowMeta();
+    IRowMeta toBeSent = metaFromRs == null ? rowMeta.clone() : metaFromRs;
+
+    int offset = 0;
+    while ( offset < count ) {
+      offset += rs.putRows( toBeSent, rows, offset, count - offset );
+      if ( offset < count && isStopped() && !safeStopped.get() ) {
+        return;
+      }
+    }
+  }
+
   /**
    * putRowTo is used to put a row in a certain specific IRowSet.
    *
@@ -1297,13 +1387,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     // Are we pausing the transform? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 1 );
-      } catch ( InterruptedException e ) {
-        throw new HopTransformException( e );
-      }
-    }
+    waitWhilePaused( 1 );
 
     // call all row listeners...
     //
@@ -1338,6 +1422,80 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     incrementLinesWritten();
   }
 
+  /**
+   * putRowsTo is the batch version of {@link #putRowTo(IRowMeta, Object[], IRowSet)}.
+   *
+   * @param rowMeta The row meta-data of all the rows in the batch
+   * @param rows    the rows to put in the IRowSet, the array can be larger than the batch
+   * @param count   the number of rows in the batch
+   * @param rowSet  the RoWset to put the rows into.
+   * @throws HopTransformException In case something unexpected goes wrong
+   */
+  public void putRowsTo( IRowMeta rowMeta, Object[][] rows, int count, IRowSet rowSet ) throws HopTransformException {
+    if ( count <= 0 ) {
+      return;
+    }
+    if ( count == 1 ) {
+      putRowTo( rowMeta, rows[ 0 ], rowSet );
+      return;
+    }
+    getRowHandler().putRowsTo( rowMeta, rows, count, rowSet );
+
+    // This transform is not reading data, only writing
+    //
+    if (firstRowReadDate==null) {
+      firstRowReadDate = new Date();
+    }
+  }
+
+  private void handlePutRowsTo( IRowMeta rowMeta, Object[][] rows, int count, IRowSet rowSet )
+    throws HopTransformException {
+
+    // Are we pausing the transform? If so, stall forever...
+    //
+    waitWhilePaused( 1 );
+
+    // call all row listeners...
+    //
+    if ( !rowListeners.isEmpty() ) {
+      for ( int i = 0; i < count; i++ ) {
+        for ( IRowListener listener : rowListeners ) {
+          listener.rowWrittenEvent( rowMeta, rows[ i ] );
+        }
+      }
+    }
+
+    // Keep adding to terminator_rows buffer...
+    if ( terminator && terminatorRows != null ) {
+      try {
+        for ( int i = 0; i < count; i++ ) {
+          terminatorRows.add( rowMeta.cloneRow( rows[ i ] ) );
+        }
+      } catch ( HopValueException e ) {
+        throw new HopTransformException( "Unable to clone row while adding rows to the terminator buffer", e );
+      }
+    }
+
+    if ( stopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseTransform.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    // Don't distribute or anything, only go to this rowset!
+    //
+    int offset = 0;
+    while ( offset < count ) {
+      offset += rowSet.putRows( rowMeta, rows, offset, count - offset );
+      if ( offset < count && isStopped() ) {
+        break;
+      }
+    }
+    addLinesWritten( count );
+  }
+
   /**
    * Put error.
    *
@@ -1481,13 +1639,88 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     //
     if ( this.checkPipelineRunning == false ) {
       while ( !pipeline.isRunning() && !stopped.get() ) {
+        if ( rowSetSignal != null ) {
+          rowSetSignal.await( () -> pipeline.isRunning() || stopped.get(), 1, TimeUnit.MILLISECONDS );
+        } else {
+          try {
+            Thread.sleep( 1 );
+          } catch ( InterruptedException e ) {
+            // Ignore sleep interruption exception
+          }
+        }
+      }
+      this.checkPipelineRunning = true;
+    }
+  }
+
+  /**
+   * Wait as long as this transform is paused and not stopped.
+   *
+   * @param pollMillis The number of milliseconds to sleep between checks when not using row set signaling
+   * @throws HopTransformException In case the thread got interrupted
+   */
+  private void waitWhilePaused( long pollMillis ) throws HopTransformException {
+    while ( paused.get() && !stopped.get() ) {
+      if ( rowSetSignal != null ) {
+        // Woken up by resumeRunning() or stopping the transform
+        //
+        rowSetSignal.await( () -> !paused.get() || stopped.get(), Const.TIMEOUT_GET_MILLIS, TimeUnit.MILLISECONDS );
+      } else {
         try {
-          Thread.sleep( 1 );
+          Thread.sleep( pollMillis );
         } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
+          throw new HopTransformException( e );
         }
       }
-      this.checkPipelineRunning = true;
+    }
+  }
+
+  /**
+   * @return true if the transform is stopped or any of the input row sets has a row waiting or is done. Takes the input
+   * row sets read lock itself, so call this without holding it.
+   */
+  private boolean isInputAvailable() {
+    if ( stopped.get() ) {
+      return true;
+    }
+    inputRowSetsLock.readLock().lock();
+    try {
+      for ( IRowSet rowSet : inputRowSets ) {
+        if ( rowSet.size() > 0 || rowSet.isDone() ) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Transforms sleep until one of their input row sets signals new data if HOP_ROWSET_SIGNALING is set to Y.
+   *
+   * @return true if row set signaling is enabled
+   */
+  protected boolean isRowSetSignalingEnabled() {
+    Boolean signaling = ValueMetaString.convertStringToBoolean( System.getProperty( Const.HOP_ROWSET_SIGNALING ) );
+    return signaling != null && signaling.booleanValue();
+  }
+
+  /**
+   * Wake up this transform if it's waiting for input, to resume or for the pipeline to start.
+   */
+  private void wakeUp() {
+    if ( rowSetSignal != null ) {
+      rowSetSignal.signal();
+    }
+  }
+
+  /**
+   * Let the row set raise this transform's signal when it receives rows.
+   */
+  private void attachRowSetSignal( IRowSet rowSet ) {
+    if ( rowSetSignal != null && rowSet != null ) {
+      rowSet.setSignal( rowSetSignal );
     }
   }
 
@@ -1508,17 +1741,109 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   }
 
 
-  private Object[] handleGetRow() throws HopException {
+  /**
+   * Get a batch of rows from the input row sets. Only the first row is waited for, the rest of the batch are the rows
+   * which are immediately available in the same input row set. The batch size is limited to the value of the
+   * HOP_ROW_BATCH_SIZE variable.
+   *
+   * @return the rows, at least one, or null if there is no more input
+   * @throws HopException
+   */
+  public Object[][] getRows() throws HopException {
+    return getRows( rowBatchSize );
+  }
 
-    // Are we pausing the transform? If so, stall forever...
+  /**
+   * Get a batch of rows from the input row sets. Only the first row is waited for, the rest of the batch are the rows
+   * which are immediately available in the same input row set.
+   *
+   * @param max the maximum number of rows to return
+   * @return the rows, at least one, or null if there is no more input
+   * @throws HopException
+   */
+  @Override
+  public Object[][] getRows( int max ) throws HopException {
+    return getRowHandler().getRows( max );
+  }
+
+  private Object[][] handleGetRows( int max ) throws HopException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    if ( max <= 1 || stopped.get() ) {
+      return new Object[][] { row };
+    }
+
+    // Top up the batch with the rows which are already waiting in the same input row set.
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 100 );
-      } catch ( InterruptedException e ) {
-        throw new HopTransformException( e );
+    Object[][] rows = null;
+    int available = 0;
+    int count = 0;
+    inputRowSetsLock.readLock().lock();
+    try {
+      if ( inputRowSets != null && currentInputRowSetNr < inputRowSets.size() ) {
+        IRowSet inputRowSet = inputRowSets.get( currentInputRowSetNr );
+
+        // All rows of a batch share the same metadata
+        //
+        if ( inputRowSet.getRowMeta() == inputRowMeta ) {
+          available = Math.min( max - 1, inputRowSet.size() );
+          if ( available > 0 ) {
+            rows = new Object[ 1 + available ][];
+            count = inputRowSet.getRowsImmediate( rows, 1, available );
+          }
+        }
       }
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+
+    if ( count <= 0 ) {
+      return new Object[][] { row };
     }
+    rows[ 0 ] = row;
+    blockPointer += count;
+
+    // The same checks as getRow() does for every row
+    //
+    boolean safeMode = pipeline.isSafeModeEnabled();
+    for ( int i = 1; i <= count; i++ ) {
+      incrementLinesRead();
+      if ( safeMode ) {
+        pipelineMeta.checkRowMixingStatically( this, transformMeta, null );
+      }
+      for ( IRowListener listener : rowListeners ) {
+        listener.rowReadEvent( inputRowMeta, rows[ i ] );
+      }
+      verifyRejectionRates();
+    }
+
+    if ( count < available ) {
+      rows = Arrays.copyOf( rows, 1 + count );
+    }
+    return rows;
+  }
+
+  /**
+   * @return The maximum number of rows returned by {@link #getRows()}
+   */
+  public int getRowBatchSize() {
+    return rowBatchSize;
+  }
+
+  /**
+   * @param rowBatchSize The maximum number of rows returned by {@link #getRows()}
+   */
+  public void setRowBatchSize( int rowBatchSize ) {
+    this.rowBatchSize = Math.max( 1, rowBatchSize );
+  }
+
+  private Object[] handleGetRow() throws HopException {
+
+    // Are we pausing the transform? If so, stall forever...
+    //
+    waitWhilePaused( 100 );
 
     if ( stopped.get() ) {
       if ( log.isDebug() ) {
@@ -1568,7 +1893,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       // The buffer to grow beyond "a few" entries.
       // We'll only do that if the previous transform has not ended...
 
-      if ( !inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped() ) {
+      if ( rowSetSignal == null && !inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped() ) {
         try {
           Thread.sleep( 0, 1 );
         } catch ( InterruptedException e ) {
@@ -1588,12 +1913,18 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       // rowset, then switch to another etc.
       // We can use timeouts to switch from one to another...
       //
+      int emptyRowSets = 0;
       while ( row == null && !isStopped() ) {
         // Get a row from the input in row set ...
         // Timeout immediately if nothing is there to read.
         // We will then switch to the next row set to read from...
+        // When signaling, don't wait at all: we'll sleep below once all row sets came up empty.
         //
-        row = inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+        if ( rowSetSignal != null ) {
+          row = inputRowSet.getRowImmediate();
+        } else {
+          row = inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+        }
         if ( row != null ) {
           incrementLinesRead();
           blockPointer++;
@@ -1631,6 +1962,33 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           }
           nextInputStream();
           inputRowSet = currentInputStream();
+
+          // None of the input row sets has anything for us: sleep until one of them signals new data.
+          //
+          if ( row == null && rowSetSignal != null && ++emptyRowSets >= inputRowSets.size() ) {
+            // Don't hold the read lock while sleeping, it would keep out anyone changing the input row sets.
+            //
+            inputRowSetsLock.readLock().unlock();
+            try {
+              // A paused transform sleeps until it's resumed before it waits for input again
+              //
+              waitWhilePaused( 1 );
+              rowSetSignal.await( this::isInputAvailable, Const.TIMEOUT_GET_MILLIS, TimeUnit.MILLISECONDS );
+            } finally {
+              inputRowSetsLock.readLock().lock();
+            }
+            emptyRowSets = 0;
+
+            // The input row sets may have changed in the meantime
+            //
+            if ( inputRowSets.isEmpty() ) {
+              return null;
+            }
+            if ( currentInputRowSetNr >= inputRowSets.size() ) {
+              currentInputRowSetNr = 0;
+            }
+            inputRowSet = currentInputStream();
+          }
         }
       }
 
@@ -1814,34 +2172,19 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   public Object[] handleGetRowFrom( IRowSet rowSet ) throws HopTransformException {
     // Are we pausing the transform? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 10 );
-      } catch ( InterruptedException e ) {
-        throw new HopTransformException( e );
-      }
-    }
+    waitWhilePaused( 10 );
 
     // Have all threads started?
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
-    if ( this.checkPipelineRunning == false ) {
-      while ( !pipeline.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
-        }
-      }
-      this.checkPipelineRunning = true;
-    }
+    waitUntilPipelineIsStarted();
     Object[] rowData = null;
 
     // To reduce stress on the locking system we are going to allow
     // The buffer to grow beyond "a few" entries.
     // We'll only do that if the previous transform has not ended...
 
-    if ( !rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped() ) {
+    if ( rowSetSignal == null && !rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped() ) {
       try {
         Thread.sleep( 0, 1 );
       } catch ( InterruptedException e ) {
@@ -2203,6 +2546,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           }
           if ( rowSet != null ) {
             inputRowSets.add( rowSet );
+            attachRowSetSignal( rowSet );
             if ( log.isDetailed() ) {
               logDetailed( BaseMessages.getString( PKG, "BaseTransform.Log.FoundInputRowset", rowSet.getName() ) );
             }
@@ -2494,6 +2838,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void stopAll() {
     stopped.set( true );
+    wakeUp();
     pipeline.stopAll();
   }
 
@@ -2535,6 +2880,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void setStopped( boolean stopped ) {
     this.stopped.set( stopped );
+    wakeUp();
   }
 
   @Override
@@ -2584,6 +2930,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   public void setPaused( boolean paused ) {
     this.paused.set( paused );
+    wakeUp();
   }
 
   /**
@@ -2772,22 +3119,20 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * Log summary.
    */
   public void logSummary() {
-    synchronized ( statusCountersLock ) {
-      long li = getLinesInput();
-      long lo = getLinesOutput();
-      long lr = getLinesRead();
-      long lw = getLinesWritten();
-      long lu = getLinesUpdated();
-      long lj = getLinesRejected();
-      if ( li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0 ) {
-        logBasic( BaseMessages.getString( PKG, "BaseTransform.Log.SummaryInfo", String.valueOf( li ), String
-          .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
-          .valueOf( errors + lj ) ) );
-      } else {
-        logDetailed( BaseMessages.getString( PKG, "BaseTransform.Log.SummaryInfo", String.valueOf( li ), String
-          .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
-          .valueOf( errors + lj ) ) );
-      }
+    long li = getLinesInput();
+    long lo = getLinesOutput();
+    long lr = getLinesRead();
+    long lw = getLinesWritten();
+    long lu = getLinesUpdated();
+    long lj = getLinesRejected();
+    if ( li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0 ) {
+      logBasic( BaseMessages.getString( PKG, "BaseTransform.Log.SummaryInfo", String.valueOf( li ), String
+        .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
+        .valueOf( errors + lj ) ) );
+    } else {
+      logDetailed( BaseMessages.getString( PKG, "BaseTransform.Log.SummaryInfo", String.valueOf( li ), String
+        .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
+        .valueOf( errors + lj ) ) );
     }
   }
 
@@ -2818,6 +3163,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     inputRowSetsLock.writeLock().lock();
     try {
       inputRowSets.add( rowSet );
+      attachRowSetSignal( rowSet );
     } finally {
       inputRowSetsLock.writeLock().unlock();
     }
@@ -2845,11 +3191,11 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     inputRowSetsLock.writeLock().lock();
     try {
       for ( int i = 0; i < inputRowSets.size(); i++ ) {
-        BlockingRowSet rs = (BlockingRowSet) inputRowSets.get( i );
+        IRowSet rs = inputRowSets.get( i );
         if ( rs.getOriginTransformName().equalsIgnoreCase( transformName ) ) {
           // swap this one and position 0...that means, the main stream is always stream 0 --> easy!
           //
-          BlockingRowSet zero = (BlockingRowSet) inputRowSets.get( 0 );
+          IRowSet zero = inputRowSets.get( 0 );
           inputRowSets.set( 0, rs );
           inputRowSets.set( i, zero );
         }
@@ -2866,6 +3212,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     inputRowSetsLock.writeLock().lock();
     try {
       this.inputRowSets = inputRowSets;
+      if ( inputRowSets != null ) {
+        inputRowSets.forEach( this::attachRowSetSignal );
+      }
     } finally {
       inputRowSetsLock.writeLock().unlock();
     }
@@ -3114,6 +3463,21 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       && ( lines % getPipeline().getFeedbackSize() ) == 0;
   }
 
+  /**
+   * Check feedback after processing a batch of rows.
+   *
+   * @param linesBefore the lines before the batch was processed
+   * @param linesAfter  the lines after the batch was processed
+   * @return true, if feedback needs to be given for a line in the batch
+   */
+  protected boolean checkFeedback( long linesBefore, long linesAfter ) {
+    if ( !getPipeline().isFeedbackShown() || getPipeline().getFeedbackSize() <= 0 || linesAfter <= 0 ) {
+      return false;
+    }
+    long feedbackSize = getPipeline().getFeedbackSize();
+    return linesAfter / feedbackSize > Math.max( 0L, linesBefore ) / feedbackSize;
+  }
+
   /**
    * @return the rowMeta
    */
@@ -3646,6 +4010,19 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       handlePutRowTo( rowMeta, row, rowSet );
     }
 
+    @Override public Object[][] getRows( int max ) throws HopException {
+      return handleGetRows( max );
+    }
+
+    @Override public void putRows( IRowMeta rowMeta, Object[][] rows, int count ) throws HopTransformException {
+      handlePutRows( rowMeta, rows, count );
+    }
+
+    @Override public void putRowsTo( IRowMeta rowMeta, Object[][] rows, int count, IRowSet rowSet )
+      throws HopTransformException {
+      handlePutRowsTo( rowMeta, rows, count, rowSet );
+    }
+
   }
 
   /**
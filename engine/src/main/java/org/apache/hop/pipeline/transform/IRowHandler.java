@@ -51,6 +51,37 @@ public interface IRowHandler {
         this.getClass().getName() ) );
   }
 
+  /**
+   * Get a batch of rows. Row handlers which don't support batches hand out one row at a time.
+   *
+   * @param max the maximum number of rows to return
+   * @return the rows, at least one, or null if there are no more rows
+   */
+  default Object[][] getRows( int max ) throws HopException {
+    Object[] row = getRow();
+    return row == null ? null : new Object[][] { row };
+  }
+
+  /**
+   * Put a batch of rows. Row handlers which don't support batches put the rows one at a time.
+   *
+   * @param rowMeta the metadata of all the rows in the batch
+   * @param rows    the rows, the array can be larger than the batch
+   * @param count   the number of rows in the batch
+   */
+  default void putRows( IRowMeta rowMeta, Object[][] rows, int count ) throws HopTransformException {
+    for ( int i = 0; i < count; i++ ) {
+      putRow( rowMeta, rows[ i ] );
+    }
+  }
+
+  default void putRowsTo( IRowMeta rowMeta, Object[][] rows, int count, IRowSet rowSet )
+    throws HopTransformException {
+    for ( int i = 0; i < count; i++ ) {
+      putRowTo( rowMeta, rows[ i ], rowSet );
+    }
+  }
+
   default Object[] getRowFrom( IRowSet rowSet ) throws HopTransformException {
     throw new UnsupportedOperationException(
       BaseMessages.getString( PKG, "BaseTransform.RowHandler.GetRowFromNotSupported",
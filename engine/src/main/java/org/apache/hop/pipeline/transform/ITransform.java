@@ -232,6 +232,30 @@ public interface ITransform<Meta extends ITransformMeta, Data extends ITransform
    */
   Object[] getRow() throws HopException;
 
+  /**
+   * Put a batch of rows on the destination rowsets. By default the rows are put one at a time.
+   *
+   * @param rowMeta The metadata of all the rows in the batch
+   * @param rows    The rows to send to the destinations transforms, the array can be larger than the batch
+   * @param count   The number of rows in the batch
+   */
+  default void putRows( IRowMeta rowMeta, Object[][] rows, int count ) throws HopException {
+    for ( int i = 0; i < count; i++ ) {
+      putRow( rowMeta, rows[ i ] );
+    }
+  }
+
+  /**
+   * Get a batch of rows from the source transform(s). By default the batch contains a single row.
+   *
+   * @param max The maximum number of rows to return
+   * @return at least one row from the source transform(s) or null if there are no more rows.
+   */
+  default Object[][] getRows( int max ) throws HopException {
+    Object[] row = getRow();
+    return row == null ? null : new Object[][] { row };
+  }
+
   /**
    * Signal output done to destination transforms
    */
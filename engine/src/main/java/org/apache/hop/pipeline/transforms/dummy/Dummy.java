@@ -43,16 +43,18 @@ public class Dummy extends BaseTransform<DummyMeta, DummyData> implements ITrans
 
   @Override
   public boolean processRow() throws HopException {
-    Object[] r = getRow(); // get row, set busy!
+    long linesBefore = getLinesRead();
+
+    Object[][] rows = getRows(); // get a batch of rows, set busy!
     // no more input to be expected...
-    if ( r == null ) {
+    if ( rows == null ) {
       setOutputDone();
       return false;
     }
 
-    putRow( getInputRowMeta(), r ); // copy row to possible alternate rowset(s).
+    putRows( getInputRowMeta(), rows, rows.length ); // copy rows to possible alternate rowset(s).
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    if ( checkFeedback( linesBefore, getLinesRead() ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "Dummy.Log.LineNumber" ) + getLinesRead() );
       }
@@ -37,8 +37,12 @@ import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.engine.PipelineEngineFactory;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.ITransformData;
+import org.apache.hop.pipeline.transform.ITransformMeta;
 import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
 import org.apache.hop.pipeline.transforms.PipelineTransformUtil;
+import org.apache.hop.pipeline.transforms.pipelineexecutor.PipelineExecutorData.GroupExecution;
 import org.apache.hop.pipeline.transforms.workflowexecutor.WorkflowExecutor;
 
 import java.util.ArrayList;
@@ -47,6 +51,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * Execute a pipeline for every input row, set parameters.
@@ -82,6 +87,7 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
 
       if ( row == null ) {
         executePipeline( null );
+        finishExecutions();
         setOutputDone();
         return false;
       }
@@ -197,46 +203,165 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
       discardLogLines( pipelineExecutorData );
     }
 
-    IPipelineEngine<PipelineMeta> executorPipeline = createInternalPipeline();
+    // Use a pipeline which was prepared ahead of time if we have one
+    //
+    IPipelineEngine<PipelineMeta> executorPipeline = pipelineExecutorData.preparedPipelines.poll();
+    boolean prepared = executorPipeline != null;
+    if ( !prepared ) {
+      executorPipeline = createInternalPipeline();
+    }
     pipelineExecutorData.setExecutorPipeline( executorPipeline );
-    if ( incomingFieldValues != null ) {
-      // Pass parameter values
-      passParametersToPipeline( incomingFieldValues );
-    } else {
-      List<String> lastIncomingFieldValues = getLastIncomingFieldValues();
-      // incomingFieldValues == null-  There are no more rows - Last Case - pass previous values if exists
-      // If not still pass the null parameter values
-      passParametersToPipeline( lastIncomingFieldValues != null && !lastIncomingFieldValues.isEmpty() ? lastIncomingFieldValues : incomingFieldValues );
+    if ( !prepared ) {
+      if ( incomingFieldValues != null ) {
+        // Pass parameter values
+        passParametersToPipeline( incomingFieldValues );
+      } else {
+        List<String> lastIncomingFieldValues = getLastIncomingFieldValues();
+        // incomingFieldValues == null-  There are no more rows - Last Case - pass previous values if exists
+        // If not still pass the null parameter values
+        passParametersToPipeline( lastIncomingFieldValues != null && !lastIncomingFieldValues.isEmpty() ? lastIncomingFieldValues : incomingFieldValues );
+      }
     }
 
     // keep track for drill down in HopGui...
-    getPipeline().addActiveSubPipeline( getTransformName(), executorPipeline );
+    getPipeline().addActiveSubPipeline( getActiveSubPipelineName( pipelineExecutorData.executionNr++ ), executorPipeline );
 
     Result result = new Result();
-    result.setRows( pipelineExecutorData.groupBuffer );
+    result.setRows( new ArrayList<>( pipelineExecutorData.groupBuffer ) );
     executorPipeline.setPreviousResult( result );
 
+    GroupExecution execution = new GroupExecution( executorPipeline, result, pipelineExecutorData.groupTimeStart );
+    pipelineExecutorData.groupExecutions.add( execution );
     try {
-      executorPipeline.prepareExecution();
+      if ( !prepared ) {
+        executorPipeline.prepareExecution();
+      }
 
       // run pipeline
       executorPipeline.startThreads();
+      execution.setStarted( true );
+    } catch ( HopException e ) {
+      log.logError( "An error occurred executing the pipeline: ", e );
+    }
+
+    pipelineExecutorData.groupBuffer.clear();
+
+    // More groups are coming: get the next pipelines ready while this one is running
+    //
+    if ( incomingFieldValues != null ) {
+      preparePipelines();
+    }
+
+    // Don't execute more groups at the same time than allowed
+    //
+    while ( pipelineExecutorData.groupExecutions.size() >= pipelineExecutorData.maxConcurrentExecutions ) {
+      finishOldestExecution();
+    }
+  }
+
+  /**
+   * Wait until the oldest group is executed and pass on its results. Results are always passed on in the order in
+   * which the groups were received.
+   */
+  private void finishOldestExecution() throws HopException {
+    PipelineExecutorData pipelineExecutorData = getData();
+    GroupExecution execution = pipelineExecutorData.groupExecutions.poll();
+    if ( execution == null ) {
+      return;
+    }
 
+    IPipelineEngine<PipelineMeta> executorPipeline = execution.getPipeline();
+    Result result;
+    if ( execution.isStarted() ) {
       // Wait a while until we're done with the pipeline
       executorPipeline.waitUntilFinished();
 
       result = executorPipeline.getResult();
-    } catch ( HopException e ) {
-      log.logError( "An error occurred executing the pipeline: ", e );
+    } else {
+      result = execution.getResult();
       result.setResult( false );
       result.setNrErrors( 1 );
     }
 
+    // The execution results (log text, log channel) refer to this pipeline
+    //
+    pipelineExecutorData.setExecutorPipeline( executorPipeline );
+
     collectPipelineResults( result );
-    collectExecutionResults( result );
+    collectExecutionResults( result, execution.getStartTime() );
     collectExecutionResultFiles( result );
+  }
 
-    pipelineExecutorData.groupBuffer.clear();
+  private void finishExecutions() throws HopException {
+    while ( !getData().groupExecutions.isEmpty() ) {
+      finishOldestExecution();
+    }
+    disposePreparedPipelines();
+  }
+
+  /**
+   * Prepare pipelines until the pool is full. The parameters of these pipelines don't depend on the incoming rows so
+   * they can be set before we know which group of rows will be passed.
+   */
+  private void preparePipelines() {
+    PipelineExecutorData pipelineExecutorData = getData();
+    while ( pipelineExecutorData.preparedPipelines.size() < pipelineExecutorData.poolSize && !isStopped() ) {
+      try {
+        IPipelineEngine<PipelineMeta> executorPipeline = createInternalPipeline();
+        passParametersToPipeline( executorPipeline, null );
+        executorPipeline.prepareExecution();
+        pipelineExecutorData.preparedPipelines.add( executorPipeline );
+      } catch ( HopException e ) {
+        // Don't keep trying, the error will be reported when the pipeline is prepared for the next group
+        //
+        logError( BaseMessages.getString( PKG, "PipelineExecutor.Log.UnableToPreparePipeline" ), e );
+        pipelineExecutorData.poolSize = 0;
+      }
+    }
+  }
+
+  /**
+   * Release the transforms of the pipelines which were prepared but never received a group of rows.
+   */
+  private void disposePreparedPipelines() {
+    IPipelineEngine<PipelineMeta> executorPipeline;
+    while ( ( executorPipeline = getData().preparedPipelines.poll() ) != null ) {
+      if ( executorPipeline instanceof Pipeline ) {
+        for ( TransformMetaDataCombi<ITransform, ITransformMeta, ITransformData> combi : ( (Pipeline) executorPipeline ).getTransforms() ) {
+          combi.transform.dispose();
+          combi.transform.markStop();
+        }
+      } else {
+        executorPipeline.stopAll();
+      }
+      LoggingRegistry.getInstance().removeIncludingChildren( executorPipeline.getLogChannelId() );
+    }
+  }
+
+  private boolean isUsingFieldParameters() {
+    String[] fields = meta.getParameters().getField();
+    if ( fields != null ) {
+      for ( String field : fields ) {
+        if ( !Utils.isEmpty( Const.trim( field ) ) ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The groups which execute at the same time are registered under a name of their own: the first one under the name
+   * of the transform, the others with a sequence number. At most maxConcurrentExecutions consecutive groups are running
+   * so the names are reused, finished pipelines don't pile up in the parent pipeline.
+   */
+  @VisibleForTesting
+  String getActiveSubPipelineName( long executionNr ) {
+    int slot = (int) ( executionNr % getData().maxConcurrentExecutions );
+    if ( slot == 0 ) {
+      return getTransformName();
+    }
+    return getTransformName() + " (" + ( slot + 1 ) + ")";
   }
 
   @VisibleForTesting
@@ -245,9 +370,20 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
     // TODO: make this optional/user-defined later
     IPipelineEngine<PipelineMeta> executorPipeline = pipelineExecutorData.getExecutorPipeline();
     if ( executorPipeline != null ) {
-      HopLogStore.discardLines( executorPipeline.getLogChannelId(), false );
-      LoggingRegistry.getInstance().removeIncludingChildren( executorPipeline.getLogChannelId() );
+      discardLogLines( executorPipeline );
     }
+    if ( pipelineExecutorData.groupExecutions != null ) {
+      for ( GroupExecution execution : pipelineExecutorData.groupExecutions ) {
+        if ( execution.getPipeline() != executorPipeline ) {
+          discardLogLines( execution.getPipeline() );
+        }
+      }
+    }
+  }
+
+  private void discardLogLines( IPipelineEngine<PipelineMeta> executorPipeline ) {
+    HopLogStore.discardLines( executorPipeline.getLogChannelId(), false );
+    LoggingRegistry.getInstance().removeIncludingChildren( executorPipeline.getLogChannelId() );
   }
 
   @VisibleForTesting
@@ -268,6 +404,10 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
 
   @VisibleForTesting
   void passParametersToPipeline( List<String> incomingFieldValues ) throws HopException {
+    passParametersToPipeline( getExecutorPipeline(), incomingFieldValues );
+  }
+
+  private void passParametersToPipeline( IPipelineEngine<PipelineMeta> pipeline, List<String> incomingFieldValues ) throws HopException {
     //The values of the incoming fields from the previous transform.
     if ( incomingFieldValues == null ) {
       incomingFieldValues = new ArrayList<>();
@@ -345,7 +485,6 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
       inputFieldValues[ i ] = resolvingValuesMap.get( parameters.getVariable()[ i ] );
     }
 
-    IPipelineEngine<PipelineMeta> pipeline = getExecutorPipeline();
     TransformWithMappingMeta.activateParams(
       pipeline,
       pipeline,
@@ -368,14 +507,14 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
   }
 
   @VisibleForTesting
-  void collectExecutionResults( Result result ) throws HopException {
+  void collectExecutionResults( Result result, long executionStartTime ) throws HopException {
     IRowSet executionResultsRowSet = getData().getExecutionResultRowSet();
     if ( meta.getExecutionResultTargetTransformMeta() != null && executionResultsRowSet != null ) {
       Object[] outputRow = RowDataUtil.allocateRowData( getData().getExecutionResultsOutputRowMeta().size() );
       int idx = 0;
 
       if ( !Utils.isEmpty( meta.getExecutionTimeField() ) ) {
-        outputRow[ idx++ ] = Long.valueOf( System.currentTimeMillis() - getData().groupTimeStart );
+        outputRow[ idx++ ] = Long.valueOf( System.currentTimeMillis() - executionStartTime );
       }
       if ( !Utils.isEmpty( meta.getExecutionResultField() ) ) {
         outputRow[ idx++ ] = Boolean.valueOf( result.getResult() );
@@ -466,6 +605,18 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
           }
           pipelineExecutorData.groupTimeStart = System.currentTimeMillis();
 
+          // How many pipelines do we prepare ahead of time and how many groups can run at the same time?
+          //
+          pipelineExecutorData.poolSize = Math.max( 0, Const.toInt( resolve( meta.getPoolSize() ), 0 ) );
+          pipelineExecutorData.maxConcurrentExecutions = Math.max( 1, Const.toInt( resolve( meta.getMaxConcurrentExecutions() ), 1 ) );
+          if ( pipelineExecutorData.poolSize > 0 && isUsingFieldParameters() ) {
+            // The parameters are only known when the group of rows is complete
+            logBasic( BaseMessages.getString( PKG, "PipelineExecutor.Log.PoolDisabledByFieldParameters" ) );
+            pipelineExecutorData.poolSize = 0;
+          }
+          pipelineExecutorData.preparedPipelines = new ConcurrentLinkedDeque<>();
+          pipelineExecutorData.groupExecutions = new ConcurrentLinkedDeque<>();
+
           // Is there a grouping field set?
           if ( !Utils.isEmpty( meta.getGroupField() ) ) {
             pipelineExecutorData.groupField = resolve( meta.getGroupField() );
@@ -492,25 +643,42 @@ public class PipelineExecutor extends BaseTransform<PipelineExecutorMeta, Pipeli
   public void dispose(){
     PipelineExecutorData pipelineExecutorData = getData();
     pipelineExecutorData.groupBuffer = null;
+    if ( pipelineExecutorData.groupExecutions != null ) {
+      // Only when we stopped before all groups were executed
+      for ( GroupExecution execution : pipelineExecutorData.groupExecutions ) {
+        execution.getPipeline().stopAll();
+      }
+      pipelineExecutorData.groupExecutions.clear();
+    }
+    if ( pipelineExecutorData.preparedPipelines != null ) {
+      disposePreparedPipelines();
+    }
     super.dispose();
   }
 
   public void stopRunning() throws HopException {
-    if ( getData().getExecutorPipeline() != null ) {
-      getData().getExecutorPipeline().stopAll();
-    }
+    stopExecutorPipelines();
   }
 
   public void stopAll() {
     // Stop the pipeline execution.
-    if ( getData().getExecutorPipeline() != null ) {
-      getData().getExecutorPipeline().stopAll();
-    }
+    stopExecutorPipelines();
 
     // Also stop this transform
     super.stopAll();
   }
 
+  private void stopExecutorPipelines() {
+    if ( getData().getExecutorPipeline() != null ) {
+      getData().getExecutorPipeline().stopAll();
+    }
+    if ( getData().groupExecutions != null ) {
+      for ( GroupExecution execution : getData().groupExecutions ) {
+        execution.getPipeline().stopAll();
+      }
+    }
+  }
+
   public IPipelineEngine<PipelineMeta> getExecutorPipeline() {
     return getData().getExecutorPipeline();
   }
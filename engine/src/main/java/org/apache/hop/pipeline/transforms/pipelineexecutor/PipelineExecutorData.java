@@ -18,6 +18,7 @@
 package org.apache.hop.pipeline.transforms.pipelineexecutor;
 
 import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.Result;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
@@ -27,6 +28,7 @@ import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -54,6 +56,24 @@ public class PipelineExecutorData extends BaseTransformData implements ITransfor
 
   public Object prevGroupFieldData;
 
+  public int poolSize;
+  public int maxConcurrentExecutions;
+
+  /**
+   * Sub-pipelines which are prepared and ready to receive a group of rows
+   */
+  public Deque<IPipelineEngine<PipelineMeta>> preparedPipelines;
+
+  /**
+   * The groups which are being executed, oldest first
+   */
+  public Deque<GroupExecution> groupExecutions;
+
+  /**
+   * The number of groups handed to a sub-pipeline so far
+   */
+  public long executionNr;
+
   private IRowSet executorTransformOutputRowSet;
   private IRowSet resultRowsRowSet;
   private IRowSet resultFilesRowSet;
@@ -158,4 +178,43 @@ public class PipelineExecutorData extends BaseTransformData implements ITransfor
   public void setExecutionResultRowSet( IRowSet executionResultRowSet ) {
     this.executionResultRowSet = executionResultRowSet;
   }
+
+  /**
+   * A group of rows handed to a sub-pipeline which didn't finish yet.
+   */
+  public static class GroupExecution {
+    private final IPipelineEngine<PipelineMeta> pipeline;
+    private final Result result;
+    private final long startTime;
+    private boolean started;
+
+    public GroupExecution( IPipelineEngine<PipelineMeta> pipeline, Result result, long startTime ) {
+      this.pipeline = pipeline;
+      this.result = result;
+      this.startTime = startTime;
+    }
+
+    public IPipelineEngine<PipelineMeta> getPipeline() {
+      return pipeline;
+    }
+
+    /**
+     * @return the result with the rows of the group, used when the pipeline could not be started
+     */
+    public Result getResult() {
+      return result;
+    }
+
+    public long getStartTime() {
+      return startTime;
+    }
+
+    public boolean isStarted() {
+      return started;
+    }
+
+    public void setStarted( boolean started ) {
+      this.started = started;
+    }
+  }
 }
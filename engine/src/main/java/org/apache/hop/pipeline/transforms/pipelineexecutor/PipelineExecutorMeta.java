@@ -102,6 +102,18 @@ public class PipelineExecutorMeta
    */
   private String groupTime;
 
+  /**
+   * Optional number of sub-pipelines which are prepared ahead of time, ready to receive the next group of rows (empty
+   * default, "0": prepare a pipeline when a group is complete)
+   */
+  private String poolSize;
+
+  /**
+   * Optional maximum number of groups which are executed at the same time (empty default, "1": one group after the
+   * other)
+   */
+  private String maxConcurrentExecutions;
+
   private PipelineExecutorParameters parameters;
 
   private String executionResultTargetTransform;
@@ -245,6 +257,8 @@ public class PipelineExecutorMeta
     retval.append( "    " ).append( XmlHandler.addTagValue( "group_size", groupSize ) );
     retval.append( "    " ).append( XmlHandler.addTagValue( "group_field", groupField ) );
     retval.append( "    " ).append( XmlHandler.addTagValue( "group_time", groupTime ) );
+    retval.append( "    " ).append( XmlHandler.addTagValue( "pool_size", poolSize ) );
+    retval.append( "    " ).append( XmlHandler.addTagValue( "max_concurrent_executions", maxConcurrentExecutions ) );
 
     // Add the mapping parameters too
     //
@@ -307,6 +321,8 @@ public class PipelineExecutorMeta
       groupSize = XmlHandler.getTagValue( transformNode, "group_size" );
       groupField = XmlHandler.getTagValue( transformNode, "group_field" );
       groupTime = XmlHandler.getTagValue( transformNode, "group_time" );
+      poolSize = XmlHandler.getTagValue( transformNode, "pool_size" );
+      maxConcurrentExecutions = XmlHandler.getTagValue( transformNode, "max_concurrent_executions" );
 
       // Load the mapping parameters too..
       //
@@ -361,6 +377,8 @@ public class PipelineExecutorMeta
     groupSize = "1";
     groupField = "";
     groupTime = "";
+    poolSize = "";
+    maxConcurrentExecutions = "";
 
     executionTimeField = "ExecutionTime";
     executionResultField = "ExecutionResult";
@@ -849,6 +867,34 @@ public class PipelineExecutorMeta
     this.groupTime = groupTime;
   }
 
+  /**
+   * @return the number of sub-pipelines which are prepared ahead of time
+   */
+  public String getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * @param poolSize the number of sub-pipelines which are prepared ahead of time
+   */
+  public void setPoolSize( String poolSize ) {
+    this.poolSize = poolSize;
+  }
+
+  /**
+   * @return the maximum number of groups which are executed at the same time
+   */
+  public String getMaxConcurrentExecutions() {
+    return maxConcurrentExecutions;
+  }
+
+  /**
+   * @param maxConcurrentExecutions the maximum number of groups which are executed at the same time
+   */
+  public void setMaxConcurrentExecutions( String maxConcurrentExecutions ) {
+    this.maxConcurrentExecutions = maxConcurrentExecutions;
+  }
+
   @Override
   public boolean excludeFromCopyDistributeVerification() {
     return true;
@@ -25,6 +25,7 @@ import org.apache.hop.core.encryption.Encr;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.LogChannel;
+import org.apache.hop.core.row.RowBuffer;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.core.vfs.HopVfs;
@@ -41,6 +42,9 @@ import org.apache.hop.www.GetStatusServlet;
 import org.apache.hop.www.GetWorkflowStatusServlet;
 import org.apache.hop.www.NextSequenceValueServlet;
 import org.apache.hop.www.PausePipelineServlet;
+import org.apache.hop.www.PipelineStatusFrames;
+import org.apache.hop.www.PipelineStatusStream;
+import org.apache.hop.www.PipelineStatusStreamServlet;
 import org.apache.hop.www.RegisterPackageServlet;
 import org.apache.hop.www.RemovePipelineServlet;
 import org.apache.hop.www.RemoveWorkflowServlet;
@@ -79,7 +83,9 @@ import org.apache.http.message.BasicHeader;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -777,6 +783,27 @@ public class HopServer extends HopMetadataBase implements Cloneable, IXml, IHopM
     return HopServerPipelineStatus.fromXml( xml );
   }
 
+  /**
+   * Open a stream on which the server pushes the status of a pipeline in a compact binary format until it finishes.
+   * Only the transforms which changed are sent every interval.
+   *
+   * @param pipelineName   The name of the pipeline
+   * @param serverObjectId The ID of the pipeline on the server
+   * @param startLogLineNr The first log line to send
+   * @param interval       The interval between status updates in ms
+   * @return The stream to read the status from, close it when done
+   * @throws HopServerServiceUnsupportedException if the server doesn't support status streams
+   * @throws Exception in case the stream couldn't be opened, for example because the server is too busy
+   */
+  public PipelineStatusStream openPipelineStatusStream( IVariables variables, String pipelineName, String serverObjectId,
+                                                        int startLogLineNr, long interval ) throws Exception {
+    String query = PipelineStatusStreamServlet.CONTEXT_PATH + "/?name=" + URLEncoder.encode( pipelineName, "UTF-8" ) + "&id="
+      + URLEncoder.encode( Const.NVL( serverObjectId, "" ), "UTF-8" ) + "&from=" + startLogLineNr + "&interval=" + interval;
+    HttpGet method = buildExecuteServiceMethod( variables, query, new HashMap<>() );
+    InputStream inputStream = executeBinaryService( variables, method );
+    return new PipelineStatusStream( pipelineName, serverObjectId, inputStream, method::abort );
+  }
+
   public HopServerWorkflowStatus getWorkflowStatus( IVariables variables, String workflowName, String serverObjectId, int startLogLineNr )
     throws Exception {
     String xml =
@@ -898,6 +925,65 @@ public class HopServer extends HopMetadataBase implements Cloneable, IXml, IHopM
       "&copynr=" + copyNr + "&type=" + type + "&lines=" + lines + "&xml=Y" );
   }
 
+  /**
+   * Like {@link #sniffTransform(IVariables, String, String, String, String, int, String)} but the rows are sent in the
+   * native binary row format instead of XML.
+   *
+   * @return the sniffed rows
+   * @throws HopServerServiceUnsupportedException if the server doesn't support the binary format
+   * @throws Exception in case of another error
+   */
+  public RowBuffer sniffTransformRows( IVariables variables, String pipelineName, String transformName, String id, String copyNr, int lines, String type ) throws Exception {
+    HttpGet method = buildExecuteServiceMethod( variables, SniffTransformServlet.CONTEXT_PATH +
+      "/?pipeline=" + URLEncoder.encode( pipelineName, "UTF-8" ) +
+      "&id=" + URLEncoder.encode( id, "UTF-8" ) +
+      "&transform=" + URLEncoder.encode( transformName, "UTF-8" ) +
+      "&copynr=" + copyNr + "&type=" + type + "&lines=" + lines + "&binary=Y", new HashMap<>() );
+    try {
+      DataInputStream in = new DataInputStream( new BufferedInputStream( executeBinaryService( variables, method ) ) );
+      PipelineStatusFrames.Frame frame = PipelineStatusFrames.readFrame( in );
+      if ( frame == null ) {
+        throw new HopException( "No rows received from transform '" + transformName + "'" );
+      }
+      if ( frame.getType() == PipelineStatusFrames.FRAME_ERROR ) {
+        throw new HopException( PipelineStatusFrames.readError( frame ) );
+      }
+      return PipelineStatusFrames.readRows( frame );
+    } finally {
+      method.releaseConnection();
+    }
+  }
+
+  /**
+   * Execute a request which answers with binary frames, see {@link PipelineStatusFrames}.
+   *
+   * @return the response body
+   * @throws HopServerServiceUnsupportedException if the server doesn't know the service or the binary format
+   * @throws HopException if the server answered with another error, for example because it's too busy
+   */
+  private InputStream executeBinaryService( IVariables variables, HttpGet method ) throws Exception {
+    HttpResponse httpResponse = getHttpClient().execute( method, getAuthContext( variables ) );
+    StatusLine statusLine = httpResponse.getStatusLine();
+    int statusCode = statusLine.getStatusCode();
+    HttpEntity entity = httpResponse.getEntity();
+    String contentType = entity == null || entity.getContentType() == null ? null : entity.getContentType().getValue();
+    boolean frames = contentType != null && contentType.startsWith( PipelineStatusFrames.CONTENT_TYPE );
+
+    if ( statusCode >= 300 || !frames ) {
+      method.abort();
+      String message = String.format( "HTTP Status %d - %s - %s - content type %s", statusCode,
+        method.getURI().toString(), statusLine.getReasonPhrase(), contentType );
+      // Older servers don't have the service or answer in another format
+      //
+      if ( statusCode == HttpStatus.SC_NOT_FOUND || statusCode == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE
+        || statusCode < 300 ) {
+        throw new HopServerServiceUnsupportedException( message, statusCode );
+      }
+      throw new HopException( message );
+    }
+    return entity.getContent();
+  }
+
   public long getNextServerSequenceValue( IVariables variables, String serverSequenceName, long incrementValue ) throws HopException {
     try {
       String xml =
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.server;
+
+import org.apache.hop.core.exception.HopException;
+
+/**
+ * Thrown when a hop server doesn't offer a service at all, for example because it runs an older version: it answered
+ * with a 404 (Not Found) or 415 (Unsupported Media Type) status, or with content of another type than requested.
+ * Unlike other errors this isn't going to change when the request is repeated later.
+ */
+public class HopServerServiceUnsupportedException extends HopException {
+  private static final long serialVersionUID = 7425386017613052193L;
+
+  private final int statusCode;
+
+  /**
+   * @param message    the detail message
+   * @param statusCode the HTTP status code the server answered with
+   */
+  public HopServerServiceUnsupportedException( String message, int statusCode ) {
+    super( message );
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * @return the HTTP status code the server answered with
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+}
@@ -145,19 +145,7 @@ public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopSer
             response.setContentType( "text/xml" );
             response.setCharacterEncoding( Const.XML_ENCODING );
 
-            HopServerPipelineStatus pipelineStatus = new HopServerPipelineStatus( pipelineName, entry.getId(), pipeline.getStatusDescription() );
-            pipelineStatus.setFirstLoggingLineNr( startLineNr );
-            pipelineStatus.setLastLoggingLineNr( lastLineNr );
-            pipelineStatus.setLogDate( new Date() );
-            pipelineStatus.setExecutionStartDate( pipeline.getExecutionStartDate() );
-            pipelineStatus.setExecutionEndDate( pipeline.getExecutionEndDate() );
-
-            for ( IEngineComponent component : pipeline.getComponents() ) {
-              if ( ( component.isRunning() ) || ( component.getStatus() != ComponentExecutionStatus.STATUS_EMPTY ) ) {
-                TransformStatus transformStatus = new TransformStatus( component );
-                pipelineStatus.getTransformStatusList().add( transformStatus );
-              }
-            }
+            HopServerPipelineStatus pipelineStatus = createPipelineStatus( pipelineName, entry.getId(), pipeline, startLineNr, lastLineNr );
 
             // The log can be quite large at times, we are going to putIfAbsent a base64 encoding around a compressed
             // stream
@@ -170,10 +158,6 @@ public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopSer
             //
             pipelineStatus.setResult( pipeline.getResult() );
 
-            // Is the pipeline paused?
-            //
-            pipelineStatus.setPaused( pipeline.isPaused() );
-
             // Send the result back as XML
             //
             String xml = pipelineStatus.getXML( sendResultXmlWithStatus );
@@ -403,7 +387,32 @@ public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopSer
     return CONTEXT_PATH;
   }
 
-  private String getLogText( IPipelineEngine pipeline, int startLineNr, int lastLineNr ) throws HopException {
+  /**
+   * Create the status of a pipeline without the logging text and the result.
+   */
+  static HopServerPipelineStatus createPipelineStatus( String pipelineName, String id, IPipelineEngine<PipelineMeta> pipeline,
+                                                       int startLineNr, int lastLineNr ) {
+    HopServerPipelineStatus pipelineStatus = new HopServerPipelineStatus( pipelineName, id, pipeline.getStatusDescription() );
+    pipelineStatus.setFirstLoggingLineNr( startLineNr );
+    pipelineStatus.setLastLoggingLineNr( lastLineNr );
+    pipelineStatus.setLogDate( new Date() );
+    pipelineStatus.setExecutionStartDate( pipeline.getExecutionStartDate() );
+    pipelineStatus.setExecutionEndDate( pipeline.getExecutionEndDate() );
+
+    for ( IEngineComponent component : pipeline.getComponents() ) {
+      if ( ( component.isRunning() ) || ( component.getStatus() != ComponentExecutionStatus.STATUS_EMPTY ) ) {
+        TransformStatus transformStatus = new TransformStatus( component );
+        pipelineStatus.getTransformStatusList().add( transformStatus );
+      }
+    }
+
+    // Is the pipeline paused?
+    //
+    pipelineStatus.setPaused( pipeline.isPaused() );
+    return pipelineStatus;
+  }
+
+  static String getLogText( IPipelineEngine pipeline, int startLineNr, int lastLineNr ) throws HopException {
     try {
       return HopLogStore.getAppender().getBuffer( pipeline.getLogChannel().getLogChannelId(), false, startLineNr, lastLineNr ).toString();
     } catch ( OutOfMemoryError error ) {
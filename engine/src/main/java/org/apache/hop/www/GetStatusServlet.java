@@ -48,6 +48,11 @@ public class GetStatusServlet extends BaseHttpServlet implements IHopServerPlugi
 
   public static final String CONTEXT_PATH = "/hop/status";
 
+  /**
+   * Keeps track of what changed for the JSON status
+   */
+  private final HopServerStatusModel statusModel = new HopServerStatusModel();
+
   public GetStatusServlet() {
   }
 
@@ -69,8 +74,14 @@ public class GetStatusServlet extends BaseHttpServlet implements IHopServerPlugi
       : request.getRequestURI().substring( 0, request.getRequestURI().indexOf( CONTEXT_PATH ) );
     String prefix = isJettyMode() ? StatusServletUtils.STATIC_PATH : root + StatusServletUtils.RESOURCES_PATH;
     boolean useXML = "Y".equalsIgnoreCase( request.getParameter( "xml" ) );
+    boolean useJson = "Y".equalsIgnoreCase( request.getParameter( "json" ) );
     boolean useLightTheme = "Y".equalsIgnoreCase( request.getParameter( "useLightTheme" ) );
 
+    if ( useJson ) {
+      sendJsonStatus( request, response );
+      return;
+    }
+
     if ( useXML ) {
       response.setContentType( "text/xml" );
       response.setCharacterEncoding( Const.XML_ENCODING );
@@ -735,6 +746,27 @@ public class GetStatusServlet extends BaseHttpServlet implements IHopServerPlugi
     }
   }
 
+  /**
+   * Send the executions which changed since the version the client passed in the "since" parameter or the
+   * If-None-Match header. Without either all executions are sent.
+   */
+  private void sendJsonStatus( HttpServletRequest request, HttpServletResponse response ) throws IOException {
+    statusModel.refresh( getPipelineMap(), getWorkflowMap() );
+
+    String ifNoneMatch = request.getHeader( "If-None-Match" );
+    HopServerStatusModel.Changes changes = statusModel.getChanges( Const.NVL( request.getParameter( "since" ), ifNoneMatch ) );
+
+    response.setHeader( "ETag", "\"" + changes.getTag() + "\"" );
+    if ( ifNoneMatch != null && changes.isUnchanged() ) {
+      response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+      return;
+    }
+    response.setStatus( HttpServletResponse.SC_OK );
+    response.setContentType( "application/json" );
+    response.setCharacterEncoding( Const.XML_ENCODING );
+    response.getWriter().print( changes.getJson() );
+  }
+
   private static void getSystemInfo( HopServerStatus serverStatus ) {
     OperatingSystemMXBean operatingSystemMXBean =
       java.lang.management.ManagementFactory.getOperatingSystemMXBean();
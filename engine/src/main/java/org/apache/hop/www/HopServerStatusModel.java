@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.xml.XmlHandler;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.workflow.WorkflowMeta;
+import org.apache.hop.workflow.engine.IWorkflowEngine;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A versioned model of the executions on a Hop server. Every time an execution is added, removed or changes state the
+ * version of the model goes up and the changed entry remembers that version. Clients keep the tag of the last status
+ * they received and only get the entries which changed since.
+ * <p>
+ * The model is brought up to date with {@link #refresh(PipelineMap, WorkflowMap)} which only looks at the status flags
+ * of the executions: no transform status or log text is gathered.
+ */
+public class HopServerStatusModel {
+
+  public static final String TYPE_PIPELINE = "pipeline";
+  public static final String TYPE_WORKFLOW = "workflow";
+
+  /**
+   * The number of removed entries we remember. Clients which are further behind get the complete status.
+   */
+  public static final int MAX_REMOVED_ENTRIES = 1000;
+
+  /**
+   * The state of a single execution at a certain version. Entries are never modified.
+   */
+  public static class Entry {
+    private final String type;
+    private final String name;
+    private final String id;
+    private final String statusDescription;
+    private final Date executionStartDate;
+    private final boolean paused;
+    private final long version;
+
+    public Entry( String type, String name, String id, String statusDescription, Date executionStartDate,
+                  boolean paused, long version ) {
+      this.type = type;
+      this.name = name;
+      this.id = id;
+      this.statusDescription = statusDescription;
+      this.executionStartDate = executionStartDate;
+      this.paused = paused;
+      this.version = version;
+    }
+
+    private boolean hasState( String statusDescription, Date executionStartDate, boolean paused ) {
+      return this.paused == paused
+        && Objects.equals( this.statusDescription, statusDescription )
+        && Objects.equals( this.executionStartDate, executionStartDate );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private JSONObject getJson() {
+      JSONObject json = new JSONObject();
+      json.put( "name", name );
+      json.put( "id", id );
+      if ( statusDescription != null ) {
+        json.put( "status", statusDescription );
+        json.put( "start_date", XmlHandler.date2string( executionStartDate ) );
+        json.put( "paused", paused );
+      }
+      json.put( "version", version );
+      return json;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * @return the status description or null if the execution was removed
+     */
+    public String getStatusDescription() {
+      return statusDescription;
+    }
+
+    public Date getExecutionStartDate() {
+      return executionStartDate;
+    }
+
+    public boolean isPaused() {
+      return paused;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+  }
+
+  /**
+   * The changes between the version a client knows and the current version
+   */
+  public static class Changes {
+    private final String tag;
+    private final boolean complete;
+    private final List<Entry> changed;
+    private final List<Entry> removed;
+
+    Changes( String tag, boolean complete, List<Entry> changed, List<Entry> removed ) {
+      this.tag = tag;
+      this.complete = complete;
+      this.changed = changed;
+      this.removed = removed;
+    }
+
+    /**
+     * @return The tag of the current version, to be passed to the next call
+     */
+    public String getTag() {
+      return tag;
+    }
+
+    /**
+     * @return true if all the executions are listed, false if only the changes are listed
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+
+    public boolean isUnchanged() {
+      return !complete && changed.isEmpty() && removed.isEmpty();
+    }
+
+    public List<Entry> getChanged() {
+      return changed;
+    }
+
+    public List<Entry> getRemoved() {
+      return removed;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public String getJson() {
+      JSONObject json = new JSONObject();
+      json.put( "tag", tag );
+      json.put( "complete", complete );
+      json.put( "pipelines", getJsonArray( changed, TYPE_PIPELINE ) );
+      json.put( "workflows", getJsonArray( changed, TYPE_WORKFLOW ) );
+      json.put( "removed_pipelines", getJsonArray( removed, TYPE_PIPELINE ) );
+      json.put( "removed_workflows", getJsonArray( removed, TYPE_WORKFLOW ) );
+      return json.toJSONString();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static JSONArray getJsonArray( List<Entry> entries, String type ) {
+      JSONArray array = new JSONArray();
+      for ( Entry entry : entries ) {
+        if ( entry.getType().equals( type ) ) {
+          array.add( entry.getJson() );
+        }
+      }
+      return array;
+    }
+  }
+
+  /**
+   * Changes when the server restarts so clients don't mix up versions of different server runs
+   */
+  private final String generation = UUID.randomUUID().toString();
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private final LinkedList<Entry> removedEntries = new LinkedList<>();
+  private long version;
+
+  /**
+   * Clients which know a version before this one might have missed removed entries
+   */
+  private long oldestRemovedVersion;
+
+  /**
+   * Bring the model up to date with the executions in the maps.
+   *
+   * @return the current version
+   */
+  public synchronized long refresh( PipelineMap pipelineMap, WorkflowMap workflowMap ) {
+    Set<String> seen = new HashSet<>();
+
+    for ( HopServerObjectEntry objectEntry : pipelineMap.getPipelineObjects() ) {
+      IPipelineEngine<PipelineMeta> pipeline = pipelineMap.getPipeline( objectEntry );
+      if ( pipeline != null ) {
+        update( TYPE_PIPELINE, objectEntry, pipeline.getStatusDescription(), pipeline.getExecutionStartDate(),
+          pipeline.isPaused(), seen );
+      }
+    }
+    for ( HopServerObjectEntry objectEntry : workflowMap.getWorkflowObjects() ) {
+      IWorkflowEngine<WorkflowMeta> workflow = workflowMap.getWorkflow( objectEntry );
+      if ( workflow != null ) {
+        update( TYPE_WORKFLOW, objectEntry, workflow.getStatusDescription(), workflow.getExecutionStartDate(),
+          false, seen );
+      }
+    }
+
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    while ( iterator.hasNext() ) {
+      Map.Entry<String, Entry> mapEntry = iterator.next();
+      if ( !seen.contains( mapEntry.getKey() ) ) {
+        iterator.remove();
+        Entry entry = mapEntry.getValue();
+        removedEntries.add( new Entry( entry.getType(), entry.getName(), entry.getId(), null, null, false, ++version ) );
+      }
+    }
+    while ( removedEntries.size() > MAX_REMOVED_ENTRIES ) {
+      oldestRemovedVersion = removedEntries.removeFirst().getVersion();
+    }
+    return version;
+  }
+
+  private void update( String type, HopServerObjectEntry objectEntry, String statusDescription, Date executionStartDate,
+                       boolean paused, Set<String> seen ) {
+    String key = type + "/" + objectEntry.getName() + "/" + objectEntry.getId();
+    seen.add( key );
+    Entry entry = entries.get( key );
+    if ( entry == null || !entry.hasState( statusDescription, executionStartDate, paused ) ) {
+      entries.put( key, new Entry( type, objectEntry.getName(), objectEntry.getId(), statusDescription,
+        executionStartDate, paused, ++version ) );
+    }
+  }
+
+  /**
+   * Get the changes since the version identified by a tag.
+   *
+   * @param tag the tag of a previous call or null to get all the executions
+   * @return the changes
+   */
+  public synchronized Changes getChanges( String tag ) {
+    long since = parseTag( tag );
+
+    // Unknown tag or we no longer know what was removed since then: send everything
+    //
+    if ( since < 0 || since > version || since < oldestRemovedVersion ) {
+      return new Changes( getTag(), true, new ArrayList<>( entries.values() ), new ArrayList<>() );
+    }
+
+    List<Entry> changed = new ArrayList<>();
+    for ( Entry entry : entries.values() ) {
+      if ( entry.getVersion() > since ) {
+        changed.add( entry );
+      }
+    }
+    List<Entry> removed = new ArrayList<>();
+    for ( Entry entry : removedEntries ) {
+      if ( entry.getVersion() > since ) {
+        removed.add( entry );
+      }
+    }
+    return new Changes( getTag(), false, changed, removed );
+  }
+
+  /**
+   * @return the tag of the current version
+   */
+  public synchronized String getTag() {
+    return generation + "-" + version;
+  }
+
+  public synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the version in the tag or -1 if the tag is empty or belongs to another generation of the model
+   */
+  private long parseTag( String tag ) {
+    if ( tag == null ) {
+      return -1;
+    }
+    String value = tag.trim();
+    if ( value.startsWith( "W/" ) ) {
+      value = value.substring( 2 );
+    }
+    if ( value.length() >= 2 && value.startsWith( "\"" ) && value.endsWith( "\"" ) ) {
+      value = value.substring( 1, value.length() - 1 );
+    }
+    String prefix = generation + "-";
+    if ( !value.startsWith( prefix ) ) {
+      return -1;
+    }
+    try {
+      return Long.parseLong( value.substring( prefix.length() ) );
+    } catch ( NumberFormatException e ) {
+      return -1;
+    }
+  }
+}
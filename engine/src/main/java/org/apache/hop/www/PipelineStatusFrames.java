@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBuffer;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.pipeline.transform.TransformStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact binary protocol used to stream the status of a pipeline and samples of rows from a Hop server to a
+ * client, as an alternative to polling the XML status.
+ * <p>
+ * A stream is a sequence of frames: <code>[int length][byte type][payload]</code> where the length covers the type and
+ * the payload. A status frame only carries the transform statuses which changed since the previous status frame on the
+ * same connection: both ends keep the state of the connection in a {@link StatusEncoder} and a {@link StatusDecoder}.
+ */
+public class PipelineStatusFrames {
+
+  public static final String CONTENT_TYPE = "application/x-hop-frames";
+
+  public static final byte FRAME_STATUS = 1;
+  public static final byte FRAME_ROWS = 2;
+  public static final byte FRAME_END = 3;
+  public static final byte FRAME_ERROR = 4;
+
+  /**
+   * A sanity check on the frame length so a corrupt or foreign stream doesn't make us allocate gigabytes.
+   */
+  private static final int MAX_FRAME_LENGTH = 256 * 1024 * 1024;
+
+  private PipelineStatusFrames() {
+  }
+
+  /**
+   * A single frame read from a stream
+   */
+  public static class Frame {
+    private final byte type;
+    private final byte[] payload;
+
+    public Frame( byte type, byte[] payload ) {
+      this.type = type;
+      this.payload = payload;
+    }
+
+    public byte getType() {
+      return type;
+    }
+
+    public byte[] getPayload() {
+      return payload;
+    }
+
+    public DataInputStream getPayloadStream() {
+      return new DataInputStream( new ByteArrayInputStream( payload ) );
+    }
+  }
+
+  public static void writeFrame( DataOutputStream out, byte type, byte[] payload ) throws IOException {
+    out.writeInt( payload.length + 1 );
+    out.writeByte( type );
+    out.write( payload );
+  }
+
+  /**
+   * Read the next frame.
+   *
+   * @param in The stream to read from
+   * @return The next frame or null if the stream ended cleanly between two frames
+   * @throws IOException in case of a read error or a truncated frame
+   */
+  public static Frame readFrame( DataInputStream in ) throws IOException {
+    int length;
+    try {
+      length = in.readInt();
+    } catch ( EOFException e ) {
+      return null;
+    }
+    if ( length < 1 || length > MAX_FRAME_LENGTH ) {
+      throw new IOException( "Invalid frame length " + length + " received" );
+    }
+    byte type = in.readByte();
+    byte[] payload = new byte[ length - 1 ];
+    in.readFully( payload );
+    return new Frame( type, payload );
+  }
+
+  public static void writeEnd( DataOutputStream out ) throws IOException {
+    writeFrame( out, FRAME_END, new byte[ 0 ] );
+  }
+
+  public static void writeError( DataOutputStream out, String message ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    writeString( new DataOutputStream( bytes ), message );
+    writeFrame( out, FRAME_ERROR, bytes.toByteArray() );
+  }
+
+  public static String readError( Frame frame ) throws IOException {
+    return readString( frame.getPayloadStream() );
+  }
+
+  /**
+   * Write a buffer of rows in the native binary row format.
+   */
+  public static void writeRows( DataOutputStream out, RowBuffer rowBuffer ) throws IOException, HopException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream payload = new DataOutputStream( bytes );
+    IRowMeta rowMeta = rowBuffer.getRowMeta();
+    payload.writeBoolean( rowMeta != null );
+    if ( rowMeta != null ) {
+      rowMeta.writeMeta( payload );
+      List<Object[]> rows = rowBuffer.getBuffer();
+      payload.writeInt( rows.size() );
+      for ( Object[] row : rows ) {
+        rowMeta.writeData( payload, row );
+      }
+    }
+    payload.flush();
+    writeFrame( out, FRAME_ROWS, bytes.toByteArray() );
+  }
+
+  public static RowBuffer readRows( Frame frame ) throws IOException, HopException {
+    DataInputStream in = frame.getPayloadStream();
+    RowBuffer rowBuffer = new RowBuffer();
+    if ( in.readBoolean() ) {
+      IRowMeta rowMeta = new RowMeta( in );
+      rowBuffer.setRowMeta( rowMeta );
+      int nrRows = in.readInt();
+      for ( int i = 0; i < nrRows; i++ ) {
+        rowBuffer.getBuffer().add( rowMeta.readData( in ) );
+      }
+    }
+    return rowBuffer;
+  }
+
+  /**
+   * Writes status frames for one connection. Remembers what was sent for every transform copy so that the next frame
+   * only contains the transforms which changed in the mean time.
+   */
+  public static class StatusEncoder {
+    private final Map<String, byte[]> sent = new HashMap<>();
+
+    public void writeStatus( DataOutputStream out, HopServerPipelineStatus status, String logText ) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream payload = new DataOutputStream( bytes );
+
+      writeString( payload, status.getStatusDescription() );
+      writeString( payload, status.getErrorDescription() );
+      payload.writeBoolean( status.isPaused() );
+      payload.writeInt( status.getFirstLoggingLineNr() );
+      payload.writeInt( status.getLastLoggingLineNr() );
+      writeDate( payload, status.getLogDate() );
+      writeDate( payload, status.getExecutionStartDate() );
+      writeDate( payload, status.getExecutionEndDate() );
+      writeString( payload, logText );
+
+      // Only the transforms which changed since the previous frame
+      //
+      Map<String, byte[]> current = new LinkedHashMap<>();
+      List<byte[]> changed = new ArrayList<>();
+      for ( TransformStatus transformStatus : status.getTransformStatusList() ) {
+        byte[] entry = encodeTransformStatus( transformStatus );
+        String key = getKey( transformStatus );
+        current.put( key, entry );
+        if ( !Arrays.equals( sent.get( key ), entry ) ) {
+          changed.add( entry );
+        }
+      }
+      List<String> removed = new ArrayList<>();
+      for ( String key : sent.keySet() ) {
+        if ( !current.containsKey( key ) ) {
+          removed.add( key );
+        }
+      }
+      payload.writeInt( changed.size() );
+      for ( byte[] entry : changed ) {
+        payload.write( entry );
+      }
+      payload.writeInt( removed.size() );
+      for ( String key : removed ) {
+        writeString( payload, key );
+      }
+      payload.flush();
+
+      writeFrame( out, FRAME_STATUS, bytes.toByteArray() );
+
+      sent.clear();
+      sent.putAll( current );
+    }
+
+    private static byte[] encodeTransformStatus( TransformStatus transformStatus ) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream( 128 );
+      DataOutputStream out = new DataOutputStream( bytes );
+      writeString( out, transformStatus.getTransformName() );
+      out.writeInt( transformStatus.getCopy() );
+      out.writeLong( transformStatus.getLinesRead() );
+      out.writeLong( transformStatus.getLinesWritten() );
+      out.writeLong( transformStatus.getLinesInput() );
+      out.writeLong( transformStatus.getLinesOutput() );
+      out.writeLong( transformStatus.getLinesUpdated() );
+      out.writeLong( transformStatus.getLinesRejected() );
+      out.writeLong( transformStatus.getErrors() );
+      out.writeLong( transformStatus.getInputBufferSize() );
+      out.writeLong( transformStatus.getOutputBufferSize() );
+      writeString( out, transformStatus.getStatusDescription() );
+      out.writeDouble( transformStatus.getSeconds() );
+      writeString( out, transformStatus.getSpeed() );
+      writeString( out, transformStatus.getPriority() );
+      out.writeBoolean( transformStatus.isStopped() );
+      out.writeBoolean( transformStatus.isPaused() );
+      out.flush();
+      return bytes.toByteArray();
+    }
+  }
+
+  /**
+   * Reads status frames of one connection and keeps the complete list of transform statuses up to date.
+   */
+  public static class StatusDecoder {
+    private final Map<String, TransformStatus> transforms = new LinkedHashMap<>();
+    private final String pipelineName;
+    private final String id;
+
+    public StatusDecoder( String pipelineName, String id ) {
+      this.pipelineName = pipelineName;
+      this.id = id;
+    }
+
+    /**
+     * Apply a status frame.
+     *
+     * @param frame The status frame
+     * @return The complete status of the pipeline, the logging string contains the new log lines
+     * @throws IOException in case the frame can't be decoded
+     */
+    public HopServerPipelineStatus readStatus( Frame frame ) throws IOException {
+      DataInputStream in = frame.getPayloadStream();
+
+      HopServerPipelineStatus status = new HopServerPipelineStatus( pipelineName, id, readString( in ) );
+      status.setErrorDescription( readString( in ) );
+      status.setPaused( in.readBoolean() );
+      status.setFirstLoggingLineNr( in.readInt() );
+      status.setLastLoggingLineNr( in.readInt() );
+      status.setLogDate( readDate( in ) );
+      status.setExecutionStartDate( readDate( in ) );
+      status.setExecutionEndDate( readDate( in ) );
+      String logText = readString( in );
+      status.setLoggingString( logText == null ? "" : logText );
+
+      int nrChanged = in.readInt();
+      for ( int i = 0; i < nrChanged; i++ ) {
+        TransformStatus transformStatus = decodeTransformStatus( in );
+        transforms.put( getKey( transformStatus ), transformStatus );
+      }
+      int nrRemoved = in.readInt();
+      for ( int i = 0; i < nrRemoved; i++ ) {
+        transforms.remove( readString( in ) );
+      }
+
+      status.getTransformStatusList().addAll( transforms.values() );
+      return status;
+    }
+
+    private static TransformStatus decodeTransformStatus( DataInputStream in ) throws IOException {
+      TransformStatus transformStatus = new TransformStatus();
+      transformStatus.setTransformName( readString( in ) );
+      transformStatus.setCopy( in.readInt() );
+      transformStatus.setLinesRead( in.readLong() );
+      transformStatus.setLinesWritten( in.readLong() );
+      transformStatus.setLinesInput( in.readLong() );
+      transformStatus.setLinesOutput( in.readLong() );
+      transformStatus.setLinesUpdated( in.readLong() );
+      transformStatus.setLinesRejected( in.readLong() );
+      transformStatus.setErrors( in.readLong() );
+      transformStatus.setInputBufferSize( in.readLong() );
+      transformStatus.setOutputBufferSize( in.readLong() );
+      transformStatus.setStatusDescription( readString( in ) );
+      transformStatus.setSeconds( in.readDouble() );
+      transformStatus.setSpeed( readString( in ) );
+      transformStatus.setPriority( readString( in ) );
+      transformStatus.setStopped( in.readBoolean() );
+      transformStatus.setPaused( in.readBoolean() );
+      return transformStatus;
+    }
+  }
+
+  private static String getKey( TransformStatus transformStatus ) {
+    return transformStatus.getTransformName() + "." + transformStatus.getCopy();
+  }
+
+  /**
+   * Strings are written as UTF-8 prefixed by their length in bytes, -1 is null. Unlike writeUTF() this isn't limited to
+   * 64k so it can carry log text as well.
+   */
+  private static void writeString( DataOutputStream out, String string ) throws IOException {
+    if ( string == null ) {
+      out.writeInt( -1 );
+      return;
+    }
+    byte[] bytes = string.getBytes( StandardCharsets.UTF_8 );
+    out.writeInt( bytes.length );
+    out.write( bytes );
+  }
+
+  private static String readString( DataInputStream in ) throws IOException {
+    int length = in.readInt();
+    if ( length < 0 ) {
+      return null;
+    }
+    byte[] bytes = new byte[ length ];
+    in.readFully( bytes );
+    return new String( bytes, StandardCharsets.UTF_8 );
+  }
+
+  private static void writeDate( DataOutputStream out, Date date ) throws IOException {
+    out.writeBoolean( date != null );
+    if ( date != null ) {
+      out.writeLong( date.getTime() );
+    }
+  }
+
+  private static Date readDate( DataInputStream in ) throws IOException {
+    return in.readBoolean() ? new Date( in.readLong() ) : null;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.exception.HopException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The client side of a pipeline status stream opened with
+ * {@link org.apache.hop.server.HopServer#openPipelineStatusStream}.
+ */
+public class PipelineStatusStream implements Closeable {
+
+  private final DataInputStream in;
+  private final Runnable abort;
+  private final PipelineStatusFrames.StatusDecoder decoder;
+  private boolean ended;
+
+  /**
+   * @param pipelineName   The name of the pipeline
+   * @param serverObjectId The ID of the pipeline on the server
+   * @param inputStream    The response body
+   * @param abort          Aborts the underlying request, called on close
+   */
+  public PipelineStatusStream( String pipelineName, String serverObjectId, InputStream inputStream, Runnable abort ) {
+    this.in = new DataInputStream( new BufferedInputStream( inputStream ) );
+    this.abort = abort;
+    this.decoder = new PipelineStatusFrames.StatusDecoder( pipelineName, serverObjectId );
+  }
+
+  /**
+   * Wait for the next status of the pipeline.
+   *
+   * @return The complete status of the pipeline with the new log lines or null if the server ended the stream because
+   * the pipeline finished or stopped.
+   * @throws HopException in case the server reported an error or the stream broke off
+   */
+  public HopServerPipelineStatus next() throws HopException {
+    try {
+      while ( !ended ) {
+        PipelineStatusFrames.Frame frame = PipelineStatusFrames.readFrame( in );
+        if ( frame == null ) {
+          throw new HopException( "The pipeline status stream ended unexpectedly" );
+        }
+        switch ( frame.getType() ) {
+          case PipelineStatusFrames.FRAME_STATUS:
+            return decoder.readStatus( frame );
+          case PipelineStatusFrames.FRAME_END:
+            ended = true;
+            break;
+          case PipelineStatusFrames.FRAME_ERROR:
+            throw new HopException( PipelineStatusFrames.readError( frame ) );
+          default:
+            // Skip frames we don't know about
+            break;
+        }
+      }
+      return null;
+    } catch ( IOException e ) {
+      throw new HopException( "Error reading the pipeline status stream", e );
+    }
+  }
+
+  /**
+   * Abort the request. The server notices this the next time it sends a status.
+   */
+  @Override public void close() {
+    abort.run();
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.annotations.HopServerServlet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.HopLogStore;
+import org.apache.hop.core.util.EnvUtil;
+import org.apache.hop.core.util.Utils;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the status of a pipeline as binary frames (see {@link PipelineStatusFrames}) over a single long running
+ * response until the pipeline finishes or the client goes away. Every interval a status frame is sent with the new log
+ * lines and the transforms which changed since the previous frame.
+ * <p>
+ * Every open stream keeps a server thread busy. At most {@link Const#HOP_SERVER_MAX_STATUS_STREAMS} streams are open
+ * at the same time, beyond that the server answers 503 (Service Unavailable) and the client polls the status instead.
+ * <p>
+ * Parameters: name, id, from (the first log line), interval (in ms, default 1000)
+ */
+@HopServerServlet( id = "pipelineStatusStream", name = "Stream the status of a pipeline" )
+public class PipelineStatusStreamServlet extends BaseHttpServlet implements IHopServerPlugin {
+
+  private static final Class<?> PKG = GetPipelineStatusServlet.class; // For Translator
+
+  private static final long serialVersionUID = -2651234120483470219L;
+
+  public static final String CONTEXT_PATH = "/hop/pipelineStatusStream";
+
+  public static final long DEFAULT_INTERVAL = 1000L;
+  public static final long MINIMUM_INTERVAL = 100L;
+  public static final int DEFAULT_MAX_STREAMS = 20;
+
+  /**
+   * The number of streams which are open at the moment
+   */
+  private final AtomicInteger openStreams = new AtomicInteger();
+
+  public PipelineStatusStreamServlet() {
+  }
+
+  public PipelineStatusStreamServlet( PipelineMap pipelineMap ) {
+    super( pipelineMap );
+  }
+
+  public void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException,
+    IOException {
+
+    if ( isJettyMode() && !request.getContextPath().startsWith( CONTEXT_PATH ) ) {
+      return;
+    }
+
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "PipelineStatusServlet.Log.PipelineStatusStreamRequested" ) );
+    }
+
+    int maxStreams = getMaxStreams();
+    if ( openStreams.incrementAndGet() > maxStreams && maxStreams > 0 ) {
+      openStreams.decrementAndGet();
+      String message = BaseMessages.getString( PKG, "PipelineStatusServlet.Log.TooManyStatusStreams", maxStreams );
+      if ( log.isDetailed() ) {
+        logDetailed( message );
+      }
+      response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE, message );
+      return;
+    }
+    try {
+      streamStatus( request, response );
+    } finally {
+      openStreams.decrementAndGet();
+    }
+  }
+
+  private void streamStatus( HttpServletRequest request, HttpServletResponse response ) throws IOException {
+    String pipelineName = request.getParameter( "name" );
+    String id = request.getParameter( "id" );
+    int startLineNr = Const.toInt( request.getParameter( "from" ), 0 );
+    long interval = Math.max( MINIMUM_INTERVAL, Const.toLong( request.getParameter( "interval" ), DEFAULT_INTERVAL ) );
+
+    // ID is optional...
+    //
+    IPipelineEngine<PipelineMeta> pipeline;
+    HopServerObjectEntry entry;
+    if ( Utils.isEmpty( id ) ) {
+      entry = getPipelineMap().getFirstServerObjectEntry( pipelineName );
+      pipeline = entry == null ? null : getPipelineMap().getPipeline( entry );
+    } else {
+      entry = new HopServerObjectEntry( pipelineName, id );
+      pipeline = getPipelineMap().getPipeline( entry );
+    }
+
+    response.setStatus( HttpServletResponse.SC_OK );
+    response.setContentType( PipelineStatusFrames.CONTENT_TYPE );
+    DataOutputStream out = new DataOutputStream( new BufferedOutputStream( response.getOutputStream() ) );
+
+    if ( pipeline == null ) {
+      PipelineStatusFrames.writeError( out, BaseMessages.getString(
+        PKG, "PipelineStatusServlet.Log.CoundNotFindSpecPipeline", pipelineName ) );
+      out.flush();
+      return;
+    }
+
+    PipelineStatusFrames.StatusEncoder encoder = new PipelineStatusFrames.StatusEncoder();
+    try {
+      while ( true ) {
+        // Look at the state before gathering the status so the last frame is complete. A stopped pipeline is still
+        // halting as long as it's running: keep streaming until the final status can be sent.
+        //
+        boolean finishedOrStopped = pipeline.isFinished() || ( pipeline.isStopped() && !pipeline.isRunning() );
+
+        int lastLineNr = HopLogStore.getLastBufferLineNr();
+        String logText = GetPipelineStatusServlet.getLogText( pipeline, startLineNr, lastLineNr );
+        HopServerPipelineStatus pipelineStatus =
+          GetPipelineStatusServlet.createPipelineStatus( pipelineName, entry.getId(), pipeline, startLineNr, lastLineNr );
+        encoder.writeStatus( out, pipelineStatus, logText );
+        startLineNr = lastLineNr;
+
+        if ( finishedOrStopped ) {
+          PipelineStatusFrames.writeEnd( out );
+          out.flush();
+          break;
+        }
+        out.flush();
+
+        Thread.sleep( interval );
+      }
+    } catch ( HopException e ) {
+      PipelineStatusFrames.writeError( out, e.getMessage() );
+      out.flush();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } catch ( IOException e ) {
+      // The client went away, nothing left to do
+      //
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "PipelineStatusServlet.Log.PipelineStatusStreamClosed", pipelineName ) );
+      }
+    }
+  }
+
+  /**
+   * @return the maximum number of streams open at the same time, 0 or less for no limit
+   */
+  public static int getMaxStreams() {
+    return Const.toInt( EnvUtil.getSystemProperty( Const.HOP_SERVER_MAX_STATUS_STREAMS ), DEFAULT_MAX_STREAMS );
+  }
+
+  /**
+   * @return the number of streams which are open at the moment
+   */
+  public int getOpenStreams() {
+    return openStreams.get();
+  }
+
+  public String toString() {
+    return "Pipeline Status Stream IHandler";
+  }
+
+  public String getService() {
+    return CONTEXT_PATH + " (" + toString() + ")";
+  }
+
+  public String getContextPath() {
+    return CONTEXT_PATH;
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.hop.www;
 
 import org.apache.hop.core.Const;
 import org.apache.hop.core.annotations.HopServerServlet;
+import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
@@ -35,6 +36,8 @@ import org.owasp.encoder.Encode;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URLEncoder;
@@ -75,17 +78,22 @@ public class SniffTransformServlet extends BaseHttpServlet implements IHopServer
     final int nrLines = Const.toInt( request.getParameter( "lines" ), 0 );
     String type = Const.NVL( request.getParameter( "type" ), TYPE_OUTPUT );
     boolean useXML = "Y".equalsIgnoreCase( request.getParameter( "xml" ) );
+    boolean useBinary = "Y".equalsIgnoreCase( request.getParameter( "binary" ) );
 
     response.setStatus( HttpServletResponse.SC_OK );
 
-    if ( useXML ) {
+    if ( useBinary ) {
+      response.setContentType( PipelineStatusFrames.CONTENT_TYPE );
+    } else if ( useXML ) {
       response.setContentType( "text/xml" );
       response.setCharacterEncoding( Const.XML_ENCODING );
     } else {
       response.setContentType( "text/html;charset=UTF-8" );
     }
 
-    PrintWriter out = response.getWriter();
+    // The binary format writes to the output stream, not to the writer
+    //
+    PrintWriter out = useBinary ? null : response.getWriter();
 
     // ID is optional...
     //
@@ -179,7 +187,17 @@ public class SniffTransformServlet extends BaseHttpServlet implements IHopServer
 
         // Pass along the rows of data...
         //
-        if ( useXML ) {
+        if ( useBinary ) {
+
+          DataOutputStream binaryOut = new DataOutputStream( new BufferedOutputStream( response.getOutputStream() ) );
+          try {
+            PipelineStatusFrames.writeRows( binaryOut, rowBuffer );
+          } catch ( HopException e ) {
+            PipelineStatusFrames.writeError( binaryOut, e.getMessage() );
+          }
+          binaryOut.flush();
+
+        } else if ( useXML ) {
 
           // Send the result back as XML
           //
@@ -247,7 +265,10 @@ public class SniffTransformServlet extends BaseHttpServlet implements IHopServer
           out.println( "</HTML>" );
         }
       } else {
-        if ( useXML ) {
+        if ( useBinary ) {
+          writeBinaryError( response, BaseMessages.getString(
+            PKG, "SniffTransformServlet.Log.CoundNotFindSpecTransform", transformName ) );
+        } else if ( useXML ) {
           out.println( new WebResult( WebResult.STRING_ERROR, BaseMessages.getString(
             PKG, "SniffTransformServlet.Log.CoundNotFindSpecTransform", transformName ) ).getXml() );
         } else {
@@ -260,7 +281,10 @@ public class SniffTransformServlet extends BaseHttpServlet implements IHopServer
         }
       }
     } else {
-      if ( useXML ) {
+      if ( useBinary ) {
+        writeBinaryError( response, BaseMessages.getString(
+          PKG, "SniffTransformServlet.Log.CoundNotFindSpecPipeline", pipelineName ) );
+      } else if ( useXML ) {
         out.println( new WebResult( WebResult.STRING_ERROR, BaseMessages.getString(
           PKG, "SniffTransformServlet.Log.CoundNotFindSpecPipeline", pipelineName ) ).getXml() );
       } else {
@@ -274,6 +298,12 @@ public class SniffTransformServlet extends BaseHttpServlet implements IHopServer
     }
   }
 
+  private void writeBinaryError( HttpServletResponse response, String message ) throws IOException {
+    DataOutputStream binaryOut = new DataOutputStream( response.getOutputStream() );
+    PipelineStatusFrames.writeError( binaryOut, message );
+    binaryOut.flush();
+  }
+
   public String toString() {
     return "Sniff Transform";
   }
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmark;
+
+import org.apache.hop.core.BlockingRowSet;
+import org.apache.hop.core.Const;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.Dummy;
+import org.apache.hop.pipeline.transforms.dummy.DummyData;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long it takes for a row put on a mostly idle hop to come out of BaseTransform.getRow(), polling (N)
+ * versus signaling (Y) input row sets. The CPU time burned by the reading transform and the number of rows it read
+ * are reported per iteration as the "readerCpuMicros" and "rowsRead" counters.
+ * <p>
+ * Run it with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.hop.benchmark.RowSetSignalingBenchmark</code>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class RowSetSignalingBenchmark {
+
+  @Param( { "N", "Y" } )
+  public String signaling;
+
+  @Param( { "1", "4" } )
+  public int nrInputs;
+
+  private Dummy transform;
+  private List<IRowSet> inputRowSets;
+  private IRowMeta rowMeta;
+  private final AtomicLong received = new AtomicLong();
+  private Thread reader;
+  private volatile Throwable readerFailure;
+  private int next;
+
+  /**
+   * The CPU time of the reader thread and the rows it read during an iteration
+   */
+  @State( Scope.Thread )
+  @AuxCounters( AuxCounters.Type.EVENTS )
+  public static class ReaderCounters {
+    public long readerCpuMicros;
+    public long rowsRead;
+
+    private long cpuStart;
+    private long rowsStart;
+
+    @Setup( Level.Iteration )
+    public void start( RowSetSignalingBenchmark benchmark ) {
+      readerCpuMicros = 0L;
+      rowsRead = 0L;
+      cpuStart = benchmark.getReaderCpuNanos();
+      rowsStart = benchmark.received.get();
+    }
+
+    @TearDown( Level.Iteration )
+    public void stop( RowSetSignalingBenchmark benchmark ) {
+      readerCpuMicros = TimeUnit.NANOSECONDS.toMicros( benchmark.getReaderCpuNanos() - cpuStart );
+      rowsRead = benchmark.received.get() - rowsStart;
+    }
+  }
+
+  @Setup( Level.Trial )
+  public void setUp() throws Exception {
+    System.setProperty( Const.HOP_ROWSET_SIGNALING, signaling );
+    HopEnvironment.init();
+
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    DummyMeta dummyMeta = new DummyMeta();
+    TransformMeta transformMeta = new TransformMeta( "Dummy", dummyMeta );
+    pipelineMeta.addTransform( transformMeta );
+
+    Pipeline pipeline = new LocalPipelineEngine( pipelineMeta );
+    pipeline.setRunning( true );
+
+    transform = new Dummy( transformMeta, dummyMeta, new DummyData(), 0, pipelineMeta, pipeline );
+
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    inputRowSets = new ArrayList<>();
+    for ( int i = 0; i < nrInputs; i++ ) {
+      IRowSet rowSet = new BlockingRowSet( Const.ROWS_IN_ROWSET );
+      rowSet.setThreadNameFromToCopy( "Input " + i, 0, "Dummy", 0 );
+      inputRowSets.add( rowSet );
+    }
+    transform.setInputRowSets( new ArrayList<>( inputRowSets ) );
+
+    reader = new Thread( () -> {
+      try {
+        while ( !transform.isStopped() ) {
+          if ( transform.getRow() != null ) {
+            received.incrementAndGet();
+          }
+        }
+      } catch ( Throwable e ) {
+        readerFailure = e;
+      }
+    }, "RowSetSignalingBenchmark reader" );
+    reader.start();
+  }
+
+  @TearDown( Level.Trial )
+  public void tearDown() throws Exception {
+    transform.setStopped( true );
+    reader.join();
+    checkReader();
+  }
+
+  private long getReaderCpuNanos() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    return Math.max( 0L, threadMXBean.getThreadCpuTime( reader.getId() ) );
+  }
+
+  /**
+   * Fail the benchmark instead of spinning forever when the reader thread died.
+   */
+  private void checkReader() {
+    Throwable failure = readerFailure;
+    if ( failure != null ) {
+      throw new IllegalStateException( "The reading transform failed", failure );
+    }
+  }
+
+  /**
+   * Hand a single row to the transform on the next input row set and wait until it was read.
+   */
+  @Benchmark
+  public long handOff( ReaderCounters counters ) {
+    long target = received.get() + 1;
+    IRowSet rowSet = inputRowSets.get( next++ % nrInputs );
+    while ( !rowSet.putRow( rowMeta, new Object[] { target } ) ) {
+      // buffer full, retry
+      checkReader();
+    }
+    long count;
+    while ( ( count = received.get() ) < target ) {
+      // spin until the reader got it
+      checkReader();
+    }
+    return count;
+  }
+
+  public static void main( String[] args ) throws Exception {
+    new Runner( new OptionsBuilder().include( RowSetSignalingBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
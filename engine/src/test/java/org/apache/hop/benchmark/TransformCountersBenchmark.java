@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmark;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.Dummy;
+import org.apache.hop.pipeline.transforms.dummy.DummyData;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per row cost of the transform row counters: the lines read and written counters are updated for every
+ * row a transform handles. The "locked" benchmarks use a copy of the counters as they used to be, guarded by a single
+ * monitor, the "transform" benchmarks use the counters of an actual transform.
+ * <p>
+ * The *Polled groups add a thread which keeps reading the counters, like the status servlets and the performance
+ * snapshot timer do, to show the effect of readers on the writing transform.
+ * <p>
+ * Run it with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.hop.benchmark.TransformCountersBenchmark</code>
+ */
+@State( Scope.Group )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TransformCountersBenchmark {
+
+  /**
+   * The counters as they were before: every access takes the same lock.
+   */
+  static class LockedCounters {
+    private final Object statusCountersLock = new Object();
+    private long linesRead;
+    private long linesWritten;
+
+    long incrementLinesRead() {
+      synchronized ( statusCountersLock ) {
+        return ++linesRead;
+      }
+    }
+
+    long incrementLinesWritten() {
+      synchronized ( statusCountersLock ) {
+        return ++linesWritten;
+      }
+    }
+
+    long getLinesRead() {
+      synchronized ( statusCountersLock ) {
+        return linesRead;
+      }
+    }
+
+    long getLinesWritten() {
+      synchronized ( statusCountersLock ) {
+        return linesWritten;
+      }
+    }
+  }
+
+  private LockedCounters locked;
+  private Dummy transform;
+
+  @Setup( Level.Trial )
+  public void setUp() throws Exception {
+    HopEnvironment.init();
+
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    DummyMeta dummyMeta = new DummyMeta();
+    TransformMeta transformMeta = new TransformMeta( "Dummy", dummyMeta );
+    pipelineMeta.addTransform( transformMeta );
+    Pipeline pipeline = new LocalPipelineEngine( pipelineMeta );
+
+    transform = new Dummy( transformMeta, dummyMeta, new DummyData(), 0, pipelineMeta, pipeline );
+    locked = new LockedCounters();
+  }
+
+  @Benchmark
+  @Group( "locked" )
+  public long lockedRow() {
+    locked.incrementLinesRead();
+    return locked.incrementLinesWritten();
+  }
+
+  @Benchmark
+  @Group( "transform" )
+  public long transformRow() {
+    transform.incrementLinesRead();
+    return transform.incrementLinesWritten();
+  }
+
+  @Benchmark
+  @Group( "lockedPolled" )
+  @GroupThreads( 1 )
+  public long lockedPolledRow() {
+    locked.incrementLinesRead();
+    return locked.incrementLinesWritten();
+  }
+
+  @Benchmark
+  @Group( "lockedPolled" )
+  @GroupThreads( 1 )
+  public long lockedPolledStatus() {
+    return locked.getLinesRead() + locked.getLinesWritten();
+  }
+
+  @Benchmark
+  @Group( "transformPolled" )
+  @GroupThreads( 1 )
+  public long transformPolledRow() {
+    transform.incrementLinesRead();
+    return transform.incrementLinesWritten();
+  }
+
+  @Benchmark
+  @Group( "transformPolled" )
+  @GroupThreads( 1 )
+  public long transformPolledStatus() {
+    return transform.getLinesRead() + transform.getLinesWritten();
+  }
+
+  public static void main( String[] args ) throws Exception {
+    new Runner( new OptionsBuilder().include( TransformCountersBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
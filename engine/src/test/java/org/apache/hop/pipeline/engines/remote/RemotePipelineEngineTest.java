@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.engines.remote;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBuffer;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.config.PipelineRunConfiguration;
+import org.apache.hop.server.HopServer;
+import org.apache.hop.server.HopServerServiceUnsupportedException;
+import org.apache.hop.www.HopServerPipelineStatus;
+import org.apache.hop.www.PipelineStatusFrames;
+import org.apache.hop.www.PipelineStatusStream;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sniffs the output rows of a transform on a hop server which answers in binary format or only in XML.
+ */
+public class RemotePipelineEngineTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private static final String TRANSFORM_NAME = "transform";
+
+  private HopServer hopServer;
+  private RemotePipelineEngine engine;
+  private BlockingQueue<RowBuffer> received;
+  private RowBuffer rowBuffer;
+
+  @Before
+  public void setUp() throws Exception {
+    PipelineMeta pipelineMeta = mock( PipelineMeta.class );
+    when( pipelineMeta.getName() ).thenReturn( "pipeline" );
+    hopServer = mock( HopServer.class );
+    when( hopServer.getName() ).thenReturn( "server" );
+
+    engine = new RemotePipelineEngine( pipelineMeta );
+    engine.setHopServer( hopServer );
+    engine.setContainerId( "id" );
+    received = new LinkedBlockingQueue<>();
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[] { "row" } );
+    rowBuffer = new RowBuffer( rowMeta, rows );
+    when( hopServer.sniffTransform( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() ) )
+      .thenReturn( rowBuffer.getXml() );
+  }
+
+  /**
+   * A server without the binary format is asked for XML from then on.
+   */
+  @Test
+  public void testUnsupportedBinaryFormatFallsBackToXml() throws Exception {
+    when( hopServer.sniffTransformRows( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() ) )
+      .thenThrow( new HopServerServiceUnsupportedException( "HTTP Status 404", 404 ) );
+
+    assertRowsReceived();
+    assertRowsReceived();
+
+    verify( hopServer, times( 1 ) ).sniffTransformRows( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() );
+    verify( hopServer, times( 2 ) ).sniffTransform( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() );
+  }
+
+  /**
+   * A busy server or a network error only makes this request use XML, the next one tries the binary format again.
+   */
+  @Test
+  public void testOtherErrorKeepsBinaryFormat() throws Exception {
+    when( hopServer.sniffTransformRows( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() ) )
+      .thenThrow( new HopException( "HTTP Status 503" ) )
+      .thenReturn( rowBuffer );
+
+    assertRowsReceived();
+    assertRowsReceived();
+
+    verify( hopServer, times( 2 ) ).sniffTransformRows( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() );
+    verify( hopServer, times( 1 ) ).sniffTransform( any(), anyString(), eq( TRANSFORM_NAME ), anyString(), anyString(), anyInt(), anyString() );
+  }
+
+  /**
+   * The stream of a stopped pipeline can end while it's still halting: the status is polled until it finished.
+   */
+  @Test
+  public void testStatusStreamEndingEarlyFallsBackToPolling() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream( bytes );
+    new PipelineStatusFrames.StatusEncoder().writeStatus( out,
+      new HopServerPipelineStatus( "pipeline", "id", Pipeline.STRING_HALTING ), null );
+    PipelineStatusFrames.writeEnd( out );
+    when( hopServer.openPipelineStatusStream( any(), anyString(), anyString(), anyInt(), anyLong() ) )
+      .thenReturn( new PipelineStatusStream( "pipeline", "id", new ByteArrayInputStream( bytes.toByteArray() ), () -> {
+      } ) );
+    when( hopServer.getPipelineStatus( any(), anyString(), anyString(), anyInt() ) )
+      .thenReturn( new HopServerPipelineStatus( "pipeline", "id", Pipeline.STRING_FINISHED ) );
+
+    CountDownLatch finished = new CountDownLatch( 1 );
+    engine.setPipelineRunConfiguration( new PipelineRunConfiguration() );
+    engine.addExecutionFinishedListener( pipelineEngine -> finished.countDown() );
+    engine.serverPollDelay = 0L;
+    engine.serverPollInterval = 10L;
+
+    engine.startStatusStream();
+
+    assertTrue( finished.await( 10, TimeUnit.SECONDS ) );
+    assertTrue( engine.isFinished() );
+    verify( hopServer, atLeastOnce() ).getPipelineStatus( any(), anyString(), anyString(), anyInt() );
+  }
+
+  private void assertRowsReceived() throws Exception {
+    engine.retrieveComponentOutput( new Variables(), TRANSFORM_NAME, 0, 10,
+      ( pipelineEngine, rows ) -> received.add( rows ) );
+    RowBuffer rows = received.poll( 10, TimeUnit.SECONDS );
+    assertNotNull( rows );
+    assertEquals( 1, rows.size() );
+    assertEquals( "row", rows.getBuffer().get( 0 )[ 0 ] );
+  }
+}
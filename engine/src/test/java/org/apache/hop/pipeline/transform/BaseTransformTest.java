@@ -509,6 +509,72 @@ public class BaseTransformTest {
     baseTransform.putRow(rowMeta, new Object[] {0});
   }
 
+  @Test
+  public void getRowsAndPutRowsInBatches() throws HopException {
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+    BaseTransform<ITransformMeta, ITransformData> baseTransform =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    IRowSet input = new BlockingRowSet(10);
+    for (long i = 0; i < 5; i++) {
+      input.putRow(rowMeta, new Object[] {i});
+    }
+    input.setDone();
+    baseTransform.setInputRowSets(new ArrayList<>(Arrays.asList(input)));
+
+    IRowSet output1 = new BlockingRowSet(10);
+    IRowSet output2 = new BlockingRowSet(10);
+    baseTransform.setOutputRowSets(Arrays.asList(output1, output2));
+
+    Object[][] rows = baseTransform.getRows(3);
+    assertEquals(3, rows.length);
+    assertEquals(3, baseTransform.getLinesRead());
+    for (int i = 0; i < rows.length; i++) {
+      assertEquals((long) i, rows[i][0]);
+    }
+
+    baseTransform.putRows(baseTransform.getInputRowMeta(), rows, 2);
+    assertEquals(4, baseTransform.getLinesWritten());
+    assertEquals(2, output1.size());
+    assertEquals(2, output2.size());
+    assertTrue(rows[0] == output1.getRowImmediate());
+    Object[] copy = output2.getRowImmediate();
+    assertFalse(rows[0] == copy);
+    assertEquals(0L, copy[0]);
+
+    rows = baseTransform.getRows(10);
+    assertEquals(2, rows.length);
+    assertEquals(3L, rows[0][0]);
+    assertEquals(4L, rows[1][0]);
+    assertEquals(5, baseTransform.getLinesRead());
+
+    assertNull(baseTransform.getRows(10));
+  }
+
+  @Test
+  public void getRowsWithRowHandler() throws HopException {
+    BaseTransform baseTransform =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+    baseTransform.setRowHandler(rowHandler);
+    baseTransform.getRows(5);
+    verify(rowHandler, times(1)).getRows(5);
+  }
+
   @Test
   public void testGetRowSafeModeEnabled() throws HopException {
     Pipeline pipelineMock = spy(new LocalPipelineEngine());
@@ -540,4 +606,35 @@ public class BaseTransformTest {
     verify(mockHelper.pipelineMeta, times(1))
         .checkRowMixingStatically(any(IVariables.class), any(TransformMeta.class), anyObject());
   }
+
+  @Test
+  public void testGetRowsSafeModeEnabled() throws HopException {
+    Pipeline pipelineMock = spy(new LocalPipelineEngine());
+    when(pipelineMock.isSafeModeEnabled()).thenReturn(true);
+    BaseTransform baseTransformSpy =
+        spy(
+            new BaseTransform(
+                mockHelper.transformMeta,
+                mockHelper.iTransformMeta,
+                mockHelper.iTransformData,
+                0,
+                mockHelper.pipelineMeta,
+                pipelineMock));
+    doNothing().when(baseTransformSpy).waitUntilPipelineIsStarted();
+
+    BlockingRowSet rowSet = new BlockingRowSet(10);
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("x"));
+    for (long i = 0; i < 3; i++) {
+      rowSet.putRow(rowMeta, new Object[] {i});
+    }
+
+    baseTransformSpy.setInputRowSets(new ArrayList<>(Arrays.asList(rowSet)));
+
+    // The rows which top up the batch are checked like the first one
+    //
+    assertEquals(3, baseTransformSpy.getRows(10).length);
+    verify(mockHelper.pipelineMeta, times(3))
+        .checkRowMixingStatically(any(IVariables.class), any(TransformMeta.class), anyObject());
+  }
 }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.pipelineexecutor;
+
+import org.apache.hop.core.BlockingRowSet;
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.Result;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs groups of rows through sub-pipelines which are mocked: they return the rows of their group after a while.
+ */
+public class PipelineExecutorTest {
+
+  private static final String TRANSFORM_NAME = "Pipeline executor";
+  private static final String RESULT_ROWS_TRANSFORM_NAME = "Result rows";
+
+  private TransformMockHelper<PipelineExecutorMeta, PipelineExecutorData> mockHelper;
+  private List<IPipelineEngine<PipelineMeta>> subPipelines;
+  private AtomicInteger running;
+  private AtomicInteger maxRunning;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopClientEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    mockHelper = new TransformMockHelper<>( TRANSFORM_NAME, PipelineExecutorMeta.class, PipelineExecutorData.class );
+    when( mockHelper.logChannelFactory.create( any(), any( ILoggingObject.class ) ) )
+      .thenReturn( mockHelper.iLogChannel );
+    when( mockHelper.pipeline.isRunning() ).thenReturn( true );
+
+    TransformMeta resultRowsTransformMeta = mock( TransformMeta.class );
+    when( resultRowsTransformMeta.getName() ).thenReturn( RESULT_ROWS_TRANSFORM_NAME );
+    when( resultRowsTransformMeta.getCopies( any() ) ).thenReturn( 1 );
+    when( mockHelper.pipelineMeta.findTransform( RESULT_ROWS_TRANSFORM_NAME ) ).thenReturn( resultRowsTransformMeta );
+
+    subPipelines = Collections.synchronizedList( new ArrayList<>() );
+    running = new AtomicInteger();
+    maxRunning = new AtomicInteger();
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  /**
+   * The groups finish in reverse order but their result rows are passed on in the order of the input rows.
+   */
+  @Test
+  public void testConcurrentExecutionsKeepTheOrder() throws Exception {
+    PipelineExecutor executor = createExecutor( "2", "", "3" );
+
+    List<Long> output = execute( executor, 20 );
+
+    List<Long> expected = new ArrayList<>();
+    for ( long nr = 0; nr < 20; nr++ ) {
+      expected.add( nr );
+    }
+    assertEquals( expected, output );
+    assertEquals( 10, subPipelines.size() );
+    assertEquals( 3, maxRunning.get() );
+    assertEquals( 0, running.get() );
+  }
+
+  /**
+   * Every group executing at the same time can be found in the parent pipeline.
+   */
+  @Test
+  public void testConcurrentExecutionsAreActiveSubPipelines() throws Exception {
+    PipelineExecutor executor = createExecutor( "1", "", "3" );
+
+    execute( executor, 3 );
+
+    Set<IPipelineEngine> active = new HashSet<>();
+    for ( String name : new String[] { TRANSFORM_NAME, TRANSFORM_NAME + " (2)", TRANSFORM_NAME + " (3)" } ) {
+      IPipelineEngine subPipeline = mockHelper.pipeline.getActiveSubPipeline( name );
+      assertNotNull( name, subPipeline );
+      active.add( subPipeline );
+    }
+    assertEquals( new HashSet<>( subPipelines ), active );
+  }
+
+  @Test
+  public void testDiscardLogLinesOfAllExecutions() throws Exception {
+    PipelineExecutor executor = createExecutor( "1", "", "3" );
+    PipelineExecutorData data = executor.getData();
+    for ( int i = 0; i < 3; i++ ) {
+      IPipelineEngine<PipelineMeta> subPipeline = executor.createInternalPipeline();
+      data.groupExecutions.add( new PipelineExecutorData.GroupExecution( subPipeline, new Result(), 0L ) );
+      data.setExecutorPipeline( subPipeline );
+    }
+
+    executor.discardLogLines( data );
+
+    for ( IPipelineEngine<PipelineMeta> subPipeline : subPipelines ) {
+      verify( subPipeline, times( 2 ) ).getLogChannelId();
+    }
+  }
+
+  /**
+   * The pipelines which were prepared ahead of time but never got a group of rows are released at the end.
+   */
+  @Test
+  public void testDisposePreparedPipelines() throws Exception {
+    PipelineExecutor executor = createExecutor( "1", "2", "1" );
+
+    List<Long> output = execute( executor, 3 );
+
+    assertEquals( 3, output.size() );
+    assertTrue( executor.getData().preparedPipelines.isEmpty() );
+
+    // 1 created for the first group, 2 prepared and 1 more prepared for each of the next 2 groups
+    //
+    assertEquals( 5, subPipelines.size() );
+    for ( int i = 0; i < subPipelines.size(); i++ ) {
+      IPipelineEngine<PipelineMeta> subPipeline = subPipelines.get( i );
+      verify( subPipeline ).prepareExecution();
+      if ( i < 3 ) {
+        verify( subPipeline ).startThreads();
+        verify( subPipeline, never() ).stopAll();
+      } else {
+        verify( subPipeline, never() ).startThreads();
+        verify( subPipeline ).stopAll();
+      }
+    }
+  }
+
+  @Test
+  public void testDisposeReleasesPreparedPipelines() throws Exception {
+    PipelineExecutor executor = createExecutor( "1", "2", "1" );
+    PipelineExecutorData data = executor.getData();
+    for ( int i = 0; i < 2; i++ ) {
+      data.preparedPipelines.add( executor.createInternalPipeline() );
+    }
+
+    executor.dispose();
+
+    assertTrue( data.preparedPipelines.isEmpty() );
+    for ( IPipelineEngine<PipelineMeta> subPipeline : subPipelines ) {
+      verify( subPipeline ).stopAll();
+    }
+  }
+
+  private PipelineExecutor createExecutor( String groupSize, String poolSize, String maxConcurrentExecutions )
+    throws Exception {
+    PipelineExecutorMeta meta = new PipelineExecutorMeta();
+    meta.setDefault();
+    meta.setGroupSize( groupSize );
+    meta.setPoolSize( poolSize );
+    meta.setMaxConcurrentExecutions( maxConcurrentExecutions );
+    meta.setOutputRowsSourceTransformMeta( mockHelper.pipelineMeta.findTransform( RESULT_ROWS_TRANSFORM_NAME ) );
+
+    PipelineExecutor executor = spy( new PipelineExecutor( mockHelper.transformMeta, meta, new PipelineExecutorData(), 0,
+      mockHelper.pipelineMeta, mockHelper.pipeline ) );
+    doReturn( mock( PipelineMeta.class ) ).when( executor ).loadExecutorPipelineMeta();
+    doAnswer( invocation -> createSubPipeline() ).when( executor ).createInternalPipeline();
+    assertTrue( executor.init() );
+    return executor;
+  }
+
+  /**
+   * A sub-pipeline returning the rows it was given. The earlier it's created the longer it runs.
+   */
+  @SuppressWarnings( "unchecked" )
+  private IPipelineEngine<PipelineMeta> createSubPipeline() {
+    int nr = subPipelines.size();
+    IPipelineEngine<PipelineMeta> subPipeline = mock( IPipelineEngine.class );
+    when( subPipeline.getLogChannelId() ).thenReturn( "sub-pipeline-" + nr );
+    when( subPipeline.listParameters() ).thenReturn( new String[ 0 ] );
+
+    Result[] result = new Result[ 1 ];
+    doAnswer( invocation -> result[ 0 ] = (Result) invocation.getArguments()[ 0 ] )
+      .when( subPipeline ).setPreviousResult( any( Result.class ) );
+    doAnswer( invocation -> result[ 0 ] ).when( subPipeline ).getResult();
+    long[] finishTime = new long[ 1 ];
+    doAnswer( invocation -> {
+      maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+      finishTime[ 0 ] = System.currentTimeMillis() + Math.max( 1, 30 - 3 * nr );
+      return null;
+    } ).when( subPipeline ).startThreads();
+    doAnswer( invocation -> {
+      Thread.sleep( Math.max( 0, finishTime[ 0 ] - System.currentTimeMillis() ) );
+      running.decrementAndGet();
+      return null;
+    } ).when( subPipeline ).waitUntilFinished();
+
+    subPipelines.add( subPipeline );
+    return subPipeline;
+  }
+
+  /**
+   * @return the values of the result rows, in the order they were passed on
+   */
+  private List<Long> execute( PipelineExecutor executor, int nrRows ) throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "nr" ) );
+
+    IRowSet input = new BlockingRowSet( nrRows );
+    for ( long nr = 0; nr < nrRows; nr++ ) {
+      input.putRow( rowMeta, new Object[] { nr } );
+    }
+    input.setDone();
+    IRowSet resultRows = new BlockingRowSet( nrRows );
+    resultRows.setThreadNameFromToCopy( TRANSFORM_NAME, 0, RESULT_ROWS_TRANSFORM_NAME, 0 );
+    executor.setInputRowSets( new ArrayList<>( Collections.singletonList( input ) ) );
+    executor.setOutputRowSets( new ArrayList<>( Collections.singletonList( resultRows ) ) );
+
+    while ( executor.processRow() ) {
+      // Keep executing groups
+    }
+
+    List<Long> output = new ArrayList<>();
+    Object[] row;
+    while ( ( row = resultRows.getRowImmediate() ) != null ) {
+      output.add( (Long) row[ 0 ] );
+    }
+    return output;
+  }
+}
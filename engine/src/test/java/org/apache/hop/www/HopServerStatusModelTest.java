@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.workflow.WorkflowMeta;
+import org.apache.hop.workflow.engine.IWorkflowEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HopServerStatusModelTest {
+  private PipelineMap pipelineMap;
+  private WorkflowMap workflowMap;
+  private HopServerStatusModel model;
+
+  @Before
+  public void setUp() {
+    pipelineMap = new PipelineMap();
+    workflowMap = new WorkflowMap();
+    model = new HopServerStatusModel();
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testOnlyChangesAreSent() {
+    IPipelineEngine<PipelineMeta> pipeline1 = mock( IPipelineEngine.class );
+    IPipelineEngine<PipelineMeta> pipeline2 = mock( IPipelineEngine.class );
+    IWorkflowEngine<WorkflowMeta> workflow = mock( IWorkflowEngine.class );
+    when( pipeline1.getStatusDescription() ).thenReturn( Pipeline.STRING_RUNNING );
+    when( pipeline2.getStatusDescription() ).thenReturn( Pipeline.STRING_WAITING );
+    when( workflow.getStatusDescription() ).thenReturn( Pipeline.STRING_RUNNING );
+    pipelineMap.addPipeline( "p1", "id1", pipeline1, null );
+    pipelineMap.addPipeline( "p2", "id2", pipeline2, null );
+    workflowMap.addWorkflow( "w1", "id3", workflow, null );
+
+    model.refresh( pipelineMap, workflowMap );
+    HopServerStatusModel.Changes all = model.getChanges( null );
+    assertTrue( all.isComplete() );
+    assertEquals( 3, all.getChanged().size() );
+
+    // Nothing changed
+    //
+    model.refresh( pipelineMap, workflowMap );
+    HopServerStatusModel.Changes none = model.getChanges( "\"" + all.getTag() + "\"" );
+    assertTrue( none.isUnchanged() );
+    assertEquals( all.getTag(), none.getTag() );
+
+    // One pipeline changes state, the other one is removed
+    //
+    when( pipeline1.getStatusDescription() ).thenReturn( Pipeline.STRING_FINISHED );
+    pipelineMap.removePipeline( new HopServerObjectEntry( "p2", "id2" ) );
+    model.refresh( pipelineMap, workflowMap );
+    HopServerStatusModel.Changes changes = model.getChanges( all.getTag() );
+    assertFalse( changes.isComplete() );
+    assertEquals( 1, changes.getChanged().size() );
+    assertEquals( "id1", changes.getChanged().get( 0 ).getId() );
+    assertEquals( Pipeline.STRING_FINISHED, changes.getChanged().get( 0 ).getStatusDescription() );
+    assertEquals( 1, changes.getRemoved().size() );
+    assertEquals( "id2", changes.getRemoved().get( 0 ).getId() );
+    assertEquals( HopServerStatusModel.TYPE_PIPELINE, changes.getRemoved().get( 0 ).getType() );
+
+    String json = changes.getJson();
+    assertTrue( json.contains( "\"removed_pipelines\":[{" ) );
+    assertTrue( json.contains( "\"workflows\":[]" ) );
+
+    // A full status no longer lists the removed pipeline
+    //
+    assertEquals( 2, model.getChanges( null ).getChanged().size() );
+  }
+
+  @Test
+  public void testUnknownTagsGetEverything() {
+    model.refresh( pipelineMap, workflowMap );
+    assertTrue( model.getChanges( "some other server-12" ).isComplete() );
+    assertTrue( model.getChanges( model.getTag() + "x" ).isComplete() );
+    assertTrue( model.getChanges( model.getTag() ).isUnchanged() );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testClientsTooFarBehindGetEverything() {
+    IPipelineEngine<PipelineMeta> pipeline = mock( IPipelineEngine.class );
+    when( pipeline.getStatusDescription() ).thenReturn( Pipeline.STRING_RUNNING );
+    model.refresh( pipelineMap, workflowMap );
+    String tag = model.getTag();
+
+    for ( int i = 0; i <= HopServerStatusModel.MAX_REMOVED_ENTRIES; i++ ) {
+      pipelineMap.addPipeline( "p", "id" + i, pipeline, null );
+      model.refresh( pipelineMap, workflowMap );
+      pipelineMap.removePipeline( new HopServerObjectEntry( "p", "id" + i ) );
+      model.refresh( pipelineMap, workflowMap );
+    }
+    assertTrue( model.getChanges( tag ).isComplete() );
+  }
+}
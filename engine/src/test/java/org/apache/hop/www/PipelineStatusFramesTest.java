@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBuffer;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.transform.TransformStatus;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelineStatusFramesTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Test
+  public void testStatusDeltas() throws Exception {
+    HopServerPipelineStatus status = new HopServerPipelineStatus( "pipeline", "id", Pipeline.STRING_RUNNING );
+    status.setExecutionStartDate( new Date( 1000L ) );
+    status.setFirstLoggingLineNr( 0 );
+    status.setLastLoggingLineNr( 10 );
+    TransformStatus input = createTransformStatus( "input", 100L );
+    TransformStatus output = createTransformStatus( "output", 50L );
+    status.getTransformStatusList().add( input );
+    status.getTransformStatusList().add( output );
+
+    PipelineStatusFrames.StatusEncoder encoder = new PipelineStatusFrames.StatusEncoder();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream( bytes );
+
+    encoder.writeStatus( out, status, "first lines" );
+    int firstFrameSize = bytes.size();
+
+    // Only the output transform changed
+    //
+    output.setLinesWritten( 75L );
+    status.setLastLoggingLineNr( 12 );
+    encoder.writeStatus( out, status, null );
+    int secondFrameSize = bytes.size() - firstFrameSize;
+
+    // The output transform is gone, the rest didn't change
+    //
+    status.getTransformStatusList().remove( output );
+    status.setStatusDescription( Pipeline.STRING_FINISHED );
+    encoder.writeStatus( out, status, "last line" );
+    PipelineStatusFrames.writeEnd( out );
+
+    assertTrue( secondFrameSize < firstFrameSize );
+
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    PipelineStatusFrames.StatusDecoder decoder = new PipelineStatusFrames.StatusDecoder( "pipeline", "id" );
+
+    HopServerPipelineStatus first = decoder.readStatus( PipelineStatusFrames.readFrame( in ) );
+    assertEquals( "pipeline", first.getPipelineName() );
+    assertEquals( "id", first.getId() );
+    assertTrue( first.isRunning() );
+    assertEquals( 10, first.getLastLoggingLineNr() );
+    assertEquals( new Date( 1000L ), first.getExecutionStartDate() );
+    assertNull( first.getExecutionEndDate() );
+    assertEquals( "first lines", first.getLoggingString() );
+    assertEquals( 2, first.getTransformStatusList().size() );
+    assertEquals( 50L, first.getTransformStatusList().get( 1 ).getLinesWritten() );
+
+    HopServerPipelineStatus second = decoder.readStatus( PipelineStatusFrames.readFrame( in ) );
+    assertEquals( "", second.getLoggingString() );
+    assertEquals( 12, second.getLastLoggingLineNr() );
+    assertEquals( 2, second.getTransformStatusList().size() );
+    assertEquals( "input", second.getTransformStatusList().get( 0 ).getTransformName() );
+    assertEquals( 100L, second.getTransformStatusList().get( 0 ).getLinesWritten() );
+    assertEquals( 75L, second.getTransformStatusList().get( 1 ).getLinesWritten() );
+
+    HopServerPipelineStatus third = decoder.readStatus( PipelineStatusFrames.readFrame( in ) );
+    assertTrue( third.isFinished() );
+    assertEquals( "last line", third.getLoggingString() );
+    assertEquals( 1, third.getTransformStatusList().size() );
+    assertEquals( "input", third.getTransformStatusList().get( 0 ).getTransformName() );
+
+    assertEquals( PipelineStatusFrames.FRAME_END, PipelineStatusFrames.readFrame( in ).getType() );
+    assertNull( PipelineStatusFrames.readFrame( in ) );
+  }
+
+  @Test
+  public void testStatusStream() throws Exception {
+    HopServerPipelineStatus status = new HopServerPipelineStatus( "pipeline", "id", Pipeline.STRING_FINISHED );
+    status.getTransformStatusList().add( createTransformStatus( "transform", 5L ) );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream( bytes );
+    new PipelineStatusFrames.StatusEncoder().writeStatus( out, status, "log" );
+    PipelineStatusFrames.writeEnd( out );
+
+    final boolean[] aborted = new boolean[] { false };
+    try ( PipelineStatusStream stream =
+            new PipelineStatusStream( "pipeline", "id", new ByteArrayInputStream( bytes.toByteArray() ), () -> aborted[ 0 ] = true ) ) {
+      HopServerPipelineStatus received = stream.next();
+      assertTrue( received.isFinished() );
+      assertEquals( 5L, received.getTransformStatusList().get( 0 ).getLinesWritten() );
+      assertNull( stream.next() );
+    }
+    assertTrue( aborted[ 0 ] );
+  }
+
+  @Test
+  public void testErrorAndTruncatedStream() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PipelineStatusFrames.writeError( new DataOutputStream( bytes ), "not found" );
+    try ( PipelineStatusStream stream = new PipelineStatusStream( "pipeline", "id", new ByteArrayInputStream( bytes.toByteArray() ), () -> {
+    } ) ) {
+      stream.next();
+      fail( "The error frame should be reported" );
+    } catch ( HopException e ) {
+      assertTrue( e.getMessage().contains( "not found" ) );
+    }
+
+    try ( PipelineStatusStream stream = new PipelineStatusStream( "pipeline", "id", new ByteArrayInputStream( new byte[ 0 ] ), () -> {
+    } ) ) {
+      stream.next();
+      fail( "A stream without an end frame should be reported" );
+    } catch ( HopException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRows() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    RowBuffer rowBuffer = new RowBuffer( rowMeta );
+    rowBuffer.getBuffer().add( new Object[] { "one", 1L } );
+    rowBuffer.getBuffer().add( new Object[] { null, 2L } );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream( bytes );
+    PipelineStatusFrames.writeRows( out, rowBuffer );
+    PipelineStatusFrames.writeRows( out, new RowBuffer() );
+
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    PipelineStatusFrames.Frame frame = PipelineStatusFrames.readFrame( in );
+    assertEquals( PipelineStatusFrames.FRAME_ROWS, frame.getType() );
+    RowBuffer received = PipelineStatusFrames.readRows( frame );
+    assertArrayEquals( rowMeta.getFieldNames(), received.getRowMeta().getFieldNames() );
+    assertEquals( 2, received.getBuffer().size() );
+    assertArrayEquals( new Object[] { "one", 1L }, received.getBuffer().get( 0 ) );
+    assertArrayEquals( new Object[] { null, 2L }, received.getBuffer().get( 1 ) );
+
+    RowBuffer empty = PipelineStatusFrames.readRows( PipelineStatusFrames.readFrame( in ) );
+    assertEquals( 0, empty.getRowMeta().size() );
+    assertTrue( empty.getBuffer().isEmpty() );
+  }
+
+  private static TransformStatus createTransformStatus( String name, long linesWritten ) {
+    TransformStatus transformStatus = new TransformStatus();
+    transformStatus.setTransformName( name );
+    transformStatus.setLinesWritten( linesWritten );
+    transformStatus.setStatusDescription( "Running" );
+    transformStatus.setSpeed( "-" );
+    return transformStatus;
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.logging.HopLogStore;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PipelineStatusStreamServletTest {
+  private PipelineMap mockPipelineMap;
+
+  private PipelineStatusStreamServlet pipelineStatusStreamServlet;
+
+  @Before
+  public void setup() {
+    HopLogStore.init();
+    mockPipelineMap = mock( PipelineMap.class );
+    pipelineStatusStreamServlet = new PipelineStatusStreamServlet( mockPipelineMap );
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty( Const.HOP_SERVER_MAX_STATUS_STREAMS );
+  }
+
+  @Test
+  public void testPipelineNotFound() throws Exception {
+    HttpServletRequest mockHttpServletRequest = mockRequest();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse mockHttpServletResponse = mockResponse( bytes );
+
+    pipelineStatusStreamServlet.doGet( mockHttpServletRequest, mockHttpServletResponse );
+
+    verify( mockHttpServletResponse ).setContentType( PipelineStatusFrames.CONTENT_TYPE );
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    PipelineStatusFrames.Frame frame = PipelineStatusFrames.readFrame( in );
+    assertEquals( PipelineStatusFrames.FRAME_ERROR, frame.getType() );
+    assertTrue( PipelineStatusFrames.readError( frame ).contains( "pipeline" ) );
+    assertNull( PipelineStatusFrames.readFrame( in ) );
+    assertEquals( 0, pipelineStatusStreamServlet.getOpenStreams() );
+  }
+
+  @Test
+  public void testFinishedPipeline() throws Exception {
+    IPipelineEngine<PipelineMeta> mockPipeline = mockPipeline( new AtomicBoolean( true ) );
+    when( mockPipelineMap.getPipeline( any( HopServerObjectEntry.class ) ) ).thenReturn( mockPipeline );
+    HttpServletRequest mockHttpServletRequest = mockRequest();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse mockHttpServletResponse = mockResponse( bytes );
+
+    pipelineStatusStreamServlet.doGet( mockHttpServletRequest, mockHttpServletResponse );
+
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    PipelineStatusFrames.StatusDecoder decoder = new PipelineStatusFrames.StatusDecoder( "pipeline", "id" );
+    HopServerPipelineStatus status = decoder.readStatus( PipelineStatusFrames.readFrame( in ) );
+    assertTrue( status.isFinished() );
+    assertEquals( PipelineStatusFrames.FRAME_END, PipelineStatusFrames.readFrame( in ).getType() );
+    assertNull( PipelineStatusFrames.readFrame( in ) );
+    assertEquals( 0, pipelineStatusStreamServlet.getOpenStreams() );
+  }
+
+  /**
+   * A stopped pipeline halts for a while: the stream goes on until the pipeline isn't running anymore.
+   */
+  @Test
+  public void testStoppedPipeline() throws Exception {
+    AtomicInteger statusCalls = new AtomicInteger();
+    IPipelineEngine<PipelineMeta> mockPipeline = mockPipeline( new AtomicBoolean( false ) );
+    when( mockPipeline.isStopped() ).thenReturn( true );
+    when( mockPipeline.isRunning() ).thenAnswer( invocation -> statusCalls.get() < 2 );
+    when( mockPipeline.getStatusDescription() ).thenAnswer( invocation ->
+      statusCalls.incrementAndGet() <= 2 ? Pipeline.STRING_HALTING : Pipeline.STRING_STOPPED );
+    when( mockPipelineMap.getPipeline( any( HopServerObjectEntry.class ) ) ).thenReturn( mockPipeline );
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    pipelineStatusStreamServlet.doGet( mockRequest(), mockResponse( bytes ) );
+
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    PipelineStatusFrames.StatusDecoder decoder = new PipelineStatusFrames.StatusDecoder( "pipeline", "id" );
+    List<String> statuses = new ArrayList<>();
+    PipelineStatusFrames.Frame frame;
+    while ( ( frame = PipelineStatusFrames.readFrame( in ) ).getType() == PipelineStatusFrames.FRAME_STATUS ) {
+      statuses.add( decoder.readStatus( frame ).getStatusDescription() );
+    }
+    assertEquals( PipelineStatusFrames.FRAME_END, frame.getType() );
+    assertEquals( Arrays.asList( Pipeline.STRING_HALTING, Pipeline.STRING_HALTING, Pipeline.STRING_STOPPED ), statuses );
+  }
+
+  /**
+   * With a single stream allowed, a second client is told to come back later while the first stream is open.
+   */
+  @Test
+  public void testTooManyStreams() throws Exception {
+    System.setProperty( Const.HOP_SERVER_MAX_STATUS_STREAMS, "1" );
+    AtomicBoolean finished = new AtomicBoolean( false );
+    IPipelineEngine<PipelineMeta> mockPipeline = mockPipeline( finished );
+    when( mockPipelineMap.getPipeline( any( HopServerObjectEntry.class ) ) ).thenReturn( mockPipeline );
+
+    HttpServletResponse firstResponse = mockResponse( new ByteArrayOutputStream() );
+    Thread first = new Thread( () -> {
+      try {
+        pipelineStatusStreamServlet.doGet( mockRequest(), firstResponse );
+      } catch ( Exception e ) {
+        throw new RuntimeException( e );
+      }
+    } );
+    first.start();
+    while ( pipelineStatusStreamServlet.getOpenStreams() == 0 ) {
+      Thread.sleep( 10 );
+    }
+
+    HttpServletResponse secondResponse = mockResponse( new ByteArrayOutputStream() );
+    pipelineStatusStreamServlet.doGet( mockRequest(), secondResponse );
+    verify( secondResponse ).sendError( eq( HttpServletResponse.SC_SERVICE_UNAVAILABLE ), anyString() );
+    verify( secondResponse, never() ).getOutputStream();
+
+    finished.set( true );
+    first.join( 10000 );
+    verify( firstResponse, never() ).sendError( anyInt(), anyString() );
+    assertEquals( 0, pipelineStatusStreamServlet.getOpenStreams() );
+
+    // The slot is free again
+    //
+    HttpServletResponse thirdResponse = mockResponse( new ByteArrayOutputStream() );
+    pipelineStatusStreamServlet.doGet( mockRequest(), thirdResponse );
+    verify( thirdResponse, never() ).sendError( anyInt(), anyString() );
+  }
+
+  private HttpServletRequest mockRequest() {
+    HttpServletRequest mockHttpServletRequest = mock( HttpServletRequest.class );
+    when( mockHttpServletRequest.getContextPath() ).thenReturn( PipelineStatusStreamServlet.CONTEXT_PATH );
+    when( mockHttpServletRequest.getParameter( "name" ) ).thenReturn( "pipeline" );
+    when( mockHttpServletRequest.getParameter( "id" ) ).thenReturn( "id" );
+    return mockHttpServletRequest;
+  }
+
+  private HttpServletResponse mockResponse( ByteArrayOutputStream bytes ) throws IOException {
+    HttpServletResponse mockHttpServletResponse = mock( HttpServletResponse.class );
+    when( mockHttpServletResponse.getOutputStream() ).thenReturn( new ServletOutputStream() {
+      @Override public boolean isReady() {
+        return true;
+      }
+
+      @Override public void setWriteListener( WriteListener writeListener ) {
+      }
+
+      @Override public void write( int b ) {
+        bytes.write( b );
+      }
+    } );
+    return mockHttpServletResponse;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private IPipelineEngine<PipelineMeta> mockPipeline( AtomicBoolean finished ) {
+    IPipelineEngine<PipelineMeta> mockPipeline = mock( IPipelineEngine.class );
+    ILogChannel mockChannelInterface = mock( ILogChannel.class );
+    when( mockChannelInterface.getLogChannelId() ).thenReturn( "test" );
+    when( mockPipeline.getLogChannel() ).thenReturn( mockChannelInterface );
+    when( mockPipeline.getComponents() ).thenReturn( new ArrayList<>() );
+    when( mockPipeline.isFinished() ).thenAnswer( invocation -> finished.get() );
+    when( mockPipeline.getStatusDescription() )
+      .thenAnswer( invocation -> finished.get() ? Pipeline.STRING_FINISHED : Pipeline.STRING_RUNNING );
+    return mockPipeline;
+  }
+}
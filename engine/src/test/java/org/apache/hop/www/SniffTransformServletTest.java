@@ -32,8 +32,13 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -41,10 +46,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static junit.framework.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith( PowerMockRunner.class )
@@ -112,4 +120,35 @@ public class SniffTransformServletTest {
     PowerMockito.verifyStatic( atLeastOnce() );
     Encode.forHtml( anyString() );
   }
+
+  @Test
+  public void testSniffTransformServletBinaryErrorWhenPipelineNotFound() throws ServletException, IOException {
+    HttpServletRequest mockHttpServletRequest = mock( HttpServletRequest.class );
+    HttpServletResponse mockHttpServletResponse = mock( HttpServletResponse.class );
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    when( mockHttpServletRequest.getContextPath() ).thenReturn( SniffTransformServlet.CONTEXT_PATH );
+    when( mockHttpServletRequest.getParameter( "pipeline" ) ).thenReturn( "pipeline" );
+    when( mockHttpServletRequest.getParameter( "binary" ) ).thenReturn( "Y" );
+    when( mockHttpServletResponse.getOutputStream() ).thenReturn( new ServletOutputStream() {
+      @Override public boolean isReady() {
+        return true;
+      }
+
+      @Override public void setWriteListener( WriteListener writeListener ) {
+      }
+
+      @Override public void write( int b ) {
+        bytes.write( b );
+      }
+    } );
+
+    sniffTransformServlet.doGet( mockHttpServletRequest, mockHttpServletResponse );
+
+    verify( mockHttpServletResponse ).setContentType( PipelineStatusFrames.CONTENT_TYPE );
+    verify( mockHttpServletResponse, never() ).getWriter();
+    PipelineStatusFrames.Frame frame =
+      PipelineStatusFrames.readFrame( new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) );
+    assertEquals( PipelineStatusFrames.FRAME_ERROR, frame.getType() );
+  }
 }
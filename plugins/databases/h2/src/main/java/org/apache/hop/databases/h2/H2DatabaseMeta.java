@@ -254,4 +254,15 @@ public class H2DatabaseMeta extends BaseDatabaseMeta implements IDatabase {
     return false;
   }
 
+  /**
+   * Merges in a single MERGE statement.
+   */
+  @Override
+  public String[] getSqlMergeFromTable( String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                        String[] updateFields, String[] insertFields ) {
+    if ( updateFields.length == 0 && insertFields.length == 0 ) {
+      return new String[ 0 ];
+    }
+    return new String[] { getSqlMergeStatement( schemaTable, sourceSchemaTable, keyFields, updateFields, insertFields ) };
+  }
 }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.databases.h2;
+
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.Result;
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.database.DatabasePluginType;
+import org.apache.hop.core.database.MergeStagingTable;
+import org.apache.hop.core.logging.LoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.variables.Variables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Merges staged rows into a table of an in-memory H2 database.
+ */
+public class H2MergeStagingTableTest {
+
+  private static final String TABLE = "TARGET";
+  private static final String STAGING_TABLE = "TARGET_STG_TEST";
+
+  private Database db;
+  private IRowMeta stagingRowMeta;
+
+  @Before
+  public void setUp() throws Exception {
+    HopClientEnvironment.init();
+    DatabasePluginType.getInstance().registerClassPathPlugin( H2DatabaseMeta.class );
+
+    DatabaseMeta databaseMeta =
+      new DatabaseMeta( "h2", "H2", "JDBC", null, "mem:merge_staging_table;DB_CLOSE_DELAY=-1", null, null, null );
+    db = new Database( new LoggingObject( "H2MergeStagingTableTest" ), new Variables(), databaseMeta );
+    db.connect();
+    db.execStatement( "DROP TABLE IF EXISTS " + TABLE );
+    db.execStatement( "CREATE TABLE " + TABLE + " ( ID BIGINT, NAME VARCHAR(20) )" );
+    db.execStatement( "INSERT INTO " + TABLE + " VALUES ( 1, 'one' )" );
+    db.execStatement( "INSERT INTO " + TABLE + " VALUES ( 2, 'two' )" );
+    db.commit( true );
+
+    stagingRowMeta = new RowMeta();
+    stagingRowMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    stagingRowMeta.addValueMeta( new ValueMetaString( "NAME", 20, -1 ) );
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    db.execStatement( "DROP TABLE IF EXISTS " + TABLE );
+    db.commit( true );
+    db.disconnect();
+  }
+
+  /**
+   * Updates existing rows and inserts new ones. The last row with a key wins, rows with a null key are all inserted.
+   */
+  @Test
+  public void testMergeInsertsAndUpdates() throws Exception {
+    MergeStagingTable stagingTable = createStagingTable( new String[] { "ID", "NAME" } );
+    stagingTable.open();
+    assertTrue( stagingTable.isCreated() );
+
+    stagingTable.addRow( new Object[] { 2L, "second" } );
+    stagingTable.addRow( new Object[] { 3L, "three" } );
+    stagingTable.addRow( new Object[] { 2L, "deux" } );
+    stagingTable.addRow( new Object[] { null, "null 1" } );
+    stagingTable.addRow( new Object[] { 3L, "trois" } );
+    stagingTable.addRow( new Object[] { null, "null 2" } );
+    assertEquals( 4, stagingTable.size() );
+
+    Result result = stagingTable.merge();
+    db.commit( true );
+
+    // A single MERGE statement reports every staged row
+    //
+    assertEquals( 4, result.getNrLinesOutput() );
+    assertEquals( 0, stagingTable.size() );
+    assertEquals( "1=one, 2=deux, 3=trois, null=null 1, null=null 2", getRows() );
+    assertEquals( 0L, countRows( STAGING_TABLE ) );
+
+    stagingTable.close();
+    assertFalse( db.checkTableExists( null, STAGING_TABLE ) );
+  }
+
+  /**
+   * Without insert columns only existing rows change: rows with a null key never match one.
+   */
+  @Test
+  public void testMergeUpdatesOnly() throws Exception {
+    MergeStagingTable stagingTable = createStagingTable( new String[ 0 ] );
+    stagingTable.open();
+
+    stagingTable.addRow( new Object[] { 1L, "first" } );
+    stagingTable.addRow( new Object[] { 1L, "un" } );
+    stagingTable.addRow( new Object[] { 4L, "four" } );
+    stagingTable.addRow( new Object[] { null, "null" } );
+
+    Result result = stagingTable.merge();
+    db.commit( true );
+
+    assertEquals( 1, result.getNrLinesUpdated() );
+    assertEquals( "1=un, 2=two", getRows() );
+
+    // The staging table can be used again for the next set of rows
+    //
+    stagingTable.addRow( new Object[] { 2L, "deux" } );
+    result = stagingTable.merge();
+    db.commit( true );
+
+    assertEquals( 1, result.getNrLinesUpdated() );
+    assertEquals( "1=un, 2=deux", getRows() );
+
+    stagingTable.close();
+    assertFalse( db.checkTableExists( null, STAGING_TABLE ) );
+  }
+
+  /**
+   * An existing staging table is emptied and kept.
+   */
+  @Test
+  public void testExistingStagingTable() throws Exception {
+    db.execStatement( "CREATE TABLE " + STAGING_TABLE + " ( ID BIGINT, NAME VARCHAR(20) )" );
+    db.execStatement( "INSERT INTO " + STAGING_TABLE + " VALUES ( 1, 'leftover' )" );
+    db.commit( true );
+
+    MergeStagingTable stagingTable = createStagingTable( new String[] { "ID", "NAME" } );
+    stagingTable.open();
+    assertFalse( stagingTable.isCreated() );
+    assertEquals( 0L, countRows( STAGING_TABLE ) );
+
+    stagingTable.addRow( new Object[] { 5L, "five" } );
+    stagingTable.merge();
+    db.commit( true );
+    stagingTable.close();
+
+    assertEquals( "1=one, 2=two, 5=five", getRows() );
+    assertTrue( db.checkTableExists( null, STAGING_TABLE ) );
+    db.execStatement( "DROP TABLE " + STAGING_TABLE );
+    db.commit( true );
+  }
+
+  @Test
+  public void testDefaultStagingTableName() {
+    String name = MergeStagingTable.getDefaultStagingTableName( TABLE, "4f0c2b1e-93aa-4c1d-8f5e-0a1b2c3d4e5f" );
+    assertEquals( "TARGET_STG_4F0C2B1E", name );
+
+    // Without a usable run id every run still gets a table of its own
+    //
+    String random = MergeStagingTable.getDefaultStagingTableName( TABLE, null );
+    assertTrue( random.startsWith( "TARGET_STG_" ) );
+    assertEquals( name.length(), random.length() );
+    assertNotEquals( random, MergeStagingTable.getDefaultStagingTableName( TABLE, null ) );
+  }
+
+  private MergeStagingTable createStagingTable( String[] insertFields ) {
+    return new MergeStagingTable( db, null, TABLE, STAGING_TABLE, stagingRowMeta, 1, new String[] { "NAME" },
+      insertFields );
+  }
+
+  /**
+   * @return The rows of the target table as id=name, sorted on the id with the null ids last
+   */
+  private String getRows() throws Exception {
+    List<String> rows = new ArrayList<>();
+    for ( Object[] row : db.getRows( "SELECT ID, NAME FROM " + TABLE + " ORDER BY ID NULLS LAST, NAME", 0 ) ) {
+      rows.add( row[ 0 ] + "=" + row[ 1 ] );
+    }
+    return String.join( ", ", rows );
+  }
+
+  private long countRows( String table ) throws Exception {
+    return db.getOneRow( "SELECT COUNT(*) FROM " + table ).getInteger( 0, -1L );
+  }
+}
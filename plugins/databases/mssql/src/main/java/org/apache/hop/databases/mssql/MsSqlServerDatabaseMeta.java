@@ -575,4 +575,16 @@ public class MsSqlServerDatabaseMeta extends BaseDatabaseMeta implements IDataba
         return "";
     }
 
+    /**
+     * Merges in a single MERGE statement, which SQL Server wants terminated with a semicolon.
+     */
+    @Override
+    public String[] getSqlMergeFromTable(String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                         String[] updateFields, String[] insertFields) {
+        if (updateFields.length == 0 && insertFields.length == 0) {
+            return new String[0];
+        }
+        return new String[] {
+            getSqlMergeStatement(schemaTable, sourceSchemaTable, keyFields, updateFields, insertFields) + ";"};
+    }
 }
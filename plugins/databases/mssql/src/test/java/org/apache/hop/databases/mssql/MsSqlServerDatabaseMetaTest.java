@@ -317,4 +317,16 @@ public class MsSqlServerDatabaseMetaTest {
         .databaseForBothDbInterfacesIsTheSame( mssqlServerDatabaseMeta, mssqlServerNativeDatabaseMetaChild ) );
   }*/
 
+  @Test
+  public void testSqlMergeFromTable() {
+    String[] keys = { "ID" };
+    assertArrayEquals( new String[] {
+      "MERGE INTO FOO t USING FOO_STG s ON ( t.ID = s.ID ) WHEN MATCHED THEN UPDATE SET A = s.A, B = s.B "
+        + "WHEN NOT MATCHED THEN INSERT ( ID, A, B ) VALUES ( s.ID, s.A, s.B );" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[] { "A", "B" }, new String[] { "ID", "A", "B" } ) );
+    assertArrayEquals( new String[] { "MERGE INTO FOO t USING FOO_STG s ON ( t.ID = s.ID ) WHEN MATCHED THEN UPDATE SET A = s.A;" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[] { "A" }, new String[ 0 ] ) );
+    assertArrayEquals( new String[ 0 ],
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[ 0 ], new String[ 0 ] ) );
+  }
 }
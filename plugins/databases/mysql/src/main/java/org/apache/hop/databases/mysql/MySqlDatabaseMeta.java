@@ -577,4 +577,29 @@ public class MySqlDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
         return names;
     }
 
+    /**
+     * MySQL has no MERGE statement: update with a multi-table UPDATE and insert the rest.
+     */
+    @Override
+    public String[] getSqlMergeFromTable(String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                         String[] updateFields, String[] insertFields) {
+        List<String> statements = new ArrayList<>();
+        if (updateFields.length > 0) {
+            StringBuilder sql = new StringBuilder("UPDATE ").append(schemaTable).append(" t JOIN ")
+                    .append(sourceSchemaTable).append(" s ON ").append(getSqlMergeKeyCondition(keyFields, "t", "s"))
+                    .append(" SET ");
+            for (int i = 0; i < updateFields.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append("t.").append(updateFields[i]).append(" = s.").append(updateFields[i]);
+            }
+            statements.add(sql.toString());
+        }
+        if (insertFields.length > 0) {
+            statements.add(getSqlMergeInsertMissing(schemaTable, sourceSchemaTable, keyFields, insertFields));
+        }
+        return statements.toArray(new String[0]);
+    }
+
 }
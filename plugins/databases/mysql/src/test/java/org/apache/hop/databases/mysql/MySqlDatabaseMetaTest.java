@@ -470,4 +470,14 @@ public class MySqlDatabaseMetaTest {
     assertEquals( IValueMeta.TYPE_BINARY, valueMeta.getType() );
   }
 
+  @Test
+  public void testSqlMergeFromTable() {
+    String[] keys = { "ID" };
+    assertArrayEquals( new String[] {
+      "UPDATE FOO t JOIN FOO_STG s ON t.ID = s.ID SET t.A = s.A, t.B = s.B",
+      "INSERT INTO FOO ( ID, A, B ) SELECT s.ID, s.A, s.B FROM FOO_STG s WHERE NOT EXISTS ( SELECT 1 FROM FOO t WHERE t.ID = s.ID )" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[] { "A", "B" }, new String[] { "ID", "A", "B" } ) );
+    assertArrayEquals( new String[] { "INSERT INTO FOO ( ID, A, B ) SELECT s.ID, s.A, s.B FROM FOO_STG s WHERE NOT EXISTS ( SELECT 1 FROM FOO t WHERE t.ID = s.ID )" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[ 0 ], new String[] { "ID", "A", "B" } ) );
+  }
 }
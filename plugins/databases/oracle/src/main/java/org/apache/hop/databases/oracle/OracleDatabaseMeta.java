@@ -648,4 +648,16 @@ public class OracleDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
     public String getEndQuote() {
         return "";
     }
+
+    /**
+     * Merges in a single MERGE statement.
+     */
+    @Override
+    public String[] getSqlMergeFromTable(String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                         String[] updateFields, String[] insertFields) {
+        if (updateFields.length == 0 && insertFields.length == 0) {
+            return new String[0];
+        }
+        return new String[] {getSqlMergeStatement(schemaTable, sourceSchemaTable, keyFields, updateFields, insertFields)};
+    }
 }
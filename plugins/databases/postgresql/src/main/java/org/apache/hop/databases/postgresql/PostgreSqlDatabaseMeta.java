@@ -25,6 +25,9 @@ import org.apache.hop.core.database.DatabaseMetaPlugin;
 import org.apache.hop.core.gui.plugin.GuiPlugin;
 import org.apache.hop.core.row.IValueMeta;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Contains PostgreSQL specific information through static final members
  *
@@ -533,4 +536,30 @@ public class PostgreSqlDatabaseMeta extends BaseDatabaseMeta implements IDatabas
   public int getMaxTextFieldLength() {
     return GB_LIMIT;
   }
+
+  /**
+   * Updates with UPDATE ... FROM and inserts the rest. INSERT ... ON CONFLICT is not used since it needs a unique index
+   * on the key columns.
+   */
+  @Override
+  public String[] getSqlMergeFromTable( String schemaTable, String sourceSchemaTable, String[] keyFields,
+                                        String[] updateFields, String[] insertFields ) {
+    List<String> statements = new ArrayList<>();
+    if ( updateFields.length > 0 ) {
+      StringBuilder sql = new StringBuilder( "UPDATE " ).append( schemaTable ).append( " t SET " );
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( updateFields[ i ] ).append( " = s." ).append( updateFields[ i ] );
+      }
+      sql.append( " FROM " ).append( sourceSchemaTable ).append( " s WHERE " )
+        .append( getSqlMergeKeyCondition( keyFields, "t", "s" ) );
+      statements.add( sql.toString() );
+    }
+    if ( insertFields.length > 0 ) {
+      statements.add( getSqlMergeInsertMissing( schemaTable, sourceSchemaTable, keyFields, insertFields ) );
+    }
+    return statements.toArray( new String[ 0 ] );
+  }
 }
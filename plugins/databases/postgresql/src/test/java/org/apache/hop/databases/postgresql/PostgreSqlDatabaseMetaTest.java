@@ -225,4 +225,14 @@ public class PostgreSqlDatabaseMetaTest {
     assertNull( nativeMeta.getSqlUnlockTables( new String[] { "FOO" } ) );
   }
 
+  @Test
+  public void testSqlMergeFromTable() {
+    String[] keys = { "ID" };
+    assertArrayEquals( new String[] {
+      "UPDATE FOO t SET A = s.A, B = s.B FROM FOO_STG s WHERE t.ID = s.ID",
+      "INSERT INTO FOO ( ID, A, B ) SELECT s.ID, s.A, s.B FROM FOO_STG s WHERE NOT EXISTS ( SELECT 1 FROM FOO t WHERE t.ID = s.ID )" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[] { "A", "B" }, new String[] { "ID", "A", "B" } ) );
+    assertArrayEquals( new String[] { "UPDATE FOO t SET A = s.A FROM FOO_STG s WHERE t.ID = s.ID" },
+      nativeMeta.getSqlMergeFromTable( "FOO", "FOO_STG", keys, new String[] { "A" }, new String[ 0 ] ) );
+  }
 }
@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.coder;
+
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.util.VarInt;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A compact coder for rows of which the layout is known when the Beam pipeline is built.
+ * <p>
+ * Since the data types come from the row metadata only the values themselves are written: a bitmap flags the null
+ * values, integers and dates are written as zig-zag variable length integers, strings as UTF-8 bytes. Rows which don't
+ * fit the layout, for example because a transform put a Timestamp in a Date field, are written with a type tag in
+ * front of every value so they still survive the trip.
+ * <p>
+ * The layout is kept as an array of data types to keep the coder small and serializable.
+ */
+public class HopRowSchemaCoder extends CustomCoder<HopRow> {
+
+  private static final int ROW_NULL = 0;
+  private static final int ROW_SCHEMA = 1;
+  private static final int ROW_TAGGED = 2;
+
+  private final int[] types;
+
+  public HopRowSchemaCoder( int[] types ) {
+    this.types = types;
+  }
+
+  /**
+   * @param rowMeta The layout of the rows to encode
+   * @return A coder for rows with the given layout
+   */
+  public static HopRowSchemaCoder of( IRowMeta rowMeta ) {
+    int[] types = new int[ rowMeta.size() ];
+    for ( int i = 0; i < types.length; i++ ) {
+      types[ i ] = rowMeta.getValueMeta( i ).getType();
+    }
+    return new HopRowSchemaCoder( types );
+  }
+
+  @Override public void encode( HopRow value, OutputStream out ) throws CoderException, IOException {
+    Object[] row = value.getRow();
+    if ( row == null ) {
+      out.write( ROW_NULL );
+      return;
+    }
+
+    boolean tagged = !fitsSchema( row );
+    out.write( tagged ? ROW_TAGGED : ROW_SCHEMA );
+    VarInt.encode( row.length, out );
+
+    // The null bitmap
+    //
+    byte[] nulls = new byte[ ( row.length + 7 ) >>> 3 ];
+    for ( int i = 0; i < row.length; i++ ) {
+      if ( row[ i ] == null ) {
+        nulls[ i >>> 3 ] |= 1 << ( i & 7 );
+      }
+    }
+    out.write( nulls );
+
+    // The values
+    //
+    for ( int i = 0; i < row.length; i++ ) {
+      Object object = row[ i ];
+      if ( object == null ) {
+        continue;
+      }
+      int type;
+      if ( tagged ) {
+        type = getObjectType( object );
+        out.write( type );
+      } else {
+        type = types[ i ];
+      }
+      write( out, type, object );
+    }
+  }
+
+  @Override public HopRow decode( InputStream in ) throws CoderException, IOException {
+    int kind = in.read();
+    if ( kind < 0 ) {
+      throw new EOFException( "Unexpected end of stream reading a row" );
+    }
+    if ( kind == ROW_NULL ) {
+      return new HopRow( null );
+    }
+    boolean tagged = kind == ROW_TAGGED;
+
+    int length = VarInt.decodeInt( in );
+    byte[] nulls = new byte[ ( length + 7 ) >>> 3 ];
+    readFully( in, nulls );
+
+    Object[] row = new Object[ length ];
+    for ( int i = 0; i < length; i++ ) {
+      if ( ( nulls[ i >>> 3 ] & ( 1 << ( i & 7 ) ) ) != 0 ) {
+        continue;
+      }
+      int type = tagged ? in.read() : types[ i ];
+      row[ i ] = read( in, type );
+    }
+    return new HopRow( row );
+  }
+
+  @Override public void verifyDeterministic() throws NonDeterministicException {
+    // Equal rows are always written the same way
+  }
+
+  @Override public boolean equals( Object other ) {
+    return other instanceof HopRowSchemaCoder && Arrays.equals( types, ( (HopRowSchemaCoder) other ).types );
+  }
+
+  @Override public int hashCode() {
+    return Arrays.hashCode( types );
+  }
+
+  /**
+   * @return true if all values in the row have the class the row layout expects
+   */
+  private boolean fitsSchema( Object[] row ) {
+    for ( int i = 0; i < row.length; i++ ) {
+      Object object = row[ i ];
+      if ( object == null ) {
+        continue;
+      }
+      if ( i >= types.length ) {
+        return false;
+      }
+      boolean fits;
+      switch ( types[ i ] ) {
+        case IValueMeta.TYPE_STRING:
+          fits = object instanceof String;
+          break;
+        case IValueMeta.TYPE_INTEGER:
+          fits = object instanceof Long;
+          break;
+        case IValueMeta.TYPE_NUMBER:
+          fits = object instanceof Double;
+          break;
+        case IValueMeta.TYPE_DATE:
+          // A Timestamp would lose its nanoseconds
+          fits = object.getClass() == Date.class;
+          break;
+        case IValueMeta.TYPE_TIMESTAMP:
+          fits = object instanceof Timestamp;
+          break;
+        case IValueMeta.TYPE_BOOLEAN:
+          fits = object instanceof Boolean;
+          break;
+        case IValueMeta.TYPE_BIGNUMBER:
+          fits = object instanceof BigDecimal;
+          break;
+        case IValueMeta.TYPE_BINARY:
+          fits = object instanceof byte[];
+          break;
+        default:
+          fits = false;
+          break;
+      }
+      if ( !fits ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void write( OutputStream out, int type, Object object ) throws IOException {
+    switch ( type ) {
+      case IValueMeta.TYPE_STRING:
+        writeBytes( out, ( (String) object ).getBytes( StandardCharsets.UTF_8 ) );
+        break;
+      case IValueMeta.TYPE_INTEGER:
+        writeZigZag( out, (Long) object );
+        break;
+      case IValueMeta.TYPE_NUMBER:
+        writeFixedLong( out, Double.doubleToLongBits( (Double) object ) );
+        break;
+      case IValueMeta.TYPE_DATE:
+        writeZigZag( out, ( (Date) object ).getTime() );
+        break;
+      case IValueMeta.TYPE_TIMESTAMP:
+        Timestamp timestamp = (Timestamp) object;
+        writeZigZag( out, timestamp.getTime() );
+        VarInt.encode( timestamp.getNanos(), out );
+        break;
+      case IValueMeta.TYPE_BOOLEAN:
+        out.write( (Boolean) object ? 1 : 0 );
+        break;
+      case IValueMeta.TYPE_BIGNUMBER:
+        BigDecimal bigDecimal = (BigDecimal) object;
+        writeZigZag( out, bigDecimal.scale() );
+        writeBytes( out, bigDecimal.unscaledValue().toByteArray() );
+        break;
+      case IValueMeta.TYPE_BINARY:
+        writeBytes( out, (byte[]) object );
+        break;
+      default:
+        throw new CoderException( "Data type not supported yet: " + type + " - " + object.toString() );
+    }
+  }
+
+  private static Object read( InputStream in, int type ) throws IOException {
+    switch ( type ) {
+      case IValueMeta.TYPE_STRING:
+        return new String( readBytes( in ), StandardCharsets.UTF_8 );
+      case IValueMeta.TYPE_INTEGER:
+        return readZigZag( in );
+      case IValueMeta.TYPE_NUMBER:
+        return Double.longBitsToDouble( readFixedLong( in ) );
+      case IValueMeta.TYPE_DATE:
+        return new Date( readZigZag( in ) );
+      case IValueMeta.TYPE_TIMESTAMP:
+        Timestamp timestamp = new Timestamp( readZigZag( in ) );
+        timestamp.setNanos( VarInt.decodeInt( in ) );
+        return timestamp;
+      case IValueMeta.TYPE_BOOLEAN:
+        int b = in.read();
+        if ( b < 0 ) {
+          throw new EOFException( "Unexpected end of stream reading a boolean" );
+        }
+        return b != 0;
+      case IValueMeta.TYPE_BIGNUMBER:
+        int scale = (int) readZigZag( in );
+        return new BigDecimal( new BigInteger( readBytes( in ) ), scale );
+      case IValueMeta.TYPE_BINARY:
+        return readBytes( in );
+      default:
+        throw new CoderException( "Data type not supported yet: " + type );
+    }
+  }
+
+  private static int getObjectType( Object object ) throws CoderException {
+    if ( object instanceof String ) {
+      return IValueMeta.TYPE_STRING;
+    }
+    if ( object instanceof Long ) {
+      return IValueMeta.TYPE_INTEGER;
+    }
+    if ( object instanceof Timestamp ) {
+      return IValueMeta.TYPE_TIMESTAMP;
+    }
+    if ( object instanceof Date ) {
+      return IValueMeta.TYPE_DATE;
+    }
+    if ( object instanceof Boolean ) {
+      return IValueMeta.TYPE_BOOLEAN;
+    }
+    if ( object instanceof Double ) {
+      return IValueMeta.TYPE_NUMBER;
+    }
+    if ( object instanceof BigDecimal ) {
+      return IValueMeta.TYPE_BIGNUMBER;
+    }
+    if ( object instanceof byte[] ) {
+      return IValueMeta.TYPE_BINARY;
+    }
+    throw new CoderException( "Data type for object class " + object.getClass().getName() + " isn't supported yet" );
+  }
+
+  private static void writeZigZag( OutputStream out, long value ) throws IOException {
+    VarInt.encode( ( value << 1 ) ^ ( value >> 63 ), out );
+  }
+
+  private static long readZigZag( InputStream in ) throws IOException {
+    long value = VarInt.decodeLong( in );
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+
+  private static void writeFixedLong( OutputStream out, long value ) throws IOException {
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      out.write( (int) ( value >>> shift ) );
+    }
+  }
+
+  private static long readFixedLong( InputStream in ) throws IOException {
+    byte[] bytes = new byte[ 8 ];
+    readFully( in, bytes );
+    long value = 0;
+    for ( int i = 0; i < 8; i++ ) {
+      value = ( value << 8 ) | ( bytes[ i ] & 0xffL );
+    }
+    return value;
+  }
+
+  private static void writeBytes( OutputStream out, byte[] bytes ) throws IOException {
+    VarInt.encode( bytes.length, out );
+    out.write( bytes );
+  }
+
+  private static byte[] readBytes( InputStream in ) throws IOException {
+    byte[] bytes = new byte[ VarInt.decodeInt( in ) ];
+    readFully( in, bytes );
+    return bytes;
+  }
+
+  private static void readFully( InputStream in, byte[] bytes ) throws IOException {
+    int offset = 0;
+    while ( offset < bytes.length ) {
+      int read = in.read( bytes, offset, bytes.length - offset );
+      if ( read < 0 ) {
+        throw new EOFException( "Unexpected end of stream reading a row" );
+      }
+      offset += read;
+    }
+  }
+
+  /**
+   * Gets types
+   *
+   * @return value of types
+   */
+  public int[] getTypes() {
+    return types;
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hop.beam.core.HopRow;
 import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopRowSchemaCoder;
 import org.apache.hop.beam.core.util.HopBeamUtil;
 import org.apache.hop.beam.engines.IBeamPipelineEngineRunConfiguration;
 import org.apache.hop.beam.metadata.RunnerType;
@@ -76,6 +77,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -256,7 +258,26 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
     List<TransformMeta> beamInputTransformMetas = findBeamInputs();
     for ( TransformMeta transformMeta : beamInputTransformMetas ) {
       IBeamTransformHandler transformHandler = transformHandlers.get( transformMeta.getTransformPluginId() );
+      Set<String> existingCollections = new HashSet<>( transformCollectionMap.keySet() );
       transformHandler.handleTransform( log, transformMeta, transformCollectionMap, pipeline, pipelineMeta.getTransformFields( variables, transformMeta ), null, null );
+      setRowCoders( transformMeta, transformCollectionMap, existingCollections );
+    }
+  }
+
+  /**
+   * The layout of the rows coming out of a transform is known at this point.  Give the collections a transform added
+   * a coder which uses that layout instead of describing every value in every row.
+   */
+  private void setRowCoders( TransformMeta transformMeta, Map<String, PCollection<HopRow>> transformCollectionMap, Set<String> existingCollections ) throws HopException {
+    HopRowSchemaCoder coder = null;
+    for ( Map.Entry<String, PCollection<HopRow>> entry : transformCollectionMap.entrySet() ) {
+      if ( existingCollections.contains( entry.getKey() ) ) {
+        continue;
+      }
+      if ( coder == null ) {
+        coder = HopRowSchemaCoder.of( pipelineMeta.getTransformFields( variables, transformMeta ) );
+      }
+      entry.getValue().setCoder( coder );
     }
   }
 
@@ -374,6 +395,7 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
           }
         }
 
+        Set<String> existingCollections = new HashSet<>( transformCollectionMap.keySet() );
         if ( transformHandler != null ) {
 
           transformHandler.handleTransform( log, transformMeta, transformCollectionMap, pipeline, rowMeta, previousTransforms, input );
@@ -383,6 +405,7 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
           genericTransformHandler.handleTransform( log, transformMeta, transformCollectionMap, pipeline, rowMeta, previousTransforms, input );
 
         }
+        setRowCoders( transformMeta, transformCollectionMap, existingCollections );
       }
     }
 
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.benchmark;
+
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopRowSchemaCoder;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per row cost of the generic {@link HopRowCoder}, which describes the type of every value, with the
+ * {@link HopRowSchemaCoder} which takes the types from the row layout. The encoded size of a row is reported as the
+ * "rowBytes" counter so that the number of shuffled bytes can be compared as well.
+ * <p>
+ * Run it with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.hop.beam.benchmark.HopRowCoderBenchmark</code>
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class HopRowCoderBenchmark {
+
+  @Param( { "generic", "schema" } )
+  public String coderType;
+
+  private Coder<HopRow> coder;
+  private HopRow row;
+  private byte[] encoded;
+  private ByteArrayOutputStream outputStream;
+
+  /**
+   * The size of the encoded row
+   */
+  @State( Scope.Thread )
+  @AuxCounters( AuxCounters.Type.EVENTS )
+  public static class EncodedSize {
+    public long rowBytes;
+
+    @Setup( Level.Iteration )
+    public void setUp( HopRowCoderBenchmark benchmark ) {
+      rowBytes = benchmark.encoded.length;
+    }
+  }
+
+  @Setup( Level.Trial )
+  public void setUp() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "customer" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "country" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "quantity" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "orderDate" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "comment" ) );
+
+    row = new HopRow( new Object[] { "Customer 12345", "BE", 12345L, 3L, 99.95, new Date( 1600000000000L ), null } );
+
+    if ( "schema".equals( coderType ) ) {
+      coder = HopRowSchemaCoder.of( rowMeta );
+    } else {
+      coder = new HopRowCoder();
+    }
+
+    outputStream = new ByteArrayOutputStream( 1024 );
+    coder.encode( row, outputStream );
+    encoded = outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public int encode( EncodedSize encodedSize ) throws Exception {
+    outputStream.reset();
+    coder.encode( row, outputStream );
+    return outputStream.size();
+  }
+
+  @Benchmark
+  public HopRow decode( EncodedSize encodedSize ) throws Exception {
+    return coder.decode( new ByteArrayInputStream( encoded ) );
+  }
+
+  public static void main( String[] args ) throws Exception {
+    new Runner( new OptionsBuilder().include( HopRowCoderBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.coder;
+
+import junit.framework.TestCase;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+public class HopRowSchemaCoderTest extends TestCase {
+
+  private HopRowSchemaCoder coder;
+
+  @Override protected void setUp() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "timestamp" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    coder = HopRowSchemaCoder.of( rowMeta );
+  }
+
+  @Test
+  public void testEncodeDecode() throws IOException {
+    Timestamp timestamp = new Timestamp( 876876868L );
+    timestamp.setNanos( 123456789 );
+    HopRow row = new HopRow( new Object[] { "AAA\u00e9", -100L, 1.234, new Date( 876876868 ), timestamp, true,
+      new BigDecimal( "-12345678901234567890.123" ), new byte[] { 1, 2, 3 } } );
+
+    HopRow decoded = roundTrip( row );
+    Object[] expected = row.getRow();
+    Object[] actual = decoded.getRow();
+    assertEquals( expected.length, actual.length );
+    for ( int i = 0; i < expected.length - 1; i++ ) {
+      assertEquals( expected[ i ], actual[ i ] );
+    }
+    assertTrue( Arrays.equals( (byte[]) expected[ 7 ], (byte[]) actual[ 7 ] ) );
+  }
+
+  @Test
+  public void testNulls() throws IOException {
+    HopRow row = new HopRow( new Object[] { null, 5L, null, null, null, false, null, null } );
+    assertEquals( row, roundTrip( row ) );
+
+    HopRow nullRow = new HopRow( null );
+    assertEquals( nullRow, roundTrip( nullRow ) );
+  }
+
+  @Test
+  public void testRowNotMatchingLayout() throws IOException {
+    // A timestamp in a date field, a string in an integer field and values beyond the layout
+    //
+    HopRow row = new HopRow( new Object[] { "A", "not a number", 1.0, new Timestamp( 1000L ), null, null, null, null,
+      42L, null } );
+    HopRow decoded = roundTrip( row );
+    assertEquals( row, decoded );
+    assertTrue( decoded.getRow()[ 3 ] instanceof Timestamp );
+  }
+
+  @Test
+  public void testCompact() throws IOException {
+    HopRow row = new HopRow( new Object[] { "AAA", 100L, null, null, null, true, null, null } );
+    ByteArrayOutputStream schemaBytes = new ByteArrayOutputStream();
+    coder.encode( row, schemaBytes );
+    ByteArrayOutputStream legacyBytes = new ByteArrayOutputStream();
+    new HopRowCoder().encode( row, legacyBytes );
+
+    assertTrue( schemaBytes.size() < legacyBytes.size() / 2 );
+  }
+
+  @Test
+  public void testSeveralRowsInOneStream() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    HopRow row1 = new HopRow( new Object[] { "A", 1L, null, null, null, null, null, null } );
+    HopRow row2 = new HopRow( new Object[] { "B", Long.MIN_VALUE, -0.5, null, null, null, null, null } );
+    coder.encode( row1, outputStream );
+    coder.encode( row2, outputStream );
+
+    ByteArrayInputStream inputStream = new ByteArrayInputStream( outputStream.toByteArray() );
+    assertEquals( row1, coder.decode( inputStream ) );
+    assertEquals( row2, coder.decode( inputStream ) );
+    assertEquals( -1, inputStream.read() );
+  }
+
+  private HopRow roundTrip( HopRow row ) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    coder.encode( row, outputStream );
+    return coder.decode( new ByteArrayInputStream( outputStream.toByteArray() ) );
+  }
+}
@@ -61,9 +61,10 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> im
 
   @Override
   public boolean processRow() throws HopException {
+    long linesBefore = getLinesRead();
 
-    Object[] r = getRow(); // get row, set busy!
-    if ( r == null ) { // no more input to be expected...
+    Object[][] rows = getRows(); // get a batch of rows, set busy!
+    if ( rows == null ) { // no more input to be expected...
       setOutputDone();
       data.clearValuesMetaMapping();
       return false;
@@ -145,29 +146,45 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> im
       }
     }
 
-    if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
-        + getLinesRead() + " : " + getInputRowMeta().getString( r ) );
-    }
-
+    // The calculated rows replace the input rows in the batch
+    //
+    int outputCount = 0;
     try {
-      Object[] row = calcFields( getInputRowMeta(), r );
-      putRow( data.getOutputRowMeta(), row ); // copy row to possible alternate rowset(s).
+      for ( int i = 0; i < rows.length; i++ ) {
+        Object[] r = rows[ i ];
+        if ( log.isRowLevel() ) {
+          logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
+            + ( linesBefore + i + 1 ) + " : " + getInputRowMeta().getString( r ) );
+        }
+
+        Object[] row;
+        try {
+          row = calcFields( getInputRowMeta(), r );
+        } catch ( HopFileNotFoundException e ) {
+          if ( meta.isFailIfNoFile() ) {
+            logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
+            setErrors( getErrors() + 1 );
+            putRows( data.getOutputRowMeta(), rows, outputCount );
+            return false;
+          }
+          continue;
+        }
+        rows[ outputCount++ ] = row;
+      }
+
+      putRows( data.getOutputRowMeta(), rows, outputCount ); // copy rows to possible alternate rowset(s).
 
       if ( log.isRowLevel() ) {
-        logRowlevel( "Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString( r ) );
+        for ( int i = 0; i < outputCount; i++ ) {
+          logRowlevel( "Wrote row #" + ( getLinesWritten() - outputCount + i + 1 ) + " : "
+            + data.getOutputRowMeta().getString( rows[ i ] ) );
+        }
       }
-      if ( checkFeedback( getLinesRead() ) ) {
+      if ( checkFeedback( linesBefore, getLinesRead() ) ) {
         if ( log.isBasic() ) {
           logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
         }
       }
-    } catch ( HopFileNotFoundException e ) {
-      if ( meta.isFailIfNoFile() ) {
-        logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
-        setErrors( getErrors() + 1 );
-        return false;
-      }
     } catch ( HopException e ) {
       logError( BaseMessages.getString( PKG, "Calculator.ErrorInTransformRunning" + " : " + e.getMessage() ) );
       throw new HopTransformException( BaseMessages.getString( PKG, "Calculator.ErrorInTransformRunning" ), e );
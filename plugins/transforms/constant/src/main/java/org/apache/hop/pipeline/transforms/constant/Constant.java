@@ -209,10 +209,10 @@ public class Constant extends BaseTransform<ConstantMeta, ConstantData> implemen
 
   @Override
   public boolean processRow() throws HopException {
-    Object[] r = null;
-    r = getRow();
+    long linesBefore = getLinesWritten();
 
-    if ( r == null ) { // no more rows to be expected from the previous transform(s)
+    Object[][] rows = getRows();
+    if ( rows == null ) { // no more rows to be expected from the previous transform(s)
       setOutputDone();
       return false;
     }
@@ -226,17 +226,23 @@ public class Constant extends BaseTransform<ConstantMeta, ConstantData> implemen
       meta.getFields( data.outputMeta, getTransformName(), null, null, this, metadataProvider );
     }
 
-    // Add the constant data to the end of the row.
-    r = RowDataUtil.addRowData( r, getInputRowMeta().size(), data.getConstants().getData() );
+    // Add the constant data to the end of the rows.
+    int inputSize = getInputRowMeta().size();
+    Object[] constants = data.getConstants().getData();
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ] = RowDataUtil.addRowData( rows[ i ], inputSize, constants );
+    }
 
-    putRow( data.outputMeta, r );
+    putRows( data.outputMeta, rows, rows.length );
 
     if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString(
-        PKG, "Constant.Log.Wrote.Row", Long.toString( getLinesWritten() ), getInputRowMeta().getString( r ) ) );
+      for ( int i = 0; i < rows.length; i++ ) {
+        logRowlevel( BaseMessages.getString( PKG, "Constant.Log.Wrote.Row", Long.toString( linesBefore + i + 1 ),
+          getInputRowMeta().getString( rows[ i ] ) ) );
+      }
     }
 
-    if ( checkFeedback( getLinesWritten() ) ) {
+    if ( checkFeedback( linesBefore, getLinesWritten() ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "Constant.Log.LineNr", Long.toString( getLinesWritten() ) ) );
       }
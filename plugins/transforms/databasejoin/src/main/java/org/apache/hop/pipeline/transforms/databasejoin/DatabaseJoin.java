@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.databasejoin;
 
+import org.apache.hop.core.Const;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
@@ -30,7 +31,14 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Use values from input streams to joins with values in a database. Freehand SQL can be used to do this.
@@ -42,42 +50,60 @@ public class DatabaseJoin extends BaseTransform<DatabaseJoinMeta, DatabaseJoinDa
 
   private static final Class<?> PKG = DatabaseJoinMeta.class; // For Translator
 
+  static final String BATCH_SET_COLUMN = "HOP_BATCH_SET";
+
+  /**
+   * The maximum number of bind parameters in a batch query
+   */
+  static final int MAX_BATCH_PARAMETERS = 2000;
+
+  private static final Pattern UNBATCHABLE_CLAUSES =
+    Pattern.compile( "\\b(ORDER\\s+BY|LIMIT|TOP|OFFSET|FETCH\\s+(FIRST|NEXT)|ROWNUM)\\b" );
+
   public DatabaseJoin( TransformMeta transformMeta, DatabaseJoinMeta meta, DatabaseJoinData data, int copyNr, PipelineMeta pipelineMeta, Pipeline pipeline ) {
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
   }
 
-  private synchronized void lookupValues( IRowMeta rowMeta, Object[] rowData ) throws HopException {
-    if ( first ) {
-      first = false;
-
-      data.outputRowMeta = rowMeta.clone();
-      meta.getFields(
-        data.outputRowMeta, getTransformName(), new IRowMeta[] { meta.getTableFields(this), }, null, this, metadataProvider );
+  private void initLookup( IRowMeta rowMeta, Object[] rowData ) throws HopException {
+    data.outputRowMeta = rowMeta.clone();
+    meta.getFields(
+      data.outputRowMeta, getTransformName(), new IRowMeta[] { meta.getTableFields(this), }, null, this, metadataProvider );
 
-      data.lookupRowMeta = new RowMeta();
+    data.lookupRowMeta = new RowMeta();
 
-      if ( log.isDetailed() ) {
-        logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.CheckingRow" ) + rowMeta.getString( rowData ) );
-      }
-
-      data.keynrs = new int[ meta.getParameterField().length ];
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.CheckingRow" ) + rowMeta.getString( rowData ) );
+    }
 
-      for ( int i = 0; i < meta.getParameterField().length; i++ ) {
-        data.keynrs[ i ] = rowMeta.indexOfValue( meta.getParameterField()[ i ] );
-        if ( data.keynrs[ i ] < 0 ) {
-          throw new HopTransformException( BaseMessages.getString( PKG, "DatabaseJoin.Exception.FieldNotFound", meta
-            .getParameterField()[ i ] ) );
-        }
+    data.keynrs = new int[ meta.getParameterField().length ];
 
-        data.lookupRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[ i ] ).clone() );
+    for ( int i = 0; i < meta.getParameterField().length; i++ ) {
+      data.keynrs[ i ] = rowMeta.indexOfValue( meta.getParameterField()[ i ] );
+      if ( data.keynrs[ i ] < 0 ) {
+        throw new HopTransformException( BaseMessages.getString( PKG, "DatabaseJoin.Exception.FieldNotFound", meta
+          .getParameterField()[ i ] ) );
       }
+
+      data.lookupRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[ i ] ).clone() );
     }
+  }
 
+  private Object[] getLookupRowData( Object[] rowData ) {
     // Construct the parameters row...
     Object[] lookupRowData = new Object[ data.lookupRowMeta.size() ];
     for ( int i = 0; i < data.keynrs.length; i++ ) {
       lookupRowData[ i ] = rowData[ data.keynrs[ i ] ];
     }
+    return lookupRowData;
+  }
+
+  private synchronized void lookupValues( IRowMeta rowMeta, Object[] rowData ) throws HopException {
+    if ( first ) {
+      first = false;
+      initLookup( rowMeta, rowData );
+    }
+
+    Object[] lookupRowData = getLookupRowData( rowData );
 
     // Set the values on the prepared statement (for faster exec.)
     ResultSet rs = data.db.openQuery( data.pstmt, data.lookupRowMeta, lookupRowData );
@@ -131,6 +157,236 @@ public class DatabaseJoin extends BaseTransform<DatabaseJoinMeta, DatabaseJoinDa
     data.db.closeQuery( rs );
   }
 
+  /**
+   * Look up a batch of input rows with a few queries. The query is repeated for every distinct set of parameter values,
+   * combined with UNION ALL. A leading column tells which set of parameters a returned row belongs to so the results
+   * can be passed on with the input rows in their original order.
+   */
+  private synchronized void lookupBatch( IRowMeta rowMeta, List<Object[]> rows ) throws HopException {
+    // Rows with the same parameter values are only looked up once
+    //
+    Map<List<Object>, Integer> keyIndexes = new HashMap<>();
+    List<Object[]> keys = new ArrayList<>();
+    int[] rowKeys = new int[ rows.size() ];
+    for ( int r = 0; r < rows.size(); r++ ) {
+      Object[] lookupRowData = getLookupRowData( rows.get( r ) );
+      List<Object> key = Arrays.asList( lookupRowData );
+      Integer index = keyIndexes.get( key );
+      if ( index == null ) {
+        index = keys.size();
+        keys.add( lookupRowData );
+        keyIndexes.put( key, index );
+      }
+      rowKeys[ r ] = index;
+    }
+
+    List<List<Object[]>> found = new ArrayList<>( keys.size() );
+    for ( int k = 0; k < keys.size(); k++ ) {
+      found.add( new ArrayList<>() );
+    }
+
+    // Only prepare statements for a limited number of sizes: the sets are queried in chunks of a power of 2
+    //
+    int firstSet = 0;
+    while ( firstSet < keys.size() ) {
+      int nrSets = getBatchChunkSize( keys.size() - firstSet, data.batchSize );
+      lookupChunk( keys, firstSet, nrSets, found );
+      firstSet += nrSets;
+    }
+    data.batchQueried = true;
+
+    // Pass the input rows on in the order in which they arrived
+    //
+    int nrLookupValues = data.outputRowMeta.size() - rowMeta.size();
+    for ( int r = 0; r < rows.size(); r++ ) {
+      Object[] rowData = rows.get( r );
+      int counter = 0;
+      for ( Object[] add : found.get( rowKeys[ r ] ) ) {
+        if ( meta.getRowLimit() > 0 && counter >= meta.getRowLimit() ) {
+          break;
+        }
+        counter++;
+
+        Object[] newRow = RowDataUtil.resizeArray( rowData, data.outputRowMeta.size() );
+        System.arraycopy( add, 1, newRow, rowMeta.size(), Math.min( nrLookupValues, add.length - 1 ) );
+        // we have to clone, otherwise we only get the last new value
+        putRow( data.outputRowMeta, data.outputRowMeta.cloneRow( newRow ) );
+
+        if ( log.isRowLevel() ) {
+          logRowlevel( BaseMessages.getString( PKG, "DatabaseJoin.Log.PutoutRow" )
+            + data.outputRowMeta.getString( newRow ) );
+        }
+      }
+
+      // Nothing found? Perhaps we have to put something out after all?
+      if ( counter == 0 && meta.isOuterJoin() ) {
+        Object[] newRow = RowDataUtil.resizeArray( rowData, data.outputRowMeta.size() );
+        Arrays.fill( newRow, rowMeta.size(), data.outputRowMeta.size(), null );
+        putRow( data.outputRowMeta, newRow );
+      }
+    }
+  }
+
+  /**
+   * Query the parameter sets firstSet to firstSet+nrSets-1 and add the returned rows to the rows found for their set.
+   */
+  private void lookupChunk( List<Object[]> keys, int firstSet, int nrSets, List<List<Object[]>> found )
+    throws HopException {
+    IRowMeta parametersMeta = new RowMeta();
+    Object[] parametersData = new Object[ nrSets * data.lookupRowMeta.size() ];
+    for ( int k = 0; k < nrSets; k++ ) {
+      Object[] lookupRowData = keys.get( firstSet + k );
+      for ( int i = 0; i < data.lookupRowMeta.size(); i++ ) {
+        parametersMeta.addValueMeta( data.lookupRowMeta.getValueMeta( i ).clone() );
+        parametersData[ k * data.lookupRowMeta.size() + i ] = lookupRowData[ i ];
+      }
+    }
+
+    PreparedStatement pstmt = data.batchStatements.get( nrSets );
+    if ( pstmt == null ) {
+      String sql = getBatchSql( getSql(), nrSets );
+      pstmt = data.db.prepareSql( sql );
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "DatabaseJoin.Log.SQLStatement", sql ) );
+      }
+      data.batchStatements.put( nrSets, pstmt );
+    }
+    PreparedStatement rowStatement = data.pstmt;
+    data.pstmt = pstmt; // the statement to cancel when we're stopped
+
+    ResultSet rs = data.db.openQuery( pstmt, parametersMeta, parametersData );
+    try {
+      IRowMeta addMeta = data.db.getReturnRowMeta();
+      Object[] add = data.db.getRow( rs );
+      while ( add != null ) {
+        incrementLinesInput();
+        Long set = addMeta.getValueMeta( 0 ).getInteger( add[ 0 ] );
+        if ( set != null && set >= 0 && set < nrSets ) {
+          found.get( firstSet + set.intValue() ).add( add );
+        }
+        add = data.db.getRow( rs );
+      }
+    } finally {
+      data.db.closeQuery( rs );
+      data.pstmt = rowStatement;
+    }
+  }
+
+  private String getSql() {
+    String sql = meta.getSql();
+    if ( meta.isVariableReplace() ) {
+      sql = resolve( sql );
+    }
+    return sql;
+  }
+
+  /**
+   * @return the largest power of 2 which isn't larger than the number of sets left nor the maximum number of sets per
+   * query, so that at most log2(batch size) statements are prepared.
+   */
+  static int getBatchChunkSize( int nrSets, int maxSets ) {
+    return Integer.highestOneBit( Math.max( 1, Math.min( nrSets, maxSets ) ) );
+  }
+
+  /**
+   * @return the number of parameter sets to look up with a single query, keeping the number of bind parameters below
+   * what the databases accept (SQL Server takes at most 2100).
+   */
+  static int getMaxBatchSets( int batchSize, int nrParameters ) {
+    if ( nrParameters <= 0 ) {
+      return batchSize;
+    }
+    return Math.max( 1, Math.min( batchSize, MAX_BATCH_PARAMETERS / nrParameters ) );
+  }
+
+  /**
+   * Repeating the query for a batch of rows only gives every row the same result when the query doesn't order or limit
+   * its rows itself: a derived table doesn't keep the order of its rows and some databases don't even accept an ORDER
+   * BY in there. These queries are executed once per row.
+   *
+   * @return true if the query can be used to look up rows in batches
+   */
+  static boolean isBatchable( String sql ) {
+    if ( sql == null ) {
+      return false;
+    }
+    // Ignore the contents of string literals and quoted identifiers
+    //
+    String query = sql.replaceAll( "'[^']*'", "''" ).replaceAll( "\"[^\"]*\"", "\"\"" ).toUpperCase();
+    return !UNBATCHABLE_CLAUSES.matcher( query ).find();
+  }
+
+  /**
+   * @return the query executed once for every set of parameters, with the number of the set in the first column. The
+   * rows are returned set by set.
+   */
+  static String getBatchSql( String sql, int nrSets ) {
+    String query = Const.trim( sql );
+    while ( query.endsWith( ";" ) ) {
+      query = Const.trim( query.substring( 0, query.length() - 1 ) );
+    }
+
+    StringBuilder batchSql = new StringBuilder();
+    for ( int k = 0; k < nrSets; k++ ) {
+      if ( k > 0 ) {
+        batchSql.append( Const.CR ).append( "UNION ALL" ).append( Const.CR );
+      }
+      batchSql.append( "SELECT " ).append( k ).append( " AS " ).append( BATCH_SET_COLUMN ).append( ", q" ).append( k )
+        .append( ".* FROM (" ).append( Const.CR ).append( query ).append( Const.CR ).append( ") q" ).append( k );
+    }
+    if ( nrSets > 1 ) {
+      batchSql.append( Const.CR ).append( "ORDER BY " ).append( BATCH_SET_COLUMN );
+    }
+    return batchSql.toString();
+  }
+
+  /**
+   * Look up the waiting input rows.
+   *
+   * @return false if the transform can't continue because of an error
+   */
+  private boolean flushBatch() throws HopException {
+    try {
+      try {
+        lookupBatch( getInputRowMeta(), data.batchRows );
+      } catch ( HopException e ) {
+        if ( data.batchQueried ) {
+          throw e;
+        }
+        // The very first batch query failed: the database probably doesn't take it, look the rows up one by one
+        //
+        logBasic( BaseMessages.getString( PKG, "DatabaseJoin.Log.BatchQueryFailed", e.getMessage() ) );
+        disableBatches();
+        for ( Object[] row : data.batchRows ) {
+          lookupValues( getInputRowMeta(), row );
+        }
+      }
+    } catch ( HopException e ) {
+      if ( getTransformMeta().isDoingErrorHandling() ) {
+        for ( Object[] row : data.batchRows ) {
+          putError( getInputRowMeta(), row, 1, e.toString(), null, "DBJOIN001" );
+        }
+      } else {
+        logError( BaseMessages.getString( PKG, "DatabaseJoin.Log.ErrorInTransformRunning" ) + e.getMessage(), e );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+    } finally {
+      data.batchRows.clear();
+    }
+    return true;
+  }
+
+  /**
+   * Look up every row with the query as it is, from now on.
+   */
+  private void disableBatches() {
+    data.batchSize = 1;
+    data.db.setQueryLimit( meta.getRowLimit() );
+  }
+
   public boolean processRow() throws HopException {
 
     boolean sendToErrorRow = false;
@@ -138,10 +394,35 @@ public class DatabaseJoin extends BaseTransform<DatabaseJoinMeta, DatabaseJoinDa
 
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !flushBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
 
+    if ( data.batchSize > 1 ) {
+      if ( first ) {
+        first = false;
+        initLookup( getInputRowMeta(), r );
+        data.batchSize = getMaxBatchSets( data.batchSize, data.lookupRowMeta.size() );
+        data.batchRows = new ArrayList<>( data.batchSize );
+        data.batchStatements = new HashMap<>();
+      }
+
+      data.batchRows.add( r );
+      if ( data.batchRows.size() >= data.batchSize && !flushBatch() ) {
+        return false;
+      }
+
+      if ( checkFeedback( getLinesRead() ) ) {
+        if ( log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "DatabaseJoin.Log.LineNumber" ) + getLinesRead() );
+        }
+      }
+      return true;
+    }
+
     try {
       lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
 
@@ -205,16 +486,19 @@ public class DatabaseJoin extends BaseTransform<DatabaseJoinMeta, DatabaseJoinDa
           logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.ConnectedToDB" ) );
         }
 
-        String sql = meta.getSql();
-        if ( meta.isVariableReplace() ) {
-          sql = resolve( sql );
-        }
+        String sql = getSql();
         // Prepare the SQL statement
         data.pstmt = data.db.prepareSql( sql );
         if ( log.isDebug() ) {
           logDebug( BaseMessages.getString( PKG, "DatabaseJoin.Log.SQLStatement", sql ) );
         }
-        data.db.setQueryLimit( meta.getRowLimit() );
+        // When rows are looked up in batches the limit is applied per input row
+        data.batchSize = meta.getBatchSize();
+        if ( data.batchSize > 1 && !isBatchable( sql ) ) {
+          logBasic( BaseMessages.getString( PKG, "DatabaseJoin.Log.QueryNotBatchable" ) );
+          data.batchSize = 1;
+        }
+        data.db.setQueryLimit( data.batchSize > 1 ? 0 : meta.getRowLimit() );
 
         return true;
       } catch ( HopException e ) {
@@ -23,6 +23,8 @@ import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
 import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Matt
@@ -39,6 +41,11 @@ public class DatabaseJoinData extends BaseTransformData implements ITransformDat
   public Object[] notfound; // Values in case nothing is found...
   public boolean isCanceled;
 
+  public int batchSize; // the number of input rows looked up with a single query
+  public List<Object[]> batchRows; // the input rows waiting to be looked up
+  public Map<Integer, PreparedStatement> batchStatements; // batch queries per number of parameter sets
+  public boolean batchQueried; // a batch query was executed successfully
+
   public DatabaseJoinData() {
     super();
 
@@ -75,6 +75,8 @@ public class DatabaseJoinDialog extends BaseTransformDialog implements ITransfor
 
   private Text wLimit;
 
+  private Text wBatchSize;
+
   private Button wOuter;
 
   private TableView wParam;
@@ -223,6 +225,26 @@ public class DatabaseJoinDialog extends BaseTransformDialog implements ITransfor
     fdLimit.top = new FormAttachment(wlPosition, margin);
     wLimit.setLayoutData(fdLimit);
 
+    // The number of rows to look up with a single query
+    Label wlBatchSize = new Label(shell, SWT.RIGHT);
+    wlBatchSize.setText(BaseMessages.getString(PKG, "DatabaseJoinDialog.BatchSize.Label"));
+    wlBatchSize.setToolTipText(BaseMessages.getString(PKG, "DatabaseJoinDialog.BatchSize.Tooltip"));
+    props.setLook(wlBatchSize);
+    FormData fdlBatchSize = new FormData();
+    fdlBatchSize.left = new FormAttachment(0, 0);
+    fdlBatchSize.right = new FormAttachment(middle, -margin);
+    fdlBatchSize.top = new FormAttachment(wLimit, margin);
+    wlBatchSize.setLayoutData(fdlBatchSize);
+    wBatchSize = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wBatchSize);
+    wBatchSize.setToolTipText(wlBatchSize.getToolTipText());
+    wBatchSize.addModifyListener(lsMod);
+    FormData fdBatchSize = new FormData();
+    fdBatchSize.left = new FormAttachment(middle, 0);
+    fdBatchSize.right = new FormAttachment(100, 0);
+    fdBatchSize.top = new FormAttachment(wLimit, margin);
+    wBatchSize.setLayoutData(fdBatchSize);
+
     // Outer join?
     Label wlOuter = new Label(shell, SWT.RIGHT);
     wlOuter.setText(BaseMessages.getString(PKG, "DatabaseJoinDialog.Outerjoin.Label"));
@@ -231,7 +253,7 @@ public class DatabaseJoinDialog extends BaseTransformDialog implements ITransfor
     FormData fdlOuter = new FormData();
     fdlOuter.left = new FormAttachment(0, 0);
     fdlOuter.right = new FormAttachment(middle, -margin);
-    fdlOuter.top = new FormAttachment(wLimit, margin);
+    fdlOuter.top = new FormAttachment(wBatchSize, margin);
     wlOuter.setLayoutData(fdlOuter);
     wOuter = new Button(shell, SWT.CHECK);
     props.setLook(wOuter);
@@ -363,6 +385,7 @@ public class DatabaseJoinDialog extends BaseTransformDialog implements ITransfor
 
     wTransformName.addSelectionListener(lsDef);
     wLimit.addSelectionListener(lsDef);
+    wBatchSize.addSelectionListener(lsDef);
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener(
@@ -418,6 +441,7 @@ public class DatabaseJoinDialog extends BaseTransformDialog implements ITransfor
 
     wSql.setText(Const.NVL(input.getSql(), ""));
     wLimit.setText("" + input.getRowLimit());
+    wBatchSize.setText("" + input.getBatchSize());
     wOuter.setSelection(input.isOuterJoin());
     wuseVars.setSelection(input.isVariableReplace());
     if (input.getParameterField() != null) {
@@ -459,6 +483,7 @@ public class DatabaseJoinDialog extends BaseTransformDialog implements ITransfor
     input.allocate(nrparam);
 
     input.setRowLimit(Const.toInt(wLimit.getText(), 0));
+    input.setBatchSize(Const.toInt(wBatchSize.getText(), 0));
     input.setSql(wSql.getText());
 
     input.setOuterJoin(wOuter.getSelection());
@@ -68,6 +68,9 @@ public class DatabaseJoinMeta extends BaseTransformMeta
   /** Number of rows to return (0=ALL) */
   private int rowLimit;
 
+  /** Number of input rows to look up with a single query (0 or 1: one query per row) */
+  private int batchSize;
+
   /**
    * false: don't return rows where nothing is found true: at least return one source row, the rest
    * is NULL
@@ -147,6 +150,16 @@ public class DatabaseJoinMeta extends BaseTransformMeta
     this.rowLimit = rowLimit;
   }
 
+  /** @return Returns the number of input rows looked up with a single query. */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /** @param batchSize The number of input rows to look up with a single query. */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
   /** @return Returns the sql. */
   public String getSql() {
     return sql;
@@ -195,6 +208,7 @@ public class DatabaseJoinMeta extends BaseTransformMeta
       outerJoin = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "outer_join"));
       replacevars = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "replace_vars"));
       rowLimit = Const.toInt(XmlHandler.getTagValue(transformNode, "rowlimit"), 0);
+      batchSize = Const.toInt(XmlHandler.getTagValue(transformNode, "batch_size"), 0);
 
       Node param = XmlHandler.getSubNode(transformNode, "parameter");
       int nrparam = XmlHandler.countNodes(param, "field");
@@ -217,6 +231,7 @@ public class DatabaseJoinMeta extends BaseTransformMeta
   public void setDefault() {
     databaseMeta = null;
     rowLimit = 0;
+    batchSize = 0;
     sql = "";
     outerJoin = false;
     parameterField = null;
@@ -319,6 +334,7 @@ public class DatabaseJoinMeta extends BaseTransformMeta
             XmlHandler.addTagValue(
                 "connection", databaseMeta == null ? "" : databaseMeta.getName()));
     retval.append("    ").append(XmlHandler.addTagValue("rowlimit", rowLimit));
+    retval.append("    ").append(XmlHandler.addTagValue("batch_size", batchSize));
     retval.append("    ").append(XmlHandler.addTagValue("sql", sql));
     retval.append("    ").append(XmlHandler.addTagValue("outer_join", outerJoin));
     retval.append("    ").append(XmlHandler.addTagValue("replace_vars", replacevars));
@@ -50,7 +50,7 @@ public class DatabaseJoinMetaTest implements IInitializer<ITransformMeta> {
     HopEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-      Arrays.asList( "sql", "rowLimit", "outerJoin", "variableReplace", "databaseMeta", "parameterField", "parameterType" );
+      Arrays.asList( "sql", "rowLimit", "batchSize", "outerJoin", "variableReplace", "databaseMeta", "parameterField", "parameterType" );
 
     Map<String, String> getterMap = new HashMap<>();
     Map<String, String> setterMap = new HashMap<>();
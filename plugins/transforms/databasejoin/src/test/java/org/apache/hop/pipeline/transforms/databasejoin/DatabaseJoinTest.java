@@ -18,7 +18,12 @@
 package org.apache.hop.pipeline.transforms.databasejoin;
 
 import org.apache.hop.core.database.Database;
+import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
@@ -27,14 +32,22 @@ import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transform.TransformPartitioningMeta;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
 
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -119,4 +132,142 @@ public class DatabaseJoinTest {
     verify( mockTransformDataInterface.db, times( 0 ) ).cancelStatement( any( PreparedStatement.class ) );
     assertFalse( mockTransformDataInterface.isCanceled );
   }
+
+  @Test
+  public void testBatchSql() {
+    String sql = DatabaseJoin.getBatchSql( "SELECT name FROM customers WHERE id = ? ;", 2 );
+
+    assertEquals( "SELECT 0 AS HOP_BATCH_SET, q0.* FROM (\nSELECT name FROM customers WHERE id = ?\n) q0"
+      + "\nUNION ALL\n"
+      + "SELECT 1 AS HOP_BATCH_SET, q1.* FROM (\nSELECT name FROM customers WHERE id = ?\n) q1"
+      + "\nORDER BY HOP_BATCH_SET",
+      sql.replace( "\r", "" ) );
+  }
+
+  @Test
+  public void testBatchChunkSize() {
+    assertEquals( 1, DatabaseJoin.getBatchChunkSize( 1, 100 ) );
+    assertEquals( 2, DatabaseJoin.getBatchChunkSize( 3, 100 ) );
+    assertEquals( 32, DatabaseJoin.getBatchChunkSize( 33, 100 ) );
+    assertEquals( 64, DatabaseJoin.getBatchChunkSize( 100, 100 ) );
+    assertEquals( 64, DatabaseJoin.getBatchChunkSize( 100, 70 ) );
+  }
+
+  @Test
+  public void testMaxBatchSets() {
+    assertEquals( 100, DatabaseJoin.getMaxBatchSets( 100, 0 ) );
+    assertEquals( 100, DatabaseJoin.getMaxBatchSets( 100, 3 ) );
+    assertEquals( 1000, DatabaseJoin.getMaxBatchSets( 5000, 2 ) );
+    assertEquals( 1, DatabaseJoin.getMaxBatchSets( 100, 3000 ) );
+  }
+
+  @Test
+  public void testIsBatchable() {
+    assertTrue( DatabaseJoin.isBatchable( "SELECT name FROM customers WHERE id = ?" ) );
+    assertTrue( DatabaseJoin.isBatchable( "SELECT name FROM customers WHERE comment = 'order by' AND id = ?" ) );
+    assertTrue( DatabaseJoin.isBatchable( "SELECT \"LIMIT\" FROM accounts WHERE id = ?" ) );
+    assertFalse( DatabaseJoin.isBatchable( "SELECT name FROM customers WHERE id = ? ORDER BY name" ) );
+    assertFalse( DatabaseJoin.isBatchable( "select name from customers where id = ?\norder\tby name" ) );
+    assertFalse( DatabaseJoin.isBatchable( "SELECT name FROM customers WHERE id = ? LIMIT 1" ) );
+    assertFalse( DatabaseJoin.isBatchable( "SELECT TOP 1 name FROM customers WHERE id = ?" ) );
+    assertFalse( DatabaseJoin.isBatchable( "SELECT name FROM customers WHERE id = ? FETCH FIRST 1 ROWS ONLY" ) );
+    assertFalse( DatabaseJoin.isBatchable( "SELECT name FROM customers WHERE id = ? AND ROWNUM <= 1" ) );
+  }
+
+  @Test
+  public void testBatchLookupKeepsInputOrder() throws Exception {
+    prepareBatchLookup();
+
+    // Ids 1, 2, 1, 3: three distinct sets of parameters, looked up with a query for 2 sets and a query for 1 set
+    //
+    when( mockTransformDataInterface.db.getRow( any( ResultSet.class ) ) ).thenReturn(
+      new Object[] { 0L, "a" }, null,
+      new Object[] { 0L, "c1" }, new Object[] { 0L, "c2" }, null );
+
+    while ( mockDatabaseJoin.processRow() ) {
+      // keep going
+    }
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+    verify( mockTransformDataInterface.db, times( 2 ) ).prepareSql( sql.capture() );
+    assertTrue( sql.getAllValues().get( 0 ).contains( "UNION ALL" ) );
+    assertFalse( sql.getAllValues().get( 1 ).contains( "UNION ALL" ) );
+
+    ArgumentCaptor<Object[]> parameters = ArgumentCaptor.forClass( Object[].class );
+    verify( mockTransformDataInterface.db, times( 2 ) )
+      .openQuery( any( PreparedStatement.class ), any( IRowMeta.class ), parameters.capture() );
+    assertArrayEquals( new Object[] { 1L, 2L }, parameters.getAllValues().get( 0 ) );
+    assertArrayEquals( new Object[] { 3L }, parameters.getAllValues().get( 1 ) );
+
+    assertOutput( new Object[] { 1L, "a" }, new Object[] { 2L, null }, new Object[] { 1L, "a" },
+      new Object[] { 3L, "c1" }, new Object[] { 3L, "c2" } );
+  }
+
+  /**
+   * When the database doesn't take the batch query the rows are looked up one by one.
+   */
+  @Test
+  public void testBatchLookupFallsBackToRowByRow() throws Exception {
+    PreparedStatement rowStatement = mockTransformDataInterface.pstmt;
+    prepareBatchLookup();
+    when( mockTransformDataInterface.db.prepareSql( anyString() ) ).thenThrow( new HopDatabaseException( "unsupported" ) );
+    when( mockTransformDataInterface.db.getRow( any( ResultSet.class ) ) ).thenReturn(
+      new Object[] { "a" }, null,
+      null,
+      new Object[] { "a" }, null,
+      new Object[] { "c1" }, new Object[] { "c2" }, null );
+    IRowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    when( mockTransformDataInterface.db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+
+    while ( mockDatabaseJoin.processRow() ) {
+      // keep going
+    }
+
+    assertEquals( 1, mockTransformDataInterface.batchSize );
+    verify( mockTransformDataInterface.db, times( 4 ) )
+      .openQuery( eq( rowStatement ), any( IRowMeta.class ), any( Object[].class ) );
+    assertOutput( new Object[] { 1L, "a" }, new Object[] { 2L, null }, new Object[] { 1L, "a" },
+      new Object[] { 3L, "c1" }, new Object[] { 3L, "c2" } );
+  }
+
+  /**
+   * Look up ids 1, 2, 1 and 3 in batches of 4 rows.
+   */
+  private void prepareBatchLookup() throws Exception {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    IRowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaInteger( DatabaseJoin.BATCH_SET_COLUMN ) );
+    returnRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    when( mockTransformMetaInterface.getParameterField() ).thenReturn( new String[] { "id" } );
+    when( mockTransformMetaInterface.getSql() ).thenReturn( "SELECT name FROM customers WHERE id = ?" );
+    when( mockTransformMetaInterface.isOuterJoin() ).thenReturn( true );
+    doAnswer( invocation -> {
+      ( (IRowMeta) invocation.getArguments()[ 0 ] ).addValueMeta( new ValueMetaString( "name" ) );
+      return null;
+    } ).when( mockTransformMetaInterface ).getFields( any( IRowMeta.class ), anyString(), any( IRowMeta[].class ), any(), any(), any() );
+
+    mockTransformDataInterface.batchSize = 4;
+    when( mockTransformDataInterface.db.prepareSql( anyString() ) ).thenAnswer( invocation -> mock( PreparedStatement.class ) );
+    when( mockTransformDataInterface.db.openQuery( any( PreparedStatement.class ), any( IRowMeta.class ), any( Object[].class ) ) )
+      .thenReturn( mock( ResultSet.class ) );
+    when( mockTransformDataInterface.db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+
+    doReturn( inputRowMeta ).when( mockDatabaseJoin ).getInputRowMeta();
+    doReturn( new Object[] { 1L }, new Object[] { 2L }, new Object[] { 1L }, new Object[] { 3L }, null )
+      .when( mockDatabaseJoin ).getRow();
+    doNothing().when( mockDatabaseJoin ).putRow( any( IRowMeta.class ), any( Object[].class ) );
+  }
+
+  private void assertOutput( Object[]... expected ) throws Exception {
+    ArgumentCaptor<Object[]> rows = ArgumentCaptor.forClass( Object[].class );
+    verify( mockDatabaseJoin, times( expected.length ) ).putRow( any( IRowMeta.class ), rows.capture() );
+    List<Object[]> output = rows.getAllValues();
+    for ( int i = 0; i < expected.length; i++ ) {
+      assertArrayEquals( expected[ i ], output.get( i ) );
+    }
+  }
 }
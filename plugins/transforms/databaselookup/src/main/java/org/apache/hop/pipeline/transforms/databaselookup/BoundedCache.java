@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import org.apache.hop.core.RowMetaAndData;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache holding at most a fixed number of lookup results. Evicting an entry takes constant time, contrary to the
+ * sampling done by {@link DefaultCache}.
+ * <p>
+ * In LRU mode the least recently used entry is evicted. In W-TinyLFU mode new entries first go into a small window
+ * (1% of the size) evicting the least recently used entry. An entry leaving the window only replaces the least
+ * recently used entry of the main part when a {@link FrequencySketch} estimates that it's used more often. That
+ * keeps a stream of keys which are only seen once from flushing out the frequently used ones.
+ * <p>
+ * Only exact lookups (all conditions are "=") can be served from this cache.
+ */
+public class BoundedCache implements DatabaseLookupData.ICache {
+
+  private final DatabaseLookupData data;
+  private final int maximumSize;
+
+  private final LinkedHashMap<RowMetaAndData, Object[]> window;
+  private final int windowSize;
+  private final LinkedHashMap<RowMetaAndData, Object[]> main;
+  private final int mainSize;
+  private final FrequencySketch sketch;
+
+  private long evictionCount;
+
+  /**
+   * @param data                the transform data
+   * @param maximumSize         the maximum number of entries in the cache
+   * @param frequencyAdmission  true for W-TinyLFU, false for LRU
+   */
+  public BoundedCache( DatabaseLookupData data, int maximumSize, boolean frequencyAdmission ) {
+    this.data = data;
+    this.maximumSize = Math.max( 1, maximumSize );
+
+    if ( frequencyAdmission && this.maximumSize > 1 ) {
+      windowSize = Math.max( 1, this.maximumSize / 100 );
+      sketch = new FrequencySketch( this.maximumSize );
+    } else {
+      windowSize = 0;
+      sketch = null;
+    }
+    mainSize = this.maximumSize - windowSize;
+
+    window = new LinkedHashMap<>( 16, 0.75f, true );
+    main = new LinkedHashMap<>( 16, 0.75f, true );
+  }
+
+  @Override
+  public Object[] getRowFromCache( IRowMeta lookupMeta, Object[] lookupRow ) throws HopException {
+    if ( !data.allEquals ) {
+      return null;
+    }
+    RowMetaAndData key = new RowMetaAndData( data.lookupMeta, lookupRow );
+    if ( sketch != null ) {
+      sketch.increment( key.hashCode() );
+    }
+    Object[] row = window.get( key );
+    if ( row == null ) {
+      row = main.get( key );
+    }
+    return row;
+  }
+
+  @Override
+  public void storeRowInCache( DatabaseLookupMeta meta, IRowMeta lookupMeta, Object[] lookupRow, Object[] add ) {
+    RowMetaAndData key = new RowMetaAndData( lookupMeta, lookupRow );
+
+    if ( sketch == null ) {
+      main.put( key, add );
+      if ( main.size() > mainSize ) {
+        removeEldest( main );
+        evictionCount++;
+      }
+      return;
+    }
+
+    if ( main.containsKey( key ) ) {
+      main.put( key, add );
+      return;
+    }
+    window.put( key, add );
+    if ( window.size() <= windowSize ) {
+      return;
+    }
+
+    // The window is full: its least recently used entry is a candidate for the main part
+    //
+    Map.Entry<RowMetaAndData, Object[]> candidate = removeEldest( window );
+    if ( main.size() < mainSize ) {
+      main.put( candidate.getKey(), candidate.getValue() );
+      return;
+    }
+    // A rejected candidate was never admitted to the cache, it's not an eviction
+    //
+    RowMetaAndData victim = main.keySet().iterator().next();
+    if ( sketch.frequency( candidate.getKey().hashCode() ) > sketch.frequency( victim.hashCode() ) ) {
+      main.remove( victim );
+      main.put( candidate.getKey(), candidate.getValue() );
+      evictionCount++;
+    }
+  }
+
+  private static Map.Entry<RowMetaAndData, Object[]> removeEldest( LinkedHashMap<RowMetaAndData, Object[]> map ) {
+    Iterator<Map.Entry<RowMetaAndData, Object[]>> iterator = map.entrySet().iterator();
+    Map.Entry<RowMetaAndData, Object[]> eldest = iterator.next();
+    Map.Entry<RowMetaAndData, Object[]> removed = new AbstractMap.SimpleImmutableEntry<>( eldest );
+    iterator.remove();
+    return removed;
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return the number of entries in the cache
+   */
+  public int size() {
+    return window.size() + main.size();
+  }
+
+  /**
+   * @return the maximum number of entries in the cache
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+}
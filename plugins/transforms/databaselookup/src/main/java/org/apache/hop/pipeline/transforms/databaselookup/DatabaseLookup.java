@@ -24,6 +24,7 @@ import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.Metrics;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
@@ -108,6 +109,9 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
       if ( add != null ) {
         cacheHit = true;
+        data.cacheHits++;
+      } else {
+        data.cacheMisses++;
       }
     } else {
       add = null;
@@ -353,7 +357,7 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       }
 
       if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        data.cache = createCache();
       }
 
       determineFieldsTypesQueryingDb();
@@ -579,6 +583,23 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     return false;
   }
 
+  /**
+   * The bounded caches only serve exact lookups and have no use when all data is loaded up front or when the size is
+   * unlimited. In those cases we use the default cache.
+   */
+  private DatabaseLookupData.ICache createCache() {
+    String cacheType = Const.NVL( meta.getCacheType(), DatabaseLookupMeta.CACHE_TYPE_DEFAULT );
+    if ( !meta.isLoadingAllDataInCache() && data.allEquals && meta.getCacheSize() > 0 ) {
+      if ( DatabaseLookupMeta.CACHE_TYPE_LRU.equals( cacheType ) ) {
+        return new BoundedCache( data, meta.getCacheSize(), false );
+      }
+      if ( DatabaseLookupMeta.CACHE_TYPE_W_TINY_LFU.equals( cacheType ) ) {
+        return new BoundedCache( data, meta.getCacheSize(), true );
+      }
+    }
+    return DefaultCache.newCache( data, meta.getCacheSize() );
+  }
+
   @Override
   public void dispose() {
 
@@ -586,6 +607,17 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       data.db.disconnect();
     }
 
+    if ( data.cache != null ) {
+      long evictions = data.cache.getEvictionCount();
+      log.snap( Metrics.METRIC_LOOKUP_CACHE_HITS, getTransformName(), data.cacheHits );
+      log.snap( Metrics.METRIC_LOOKUP_CACHE_MISSES, getTransformName(), data.cacheMisses );
+      log.snap( Metrics.METRIC_LOOKUP_CACHE_EVICTIONS, getTransformName(), evictions );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.CacheStatistics",
+          String.valueOf( data.cacheHits ), String.valueOf( data.cacheMisses ), String.valueOf( evictions ) ) );
+      }
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
@@ -44,6 +44,9 @@ public class DatabaseLookupData extends BaseTransformData implements ITransformD
   public int[] conditions;
   public boolean hasDBCondition;
 
+  public long cacheHits;
+  public long cacheMisses;
+
   public DatabaseLookupData() {
     super();
 
@@ -74,5 +77,12 @@ public class DatabaseLookupData extends BaseTransformData implements ITransformD
      * @param add        tuple of data
      */
     void storeRowInCache( DatabaseLookupMeta meta, IRowMeta lookupMeta, Object[] lookupRow, Object[] add);
+
+    /**
+     * @return the number of entries removed to keep the cache within its size, 0 if the cache doesn't count them
+     */
+    default long getEvictionCount() {
+      return 0L;
+    }
   }
 }
@@ -42,6 +42,7 @@ import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.apache.hop.ui.pipeline.transform.ITableItemInsertListener;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -77,6 +78,9 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
   private Label wlCachesize;
   private Text wCachesize;
 
+  private Label wlCacheType;
+  private CCombo wCacheType;
+
   private TableView wKey;
 
   private TextVar wSchema;
@@ -266,6 +270,27 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     fdCachesize.top = new FormAttachment( wCache, margin );
     wCachesize.setLayoutData( fdCachesize );
 
+    // ICache type line
+    wlCacheType = new Label( shell, SWT.RIGHT );
+    wlCacheType.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheType.Label" ) );
+    props.setLook( wlCacheType );
+    FormData fdlCacheType = new FormData();
+    fdlCacheType.left = new FormAttachment( 0, 0 );
+    fdlCacheType.right = new FormAttachment( middle, -margin );
+    fdlCacheType.top = new FormAttachment( wCachesize, margin );
+    wlCacheType.setLayoutData( fdlCacheType );
+    wCacheType = new CCombo( shell, SWT.SINGLE | SWT.READ_ONLY | SWT.BORDER );
+    props.setLook( wCacheType );
+    for ( String cacheTypeCode : DatabaseLookupMeta.cacheTypeCodes ) {
+      wCacheType.add( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheType." + cacheTypeCode ) );
+    }
+    wCacheType.addModifyListener( lsMod );
+    FormData fdCacheType = new FormData();
+    fdCacheType.left = new FormAttachment( middle, 0 );
+    fdCacheType.right = new FormAttachment( 100, 0 );
+    fdCacheType.top = new FormAttachment( wCachesize, margin );
+    wCacheType.setLayoutData( fdCacheType );
+
     // ICache : Load all?
     wlCacheLoadAll = new Label( shell, SWT.RIGHT );
     wlCacheLoadAll.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheLoadAll.Label" ) );
@@ -273,7 +298,7 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     FormData fdlCacheLoadAll = new FormData();
     fdlCacheLoadAll.left = new FormAttachment( 0, 0 );
     fdlCacheLoadAll.right = new FormAttachment( middle, -margin );
-    fdlCacheLoadAll.top = new FormAttachment( wCachesize, margin );
+    fdlCacheLoadAll.top = new FormAttachment( wCacheType, margin );
     wlCacheLoadAll.setLayoutData( fdlCacheLoadAll );
     wCacheLoadAll = new Button( shell, SWT.CHECK );
     props.setLook( wCacheLoadAll );
@@ -575,6 +600,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
 
     wCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wlCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wCacheType.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wlCacheType.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wCacheLoadAll.setEnabled( wCache.getSelection() );
     wlCacheLoadAll.setEnabled( wCache.getSelection() );
     wFailMultiple.setEnabled( !wCache.getSelection() );
@@ -589,6 +616,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
 
     wCache.setSelection( input.isCached() );
     wCachesize.setText( "" + input.getCacheSize() );
+    int cacheTypeIndex = Const.indexOfString( input.getCacheType(), DatabaseLookupMeta.cacheTypeCodes );
+    wCacheType.select( cacheTypeIndex < 0 ? 0 : cacheTypeIndex );
     wCacheLoadAll.setSelection( input.isLoadingAllDataInCache() );
 
     if ( input.getStreamKeyField1() != null ) {
@@ -671,6 +700,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
 
     input.setCached( wCache.getSelection() );
     input.setCacheSize( Const.toInt( wCachesize.getText(), 0 ) );
+    int cacheTypeIndex = wCacheType.getSelectionIndex();
+    input.setCacheType( DatabaseLookupMeta.cacheTypeCodes[ cacheTypeIndex < 0 ? 0 : cacheTypeIndex ] );
     input.setLoadingAllDataInCache( wCacheLoadAll.getSelection() );
 
     logDebug( BaseMessages.getString( PKG, "DatabaseLookupDialog.Log.FoundKeys", String.valueOf( nrkeys ) ) );
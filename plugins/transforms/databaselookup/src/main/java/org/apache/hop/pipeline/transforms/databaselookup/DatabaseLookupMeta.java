@@ -27,6 +27,8 @@ import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopXmlException;
+import org.apache.hop.core.injection.Injection;
+import org.apache.hop.core.injection.InjectionSupported;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowMeta;
@@ -48,6 +50,7 @@ import org.w3c.dom.Node;
 import java.util.Arrays;
 import java.util.List;
 
+@InjectionSupported(localizationPrefix = "DatabaseLookup.Injection.")
 @Transform(
     id = "DBLookup",
     image = "dblookup.svg",
@@ -77,6 +80,18 @@ public class DatabaseLookupMeta extends BaseTransformMeta
   public static final int CONDITION_IS_NULL = 8;
   public static final int CONDITION_IS_NOT_NULL = 9;
 
+  /** The original cache: evicts the oldest entries of a sample once the cache size is exceeded */
+  public static final String CACHE_TYPE_DEFAULT = "DEFAULT";
+
+  /** A bounded cache evicting the least recently used entry */
+  public static final String CACHE_TYPE_LRU = "LRU";
+
+  /** A bounded cache which only admits new entries when they're used more often than the entry they evict */
+  public static final String CACHE_TYPE_W_TINY_LFU = "W_TINY_LFU";
+
+  public static final String[] cacheTypeCodes =
+      new String[] {CACHE_TYPE_DEFAULT, CACHE_TYPE_LRU, CACHE_TYPE_W_TINY_LFU};
+
   /** what's the lookup schema name? */
   private String schemaName;
 
@@ -114,12 +129,19 @@ public class DatabaseLookupMeta extends BaseTransformMeta
   private String orderByClause;
 
   /** ICache values we look up --> faster */
+  @Injection(name = "CACHE")
   private boolean cached;
 
   /** Limit the cache size to this! */
+  @Injection(name = "CACHE_SIZE")
   private int cacheSize;
 
+  /** The type of cache to use: one of the cacheTypeCodes */
+  @Injection(name = "CACHE_TYPE")
+  private String cacheType;
+
   /** Flag to make it load all data into the cache at startup */
+  @Injection(name = "CACHE_LOAD_ALL")
   private boolean loadingAllDataInCache;
 
   /** Have the lookup fail if multiple results were found, renders the orderByClause useless */
@@ -152,6 +174,16 @@ public class DatabaseLookupMeta extends BaseTransformMeta
     this.cacheSize = cacheSize;
   }
 
+  /** @return Returns the cacheType, one of the cacheTypeCodes. */
+  public String getCacheType() {
+    return cacheType;
+  }
+
+  /** @param cacheType The cacheType to set. */
+  public void setCacheType(String cacheType) {
+    this.cacheType = cacheType;
+  }
+
   /** @return Returns the database. */
   @Override
   public DatabaseMeta getDatabaseMeta() {
@@ -328,6 +360,8 @@ public class DatabaseLookupMeta extends BaseTransformMeta
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "cache_load_all"));
       csize = XmlHandler.getTagValue(transformNode, "cache_size");
       cacheSize = Const.toInt(csize, 0);
+      cacheType =
+          Const.NVL(XmlHandler.getTagValue(transformNode, "cache_type"), CACHE_TYPE_DEFAULT);
       schemaName = XmlHandler.getTagValue(transformNode, "lookup", "schema");
       tableName = XmlHandler.getTagValue(transformNode, "lookup", "table");
 
@@ -386,6 +420,7 @@ public class DatabaseLookupMeta extends BaseTransformMeta
     databaseMeta = null;
     cached = false;
     cacheSize = 0;
+    cacheType = CACHE_TYPE_W_TINY_LFU;
     schemaName = "";
     tableName = BaseMessages.getString(PKG, "DatabaseLookupMeta.Default.TableName");
 
@@ -464,6 +499,7 @@ public class DatabaseLookupMeta extends BaseTransformMeta
     retval.append("    ").append(XmlHandler.addTagValue("cache", cached));
     retval.append("    ").append(XmlHandler.addTagValue("cache_load_all", loadingAllDataInCache));
     retval.append("    ").append(XmlHandler.addTagValue("cache_size", cacheSize));
+    retval.append("    ").append(XmlHandler.addTagValue("cache_type", cacheType));
     retval.append("    <lookup>").append(Const.CR);
     retval.append("      ").append(XmlHandler.addTagValue("schema", schemaName));
     retval.append("      ").append(XmlHandler.addTagValue("table", tableName));
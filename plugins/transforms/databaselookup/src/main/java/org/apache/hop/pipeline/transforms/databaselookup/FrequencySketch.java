@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+/**
+ * A small count-min sketch estimating how often a key was seen recently. Every key is counted in 4 counters of 4 bits,
+ * the estimate is the lowest of those counters. Once the number of increments reaches 10 times the maximum size of the
+ * cache, all counters are halved so that the sketch keeps reflecting recent usage rather than the whole history.
+ */
+public class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_FREQUENCY = 15;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * @param maximumSize the maximum number of entries in the cache using this sketch
+   */
+  public FrequencySketch( int maximumSize ) {
+    int tableSize = Integer.highestOneBit( Math.max( 16, Math.min( maximumSize, 1 << 30 ) ) );
+    if ( tableSize < maximumSize && tableSize < ( 1 << 30 ) ) {
+      tableSize <<= 1;
+    }
+    table = new long[ tableSize ];
+    tableMask = tableSize - 1;
+    sampleSize = (int) Math.min( 10L * Math.max( 1, maximumSize ), Integer.MAX_VALUE );
+  }
+
+  /**
+   * @param hash the hash code of the key
+   * @return the estimated number of times the key was seen, at most 15
+   */
+  public int frequency( int hash ) {
+    int frequency = MAX_FREQUENCY;
+    for ( int i = 0; i < SEEDS.length; i++ ) {
+      int index = indexOf( hash, i );
+      int offset = counterOffset( hash, i );
+      int count = (int) ( ( table[ index ] >>> offset ) & 0xfL );
+      frequency = Math.min( frequency, count );
+    }
+    return frequency;
+  }
+
+  /**
+   * Count one more occurrence of a key.
+   *
+   * @param hash the hash code of the key
+   */
+  public void increment( int hash ) {
+    boolean added = false;
+    for ( int i = 0; i < SEEDS.length; i++ ) {
+      int index = indexOf( hash, i );
+      int offset = counterOffset( hash, i );
+      if ( ( ( table[ index ] >>> offset ) & 0xfL ) != MAX_FREQUENCY ) {
+        table[ index ] += 1L << offset;
+        added = true;
+      }
+    }
+    if ( added && ++size >= sampleSize ) {
+      reset();
+    }
+  }
+
+  /**
+   * Halve all counters.
+   */
+  void reset() {
+    for ( int i = 0; i < table.length; i++ ) {
+      table[ i ] = ( table[ i ] >>> 1 ) & RESET_MASK;
+    }
+    size = size / 2;
+  }
+
+  private int indexOf( int hash, int i ) {
+    long h = ( hash + SEEDS[ i ] ) * SEEDS[ i ];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  private int counterOffset( int hash, int i ) {
+    // 16 counters of 4 bits in every long, pick one per seed
+    int spread = hash * 0x9e3779b9;
+    return ( ( ( spread >>> ( i * 8 ) ) & 0xf ) ) << 2;
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedCacheTest {
+
+  private DatabaseLookupData data;
+  private DatabaseLookupMeta meta;
+  private IRowMeta keyMeta;
+
+  @Before
+  public void setUp() {
+    keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    data = new DatabaseLookupData();
+    data.allEquals = true;
+    data.lookupMeta = keyMeta;
+
+    meta = new DatabaseLookupMeta();
+  }
+
+  @Test
+  public void testLruEvictsLeastRecentlyUsed() throws Exception {
+    BoundedCache cache = new BoundedCache( data, 3, false );
+    store( cache, 1L );
+    store( cache, 2L );
+    store( cache, 3L );
+
+    // 1 is used again, so 2 is the least recently used entry
+    assertNotNull( lookup( cache, 1L ) );
+    store( cache, 4L );
+
+    assertEquals( 3, cache.size() );
+    assertEquals( 1L, cache.getEvictionCount() );
+    assertNotNull( lookup( cache, 1L ) );
+    assertNull( lookup( cache, 2L ) );
+    assertNotNull( lookup( cache, 3L ) );
+    assertNotNull( lookup( cache, 4L ) );
+  }
+
+  @Test
+  public void testTinyLfuKeepsFrequentEntries() throws Exception {
+    BoundedCache cache = new BoundedCache( data, 100, true );
+    for ( long i = 0; i < 100; i++ ) {
+      lookup( cache, i );
+      store( cache, i );
+    }
+    for ( int round = 0; round < 5; round++ ) {
+      for ( long i = 0; i < 50; i++ ) {
+        assertNotNull( lookup( cache, i ) );
+      }
+    }
+
+    // A scan of keys which are only used once shouldn't flush out the frequently used ones
+    //
+    for ( long i = 1000; i < 2000; i++ ) {
+      lookup( cache, i );
+      store( cache, i );
+    }
+
+    assertTrue( cache.size() <= cache.getMaximumSize() );
+    assertTrue( cache.getEvictionCount() < 1000 );
+    for ( long i = 0; i < 50; i++ ) {
+      assertNotNull( "key " + i, lookup( cache, i ) );
+    }
+  }
+
+  @Test
+  public void testTinyLfuOnlyCountsAdmittedCandidates() throws Exception {
+    // One entry in the window, one in the main part
+    //
+    BoundedCache cache = new BoundedCache( data, 2, true );
+    for ( int i = 0; i < 10; i++ ) {
+      lookup( cache, 1L );
+    }
+    store( cache, 1L );
+    lookup( cache, 2L );
+    store( cache, 2L );
+    assertEquals( 0L, cache.getEvictionCount() );
+
+    // 2 leaves the window but is used less often than 1: it's rejected, nothing is evicted
+    //
+    lookup( cache, 3L );
+    store( cache, 3L );
+    assertEquals( 0L, cache.getEvictionCount() );
+    assertNull( lookup( cache, 2L ) );
+    assertNotNull( lookup( cache, 1L ) );
+
+    // 4 is used more often than 1 and replaces it
+    //
+    for ( int i = 0; i < 12; i++ ) {
+      lookup( cache, 4L );
+    }
+    store( cache, 4L );
+    lookup( cache, 5L );
+    store( cache, 5L );
+    assertEquals( 1L, cache.getEvictionCount() );
+    assertNull( lookup( cache, 1L ) );
+    assertNotNull( lookup( cache, 4L ) );
+  }
+
+  @Test
+  public void testNoLookupWhenNotAllEquals() throws Exception {
+    BoundedCache cache = new BoundedCache( data, 10, true );
+    store( cache, 1L );
+    data.allEquals = false;
+    assertNull( lookup( cache, 1L ) );
+  }
+
+  @Test
+  public void testFrequencySketch() {
+    FrequencySketch sketch = new FrequencySketch( 100 );
+    for ( int i = 0; i < 10; i++ ) {
+      sketch.increment( 42 );
+    }
+    sketch.increment( 7 );
+    assertTrue( sketch.frequency( 42 ) >= 10 );
+    assertTrue( sketch.frequency( 42 ) > sketch.frequency( 7 ) );
+
+    sketch.reset();
+    assertTrue( sketch.frequency( 42 ) >= 5 );
+    assertTrue( sketch.frequency( 42 ) < 10 );
+  }
+
+  private Object[] lookup( BoundedCache cache, long id ) throws Exception {
+    return cache.getRowFromCache( keyMeta, new Object[] { id } );
+  }
+
+  private void store( BoundedCache cache, long id ) {
+    cache.storeRowInCache( meta, keyMeta, new Object[] { id }, new Object[] { "value" + id } );
+  }
+}
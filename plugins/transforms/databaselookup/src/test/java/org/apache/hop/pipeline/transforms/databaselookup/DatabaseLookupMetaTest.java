@@ -65,7 +65,7 @@ public class DatabaseLookupMetaTest implements IInitializer<ITransformMeta> {
     variables = new Variables();
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "orderByClause", "cached",
-        "cacheSize", "loadingAllDataInCache", "failingOnMultipleResults", "eatingRowOnLookupFailure",
+        "cacheSize", "cacheType", "loadingAllDataInCache", "failingOnMultipleResults", "eatingRowOnLookupFailure",
         "streamKeyField1", "streamKeyField2", "keyCondition", "tableKeyField", "returnValueField",
         "returnValueNewName", "returnValueDefault", "returnValueDefaultType" );
 
@@ -19,7 +19,6 @@ package org.apache.hop.pipeline.transforms.filterrows;
 
 import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
-import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -48,25 +47,24 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> im
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
   }
 
-  private synchronized boolean keepRow( IRowMeta rowMeta, Object[] row ) throws HopException {
+  private boolean keepRow( Object[] row ) throws HopException {
     try {
-      return meta.getCondition().evaluate( rowMeta, row );
+      return data.condition.evaluate( row );
     } catch ( Exception e ) {
       String message =
         BaseMessages.getString( PKG, "FilterRows.Exception.UnexpectedErrorFoundInEvaluationFuction" );
       logError( message );
-      logError( BaseMessages.getString( PKG, "FilterRows.Log.ErrorOccurredForRow" ) + rowMeta.getString( row ) );
+      logError( BaseMessages.getString( PKG, "FilterRows.Log.ErrorOccurredForRow" ) + getInputRowMeta().getString( row ) );
       logError( Const.getStackTracker( e ) );
       throw new HopException( message, e );
     }
   }
 
   public boolean processRow() throws HopException {
+    long linesBefore = getLinesRead();
 
-    boolean keep;
-
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if ( r == null ) { // no more input to be expected...
+    Object[][] rows = getRows(); // Get the next batch of usable rows from input rowset(s)!
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
@@ -81,6 +79,10 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> im
       // if filter refers to non-existing fields, throw exception
       checkNonExistingFields();
 
+      // Look up the fields and prepare the constants of the condition once for all rows
+      //
+      data.condition = meta.getCondition().compile( getInputRowMeta() );
+
       // Cache the position of the IRowSet for the output.
       //
       if ( data.chosesTargetTransforms ) {
@@ -107,30 +109,43 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> im
       }
     }
 
-    keep = keepRow( getInputRowMeta(), r ); // Keep this row?
     if ( !data.chosesTargetTransforms ) {
-      if ( keep ) {
-        putRow( data.outputRowMeta, r ); // copy row to output rowset(s);
+      // The rows to keep replace the input rows in the batch
+      //
+      int keepCount = 0;
+      for ( Object[] r : rows ) {
+        if ( keepRow( r ) ) { // Keep this row?
+          rows[ keepCount++ ] = r;
+        }
       }
+      putRows( data.outputRowMeta, rows, keepCount ); // copy rows to output rowset(s);
     } else {
-      if ( keep ) {
-        if ( data.trueRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to true  :" + data.trueTransformName + " : " + getInputRowMeta().getString( r ) );
+      Object[][] trueRows = new Object[ rows.length ][];
+      Object[][] falseRows = new Object[ rows.length ][];
+      int trueCount = 0;
+      int falseCount = 0;
+      for ( Object[] r : rows ) {
+        if ( keepRow( r ) ) {
+          if ( data.trueRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to true  :" + data.trueTransformName + " : " + getInputRowMeta().getString( r ) );
+            }
+            trueRows[ trueCount++ ] = r;
           }
-          putRowTo( data.outputRowMeta, r, data.trueRowSet );
-        }
-      } else {
-        if ( data.falseRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to false :" + data.falseTransformName + " : " + getInputRowMeta().getString( r ) );
+        } else {
+          if ( data.falseRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to false :" + data.falseTransformName + " : " + getInputRowMeta().getString( r ) );
+            }
+            falseRows[ falseCount++ ] = r;
           }
-          putRowTo( data.outputRowMeta, r, data.falseRowSet );
         }
       }
+      putRowsTo( data.outputRowMeta, trueRows, trueCount, data.trueRowSet );
+      putRowsTo( data.outputRowMeta, falseRows, falseCount, data.falseRowSet );
     }
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    if ( checkFeedback( linesBefore, getLinesRead() ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
       }
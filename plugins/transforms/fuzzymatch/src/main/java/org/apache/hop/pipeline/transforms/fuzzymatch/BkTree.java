@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A Burkhard-Keller tree over strings using the Levenshtein distance. Every child of a node is at a known distance
+ * from the node so, thanks to the triangle inequality, a search for values within a maximum distance only has to
+ * visit the children at a distance close to the distance of the searched value.
+ * <p>
+ * Only usable for true metrics: the optimal string alignment variant of Damerau-Levenshtein doesn't respect the
+ * triangle inequality.
+ */
+public class BkTree {
+
+  private static class Node {
+    private final String value;
+    private int[] entries = new int[ 1 ];
+    private int nrEntries;
+    private int[] childDistances = new int[ 0 ];
+    private Node[] children = new Node[ 0 ];
+
+    Node( String value, int entry ) {
+      this.value = value;
+      addEntry( entry );
+    }
+
+    void addEntry( int entry ) {
+      if ( nrEntries == entries.length ) {
+        entries = Arrays.copyOf( entries, nrEntries * 2 );
+      }
+      entries[ nrEntries++ ] = entry;
+    }
+
+    Node getChild( int distance ) {
+      for ( int i = 0; i < childDistances.length; i++ ) {
+        if ( childDistances[ i ] == distance ) {
+          return children[ i ];
+        }
+      }
+      return null;
+    }
+
+    void addChild( int distance, Node child ) {
+      childDistances = Arrays.copyOf( childDistances, childDistances.length + 1 );
+      children = Arrays.copyOf( children, children.length + 1 );
+      childDistances[ childDistances.length - 1 ] = distance;
+      children[ children.length - 1 ] = child;
+    }
+  }
+
+  /**
+   * Receives the entries found by a search.
+   */
+  public interface IMatchListener {
+    void match( int entry, int distance );
+  }
+
+  private Node root;
+  private int size;
+
+  /**
+   * Add a value to the tree.
+   *
+   * @param value the value
+   * @param entry the number of the entry holding the value, values added more than once keep all their entries
+   */
+  public void add( String value, int entry ) {
+    size++;
+    if ( root == null ) {
+      root = new Node( value, entry );
+      return;
+    }
+    Node node = root;
+    while ( true ) {
+      int distance = StringUtils.getLevenshteinDistance( node.value, value );
+      if ( distance == 0 ) {
+        node.addEntry( entry );
+        return;
+      }
+      Node child = node.getChild( distance );
+      if ( child == null ) {
+        node.addChild( distance, new Node( value, entry ) );
+        return;
+      }
+      node = child;
+    }
+  }
+
+  /**
+   * Find all entries with a value within the given distance range of a value.
+   *
+   * @param value       the value to search for
+   * @param minDistance the minimal distance
+   * @param maxDistance the maximal distance
+   * @param listener    receives the matching entries with their distance
+   */
+  public void search( String value, int minDistance, int maxDistance, IMatchListener listener ) {
+    if ( root == null || maxDistance < 0 ) {
+      return;
+    }
+    Deque<Node> nodes = new ArrayDeque<>();
+    nodes.push( root );
+    while ( !nodes.isEmpty() ) {
+      Node node = nodes.pop();
+      int distance = StringUtils.getLevenshteinDistance( node.value, value );
+      if ( minDistance <= distance && distance <= maxDistance ) {
+        for ( int i = 0; i < node.nrEntries; i++ ) {
+          listener.match( node.entries[ i ], distance );
+        }
+      }
+      for ( int i = 0; i < node.childDistances.length; i++ ) {
+        int childDistance = node.childDistances[ i ];
+        if ( distance - maxDistance <= childDistance && childDistance <= distance + maxDistance ) {
+          nodes.push( node.children[ i ] );
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of values in the tree
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -42,7 +42,12 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
 /**
  * Performs a fuzzy match for each main stream field row An approximative match is done in a lookup stream
@@ -53,6 +58,11 @@ import java.util.Iterator;
 public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> implements ITransform<FuzzyMatchMeta, FuzzyMatchData> {
   private static final Class<?> PKG = FuzzyMatchMeta.class; // For Translator
 
+  /**
+   * The minimal number of lookup values a thread compares with a row
+   */
+  private static final int MIN_ENTRIES_PER_THREAD = 1000;
+
   public FuzzyMatch( TransformMeta transformMeta, FuzzyMatchMeta meta, FuzzyMatchData data, int copyNr, PipelineMeta pipelineMeta,
                      Pipeline pipeline ) {
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
@@ -158,6 +168,24 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
     return true;
   }
 
+  /**
+   * Index the lookup values so that the rows only need to be compared with the lookup values that can match
+   */
+  private void buildIndex() {
+    final int algorithmType = meta.getAlgorithmType();
+    boolean lowerCase = !meta.isCaseSensitive()
+      && ( algorithmType == FuzzyMatchMeta.OPERATION_TYPE_LEVENSHTEIN
+      || algorithmType == FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN
+      || algorithmType == FuzzyMatchMeta.OPERATION_TYPE_NEEDLEMAN_WUNSH );
+
+    String[] keys = new String[ data.look.size() ];
+    for ( int i = 0; i < keys.length; i++ ) {
+      String cacheValue = (String) data.look.get( i )[ 0 ];
+      keys[ i ] = lowerCase ? cacheValue.toLowerCase() : cacheValue;
+    }
+    data.index = new FuzzyMatchIndex( algorithmType, keys, value -> getEncodedMF( value, algorithmType ) );
+  }
+
   private Object[] lookupValues( IRowMeta rowMeta, Object[] row ) throws HopException {
     if ( first ) {
       first = false;
@@ -231,67 +259,61 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
     // Reserve room
     Object[] rowData = buildEmptyRow();
 
-    Iterator<Object[]> it = data.look.iterator();
-
     long distance = -1;
 
     // Object o=row[data.indexOfMainField];
     String lookupvalue = getInputRowMeta().getString( row, data.indexOfMainField );
+    final boolean caseSensitive = meta.isCaseSensitive();
+    final String uselookupvalue = caseSensitive ? lookupvalue : lookupvalue.toLowerCase();
+
+    // Only compare with the lookup values the index can't rule out
+    //
+    FuzzyMatchScores matches;
+    if ( data.index != null && data.index.hasBkTree() ) {
+      matches = new FuzzyMatchScores();
+      data.index.searchDistance( uselookupvalue, data.minimalDistance, data.maximalDistance, matches::add );
+      matches.sortByEntry();
+    } else {
+      int[] candidates = data.index == null ? null : data.index.getDistanceCandidates( uselookupvalue, data.maximalDistance );
+      final int algorithmType = meta.getAlgorithmType();
+      matches = score( candidates, () -> createDistanceScorer( algorithmType, caseSensitive, uselookupvalue ),
+        data.minimalDistance, data.maximalDistance );
+    }
 
-    while ( it.hasNext() ) {
+    for ( int m = 0; m < matches.size(); m++ ) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = data.look.get( matches.getEntry( m ) );
       // Key value is the first value
       String cacheValue = (String) cachedData[ 0 ];
 
-      int cdistance = -1;
-      String usecacheValue = cacheValue;
-      String uselookupvalue = lookupvalue;
-      if ( !meta.isCaseSensitive() ) {
-        usecacheValue = cacheValue.toLowerCase();
-        uselookupvalue = lookupvalue.toLowerCase();
-      }
-
-      switch ( meta.getAlgorithmType() ) {
-        case FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN:
-          cdistance = Utils.getDamerauLevenshteinDistance( usecacheValue, uselookupvalue );
-          break;
-        case FuzzyMatchMeta.OPERATION_TYPE_NEEDLEMAN_WUNSH:
-          cdistance = Math.abs( (int) new NeedlemanWunsch().score( usecacheValue, uselookupvalue ) );
-          break;
-        default:
-          cdistance = StringUtils.getLevenshteinDistance( usecacheValue, uselookupvalue );
-          break;
-      }
-
-      if ( data.minimalDistance <= cdistance && cdistance <= data.maximalDistance ) {
-        if ( meta.isGetCloserValue() ) {
-          if ( cdistance < distance || distance == -1 ) {
-            // Get closer value
-            // minimal distance
-            distance = cdistance;
-            int index = 0;
-            rowData[ index++ ] = cacheValue;
-            // Add metric value?
-            if ( data.addValueFieldName ) {
-              rowData[ index++ ] = distance;
-            }
-            // Add additional return values?
-            if ( data.addAdditionalFields ) {
-              for ( int i = 0; i < meta.getValue().length; i++ ) {
-                int nr = i + 1;
-                int nf = i + index;
-                rowData[ nf ] = cachedData[ nr ];
-              }
+      int cdistance = (int) matches.getScore( m );
+
+      if ( meta.isGetCloserValue() ) {
+        if ( cdistance < distance || distance == -1 ) {
+          // Get closer value
+          // minimal distance
+          distance = cdistance;
+          int index = 0;
+          rowData[ index++ ] = cacheValue;
+          // Add metric value?
+          if ( data.addValueFieldName ) {
+            rowData[ index++ ] = distance;
+          }
+          // Add additional return values?
+          if ( data.addAdditionalFields ) {
+            for ( int i = 0; i < meta.getValue().length; i++ ) {
+              int nr = i + 1;
+              int nf = i + index;
+              rowData[ nf ] = cachedData[ nr ];
             }
           }
+        }
+      } else {
+        // get all values separated by values separator
+        if ( rowData[ 0 ] == null ) {
+          rowData[ 0 ] = cacheValue;
         } else {
-          // get all values separated by values separator
-          if ( rowData[ 0 ] == null ) {
-            rowData[ 0 ] = cacheValue;
-          } else {
-            rowData[ 0 ] = (String) rowData[ 0 ] + data.valueSeparator + cacheValue;
-          }
+          rowData[ 0 ] = (String) rowData[ 0 ] + data.valueSeparator + cacheValue;
         }
       }
     }
@@ -299,49 +321,82 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
     return rowData;
   }
 
+  /**
+   * Creates a scorer calculating the distance between a lookup value and the main stream value. Every thread gets its
+   * own scorer.
+   */
+  private IEntryScorer createDistanceScorer( int algorithmType, boolean caseSensitive, String lookupValue ) {
+    switch ( algorithmType ) {
+      case FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN:
+        return entry -> Utils.getDamerauLevenshteinDistance( getDistanceKey( entry, caseSensitive ), lookupValue );
+      case FuzzyMatchMeta.OPERATION_TYPE_NEEDLEMAN_WUNSH:
+        NeedlemanWunsch needlemanWunsch = new NeedlemanWunsch();
+        return entry -> Math.abs( (int) needlemanWunsch.score( getDistanceKey( entry, caseSensitive ), lookupValue ) );
+      default:
+        return entry -> StringUtils.getLevenshteinDistance( getDistanceKey( entry, caseSensitive ), lookupValue );
+    }
+  }
+
+  private String getDistanceKey( int entry, boolean caseSensitive ) {
+    if ( data.index != null ) {
+      return data.index.getKey( entry );
+    }
+    String cacheValue = (String) data.look.get( entry )[ 0 ];
+    return caseSensitive ? cacheValue : cacheValue.toLowerCase();
+  }
+
   private Object[] doPhonetic( Object[] row ) {
     // Reserve room
     Object[] rowData = buildEmptyRow();
 
-    Iterator<Object[]> it = data.look.iterator();
-
     Object o = row[ data.indexOfMainField ];
     String lookupvalue = (String) o;
 
     String lookupValueMF = getEncodedMF( lookupvalue, meta.getAlgorithmType() );
 
-    while ( it.hasNext() ) {
-      // Get cached row data
-      Object[] cachedData = it.next();
+    if ( data.index != null && data.index.hasEncodedIndex() ) {
+      // The last lookup value with the same code wins
+      //
+      int[] entries = data.index.getEncodedCandidates( lookupValueMF );
+      if ( entries.length > 0 ) {
+        setPhoneticMatch( rowData, data.look.get( entries[ entries.length - 1 ] ), lookupValueMF );
+      }
+      return rowData;
+    }
+
+    for ( Object[] cachedData : data.look ) {
       // Key value is the first value
       String cacheValue = (String) cachedData[ 0 ];
 
       String cacheValueMF = getEncodedMF( cacheValue, meta.getAlgorithmType() );
 
       if ( lookupValueMF.equals( cacheValueMF ) ) {
-
-        // Add match value
-        int index = 0;
-        rowData[ index++ ] = cacheValue;
-
-        // Add metric value?
-        if ( data.addValueFieldName ) {
-          rowData[ index++ ] = cacheValueMF;
-        }
-        // Add additional return values?
-        if ( data.addAdditionalFields ) {
-          for ( int i = 0; i < meta.getValue().length; i++ ) {
-            int nf = i + index;
-            int nr = i + 1;
-            rowData[ nf ] = cachedData[ nr ];
-          }
-        }
+        setPhoneticMatch( rowData, cachedData, cacheValueMF );
       }
     }
 
     return rowData;
   }
 
+  private void setPhoneticMatch( Object[] rowData, Object[] cachedData, String cacheValueMF ) {
+    // Add match value
+    int index = 0;
+    rowData[ index++ ] = cachedData[ 0 ];
+
+    // Add metric value?
+    if ( data.addValueFieldName ) {
+      rowData[ index++ ] = cacheValueMF;
+    }
+    // Add additional return values?
+    if ( data.addAdditionalFields ) {
+      for ( int i = 0; i < meta.getValue().length; i++ ) {
+        int nf = i + index;
+        int nr = i + 1;
+        rowData[ nf ] = cachedData[ nr ];
+      }
+    }
+  }
+
   private String getEncodedMF( String value, Integer algorithmType ) {
     String encodedValueMF = "";
     switch ( algorithmType ) {
@@ -367,64 +422,54 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
 
     // Reserve room
     Object[] rowData = buildEmptyRow();
-    // prepare to read from cache ...
-    Iterator<Object[]> it = data.look.iterator();
     double similarity = 0;
 
     // get current value from main stream
     Object o = row[ data.indexOfMainField ];
 
-    String lookupvalue = o == null ? "" : (String) o;
+    final String lookupvalue = o == null ? "" : (String) o;
 
-    while ( it.hasNext() ) {
+    // Only compare with the lookup values the index can't rule out
+    //
+    int[] candidates = data.index == null ? null : data.index.getSimilarityCandidates( lookupvalue, data.minimalSimilarity );
+    final int algorithmType = meta.getAlgorithmType();
+    FuzzyMatchScores matches = score( candidates, () -> createSimilarityScorer( algorithmType, lookupvalue ),
+      data.minimalSimilarity, data.maximalSimilarity );
+
+    for ( int m = 0; m < matches.size(); m++ ) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = data.look.get( matches.getEntry( m ) );
       // Key value is the first value
       String cacheValue = (String) cachedData[ 0 ];
 
-      double csimilarity = new Double( 0 );
-
-      switch ( meta.getAlgorithmType() ) {
-        case FuzzyMatchMeta.OPERATION_TYPE_JARO:
-          csimilarity = new Jaro().score( cacheValue, lookupvalue );
-          break;
-        case FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER:
-          csimilarity = new JaroWinkler().score( cacheValue, lookupvalue );
-          break;
-        default:
-          // Letters pair similarity
-          csimilarity = LetterPairSimilarity.getSimiliarity( cacheValue, lookupvalue );
-          break;
-      }
-
-      if ( data.minimalSimilarity <= csimilarity && csimilarity <= data.maximalSimilarity ) {
-        if ( meta.isGetCloserValue() ) {
-          if ( csimilarity > similarity || ( csimilarity == 0 && cacheValue.equals( lookupvalue ) ) ) {
-            similarity = csimilarity;
-            // Update match value
-            int index = 0;
-            rowData[ index++ ] = cacheValue;
-            // Add metric value?
-            if ( data.addValueFieldName ) {
-              rowData[ index++ ] = new Double( similarity );
-            }
+      double csimilarity = matches.getScore( m );
+
+      if ( meta.isGetCloserValue() ) {
+        if ( csimilarity > similarity || ( csimilarity == 0 && cacheValue.equals( lookupvalue ) ) ) {
+          similarity = csimilarity;
+          // Update match value
+          int index = 0;
+          rowData[ index++ ] = cacheValue;
+          // Add metric value?
+          if ( data.addValueFieldName ) {
+            rowData[ index++ ] = new Double( similarity );
+          }
 
-            // Add additional return values?
-            if ( data.addAdditionalFields ) {
-              for ( int i = 0; i < meta.getValue().length; i++ ) {
-                int nf = i + index;
-                int nr = i + 1;
-                rowData[ nf ] = cachedData[ nr ];
-              }
+          // Add additional return values?
+          if ( data.addAdditionalFields ) {
+            for ( int i = 0; i < meta.getValue().length; i++ ) {
+              int nf = i + index;
+              int nr = i + 1;
+              rowData[ nf ] = cachedData[ nr ];
             }
           }
+        }
+      } else {
+        // get all values separated by values separator
+        if ( rowData[ 0 ] == null ) {
+          rowData[ 0 ] = cacheValue;
         } else {
-          // get all values separated by values separator
-          if ( rowData[ 0 ] == null ) {
-            rowData[ 0 ] = cacheValue;
-          } else {
-            rowData[ 0 ] = (String) rowData[ 0 ] + data.valueSeparator + cacheValue;
-          }
+          rowData[ 0 ] = (String) rowData[ 0 ] + data.valueSeparator + cacheValue;
         }
       }
     }
@@ -432,6 +477,129 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
     return rowData;
   }
 
+  /**
+   * Creates a scorer calculating the similarity between a lookup value and the main stream value. Every thread gets
+   * its own scorer.
+   */
+  private IEntryScorer createSimilarityScorer( int algorithmType, String lookupValue ) {
+    switch ( algorithmType ) {
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO:
+        Jaro jaro = new Jaro();
+        return entry -> jaro.score( (String) data.look.get( entry )[ 0 ], lookupValue );
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER:
+        JaroWinkler jaroWinkler = new JaroWinkler();
+        return entry -> jaroWinkler.score( (String) data.look.get( entry )[ 0 ], lookupValue );
+      default:
+        // Letters pair similarity
+        return entry -> LetterPairSimilarity.getSimiliarity( (String) data.look.get( entry )[ 0 ], lookupValue );
+    }
+  }
+
+  /**
+   * Scores the candidate lookup values and keeps the ones with a score within the range. Large numbers of candidates
+   * are split in chunks which are scored on multiple threads. The result is always in the order of the lookup stream.
+   *
+   * @param candidates    the entries to score in ascending order or null to score all lookup values
+   * @param scorerFactory creates a scorer for every thread
+   * @param minimalScore  the minimal score to keep
+   * @param maximalScore  the maximal score to keep
+   */
+  private FuzzyMatchScores score( int[] candidates, Supplier<IEntryScorer> scorerFactory, double minimalScore,
+                                  double maximalScore ) {
+    int count = candidates == null ? data.look.size() : candidates.length;
+    int nrChunks = Math.min( data.parallelism, count / MIN_ENTRIES_PER_THREAD );
+    if ( nrChunks <= 1 ) {
+      return scoreRange( candidates, 0, count, scorerFactory.get(), minimalScore, maximalScore );
+    }
+
+    List<ForkJoinTask<FuzzyMatchScores>> tasks = new ArrayList<>( nrChunks );
+    for ( int chunk = 0; chunk < nrChunks; chunk++ ) {
+      final int from = (int) ( (long) count * chunk / nrChunks );
+      final int to = (int) ( (long) count * ( chunk + 1 ) / nrChunks );
+      tasks.add( ForkJoinPool.commonPool().submit(
+        () -> scoreRange( candidates, from, to, scorerFactory.get(), minimalScore, maximalScore ) ) );
+    }
+    FuzzyMatchScores scores = new FuzzyMatchScores();
+    for ( ForkJoinTask<FuzzyMatchScores> task : tasks ) {
+      scores.addAll( task.join() );
+    }
+    return scores;
+  }
+
+  private static FuzzyMatchScores scoreRange( int[] candidates, int from, int to, IEntryScorer scorer,
+                                              double minimalScore, double maximalScore ) {
+    FuzzyMatchScores scores = new FuzzyMatchScores();
+    for ( int i = from; i < to; i++ ) {
+      int entry = candidates == null ? i : candidates[ i ];
+      double score = scorer.score( entry );
+      if ( minimalScore <= score && score <= maximalScore ) {
+        scores.add( entry, score );
+      }
+    }
+    return scores;
+  }
+
+  /**
+   * Calculates the distance or similarity between the main stream value and a lookup value
+   */
+  private interface IEntryScorer {
+    double score( int entry );
+  }
+
+  /**
+   * The lookup values within range with their score, in the order of the lookup stream
+   */
+  private static class FuzzyMatchScores {
+    private int[] entries = new int[ 16 ];
+    private double[] scores = new double[ 16 ];
+    private int size;
+
+    void add( int entry, double score ) {
+      if ( size == entries.length ) {
+        entries = Arrays.copyOf( entries, size * 2 );
+        scores = Arrays.copyOf( scores, size * 2 );
+      }
+      entries[ size ] = entry;
+      scores[ size ] = score;
+      size++;
+    }
+
+    void addAll( FuzzyMatchScores other ) {
+      for ( int i = 0; i < other.size; i++ ) {
+        add( other.entries[ i ], other.scores[ i ] );
+      }
+    }
+
+    void sortByEntry() {
+      long[] sorted = new long[ size ];
+      for ( int i = 0; i < size; i++ ) {
+        sorted[ i ] = ( (long) entries[ i ] << 32 ) | i;
+      }
+      Arrays.sort( sorted );
+      int[] sortedEntries = new int[ entries.length ];
+      double[] sortedScores = new double[ scores.length ];
+      for ( int i = 0; i < size; i++ ) {
+        int from = (int) sorted[ i ];
+        sortedEntries[ i ] = entries[ from ];
+        sortedScores[ i ] = scores[ from ];
+      }
+      entries = sortedEntries;
+      scores = sortedScores;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int getEntry( int index ) {
+      return entries[ index ];
+    }
+
+    double getScore( int index ) {
+      return scores[ index ];
+    }
+  }
+
   /**
    * Build an empty row based on the meta-data...
    *
@@ -459,6 +627,7 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
       if ( isDetailed() ) {
         logDetailed( BaseMessages.getString( PKG, "FuzzyMatch.Log.ReadValuesInMemory", data.look.size() ) );
       }
+      buildIndex();
     }
 
     Object[] r = getRow(); // Get row from input rowset & set row busy!
@@ -595,6 +764,13 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
           break;
       }
 
+      // Compare with many lookup values on multiple threads
+      //
+      data.parallelism = Const.toInt( getVariable( Const.HOP_FUZZY_MATCH_PARALLELISM ), 0 );
+      if ( data.parallelism <= 0 ) {
+        data.parallelism = Runtime.getRuntime().availableProcessors();
+      }
+
       data.readLookupValues = true;
 
       return true;
@@ -604,6 +780,7 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> im
 
   public void dispose(){
     data.look.clear();
+    data.index = null;
     super.dispose();
   }
 
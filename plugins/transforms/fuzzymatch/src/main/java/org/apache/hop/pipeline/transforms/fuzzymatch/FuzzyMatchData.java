@@ -22,7 +22,8 @@ import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 import org.apache.hop.pipeline.transform.errorhandling.IStream;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Samatar
@@ -35,7 +36,17 @@ public class FuzzyMatchData extends BaseTransformData implements ITransformData
   /**
    * used to store values in used to look up things
    */
-  public HashSet<Object[]> look;
+  public List<Object[]> look;
+
+  /**
+   * index on the lookup values, built once they are all read
+   */
+  public FuzzyMatchIndex index;
+
+  /**
+   * the number of threads comparing a row with the lookup values
+   */
+  public int parallelism;
 
   public boolean readLookupValues;
 
@@ -70,7 +81,7 @@ public class FuzzyMatchData extends BaseTransformData implements ITransformData
 
   public FuzzyMatchData() {
     super();
-    this.look = new HashSet<>();
+    this.look = new ArrayList<>();
     this.indexOfMainField = -1;
     this.addValueFieldName = false;
     this.valueSeparator = "";
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Indexes the lookup values of the Fuzzy match transform so that a row doesn't have to be compared with every single
+ * lookup value. Which index is built depends on the algorithm:
+ * <ul>
+ * <li>Levenshtein: a {@link BkTree} which finds the values within the maximal distance directly</li>
+ * <li>Damerau-Levenshtein: a length filter, a value can't be closer than the difference in length</li>
+ * <li>Jaro and Jaro-Winkler: a length filter derived from the minimal similarity</li>
+ * <li>Pair letters similarity: an inverted index on the letter pairs, only values sharing a pair can be similar</li>
+ * <li>Phonetic algorithms: the lookup values grouped by their encoded value</li>
+ * </ul>
+ * All methods returning candidates return the entry numbers in ascending order, the order of the lookup stream, or
+ * null when every entry is a candidate.
+ */
+public class FuzzyMatchIndex {
+
+  private final int algorithmType;
+  private final String[] keys;
+
+  private BkTree bkTree;
+
+  private int[] entriesByLength;
+  private int[] sortedLengths;
+
+  private Map<String, int[]> pairPostings;
+  private int[] pairCounts;
+  private int[] marks;
+  private int mark;
+
+  private Map<String, int[]> encodedEntries;
+
+  /**
+   * @param algorithmType The algorithm, one of the FuzzyMatchMeta.OPERATION_TYPE_ constants
+   * @param keys          The lookup values, already in lower case for case insensitive distances
+   * @param encoder       Encodes a lookup value for the phonetic algorithms
+   */
+  public FuzzyMatchIndex( int algorithmType, String[] keys, Function<String, String> encoder ) {
+    this.algorithmType = algorithmType;
+    this.keys = keys;
+
+    switch ( algorithmType ) {
+      case FuzzyMatchMeta.OPERATION_TYPE_LEVENSHTEIN:
+        bkTree = new BkTree();
+        for ( int i = 0; i < keys.length; i++ ) {
+          bkTree.add( keys[ i ], i );
+        }
+        break;
+      case FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN:
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO:
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER:
+        buildLengthIndex();
+        break;
+      case FuzzyMatchMeta.OPERATION_TYPE_PAIR_SIMILARITY:
+        buildPairIndex();
+        break;
+      case FuzzyMatchMeta.OPERATION_TYPE_METAPHONE:
+      case FuzzyMatchMeta.OPERATION_TYPE_DOUBLE_METAPHONE:
+      case FuzzyMatchMeta.OPERATION_TYPE_SOUNDEX:
+      case FuzzyMatchMeta.OPERATION_TYPE_REFINED_SOUNDEX:
+        buildEncodedIndex( encoder );
+        break;
+      default:
+        // Needleman-Wunsch doesn't allow any pruning
+        break;
+    }
+  }
+
+  private void buildLengthIndex() {
+    Integer[] sorted = new Integer[ keys.length ];
+    for ( int i = 0; i < sorted.length; i++ ) {
+      sorted[ i ] = i;
+    }
+    // A stable sort keeps the entries of the same length in order
+    Arrays.sort( sorted, ( a, b ) -> Integer.compare( keys[ a ].length(), keys[ b ].length() ) );
+    entriesByLength = new int[ sorted.length ];
+    sortedLengths = new int[ sorted.length ];
+    for ( int i = 0; i < sorted.length; i++ ) {
+      entriesByLength[ i ] = sorted[ i ];
+      sortedLengths[ i ] = keys[ sorted[ i ] ].length();
+    }
+  }
+
+  private void buildPairIndex() {
+    Map<String, IntList> postings = new HashMap<>();
+    pairCounts = new int[ keys.length ];
+    for ( int i = 0; i < keys.length; i++ ) {
+      List<String> pairs = LetterPairSimilarity.wordLetterPairs( keys[ i ].toUpperCase() );
+      pairCounts[ i ] = pairs.size();
+      for ( String pair : pairs ) {
+        postings.computeIfAbsent( pair, p -> new IntList() ).addDistinct( i );
+      }
+    }
+    pairPostings = new HashMap<>( postings.size() * 2 );
+    for ( Map.Entry<String, IntList> entry : postings.entrySet() ) {
+      pairPostings.put( entry.getKey(), entry.getValue().toArray() );
+    }
+    marks = new int[ keys.length ];
+  }
+
+  private void buildEncodedIndex( Function<String, String> encoder ) {
+    Map<String, IntList> encoded = new HashMap<>();
+    for ( int i = 0; i < keys.length; i++ ) {
+      String code = encoder.apply( keys[ i ] );
+      if ( code != null ) {
+        encoded.computeIfAbsent( code, c -> new IntList() ).add( i );
+      }
+    }
+    encodedEntries = new HashMap<>( encoded.size() * 2 );
+    for ( Map.Entry<String, IntList> entry : encoded.entrySet() ) {
+      encodedEntries.put( entry.getKey(), entry.getValue().toArray() );
+    }
+  }
+
+  /**
+   * @return true if the Levenshtein distances can be looked up in a BK-tree
+   */
+  public boolean hasBkTree() {
+    return bkTree != null;
+  }
+
+  /**
+   * Find the entries with a Levenshtein distance within a range.
+   */
+  public void searchDistance( String value, int minDistance, int maxDistance, BkTree.IMatchListener listener ) {
+    bkTree.search( value, minDistance, maxDistance, listener );
+  }
+
+  /**
+   * @return The entries which can be within the maximal distance of the value or null if they all can
+   */
+  public int[] getDistanceCandidates( String value, int maxDistance ) {
+    if ( entriesByLength == null || algorithmType != FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN ) {
+      return null;
+    }
+    // Every edit changes the length by at most one
+    return getLengthRange( value.length() - maxDistance, value.length() + maxDistance );
+  }
+
+  /**
+   * @return The entries which can have at least the minimal similarity with the value or null if they all can
+   */
+  public int[] getSimilarityCandidates( String value, double minSimilarity ) {
+    if ( minSimilarity <= 0 || value.isEmpty() ) {
+      return null;
+    }
+    switch ( algorithmType ) {
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO:
+        return getJaroCandidates( value, minSimilarity );
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER:
+        // Winkler adds at most 4 times 0.1 of the remaining distance for a common prefix
+        return getJaroCandidates( value, ( minSimilarity - 0.4 ) / 0.6 );
+      case FuzzyMatchMeta.OPERATION_TYPE_PAIR_SIMILARITY:
+        return getPairCandidates( value, minSimilarity );
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The Jaro similarity is at most (2 + shortest length / longest length) / 3
+   */
+  private int[] getJaroCandidates( String value, double minJaro ) {
+    double minRatio = 3 * minJaro - 2 - 1e-9;
+    if ( minRatio <= 0 ) {
+      return null;
+    }
+    int length = value.length();
+    int minLength = (int) Math.ceil( length * minRatio );
+    int maxLength = (int) Math.floor( length / minRatio );
+    return getLengthRange( Math.max( 1, minLength ), maxLength );
+  }
+
+  private int[] getLengthRange( int minLength, int maxLength ) {
+    int from = lowerBound( minLength );
+    int to = lowerBound( maxLength + 1 );
+    if ( from == 0 && to == sortedLengths.length ) {
+      return null;
+    }
+    int[] candidates = Arrays.copyOfRange( entriesByLength, from, Math.max( from, to ) );
+    Arrays.sort( candidates );
+    return candidates;
+  }
+
+  private int lowerBound( int length ) {
+    int low = 0;
+    int high = sortedLengths.length;
+    while ( low < high ) {
+      int middle = ( low + high ) >>> 1;
+      if ( sortedLengths[ middle ] < length ) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * The pair similarity is 2 * common pairs / (number of pairs of both values). A value needs to share at least one pair
+   * with the searched value and can't share more pairs than it has.
+   */
+  private int[] getPairCandidates( String value, double minSimilarity ) {
+    List<String> pairs = LetterPairSimilarity.wordLetterPairs( value.toUpperCase() );
+    int nrPairs = pairs.size();
+    if ( nrPairs == 0 ) {
+      return null;
+    }
+    if ( ++mark == 0 ) {
+      Arrays.fill( marks, 0 );
+      mark = 1;
+    }
+    IntList candidates = new IntList();
+    Set<String> distinctPairs = new HashSet<>( pairs );
+    for ( String pair : distinctPairs ) {
+      int[] entries = pairPostings.get( pair );
+      if ( entries == null ) {
+        continue;
+      }
+      for ( int entry : entries ) {
+        if ( marks[ entry ] == mark ) {
+          continue;
+        }
+        marks[ entry ] = mark;
+        int entryPairs = pairCounts[ entry ];
+        double maxSimilarity = ( 2.0 * Math.min( nrPairs, entryPairs ) ) / ( nrPairs + entryPairs );
+        if ( maxSimilarity >= minSimilarity - 1e-9 ) {
+          candidates.add( entry );
+        }
+      }
+    }
+    int[] result = candidates.toArray();
+    Arrays.sort( result );
+    return result;
+  }
+
+  /**
+   * @return The entries with the given phonetic code, in the order of the lookup stream
+   */
+  public int[] getEncodedCandidates( String code ) {
+    if ( code == null ) {
+      return new int[ 0 ];
+    }
+    int[] entries = encodedEntries.get( code );
+    return entries == null ? new int[ 0 ] : entries;
+  }
+
+  /**
+   * @return true if the phonetic codes of the lookup values are indexed
+   */
+  public boolean hasEncodedIndex() {
+    return encodedEntries != null;
+  }
+
+  /**
+   * @param entry the entry number
+   * @return the indexed value of the entry
+   */
+  public String getKey( int entry ) {
+    return keys[ entry ];
+  }
+
+  /**
+   * @return the number of indexed entries
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  private static class IntList {
+    private int[] values = new int[ 4 ];
+    private int size;
+
+    void add( int value ) {
+      if ( size == values.length ) {
+        values = Arrays.copyOf( values, size * 2 );
+      }
+      values[ size++ ] = value;
+    }
+
+    /**
+     * Entries are added in ascending order, so a duplicate is always the last value
+     */
+    void addDistinct( int value ) {
+      if ( size == 0 || values[ size - 1 ] != value ) {
+        add( value );
+      }
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf( values, size );
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import com.wcohen.ss.Jaro;
+import com.wcohen.ss.JaroWinkler;
+import org.apache.commons.codec.language.Soundex;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hop.core.util.Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FuzzyMatchIndexTest {
+
+  private static final String[] WORDS = { "main", "street", "road", "avenue", "church", "lane", "park", "station",
+    "high", "mill", "north", "south", "west", "east", "hill", "green", "new", "old", "kings", "queens" };
+
+  private static String[] createValues( int count, long seed ) {
+    Random random = new Random( seed );
+    String[] values = new String[ count ];
+    for ( int i = 0; i < count; i++ ) {
+      StringBuilder value = new StringBuilder();
+      int nrWords = 1 + random.nextInt( 3 );
+      for ( int w = 0; w < nrWords; w++ ) {
+        if ( w > 0 ) {
+          value.append( ' ' );
+        }
+        String word = WORDS[ random.nextInt( WORDS.length ) ];
+        if ( random.nextInt( 4 ) == 0 ) {
+          // a typo
+          int position = random.nextInt( word.length() );
+          word = word.substring( 0, position ) + (char) ( 'a' + random.nextInt( 26 ) ) + word.substring( position + 1 );
+        }
+        value.append( word );
+      }
+      values[ i ] = value.toString();
+    }
+    return values;
+  }
+
+  @Test
+  public void testBkTreeFindsAllWithinDistance() {
+    String[] values = createValues( 2000, 1L );
+    FuzzyMatchIndex index = new FuzzyMatchIndex( FuzzyMatchMeta.OPERATION_TYPE_LEVENSHTEIN, values, null );
+    assertTrue( index.hasBkTree() );
+
+    for ( String query : createValues( 50, 2L ) ) {
+      List<Integer> expected = new ArrayList<>();
+      for ( int i = 0; i < values.length; i++ ) {
+        int distance = StringUtils.getLevenshteinDistance( values[ i ], query );
+        if ( 1 <= distance && distance <= 3 ) {
+          expected.add( i );
+        }
+      }
+      List<Integer> found = new ArrayList<>();
+      index.searchDistance( query, 1, 3, ( entry, distance ) -> {
+        assertEquals( StringUtils.getLevenshteinDistance( values[ entry ], query ), distance );
+        found.add( entry );
+      } );
+      found.sort( Integer::compareTo );
+      assertEquals( expected, found );
+    }
+  }
+
+  @Test
+  public void testDamerauLengthFilter() {
+    String[] values = createValues( 2000, 3L );
+    FuzzyMatchIndex index = new FuzzyMatchIndex( FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN, values, null );
+    for ( String query : createValues( 50, 4L ) ) {
+      int[] candidates = index.getDistanceCandidates( query, 2 );
+      assertSorted( candidates );
+      for ( int i = 0; i < values.length; i++ ) {
+        if ( Utils.getDamerauLevenshteinDistance( values[ i ], query ) <= 2 ) {
+          assertTrue( values[ i ] + " / " + query, candidates == null || Arrays.binarySearch( candidates, i ) >= 0 );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPairCandidates() {
+    assertCandidates( FuzzyMatchMeta.OPERATION_TYPE_PAIR_SIMILARITY, 0.6, LetterPairSimilarity::getSimiliarity );
+  }
+
+  @Test
+  public void testJaroCandidates() {
+    Jaro jaro = new Jaro();
+    assertCandidates( FuzzyMatchMeta.OPERATION_TYPE_JARO, 0.8, jaro::score );
+  }
+
+  @Test
+  public void testJaroWinklerCandidates() {
+    JaroWinkler jaroWinkler = new JaroWinkler();
+    assertCandidates( FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER, 0.9, jaroWinkler::score );
+  }
+
+  @Test
+  public void testNoPruningWithoutMinimalSimilarity() {
+    FuzzyMatchIndex index =
+      new FuzzyMatchIndex( FuzzyMatchMeta.OPERATION_TYPE_PAIR_SIMILARITY, createValues( 10, 5L ), null );
+    assertNull( index.getSimilarityCandidates( "main street", 0 ) );
+  }
+
+  @Test
+  public void testPhoneticIndex() {
+    String[] values = { "Robert", "Rupert", "Rubin", "Robert" };
+    Soundex soundex = new Soundex();
+    FuzzyMatchIndex index = new FuzzyMatchIndex( FuzzyMatchMeta.OPERATION_TYPE_SOUNDEX, values, soundex::encode );
+    assertTrue( index.hasEncodedIndex() );
+    assertArrayEquals( new int[] { 0, 1, 3 }, index.getEncodedCandidates( soundex.encode( "Rob" + "ert" ) ) );
+    assertEquals( 0, index.getEncodedCandidates( soundex.encode( "Smith" ) ).length );
+  }
+
+  private void assertCandidates( int algorithmType, double minimalSimilarity,
+                                 ToDoubleBiFunction<String, String> similarity ) {
+    String[] values = createValues( 2000, 6L );
+    FuzzyMatchIndex index = new FuzzyMatchIndex( algorithmType, values, null );
+    int pruned = 0;
+    for ( String query : createValues( 50, 7L ) ) {
+      int[] candidates = index.getSimilarityCandidates( query, minimalSimilarity );
+      assertSorted( candidates );
+      for ( int i = 0; i < values.length; i++ ) {
+        if ( similarity.applyAsDouble( values[ i ], query ) >= minimalSimilarity ) {
+          assertTrue( values[ i ] + " / " + query, candidates == null || Arrays.binarySearch( candidates, i ) >= 0 );
+        }
+      }
+      if ( candidates != null ) {
+        pruned += values.length - candidates.length;
+      }
+    }
+    assertTrue( pruned > 0 );
+  }
+
+  private static void assertSorted( int[] candidates ) {
+    if ( candidates == null ) {
+      return;
+    }
+    for ( int i = 1; i < candidates.length; i++ ) {
+      assertTrue( candidates[ i - 1 ] < candidates[ i ] );
+    }
+  }
+}
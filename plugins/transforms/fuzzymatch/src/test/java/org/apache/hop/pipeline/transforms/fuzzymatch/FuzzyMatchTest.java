@@ -38,7 +38,6 @@ import org.mockito.InjectMocks;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 
 import static org.mockito.Matchers.any;
@@ -115,7 +114,6 @@ public class FuzzyMatchTest {
     mockHelper.cleanUp();
   }
 
-  @SuppressWarnings( "unchecked" )
   @Test
   public void testProcessRow() throws Exception {
     fuzzyMatch =
@@ -126,8 +124,7 @@ public class FuzzyMatchTest {
     fuzzyMatch.addRowSetToInputRowSets( mockHelper.getMockInputRowSet( lookupRows ) );
 
     when( mockHelper.iTransformMeta.getAlgorithmType() ).thenReturn( 8 );
-    mockHelper.iTransformData.look = mock( HashSet.class );
-    when( mockHelper.iTransformData.look.iterator() ).thenReturn( lookupRows.iterator() );
+    mockHelper.iTransformData.look = lookupRows;
 
     fuzzyMatch.processRow();
     Assert.assertEquals( fuzzyMatch.resultRow[ 0 ], row3[ 0 ] );
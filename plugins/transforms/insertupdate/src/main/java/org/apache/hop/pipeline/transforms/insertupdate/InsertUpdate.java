@@ -19,14 +19,17 @@ package org.apache.hop.pipeline.transforms.insertupdate;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.Result;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.database.MergeStagingTable;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
@@ -171,6 +174,9 @@ public class InsertUpdate extends BaseTransform<InsertUpdateMeta, InsertUpdateDa
     if ( r == null ) {
       // no more input to be expected...
 
+      if ( meta.isSetBased() && !first && !mergeStagedRows() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -246,6 +252,11 @@ public class InsertUpdate extends BaseTransform<InsertUpdateMeta, InsertUpdateDa
         }
       }
 
+      if ( meta.isSetBased() ) {
+        prepareStagingTable( getInputRowMeta() );
+        return stageRow( r );
+      }
+
       setLookup( getInputRowMeta() );
 
       data.insertRowMeta = new RowMeta();
@@ -280,6 +291,10 @@ public class InsertUpdate extends BaseTransform<InsertUpdateMeta, InsertUpdateDa
       }
     }
 
+    if ( meta.isSetBased() ) {
+      return stageRow( r );
+    }
+
     try {
       lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
       putRow( data.outputRowMeta, r ); // Nothing changed to the input, return the same row, pass a "cloned" metadata
@@ -311,6 +326,133 @@ public class InsertUpdate extends BaseTransform<InsertUpdateMeta, InsertUpdateDa
     return true;
   }
 
+  /**
+   * Set up the staging table for set based writes: the key columns first, then the other value columns. Only key
+   * columns compared with "=" can be matched in a join.
+   */
+  private void prepareStagingTable( IRowMeta rowMeta ) throws HopException {
+    IRowMeta stagingRowMeta = new RowMeta();
+    List<Integer> stagingnrs = new ArrayList<>();
+
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      if ( !"=".equals( meta.getKeyCondition()[ i ] ) ) {
+        throw new HopTransformException( BaseMessages.getString( PKG, "InsertUpdate.Exception.SetBasedKeyCondition",
+          meta.getKeyLookup()[ i ], meta.getKeyCondition()[ i ] ) );
+      }
+      addStagingColumn( stagingRowMeta, stagingnrs, rowMeta, meta.getKeyLookup()[ i ], meta.getKeyStream()[ i ] );
+    }
+    int nrKeys = stagingRowMeta.size();
+
+    List<String> updateColumns = new ArrayList<>();
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      String column = meta.getUpdateLookup()[ i ];
+      int index = stagingRowMeta.indexOfValue( column );
+      if ( index >= 0 && index < nrKeys ) {
+        // The key values are the same by definition
+        continue;
+      }
+      addStagingColumn( stagingRowMeta, stagingnrs, rowMeta, column, meta.getUpdateStream()[ i ] );
+      if ( !meta.isUpdateBypassed() && meta.getUpdate()[ i ].booleanValue() ) {
+        updateColumns.add( column );
+      }
+    }
+    data.stagingnrs = ArrayUtils.toPrimitive( stagingnrs.toArray( new Integer[ 0 ] ) );
+
+    String tableName = resolve( meta.getTableName() );
+    String stagingTableName = resolve( meta.getStagingTableName() );
+    if ( Utils.isEmpty( stagingTableName ) ) {
+      // Runs executing at the same time each get their own staging table
+      //
+      stagingTableName = MergeStagingTable.getDefaultStagingTableName( tableName, getLogChannelId() );
+    }
+    data.stagingTable = new MergeStagingTable( data.db, resolve( meta.getSchemaName() ), tableName, stagingTableName,
+      stagingRowMeta, nrKeys, updateColumns.toArray( new String[ 0 ] ), meta.getUpdateLookup() );
+    if ( log.isDetailed() ) {
+      for ( String sql : data.stagingTable.getMergeStatements() ) {
+        logDetailed( "Merging staging table [" + stagingTableName + "] with [" + sql + "]" );
+      }
+    }
+    data.stagingTable.open();
+
+    int commitSize = meta.getCommitSize( this );
+    data.setSize = commitSize > 0 ? commitSize : MergeStagingTable.DEFAULT_SET_SIZE;
+    data.stagedRows = new ArrayList<>( data.setSize );
+  }
+
+  private void addStagingColumn( IRowMeta stagingRowMeta, List<Integer> stagingnrs, IRowMeta rowMeta, String column,
+                                 String field ) throws HopTransformException {
+    if ( stagingRowMeta.indexOfValue( column ) >= 0 ) {
+      // Don't add twice!
+      return;
+    }
+    int fieldnr = rowMeta.indexOfValue( field );
+    if ( fieldnr < 0 ) {
+      throw new HopTransformException( BaseMessages.getString( PKG, "InsertUpdate.Exception.FieldRequired", field ) );
+    }
+    IValueMeta stagingValue = rowMeta.getValueMeta( fieldnr ).clone();
+    stagingValue.setName( column );
+    stagingRowMeta.addValueMeta( stagingValue );
+    stagingnrs.add( fieldnr );
+  }
+
+  private boolean stageRow( Object[] row ) throws HopException {
+    Object[] stagingRow = new Object[ data.stagingnrs.length ];
+    for ( int i = 0; i < data.stagingnrs.length; i++ ) {
+      stagingRow[ i ] = row[ data.stagingnrs[ i ] ];
+    }
+    data.stagingTable.addRow( stagingRow );
+    data.stagedRows.add( row );
+
+    if ( data.stagedRows.size() >= data.setSize ) {
+      return mergeStagedRows();
+    }
+    return true;
+  }
+
+  /**
+   * Merge the staged set into the table and commit. The input rows of the set are passed on when that worked and go to
+   * the error handling when it didn't.
+   */
+  private boolean mergeStagedRows() throws HopException {
+    if ( data.stagedRows.isEmpty() ) {
+      return true;
+    }
+    try {
+      Result result = data.stagingTable.merge();
+      data.db.commit();
+      setLinesUpdated( getLinesUpdated() + result.getNrLinesUpdated() );
+      setLinesOutput( getLinesOutput() + result.getNrLinesOutput() );
+    } catch ( HopException e ) {
+      if ( !data.db.isAutoCommit() ) {
+        data.db.rollback();
+      }
+      if ( !getTransformMeta().isDoingErrorHandling() ) {
+        logError( BaseMessages.getString( PKG, "InsertUpdate.Log.ErrorInTransform" ), e );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+      for ( Object[] row : data.stagedRows ) {
+        putError( getInputRowMeta(), row, 1, e.toString(), null, "ISU001" );
+      }
+      data.stagedRows.clear();
+      return true;
+    }
+
+    for ( Object[] row : data.stagedRows ) {
+      putRow( data.outputRowMeta, row );
+    }
+    data.stagedRows.clear();
+
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.LineNumber" ) + getLinesRead() );
+      }
+    }
+    return true;
+  }
+
   public void setLookup( IRowMeta rowMeta ) throws HopDatabaseException {
     data.lookupParameterRowMeta = new RowMeta();
     data.lookupReturnRowMeta = new RowMeta();
@@ -483,6 +625,9 @@ public class InsertUpdate extends BaseTransform<InsertUpdateMeta, InsertUpdateDa
         }
         data.db.closeUpdate();
         data.db.closeInsert();
+        if ( data.stagingTable != null ) {
+          data.stagingTable.close();
+        }
       } catch ( HopDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToCommitConnection" ) + e.toString() );
         setErrors( 1 );
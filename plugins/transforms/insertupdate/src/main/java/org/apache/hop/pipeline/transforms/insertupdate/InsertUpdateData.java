@@ -19,11 +19,13 @@ package org.apache.hop.pipeline.transforms.insertupdate;
 
 import org.apache.hop.core.annotations.Transform;
 import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.MergeStagingTable;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 
 /**
  * Stores data for the Insert/Update transform.
@@ -48,6 +50,11 @@ public class InsertUpdateData extends BaseTransformData implements ITransformDat
   public IRowMeta lookupReturnRowMeta;
   public IRowMeta insertRowMeta;
 
+  public MergeStagingTable stagingTable; // set based writes only
+  public int[] stagingnrs; // Stream value nrs of the staging table columns
+  public List<Object[]> stagedRows; // Input rows of the set being staged
+  public int setSize;
+
   /**
    * Default constructor.
    */
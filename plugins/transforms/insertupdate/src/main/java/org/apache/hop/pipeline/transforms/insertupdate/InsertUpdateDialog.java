@@ -76,6 +76,10 @@ public class InsertUpdateDialog extends BaseTransformDialog implements ITransfor
 
   private Button wUpdateBypassed;
 
+  private Button wSetBased;
+
+  private TextVar wStagingTable;
+
   private final InsertUpdateMeta input;
 
   private final Map<String, Integer> inputFields;
@@ -239,12 +243,57 @@ public class InsertUpdateDialog extends BaseTransformDialog implements ITransfor
     wUpdateBypassed.setLayoutData(fdUpdateBypassed);
     wUpdateBypassed.addSelectionListener( new ComponentSelectionListener( input ) );
 
+    // SetBased line
+    Label wlSetBased = new Label( shell, SWT.RIGHT );
+    wlSetBased.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.SetBased.Label" ) );
+    wlSetBased.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.SetBased.Tooltip" ) );
+    props.setLook( wlSetBased );
+    FormData fdlSetBased = new FormData();
+    fdlSetBased.left = new FormAttachment( 0, 0 );
+    fdlSetBased.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlSetBased.right = new FormAttachment( middle, -margin );
+    wlSetBased.setLayoutData( fdlSetBased );
+    wSetBased = new Button( shell, SWT.CHECK );
+    wSetBased.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.SetBased.Tooltip" ) );
+    props.setLook( wSetBased );
+    FormData fdSetBased = new FormData();
+    fdSetBased.left = new FormAttachment( middle, 0 );
+    fdSetBased.top = new FormAttachment( wlSetBased, 0, SWT.CENTER );
+    fdSetBased.right = new FormAttachment( 100, 0 );
+    wSetBased.setLayoutData( fdSetBased );
+    wSetBased.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+        wStagingTable.setEnabled( wSetBased.getSelection() );
+      }
+    } );
+
+    // StagingTable line
+    Label wlStagingTable = new Label( shell, SWT.RIGHT );
+    wlStagingTable.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.StagingTable.Label" ) );
+    wlStagingTable.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.StagingTable.Tooltip" ) );
+    props.setLook( wlStagingTable );
+    FormData fdlStagingTable = new FormData();
+    fdlStagingTable.left = new FormAttachment( 0, 0 );
+    fdlStagingTable.top = new FormAttachment( wSetBased, margin );
+    fdlStagingTable.right = new FormAttachment( middle, -margin );
+    wlStagingTable.setLayoutData( fdlStagingTable );
+    wStagingTable = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wStagingTable.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.StagingTable.Tooltip" ) );
+    props.setLook( wStagingTable );
+    wStagingTable.addModifyListener( lsMod );
+    FormData fdStagingTable = new FormData();
+    fdStagingTable.left = new FormAttachment( middle, 0 );
+    fdStagingTable.top = new FormAttachment( wSetBased, margin );
+    fdStagingTable.right = new FormAttachment( 100, 0 );
+    wStagingTable.setLayoutData( fdStagingTable );
+
     Label wlKey = new Label(shell, SWT.NONE);
     wlKey.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.Keys.Label" ) );
     props.setLook(wlKey);
     FormData fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlKey.top = new FormAttachment( wStagingTable, margin );
     wlKey.setLayoutData(fdlKey);
 
     int nrKeyCols = 4;
@@ -391,6 +440,7 @@ public class InsertUpdateDialog extends BaseTransformDialog implements ITransfor
     wSchema.addSelectionListener( lsDef );
     wTable.addSelectionListener( lsDef );
     wCommit.addSelectionListener( lsDef );
+    wStagingTable.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -580,6 +630,9 @@ public class InsertUpdateDialog extends BaseTransformDialog implements ITransfor
 
     wCommit.setText( input.getCommitSizeVar() );
     wUpdateBypassed.setSelection( input.isUpdateBypassed() );
+    wSetBased.setSelection( input.isSetBased() );
+    wStagingTable.setText( Const.NVL( input.getStagingTableName(), "" ) );
+    wStagingTable.setEnabled( input.isSetBased() );
 
     if ( input.getKeyStream() != null ) {
       for ( int i = 0; i < input.getKeyStream().length; i++ ) {
@@ -650,6 +703,8 @@ public class InsertUpdateDialog extends BaseTransformDialog implements ITransfor
 
     inf.setCommitSize( wCommit.getText() );
     inf.setUpdateBypassed( wUpdateBypassed.getSelection() );
+    inf.setSetBased( wSetBased.getSelection() );
+    inf.setStagingTableName( wStagingTable.getText() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "InsertUpdateDialog.Log.FoundKeys", nrkeys + "" ) );
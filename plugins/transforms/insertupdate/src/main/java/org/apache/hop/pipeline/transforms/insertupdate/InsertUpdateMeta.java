@@ -119,6 +119,14 @@ public class InsertUpdateMeta extends BaseTransformMeta
   @Injection(name = "DO_NOT")
   private boolean updateBypassed;
 
+  /** Write the rows in sets through a staging table instead of looking them up one by one */
+  @Injection(name = "SET_BASED")
+  private boolean setBased;
+
+  /** The staging table for set based writes, a table of its own for every run if empty */
+  @Injection(name = "STAGING_TABLE")
+  private String stagingTableName;
+
   @Injection(name = "CONNECTIONNAME")
   public void setConnection(String connectionName) {
     try {
@@ -314,6 +322,8 @@ public class InsertUpdateMeta extends BaseTransformMeta
       tableName = XmlHandler.getTagValue(transformNode, "lookup", "table");
       updateBypassed =
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "update_bypassed"));
+      setBased = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "set_based"));
+      stagingTableName = XmlHandler.getTagValue(transformNode, "staging_table");
 
       Node lookup = XmlHandler.getSubNode(transformNode, "lookup");
       nrkeys = XmlHandler.countNodes(lookup, "key");
@@ -366,6 +376,8 @@ public class InsertUpdateMeta extends BaseTransformMeta
     updateLookup = null;
     databaseMeta = null;
     commitSize = "100";
+    setBased = false;
+    stagingTableName = "";
     schemaName = "";
     tableName = BaseMessages.getString(PKG, "InsertUpdateMeta.DefaultTableName");
 
@@ -398,6 +410,8 @@ public class InsertUpdateMeta extends BaseTransformMeta
                 "connection", databaseMeta == null ? "" : databaseMeta.getName()));
     retval.append("    ").append(XmlHandler.addTagValue("commit", commitSize));
     retval.append("    ").append(XmlHandler.addTagValue("update_bypassed", updateBypassed));
+    retval.append("    ").append(XmlHandler.addTagValue("set_based", setBased));
+    retval.append("    ").append(XmlHandler.addTagValue("staging_table", stagingTableName));
     retval.append("    <lookup>").append(Const.CR);
     retval.append("      ").append(XmlHandler.addTagValue("schema", schemaName));
     retval.append("      ").append(XmlHandler.addTagValue("table", tableName));
@@ -825,6 +839,26 @@ public class InsertUpdateMeta extends BaseTransformMeta
     this.updateBypassed = updateBypassed;
   }
 
+  /** @return true if the rows are written in sets through a staging table */
+  public boolean isSetBased() {
+    return setBased;
+  }
+
+  /** @param setBased true to write the rows in sets through a staging table */
+  public void setSetBased(boolean setBased) {
+    this.setBased = setBased;
+  }
+
+  /** @return The staging table for set based writes, empty for the default */
+  public String getStagingTableName() {
+    return stagingTableName;
+  }
+
+  /** @param stagingTableName The staging table for set based writes, empty for the default */
+  public void setStagingTableName(String stagingTableName) {
+    this.stagingTableName = stagingTableName;
+  }
+
   public IRowMeta getRequiredFields(IVariables variables) throws HopException {
     String realSchemaName = variables.resolve(schemaName);
     String realTableName = variables.resolve(tableName);
@@ -152,7 +152,8 @@ public class InsertUpdateMetaTest {
   public void setUpLoadSave() throws Exception {
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "keyStream", "keyLookup", "keyCondition",
-        "keyStream2", "updateLookup", "updateStream", "update", "commitSize", "updateBypassed" );
+        "keyStream2", "updateLookup", "updateStream", "update", "commitSize", "updateBypassed",
+        "setBased", "stagingTableName" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -168,6 +169,8 @@ public class InsertUpdateMetaTest {
         put( "update", "getUpdate" );
         put( "commitSize", "getCommitSizeVar" );
         put( "updateBypassed", "isUpdateBypassed" );
+        put( "setBased", "isSetBased" );
+        put( "stagingTableName", "getStagingTableName" );
       }
     };
 
@@ -185,6 +188,8 @@ public class InsertUpdateMetaTest {
         put( "update", "setUpdate" );
         put( "commitSize", "setCommitSize" );
         put( "updateBypassed", "setUpdateBypassed" );
+        put( "setBased", "setSetBased" );
+        put( "stagingTableName", "setStagingTableName" );
       }
     };
     IFieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
@@ -83,6 +83,18 @@ public class Janino extends BaseTransform<JaninoMeta, JaninoData> implements ITr
           data.replaceIndex[ i ] = -1;
         }
       }
+
+      if ( meta.isCompileAsOneClass() ) {
+        // Results go to the replaced field or to the next new field at the end of the row
+        //
+        int[] targetIndexes = new int[ meta.getFormula().length ];
+        int tempIndex = getInputRowMeta().size();
+        for ( int i = 0; i < meta.getFormula().length; i++ ) {
+          targetIndexes[ i ] = data.replaceIndex[ i ] < 0 ? tempIndex++ : data.replaceIndex[ i ];
+        }
+        data.rowProcessor =
+          JaninoRowProcessor.compile( data.outputRowMeta, meta.getFormula(), data.returnType, targetIndexes );
+      }
     }
 
     if ( log.isRowLevel() ) {
@@ -113,6 +125,10 @@ public class Janino extends BaseTransform<JaninoMeta, JaninoData> implements ITr
   private Object[] calcFields( IRowMeta rowMeta, Object[] r ) throws HopValueException {
     try {
       Object[] outputRowData = RowDataUtil.createResizedCopy( r, data.outputRowMeta.size() );
+      if ( data.rowProcessor != null ) {
+        data.rowProcessor.process( outputRowData );
+        return outputRowData;
+      }
       int tempIndex = rowMeta.size();
 
       // Initialize evaluators etc. Only do it once.
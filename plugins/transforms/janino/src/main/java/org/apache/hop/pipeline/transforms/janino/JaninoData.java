@@ -45,6 +45,9 @@ public class JaninoData extends BaseTransformData implements ITransformData {
   public ExpressionEvaluator[] expressionEvaluators;
   public List<List<Integer>> argumentIndexes;
 
+  /** All formulas compiled into one class, when the transform is set up that way */
+  public JaninoRowProcessor rowProcessor;
+
   public JaninoData() {
     super();
   }
@@ -48,6 +48,8 @@ public class JaninoDialog extends BaseTransformDialog implements ITransformDialo
 
   private TableView wFields;
 
+  private Button wCompileAsOneClass;
+
   private final JaninoMeta currentMeta;
   private final JaninoMeta originalMeta;
 
@@ -112,12 +114,32 @@ public class JaninoDialog extends BaseTransformDialog implements ITransformDialo
     fdTransformName.right = new FormAttachment( 100, 0 );
     wTransformName.setLayoutData(fdTransformName);
 
+    // Compile all formulas into one class?
+    Label wlCompileAsOneClass = new Label( shell, SWT.RIGHT );
+    wlCompileAsOneClass.setText( BaseMessages.getString( PKG, "JaninoDialog.CompileAsOneClass.Label" ) );
+    wlCompileAsOneClass.setToolTipText( BaseMessages.getString( PKG, "JaninoDialog.CompileAsOneClass.Tooltip" ) );
+    props.setLook( wlCompileAsOneClass );
+    FormData fdlCompileAsOneClass = new FormData();
+    fdlCompileAsOneClass.left = new FormAttachment( 0, 0 );
+    fdlCompileAsOneClass.right = new FormAttachment( middle, -margin );
+    fdlCompileAsOneClass.top = new FormAttachment( wTransformName, margin );
+    wlCompileAsOneClass.setLayoutData( fdlCompileAsOneClass );
+    wCompileAsOneClass = new Button( shell, SWT.CHECK );
+    wCompileAsOneClass.setToolTipText( BaseMessages.getString( PKG, "JaninoDialog.CompileAsOneClass.Tooltip" ) );
+    props.setLook( wCompileAsOneClass );
+    FormData fdCompileAsOneClass = new FormData();
+    fdCompileAsOneClass.left = new FormAttachment( middle, 0 );
+    fdCompileAsOneClass.top = new FormAttachment( wlCompileAsOneClass, 0, SWT.CENTER );
+    fdCompileAsOneClass.right = new FormAttachment( 100, 0 );
+    wCompileAsOneClass.setLayoutData( fdCompileAsOneClass );
+    wCompileAsOneClass.addListener( SWT.Selection, e -> currentMeta.setChanged() );
+
     Label wlFields = new Label(shell, SWT.NONE);
     wlFields.setText( BaseMessages.getString( PKG, "JaninoDialog.Fields.Label" ) );
     props.setLook(wlFields);
     FormData fdlFields = new FormData();
     fdlFields.left = new FormAttachment( 0, 0 );
-    fdlFields.top = new FormAttachment( wTransformName, margin );
+    fdlFields.top = new FormAttachment( wCompileAsOneClass, margin );
     wlFields.setLayoutData(fdlFields);
 
     final int FieldsRows = currentMeta.getFormula() != null ? currentMeta.getFormula().length : 1;
@@ -260,6 +282,8 @@ public class JaninoDialog extends BaseTransformDialog implements ITransformDialo
       }
     }
 
+    wCompileAsOneClass.setSelection( currentMeta.isCompileAsOneClass() );
+
     wFields.setRowNums();
     wFields.optWidth( true );
 
@@ -298,6 +322,8 @@ public class JaninoDialog extends BaseTransformDialog implements ITransformDialo
         valueLength, valuePrecision, replaceField );
     }
 
+    currentMeta.setCompileAsOneClass( wCompileAsOneClass.getSelection() );
+
     if ( !originalMeta.equals( currentMeta ) ) {
       currentMeta.setChanged();
       changed = currentMeta.hasChanged();
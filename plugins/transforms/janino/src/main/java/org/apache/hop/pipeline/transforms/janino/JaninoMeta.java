@@ -22,6 +22,7 @@ import org.apache.hop.core.ICheckResult;
 import org.apache.hop.core.annotations.Transform;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopXmlException;
+import org.apache.hop.core.injection.Injection;
 import org.apache.hop.core.injection.InjectionDeep;
 import org.apache.hop.core.injection.InjectionSupported;
 import org.apache.hop.core.row.IRowMeta;
@@ -61,6 +62,10 @@ public class JaninoMeta extends BaseTransformMeta implements ITransformMeta<Jani
   @InjectionDeep
   private JaninoMetaFunction[] formula;
 
+  /** Compile all formulas into a single class which calculates a whole row at once */
+  @Injection(name = "COMPILE_AS_ONE_CLASS")
+  private boolean compileAsOneClass;
+
   public JaninoMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -73,6 +78,16 @@ public class JaninoMeta extends BaseTransformMeta implements ITransformMeta<Jani
     this.formula = calcTypes;
   }
 
+  /** @return true if all formulas are compiled into a single class which calculates a whole row at once */
+  public boolean isCompileAsOneClass() {
+    return compileAsOneClass;
+  }
+
+  /** @param compileAsOneClass true to compile all formulas into a single class */
+  public void setCompileAsOneClass(boolean compileAsOneClass) {
+    this.compileAsOneClass = compileAsOneClass;
+  }
+
   public void allocate(int nrCalcs) {
     formula = new JaninoMetaFunction[nrCalcs];
   }
@@ -85,6 +100,8 @@ public class JaninoMeta extends BaseTransformMeta implements ITransformMeta<Jani
       Node calcnode = XmlHandler.getSubNodeByNr(transformNode, JaninoMetaFunction.XML_TAG, i);
       formula[i] = new JaninoMetaFunction(calcnode);
     }
+    compileAsOneClass =
+        "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "compile_as_one_class"));
   }
 
   public String getXml() {
@@ -95,6 +112,7 @@ public class JaninoMeta extends BaseTransformMeta implements ITransformMeta<Jani
         retval.append("       " + formula[i].getXml() + Const.CR);
       }
     }
+    retval.append("    " + XmlHandler.addTagValue("compile_as_one_class", compileAsOneClass));
 
     return retval.toString();
   }
@@ -138,6 +156,7 @@ public class JaninoMeta extends BaseTransformMeta implements ITransformMeta<Jani
 
   public void setDefault() {
     formula = new JaninoMetaFunction[0];
+    compileAsOneClass = false;
   }
 
   @Override
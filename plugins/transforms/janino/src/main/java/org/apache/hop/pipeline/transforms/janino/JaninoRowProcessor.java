@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.janino;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.util.Utils;
+import org.apache.hop.i18n.BaseMessages;
+import org.codehaus.janino.ClassBodyEvaluator;
+
+import javax.lang.model.SourceVersion;
+
+/**
+ * All the formulas of a User Defined Java Expression transform compiled into a single class. Instead of one expression
+ * evaluator per formula, each with its own array of boxed arguments, a single <code>process()</code> method calculates
+ * all the formulas of a row one after the other.
+ * <p>
+ * The generated method reads the fields used in a formula straight from the row into local variables of the native
+ * data type of the field. The results are written back in the row so that later formulas see the values calculated by
+ * earlier ones, just like they do when every formula is evaluated separately.
+ */
+public abstract class JaninoRowProcessor {
+  private static final Class<?> PKG = JaninoMeta.class; // For Translator
+
+  private static final String ROW_VARIABLE = "hop$row";
+  private static final String RESULT_VARIABLE = "hop$result";
+
+  private IValueMeta[] valueMetas;
+  private IValueMeta[] returnTypes;
+  private JaninoMetaFunction[] formulas;
+
+  /**
+   * Calculate all the formulas for one row.
+   *
+   * @param row the output row: the input row followed by room for the new fields. The results are stored in it.
+   * @throws Exception in case a formula fails or returns a value of the wrong data type
+   */
+  public abstract void process( Object[] row ) throws Exception;
+
+  /**
+   * Called by the generated code to get a field value in normal storage
+   */
+  protected Object toNormalStorage( int index, Object value ) throws HopValueException {
+    return valueMetas[ index ].convertToNormalStorageType( value );
+  }
+
+  /**
+   * Called by the generated code to check the result of a formula against the specified data type
+   */
+  protected Object toResult( int formulaIndex, Object formulaResult ) throws HopValueException {
+    if ( formulaResult == null ) {
+      return null;
+    }
+    IValueMeta valueMeta = returnTypes[ formulaIndex ];
+    if ( valueMeta.getNativeDataTypeClass().isAssignableFrom( formulaResult.getClass() ) ) {
+      return formulaResult;
+    } else if ( formulaResult instanceof Integer && valueMeta.getType() == IValueMeta.TYPE_INTEGER ) {
+      return ( (Integer) formulaResult ).longValue();
+    } else {
+      throw new HopValueException(
+        BaseMessages.getString( PKG, "Janino.Error.ValueTypeMismatch", valueMeta.getTypeDesc(),
+          formulas[ formulaIndex ].getFieldName(), formulaResult.getClass(), formulas[ formulaIndex ].getFormula() ) );
+    }
+  }
+
+  /**
+   * Compile the formulas into a single row processor.
+   *
+   * @param rowMeta       the layout of the output rows
+   * @param formulas      the formulas to calculate, in order
+   * @param returnTypes   the data types of the formula results
+   * @param targetIndexes for every formula the index in the output row to store the result in
+   * @return the row processor
+   * @throws HopException in case the formulas don't compile
+   */
+  public static JaninoRowProcessor compile( IRowMeta rowMeta, JaninoMetaFunction[] formulas,
+                                            IValueMeta[] returnTypes, int[] targetIndexes ) throws HopException {
+    String source = generateSource( rowMeta, formulas, targetIndexes );
+    try {
+      ClassBodyEvaluator cbe = new ClassBodyEvaluator();
+      cbe.setParentClassLoader( JaninoRowProcessor.class.getClassLoader() );
+      cbe.setExtendedType( JaninoRowProcessor.class );
+      cbe.cook( source );
+
+      JaninoRowProcessor processor = (JaninoRowProcessor) cbe.getClazz().newInstance();
+      processor.valueMetas = rowMeta.getValueMetaList().toArray( new IValueMeta[ rowMeta.size() ] );
+      processor.returnTypes = returnTypes;
+      processor.formulas = formulas;
+      return processor;
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to compile the formulas into one class:" + Const.CR + source, e );
+    }
+  }
+
+  /**
+   * Generate the class body with the process() method for the given formulas.
+   */
+  static String generateSource( IRowMeta rowMeta, JaninoMetaFunction[] formulas, int[] targetIndexes )
+    throws HopException {
+    StringBuilder source = new StringBuilder();
+    source.append( "public void process(Object[] " ).append( ROW_VARIABLE ).append( ") throws Exception {\n" );
+
+    for ( int m = 0; m < formulas.length; m++ ) {
+      String formula = Const.NVL( formulas[ m ].getFormula(), "" );
+      if ( Utils.isEmpty( formulas[ m ].getFieldName() ) ) {
+        throw new HopException( "Unable to find field name for formula [" + formula + "]" );
+      }
+      source.append( "  {\n" );
+
+      // Every field mentioned in the formula becomes a local variable, read from the row at this point.
+      //
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        IValueMeta valueMeta = rowMeta.getValueMeta( i );
+        String name = valueMeta.getName();
+        if ( !formula.contains( name ) || !SourceVersion.isName( name ) ) {
+          continue;
+        }
+        String type = valueMeta.getNativeDataTypeClass().getCanonicalName();
+        source.append( "    " ).append( type ).append( ' ' ).append( name );
+        source.append( " = (" ).append( type ).append( ") " );
+        if ( valueMeta.isStorageNormal() ) {
+          source.append( ROW_VARIABLE ).append( '[' ).append( i ).append( "];\n" );
+        } else {
+          source.append( "toNormalStorage(" ).append( i ).append( ", " ).append( ROW_VARIABLE ).append( '[' )
+            .append( i ).append( "]);\n" );
+        }
+      }
+
+      // The formula goes on lines of its own so that a trailing comment doesn't break the code around it
+      //
+      source.append( "    Object " ).append( RESULT_VARIABLE ).append( " = (\n" );
+      source.append( formula ).append( "\n    );\n" );
+      source.append( "    " ).append( ROW_VARIABLE ).append( '[' ).append( targetIndexes[ m ] ).append( "] = " );
+      source.append( "toResult(" ).append( m ).append( ", " ).append( RESULT_VARIABLE ).append( ");\n" );
+      source.append( "  }\n" );
+    }
+
+    source.append( "}\n" );
+    return source.toString();
+  }
+}
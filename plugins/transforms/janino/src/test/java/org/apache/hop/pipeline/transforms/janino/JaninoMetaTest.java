@@ -48,7 +48,7 @@ public class JaninoMetaTest {
 
   @Test
   public void testRoundTrip() throws HopException {
-    List<String> attributes = Arrays.asList( "formula" );
+    List<String> attributes = Arrays.asList( "formula", "compileAsOneClass" );
 
     Map<String, IFieldLoadSaveValidator<?>> fieldLoadSaveValidatorAttributeMap =
       new HashMap<>();
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.janino;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JaninoRowProcessorTest {
+
+  private IRowMeta rowMeta;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "a" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "b" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "c" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "d" ) );
+  }
+
+  @Test
+  public void testLaterFormulasSeeEarlierResults() throws Exception {
+    JaninoMetaFunction[] formulas = new JaninoMetaFunction[] {
+      new JaninoMetaFunction( "c", "a * 2", IValueMeta.TYPE_INTEGER, -1, -1, null ),
+      new JaninoMetaFunction( "b", "b.toUpperCase()", IValueMeta.TYPE_STRING, -1, -1, "b" ),
+      new JaninoMetaFunction( "d", "b + \"-\" + c // trailing comment", IValueMeta.TYPE_STRING, -1, -1, null ),
+    };
+    IValueMeta[] returnTypes =
+      new IValueMeta[] { new ValueMetaInteger(), new ValueMetaString(), new ValueMetaString() };
+
+    JaninoRowProcessor processor = JaninoRowProcessor.compile( rowMeta, formulas, returnTypes, new int[] { 2, 1, 3 } );
+
+    Object[] row = new Object[] { 21L, "abc", null, null };
+    processor.process( row );
+    assertArrayEquals( new Object[] { 21L, "ABC", 42L, "ABC-42" }, row );
+
+    row = new Object[] { 1L, "x", null, null };
+    processor.process( row );
+    assertArrayEquals( new Object[] { 1L, "X", 2L, "X-2" }, row );
+  }
+
+  @Test
+  public void testIntegerResultIsConverted() throws Exception {
+    JaninoMetaFunction[] formulas = new JaninoMetaFunction[] {
+      new JaninoMetaFunction( "c", "b.length()", IValueMeta.TYPE_INTEGER, -1, -1, null ),
+    };
+    JaninoRowProcessor processor =
+      JaninoRowProcessor.compile( rowMeta, formulas, new IValueMeta[] { new ValueMetaInteger() }, new int[] { 2 } );
+
+    Object[] row = new Object[] { null, "abcd", null, null };
+    processor.process( row );
+    assertArrayEquals( new Object[] { null, "abcd", 4L, null }, row );
+  }
+
+  @Test
+  public void testWrongResultType() throws Exception {
+    JaninoMetaFunction[] formulas = new JaninoMetaFunction[] {
+      new JaninoMetaFunction( "c", "b", IValueMeta.TYPE_INTEGER, -1, -1, null ),
+    };
+    JaninoRowProcessor processor =
+      JaninoRowProcessor.compile( rowMeta, formulas, new IValueMeta[] { new ValueMetaInteger() }, new int[] { 2 } );
+
+    try {
+      processor.process( new Object[] { null, "abcd", null, null } );
+      fail( "A string result for an integer field should fail" );
+    } catch ( HopValueException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testOnlyFieldsUsedInTheFormulaAreRead() throws Exception {
+    JaninoMetaFunction[] formulas = new JaninoMetaFunction[] {
+      new JaninoMetaFunction( "d", "b.trim()", IValueMeta.TYPE_STRING, -1, -1, null ),
+    };
+    String source = JaninoRowProcessor.generateSource( rowMeta, formulas, new int[] { 3 } );
+
+    assertTrue( source.contains( "java.lang.String b = (java.lang.String) " ) );
+    assertFalse( source.contains( " a = " ) );
+    assertFalse( source.contains( " c = " ) );
+  }
+}
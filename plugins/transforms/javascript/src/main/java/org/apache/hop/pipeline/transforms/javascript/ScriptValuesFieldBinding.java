@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.javascript;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Puts the value of an input field used by the script in the script scope. The name, metadata and storage type of the
+ * field are looked up once, for every row only the value itself is converted and wrapped.
+ */
+public class ScriptValuesFieldBinding {
+  private final String name;
+  private final int index;
+  private final IValueMeta valueMeta;
+  private final boolean normalStorage;
+
+  public ScriptValuesFieldBinding( IRowMeta rowMeta, int index ) {
+    this.index = index;
+    this.valueMeta = rowMeta.getValueMeta( index );
+    this.name = valueMeta.getName();
+    this.normalStorage = valueMeta.isStorageNormal();
+  }
+
+  /**
+   * Create the bindings for the fields used by a script.
+   *
+   * @param rowMeta    the layout of the input rows
+   * @param fieldsUsed the indexes of the fields used by the script
+   * @return a binding for every used field
+   */
+  public static ScriptValuesFieldBinding[] bind( IRowMeta rowMeta, int[] fieldsUsed ) {
+    ScriptValuesFieldBinding[] bindings = new ScriptValuesFieldBinding[ fieldsUsed.length ];
+    for ( int i = 0; i < fieldsUsed.length; i++ ) {
+      bindings[ i ] = new ScriptValuesFieldBinding( rowMeta, fieldsUsed[ i ] );
+    }
+    return bindings;
+  }
+
+  /**
+   * Put the value of the field in the given row in the scope.
+   *
+   * @param cx    the current context
+   * @param scope the scope the script is executed in
+   * @param row   the input row
+   * @throws HopValueException in case the value can't be converted to normal storage
+   */
+  public void put( Context cx, Scriptable scope, Object[] row ) throws HopValueException {
+    Object valueData = row[ index ];
+    if ( !normalStorage ) {
+      valueData = valueMeta.convertToNormalStorageType( valueData );
+    }
+    scope.put( name, scope, valueData == null ? null : ScriptRuntime.toObject( cx, scope, valueData ) );
+  }
+
+  /**
+   * @return the name of the field, which is also the name of the variable in the script
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the index of the field in the input row
+   */
+  public int getIndex() {
+    return index;
+  }
+}
@@ -23,7 +23,6 @@ import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.IRowMeta;
-import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.util.JavaScriptUtils;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
@@ -36,6 +35,7 @@ import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EvaluatorException;
 import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 
@@ -135,6 +135,7 @@ public class ScriptValuesMod extends BaseTransform<ScriptValuesMetaMod, ScriptVa
       // Determine the indexes of the fields used!
       //
       determineUsedFields( rowMeta );
+      data.fieldBindings = ScriptValuesFieldBinding.bind( rowMeta, data.fieldsUsed );
 
       // Get the indexes of the replaced fields...
       //
@@ -207,24 +208,14 @@ public class ScriptValuesMod extends BaseTransform<ScriptValuesMetaMod, ScriptVa
 
         // Add the used fields...
         //
-        for ( int i = 0; i < data.fieldsUsed.length; i++ ) {
-          IValueMeta valueMeta = rowMeta.getValueMeta( data.fieldsUsed[ i ] );
-          Object valueData = row[ data.fieldsUsed[ i ] ];
-
-          Object normalStorageValueData = valueMeta.convertToNormalStorageType( valueData );
-          Scriptable jsarg;
-          if ( normalStorageValueData != null ) {
-            jsarg = Context.toObject( normalStorageValueData, data.scope );
-          } else {
-            jsarg = null;
-          }
-          data.scope.put( valueMeta.getName(), data.scope, jsarg );
+        for ( ScriptValuesFieldBinding fieldBinding : data.fieldBindings ) {
+          fieldBinding.put( data.cx, data.scope, row );
         }
 
-        // also add the meta information for the whole row
+        // also add the meta information for the whole row, it's the same for every row
         //
-        Scriptable jsrowMeta = Context.toObject( rowMeta, data.scope );
-        data.scope.put( "rowMeta", data.scope, jsrowMeta );
+        data.jsRowMeta = Context.toObject( rowMeta, data.scope );
+        data.scope.put( "rowMeta", data.scope, data.jsRowMeta );
 
         // Modification for Additional Script parsing
         //
@@ -266,7 +257,7 @@ public class ScriptValuesMod extends BaseTransform<ScriptValuesMetaMod, ScriptVa
         try {
           // Checking for StartScript
           if ( strStartScript != null && strStartScript.length() > 0 ) {
-            Script startScript = data.cx.compileString( strStartScript, "pipeline_Start", 1, null );
+            Script startScript = ScriptValuesScriptCache.getScript( data.cx, strStartScript, "pipeline_Start" );
             startScript.exec( data.cx, data.scope );
             if ( log.isDetailed() ) {
               logDetailed( ( "Start Script found!" ) );
@@ -280,8 +271,8 @@ public class ScriptValuesMod extends BaseTransform<ScriptValuesMetaMod, ScriptVa
           throw new HopValueException( BaseMessages.getString( PKG, "ScriptValuesMod.Log.ErrorProcessingStartScript" ), es );
 
         }
-        // Now Compile our Script
-        data.script = data.cx.compileString( strTransformScript, "script", 1, null );
+        // Now Compile our Script, or pick it up from the cache if another copy or run compiled it already
+        data.script = ScriptValuesScriptCache.getScript( data.cx, strTransformScript, "script" );
       } catch ( Exception e ) {
         throw new HopValueException( BaseMessages.getString(
           PKG, "ScriptValuesMod.Log.CouldNotCompileJavascript" ), e );
@@ -301,26 +292,15 @@ public class ScriptValuesMod extends BaseTransform<ScriptValuesMetaMod, ScriptVa
 
     try {
       try {
-          Scriptable jsrow = Context.toObject( row, data.scope );
-          data.scope.put( "row", data.scope, jsrow );
-
-        for ( int i = 0; i < data.fieldsUsed.length; i++ ) {
-          IValueMeta valueMeta = rowMeta.getValueMeta( data.fieldsUsed[ i ] );
-          Object valueData = row[ data.fieldsUsed[ i ] ];
+        Scriptable jsrow = ScriptRuntime.toObject( data.cx, data.scope, row );
+        data.scope.put( "row", data.scope, jsrow );
 
-          Object normalStorageValueData = valueMeta.convertToNormalStorageType( valueData );
-          Scriptable jsarg;
-          if ( normalStorageValueData != null ) {
-            jsarg = Context.toObject( normalStorageValueData, data.scope );
-          } else {
-            jsarg = null;
-          }
-          data.scope.put( valueMeta.getName(), data.scope, jsarg );
+        for ( ScriptValuesFieldBinding fieldBinding : data.fieldBindings ) {
+          fieldBinding.put( data.cx, data.scope, row );
         }
 
         // also add the meta information for the hole row
-        Scriptable jsrowMeta = Context.toObject( rowMeta, data.scope );
-        data.scope.put( "rowMeta", data.scope, jsrowMeta );
+        data.scope.put( "rowMeta", data.scope, data.jsRowMeta );
       } catch ( Exception e ) {
         throw new HopValueException( BaseMessages.getString( PKG, "ScriptValuesMod.Log.UnexpectedeError" ), e );
       }
@@ -433,7 +413,7 @@ public class ScriptValuesMod extends BaseTransform<ScriptValuesMetaMod, ScriptVa
         if ( data.cx != null ) {
           // Checking for EndScript
           if ( strEndScript != null && strEndScript.length() > 0 ) {
-            Script endScript = data.cx.compileString( strEndScript, "pipeline_End", 1, null );
+            Script endScript = ScriptValuesScriptCache.getScript( data.cx, strEndScript, "pipeline_End" );
             endScript.exec( data.cx, data.scope );
             if ( log.isDetailed() ) {
               logDetailed( ( "End Script found!" ) );
@@ -35,6 +35,8 @@ public class ScriptValuesModData extends BaseTransformData implements ITransform
   public Script script;
 
   public int[] fieldsUsed;
+  public ScriptValuesFieldBinding[] fieldBindings;
+  public Scriptable jsRowMeta;
 //  public Value[] values_used;
 
   public IRowMeta outputRowMeta;
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.javascript;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.hop.core.Const;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps the compiled scripts of the JavaScript transform around. Compiling a script, especially at the higher
+ * optimization levels where Rhino generates Java classes, is expensive. Copies of the same transform, the same
+ * pipeline executed over and over by an executor and transforms with identical scripts now all share the compiled
+ * script.
+ * <p>
+ * A compiled script doesn't hold on to a context or scope: every copy still executes it in its own context and scope.
+ * The maximum number of cached scripts can be set with the HOP_JAVASCRIPT_SCRIPT_CACHE_SIZE system property.
+ */
+public class ScriptValuesScriptCache {
+
+  public static final String HOP_JAVASCRIPT_SCRIPT_CACHE_SIZE = "HOP_JAVASCRIPT_SCRIPT_CACHE_SIZE";
+
+  private static final int DEFAULT_CACHE_SIZE = 100;
+
+  private static final Cache<Key, Script> scriptCache = CacheBuilder.newBuilder()
+    .maximumSize( Const.toInt( System.getProperty( HOP_JAVASCRIPT_SCRIPT_CACHE_SIZE ), DEFAULT_CACHE_SIZE ) )
+    .build();
+
+  private ScriptValuesScriptCache() {
+  }
+
+  /**
+   * Get the compiled script for the given source, compiling it with the given context if it isn't cached yet.
+   *
+   * @param cx         the current context, its optimization level and language version are part of the key
+   * @param source     the script source
+   * @param sourceName the name of the script used in error messages
+   * @return the compiled script
+   */
+  public static Script getScript( Context cx, String source, String sourceName ) {
+    Key key = new Key( source, sourceName, cx.getOptimizationLevel(), cx.getLanguageVersion() );
+    try {
+      return scriptCache.get( key, () -> cx.compileString( source, sourceName, 1, null ) );
+    } catch ( ExecutionException e ) {
+      throw asRuntimeException( e.getCause() );
+    } catch ( UncheckedExecutionException e ) {
+      // Report the compilation error itself, for example the EvaluatorException with the line number
+      throw asRuntimeException( e.getCause() );
+    }
+  }
+
+  /**
+   * Remove all compiled scripts from the cache.
+   */
+  public static void clear() {
+    scriptCache.invalidateAll();
+  }
+
+  /**
+   * @return the number of compiled scripts in the cache
+   */
+  public static long size() {
+    return scriptCache.size();
+  }
+
+  private static RuntimeException asRuntimeException( Throwable e ) {
+    if ( e instanceof RuntimeException ) {
+      return (RuntimeException) e;
+    }
+    return new RuntimeException( e );
+  }
+
+  private static final class Key {
+    private final String source;
+    private final String sourceName;
+    private final int optimizationLevel;
+    private final int languageVersion;
+
+    Key( String source, String sourceName, int optimizationLevel, int languageVersion ) {
+      this.source = source;
+      this.sourceName = sourceName;
+      this.optimizationLevel = optimizationLevel;
+      this.languageVersion = languageVersion;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( !( o instanceof Key ) ) {
+        return false;
+      }
+      Key key = (Key) o;
+      return optimizationLevel == key.optimizationLevel
+        && languageVersion == key.languageVersion
+        && source.equals( key.source )
+        && Objects.equals( sourceName, key.sourceName );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash( source, sourceName, optimizationLevel, languageVersion );
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.javascript;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ScriptValuesScriptCacheTest {
+
+  private Context cx;
+
+  @Before
+  public void setUp() {
+    ScriptValuesScriptCache.clear();
+    cx = ContextFactory.getGlobal().enterContext();
+  }
+
+  @After
+  public void tearDown() {
+    Context.exit();
+    ScriptValuesScriptCache.clear();
+  }
+
+  @Test
+  public void testScriptIsCompiledOnce() {
+    Script script = ScriptValuesScriptCache.getScript( cx, "var a = 1;", "script" );
+    assertSame( script, ScriptValuesScriptCache.getScript( cx, "var a = 1;", "script" ) );
+    assertEquals( 1, ScriptValuesScriptCache.size() );
+
+    assertNotSame( script, ScriptValuesScriptCache.getScript( cx, "var a = 2;", "script" ) );
+    assertEquals( 2, ScriptValuesScriptCache.size() );
+  }
+
+  @Test
+  public void testOptimizationLevelIsPartOfTheKey() {
+    cx.setOptimizationLevel( -1 );
+    Script interpreted = ScriptValuesScriptCache.getScript( cx, "var a = 1;", "script" );
+    cx.setOptimizationLevel( 9 );
+    Script compiled = ScriptValuesScriptCache.getScript( cx, "var a = 1;", "script" );
+
+    assertNotSame( interpreted, compiled );
+    assertEquals( 2, ScriptValuesScriptCache.size() );
+  }
+
+  @Test( expected = EvaluatorException.class )
+  public void testCompilationErrorIsReported() {
+    ScriptValuesScriptCache.getScript( cx, "var a = ;", "script" );
+  }
+
+  @Test
+  public void testSharedScriptInSeparateScopes() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    ScriptValuesFieldBinding[] bindings = ScriptValuesFieldBinding.bind( rowMeta, new int[] { 0, 1 } );
+
+    Script script = ScriptValuesScriptCache.getScript( cx, "var result = name + id;", "script" );
+
+    Scriptable scope1 = cx.initStandardObjects( null, false );
+    Scriptable scope2 = cx.initStandardObjects( null, false );
+    for ( ScriptValuesFieldBinding binding : bindings ) {
+      binding.put( cx, scope1, new Object[] { "a", 1L } );
+      binding.put( cx, scope2, new Object[] { "b", null } );
+    }
+    assertNull( scope2.get( "id", scope2 ) );
+
+    script.exec( cx, scope1 );
+    script.exec( cx, scope2 );
+    assertEquals( "a1", Context.toString( scope1.get( "result", scope1 ) ) );
+    assertEquals( "bnull", Context.toString( scope2.get( "result", scope2 ) ) );
+  }
+}
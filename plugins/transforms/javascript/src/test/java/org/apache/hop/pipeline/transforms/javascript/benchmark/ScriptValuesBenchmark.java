@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.javascript.benchmark;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.transforms.javascript.ScriptValuesFieldBinding;
+import org.apache.hop.pipeline.transforms.javascript.ScriptValuesScriptCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a row in the JavaScript transform at the various Rhino optimization levels: the used fields are
+ * put in the scope, the script is executed and the new fields are read back. The compile benchmarks show what a copy
+ * or an executor run pays to get its script, with and without the compiled script cache.
+ * <p>
+ * Run it with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.hop.pipeline.transforms.javascript.benchmark.ScriptValuesBenchmark</code>
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ScriptValuesBenchmark {
+
+  private static final String SCRIPT =
+    "var fullName = firstName + ' ' + lastName;\n"
+      + "var total = amount * 1.21;\n"
+      + "var category = quantity > 10 ? 'bulk' : 'single';\n"
+      + "var code = fullName.toUpperCase().substring(0, 3) + quantity;\n";
+
+  private static final String[] RESULT_FIELDS = { "fullName", "total", "category", "code" };
+
+  @Param( { "-1", "0", "9" } )
+  public int optimizationLevel;
+
+  private Context cx;
+  private Scriptable scope;
+  private Script script;
+  private ScriptValuesFieldBinding[] fieldBindings;
+  private Object[][] rows;
+  private int rowNr;
+
+  @Setup( Level.Trial )
+  public void setUp() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "firstName" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "lastName" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "quantity" ) );
+
+    rows = new Object[ 1024 ][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ] = new Object[] { "first" + i, "last" + i, i * 1.5, (long) ( i % 20 ) };
+    }
+
+    cx = ContextFactory.getGlobal().enterContext();
+    cx.setOptimizationLevel( optimizationLevel );
+    scope = cx.initStandardObjects( null, false );
+    fieldBindings = ScriptValuesFieldBinding.bind( rowMeta, new int[] { 0, 1, 2, 3 } );
+    script = ScriptValuesScriptCache.getScript( cx, SCRIPT, "script" );
+  }
+
+  @TearDown( Level.Trial )
+  public void tearDown() {
+    Context.exit();
+  }
+
+  @Benchmark
+  public Object row() throws Exception {
+    Object[] row = rows[ rowNr++ & ( rows.length - 1 ) ];
+    for ( ScriptValuesFieldBinding fieldBinding : fieldBindings ) {
+      fieldBinding.put( cx, scope, row );
+    }
+    script.exec( cx, scope );
+
+    Object result = null;
+    for ( String field : RESULT_FIELDS ) {
+      result = scope.get( field, scope );
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Script compile() {
+    return cx.compileString( SCRIPT, "script", 1, null );
+  }
+
+  @Benchmark
+  public Script compileCached() {
+    return ScriptValuesScriptCache.getScript( cx, SCRIPT, "script" );
+  }
+
+  public static void main( String[] args ) throws Exception {
+    new Runner( new OptionsBuilder().include( ScriptValuesBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.joinrows;
 
+import org.apache.hop.core.IConditionEvaluator;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
@@ -59,6 +60,11 @@ public class JoinRowsData extends BaseTransformData implements ITransformData {
 
   public IRowMeta outputRowMeta;
 
+  /**
+   * The join condition, prepared for the output rows
+   */
+  public IConditionEvaluator condition;
+
   public JoinRowsData() {
     super();
   }
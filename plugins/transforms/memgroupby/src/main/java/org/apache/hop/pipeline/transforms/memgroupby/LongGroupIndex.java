@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.hash.LongHashIndex;
+
+import java.util.Arrays;
+
+/**
+ * Hands out a group number for every distinct value of a single Integer group field. The numbers are handed out in
+ * order of appearance, starting at 0, so they can be used as an index into the accumulator arrays.
+ * <p>
+ * A null key gets a group number of its own.
+ */
+public class LongGroupIndex extends LongHashIndex {
+
+  private long[] groupKeys;
+  private int groupCount;
+  private int nullGroup = -1;
+
+  public LongGroupIndex( int size ) {
+    super( size );
+    groupKeys = new long[ Math.max( 16, size ) ];
+  }
+
+  /**
+   * @param key the group key
+   * @return the number of the group, a new one if the key wasn't seen before
+   */
+  public int getGroup( long key ) {
+    int slot = findSlot( key );
+    if ( slot >= 0 ) {
+      return (int) getValueAt( slot );
+    }
+    int group = newGroup( key );
+    insertAt( -slot - 1, key, group );
+    return group;
+  }
+
+  /**
+   * @param key the group key
+   * @return true if the key already has a group
+   */
+  public boolean hasGroup( long key ) {
+    return findSlot( key ) >= 0;
+  }
+
+  /**
+   * @return true if the null key already has a group
+   */
+  public boolean hasNullGroup() {
+    return nullGroup >= 0;
+  }
+
+  /**
+   * @return the number of the group for the null key
+   */
+  public int getNullGroup() {
+    if ( nullGroup < 0 ) {
+      nullGroup = newGroup( 0L );
+    }
+    return nullGroup;
+  }
+
+  /**
+   * @param group the group number
+   * @return the key of the group or null for the null group
+   */
+  public Long getGroupKey( int group ) {
+    if ( group == nullGroup ) {
+      return null;
+    }
+    return groupKeys[ group ];
+  }
+
+  public int getGroupCount() {
+    return groupCount;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    groupCount = 0;
+    nullGroup = -1;
+  }
+
+  private int newGroup( long key ) {
+    if ( groupCount == groupKeys.length ) {
+      groupKeys = Arrays.copyOf( groupKeys, groupCount * 2 );
+    }
+    groupKeys[ groupCount ] = key;
+    return groupCount++;
+  }
+}
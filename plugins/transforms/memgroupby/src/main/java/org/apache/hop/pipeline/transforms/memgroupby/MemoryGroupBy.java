@@ -54,9 +54,16 @@ import java.util.TreeSet;
 public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupByData> implements ITransform<MemoryGroupByMeta, MemoryGroupByData> {
   private static final Class<?> PKG = MemoryGroupByMeta.class; // For Translator
 
+  /** The number of hash partitions the rows of groups which don't fit in memory are split over */
+  static final int NR_SPILL_PARTITIONS = 16;
+
+  /** Stop partitioning after this many levels, that many hash collisions means there's nothing left to split */
+  static final int MAX_SPILL_LEVEL = 8;
+
   private boolean allNullsAreZero = false;
   private boolean minNullIsValued = false;
   private boolean compatibilityMode = false;
+  private boolean usePrimitiveAggregation = true;
 
   public MemoryGroupBy(TransformMeta transformMeta, MemoryGroupByMeta meta, MemoryGroupByData data, int copyNr, PipelineMeta pipelineMeta,
                        Pipeline pipeline ) {
@@ -81,6 +88,8 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       minNullIsValued = ValueMetaBase.convertStringToBoolean( val );
       compatibilityMode = ValueMetaBase.convertStringToBoolean(
         getVariable( Const.HOP_COMPATIBILITY_MEMORY_GROUP_BY_SUM_AVERAGE_RETURN_NUMBER_TYPE, "N" ) );
+      usePrimitiveAggregation = ValueMetaBase.convertStringToBoolean(
+        getVariable( Const.HOP_MEMORY_GROUP_BY_PRIMITIVE_AGGREGATION, "Y" ) );
 
       // What is the output looking like?
       //
@@ -154,12 +163,21 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       data.groupAggMeta = new RowMeta();
       data.groupAggMeta.addRowMeta( data.groupMeta );
       data.groupAggMeta.addRowMeta( data.aggMeta );
+
+      // Keep the aggregates in primitive arrays if we can, it saves a lot of memory with many groups
+      //
+      if ( r != null && usePrimitiveAggregation && PrimitiveAggregationEngine.isSupported( meta, data, minNullIsValued ) ) {
+        data.primitiveAggregation = new PrimitiveAggregationEngine( meta, data );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.UsingPrimitiveAggregation" ) );
+        }
+      }
     }
 
     // Here is where we start to do the real work...
     //
     if ( r == null ) { // no more input to be expected... (or none received in the first place)
-      handleLastOfGroup();
+      handleAllGroups();
 
       setOutputDone();
       return false;
@@ -170,7 +188,7 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       data.newBatch = false;
     }
 
-    addToAggregate( r );
+    aggregateOrSpill( r );
 
     if ( checkFeedback( getLinesRead() ) ) {
       if ( log.isBasic() ) {
@@ -181,7 +199,134 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     return true;
   }
 
+  /**
+   * Write out the groups in memory, then aggregate and write out the spilled partitions one at a time.
+   */
+  private void handleAllGroups() throws HopException {
+    finishSpilling();
+    handleLastOfGroup();
+
+    // Depth first: partitions which are spilled again are handled before the next partition of this level
+    //
+    while ( !data.spilledPartitions.isEmpty() ) {
+      SpillPartition partition = data.spilledPartitions.pop();
+      clearGroups();
+      data.spillLevel = partition.getLevel() + 1;
+
+      partition.openInput();
+      for ( long i = 0; i < partition.getRowCount(); i++ ) {
+        aggregateOrSpill( partition.readRow( data.inputRowMeta ) );
+      }
+      partition.delete();
+
+      finishSpilling();
+      handleLastOfGroup();
+    }
+    data.spillLevel = 0;
+  }
+
+  /**
+   * Add the row to its group if it is in memory or if there's still room for new groups. Otherwise the row is written
+   * to the partition of its group.
+   *
+   * @param r the input row
+   * @throws HopException
+   */
+  void aggregateOrSpill( Object[] r ) throws HopException {
+    if ( data.partitions != null && !isInMemory( r ) ) {
+      spillRow( r );
+      return;
+    }
+
+    addToAggregate( r );
+
+    if ( data.partitions == null
+      && data.maxGroupsInMemory > 0
+      && getGroupCount() >= data.maxGroupsInMemory
+      && data.spillLevel < MAX_SPILL_LEVEL ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.SpillingToDisk", getGroupCount(), data.spillLevel ) );
+      }
+      data.partitions = new SpillPartition[ NR_SPILL_PARTITIONS ];
+    }
+  }
+
+  private int getGroupCount() {
+    if ( data.primitiveAggregation != null ) {
+      return data.primitiveAggregation.getGroupCount();
+    }
+    return data.map.size();
+  }
+
+  private boolean isInMemory( Object[] r ) throws HopException {
+    if ( data.primitiveAggregation != null ) {
+      return data.primitiveAggregation.hasGroup( r );
+    }
+    Object[] groupData = new Object[ data.groupMeta.size() ];
+    for ( int i = 0; i < data.groupnrs.length; i++ ) {
+      groupData[ i ] = r[ data.groupnrs[ i ] ];
+    }
+    return data.map.containsKey( data.getHashEntry( groupData ) );
+  }
+
+  private void spillRow( Object[] r ) throws HopException {
+    Object[] groupData = new Object[ data.groupnrs.length ];
+    for ( int i = 0; i < data.groupnrs.length; i++ ) {
+      groupData[ i ] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( r[ data.groupnrs[ i ] ] );
+    }
+    int nr = getSpillPartitionNr( data.groupMeta.hashCode( groupData ), data.spillLevel );
+
+    SpillPartition partition = data.partitions[ nr ];
+    if ( partition == null ) {
+      partition = new SpillPartition( data.spillDirectory, resolve( meta.getPrefix() ), data.spillLevel,
+        data.compressFiles );
+      data.partitions[ nr ] = partition;
+    }
+    partition.writeRow( data.inputRowMeta, r );
+  }
+
+  /**
+   * Every level uses a different hash function so that the groups of a partition are spread again.
+   */
+  static int getSpillPartitionNr( int hashCode, int level ) {
+    int h = hashCode + level * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return ( h & Integer.MAX_VALUE ) % NR_SPILL_PARTITIONS;
+  }
+
+  /**
+   * Close the partitions written at the current level and queue them to be aggregated.
+   */
+  private void finishSpilling() throws HopException {
+    if ( data.partitions == null ) {
+      return;
+    }
+    for ( SpillPartition partition : data.partitions ) {
+      if ( partition != null ) {
+        partition.closeOutput();
+        data.spilledPartitions.push( partition );
+      }
+    }
+    data.partitions = null;
+  }
+
+  private void clearGroups() {
+    data.map.clear();
+    if ( data.primitiveAggregation != null ) {
+      data.primitiveAggregation.clear();
+    }
+  }
+
   private void handleLastOfGroup() throws HopException {
+    if ( data.primitiveAggregation != null ) {
+      handleLastOfPrimitiveGroups();
+      return;
+    }
+
     // Dump the content of the map...
     //
     for ( HashEntry entry : data.map.keySet() ) {
@@ -199,10 +344,35 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       putRow( data.outputRowMeta, outputRowData );
     }
 
+    if ( data.map.isEmpty() ) {
+      handleNoGroups();
+    }
+  }
+
+  private void handleLastOfPrimitiveGroups() throws HopException {
+    // The group values and aggregates come out in normal storage already
+    //
+    PrimitiveAggregationEngine engine = data.primitiveAggregation;
+    for ( int group = 0; group < engine.getGroupCount(); group++ ) {
+      Object[] groupData = engine.getGroupData( group );
+      Object[] aggregateResult = getAggregateResult( engine.getAggregate( group ) );
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      System.arraycopy( groupData, 0, outputRowData, 0, groupData.length );
+      System.arraycopy( aggregateResult, 0, outputRowData, groupData.length, aggregateResult.length );
+      putRow( data.outputRowMeta, outputRowData );
+    }
+
+    if ( engine.getGroupCount() == 0 ) {
+      handleNoGroups();
+    }
+  }
+
+  private void handleNoGroups() throws HopException {
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
     //
-    if ( data.map.isEmpty() && meta.isAlwaysGivingBackOneRow() ) {
+    if ( meta.isAlwaysGivingBackOneRow() ) {
       Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
       int index = 0;
       for ( int i = 0; i < data.groupMeta.size(); i++ ) {
@@ -228,6 +398,10 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
    * @throws HopException
    */
   @SuppressWarnings( "unchecked" ) void addToAggregate( Object[] r ) throws HopException {
+    if ( data.primitiveAggregation != null ) {
+      data.primitiveAggregation.add( r );
+      return;
+    }
 
     Object[] groupData = new Object[ data.groupMeta.size() ];
     for ( int i = 0; i < data.groupnrs.length; i++ ) {
@@ -548,6 +722,9 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
     if ( super.init() ) {
       data.map = new HashMap<>( 5000 );
+      data.maxGroupsInMemory = Const.toLong( resolve( meta.getMaxGroupsInMemory() ), 0L );
+      data.spillDirectory = resolve( meta.getDirectory() );
+      data.compressFiles = meta.isCompressFiles();
       return true;
     }
     return false;
@@ -555,19 +732,37 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
   @Override
   public void dispose() {
+    // Remove the temp files of an interrupted aggregation
+    //
+    if ( data.partitions != null ) {
+      for ( SpillPartition partition : data.partitions ) {
+        if ( partition != null ) {
+          data.spilledPartitions.push( partition );
+        }
+      }
+      data.partitions = null;
+    }
+    while ( !data.spilledPartitions.isEmpty() ) {
+      try {
+        data.spilledPartitions.pop().delete();
+      } catch ( HopException e ) {
+        logError( e.getLocalizedMessage(), e );
+      }
+    }
+
     super.dispose();
     ( (MemoryGroupByData) data ).clear();
   }
 
   @Override
   public void batchComplete() throws HopException {
-    // Empty the hash table
+    // Empty the hash table and the spilled partitions
     //
-    handleLastOfGroup();
+    handleAllGroups();
 
     // Clear the complete cache...
     //
-    data.map.clear();
+    clearGroups();
 
     data.newBatch = true;
   }
@@ -23,6 +23,8 @@ import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 
 /**
@@ -71,6 +73,11 @@ public class MemoryGroupByData extends BaseTransformData implements ITransformDa
 
   public HashMap<HashEntry, Aggregate> map;
 
+  /**
+   * Used instead of the map when all the aggregates can be calculated on primitives
+   */
+  public PrimitiveAggregationEngine primitiveAggregation;
+
   public IRowMeta aggMeta;
   public IRowMeta groupMeta;
   public IRowMeta entryMeta;
@@ -93,6 +100,20 @@ public class MemoryGroupByData extends BaseTransformData implements ITransformDa
 
   public boolean newBatch;
 
+  /** The maximum number of groups in memory, 0 means no limit */
+  public long maxGroupsInMemory;
+  public String spillDirectory;
+  public boolean compressFiles;
+
+  /** The partitions the rows of new groups are written to once the limit is reached, null while all fits in memory */
+  public SpillPartition[] partitions;
+
+  /** The number of times the rows being aggregated were partitioned before */
+  public int spillLevel;
+
+  /** Partitions which are completely written and still need to be aggregated */
+  public Deque<SpillPartition> spilledPartitions = new ArrayDeque<>();
+
   public MemoryGroupByData() {
     super();
 
@@ -107,5 +128,6 @@ public class MemoryGroupByData extends BaseTransformData implements ITransformDa
    */
   public void clear() {
     map = new HashMap<>();
+    primitiveAggregation = null;
   }
 }
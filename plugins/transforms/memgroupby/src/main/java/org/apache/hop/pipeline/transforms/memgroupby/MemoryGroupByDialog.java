@@ -27,9 +27,11 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransformMeta;
 import org.apache.hop.pipeline.transform.ITransformDialog;
 import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.ui.core.dialog.BaseDialog;
 import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.widget.ColumnInfo;
 import org.apache.hop.ui.core.widget.TableView;
+import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.*;
@@ -50,6 +52,14 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
 
   private Button wAlwaysAddResult;
 
+  private TextVar wDirectory;
+
+  private Text wPrefix;
+
+  private TextVar wMaxGroupsInMemory;
+
+  private Button wCompress;
+
   private final MemoryGroupByMeta input;
 
   private ColumnInfo[] ciKey;
@@ -131,12 +141,101 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     wAlwaysAddResult.setLayoutData(fdAlwaysAddResult);
     wAlwaysAddResult.addSelectionListener( lsSel );
 
+    // Temp directory for the groups which don't fit in memory
+    //
+    Label wlDirectory = new Label( shell, SWT.RIGHT );
+    wlDirectory.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Directory.Label" ) );
+    props.setLook( wlDirectory );
+    FormData fdlDirectory = new FormData();
+    fdlDirectory.left = new FormAttachment( 0, 0 );
+    fdlDirectory.right = new FormAttachment( middle, -margin );
+    fdlDirectory.top = new FormAttachment( wAlwaysAddResult, margin );
+    wlDirectory.setLayoutData( fdlDirectory );
+
+    Button wbDirectory = new Button( shell, SWT.PUSH | SWT.CENTER );
+    props.setLook( wbDirectory );
+    wbDirectory.setText( BaseMessages.getString( PKG, "System.Button.Browse" ) );
+    FormData fdbDirectory = new FormData();
+    fdbDirectory.right = new FormAttachment( 100, 0 );
+    fdbDirectory.top = new FormAttachment( wAlwaysAddResult, margin );
+    wbDirectory.setLayoutData( fdbDirectory );
+
+    wDirectory = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wDirectory );
+    wDirectory.addModifyListener( lsMod );
+    FormData fdDirectory = new FormData();
+    fdDirectory.left = new FormAttachment( middle, 0 );
+    fdDirectory.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdDirectory.right = new FormAttachment( wbDirectory, -margin );
+    wDirectory.setLayoutData( fdDirectory );
+
+    wbDirectory.addListener( SWT.Selection, e -> BaseDialog.presentDirectoryDialog( shell, wDirectory, variables ) );
+
+    // Prefix of the temp files
+    //
+    Label wlPrefix = new Label( shell, SWT.RIGHT );
+    wlPrefix.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Prefix.Label" ) );
+    props.setLook( wlPrefix );
+    FormData fdlPrefix = new FormData();
+    fdlPrefix.left = new FormAttachment( 0, 0 );
+    fdlPrefix.right = new FormAttachment( middle, -margin );
+    fdlPrefix.top = new FormAttachment( wbDirectory, margin );
+    wlPrefix.setLayoutData( fdlPrefix );
+    wPrefix = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wPrefix );
+    wPrefix.addModifyListener( lsMod );
+    FormData fdPrefix = new FormData();
+    fdPrefix.left = new FormAttachment( middle, 0 );
+    fdPrefix.top = new FormAttachment( wbDirectory, margin );
+    fdPrefix.right = new FormAttachment( 100, 0 );
+    wPrefix.setLayoutData( fdPrefix );
+
+    // Maximum number of groups kept in memory
+    //
+    Label wlMaxGroupsInMemory = new Label( shell, SWT.RIGHT );
+    wlMaxGroupsInMemory.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroupsInMemory.Label" ) );
+    wlMaxGroupsInMemory.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroupsInMemory.ToolTip" ) );
+    props.setLook( wlMaxGroupsInMemory );
+    FormData fdlMaxGroupsInMemory = new FormData();
+    fdlMaxGroupsInMemory.left = new FormAttachment( 0, 0 );
+    fdlMaxGroupsInMemory.right = new FormAttachment( middle, -margin );
+    fdlMaxGroupsInMemory.top = new FormAttachment( wPrefix, margin );
+    wlMaxGroupsInMemory.setLayoutData( fdlMaxGroupsInMemory );
+    wMaxGroupsInMemory = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wMaxGroupsInMemory.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroupsInMemory.ToolTip" ) );
+    props.setLook( wMaxGroupsInMemory );
+    wMaxGroupsInMemory.addModifyListener( lsMod );
+    FormData fdMaxGroupsInMemory = new FormData();
+    fdMaxGroupsInMemory.left = new FormAttachment( middle, 0 );
+    fdMaxGroupsInMemory.top = new FormAttachment( wPrefix, margin );
+    fdMaxGroupsInMemory.right = new FormAttachment( 100, 0 );
+    wMaxGroupsInMemory.setLayoutData( fdMaxGroupsInMemory );
+
+    // Compress the temp files?
+    //
+    Label wlCompress = new Label( shell, SWT.RIGHT );
+    wlCompress.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Compress.Label" ) );
+    props.setLook( wlCompress );
+    FormData fdlCompress = new FormData();
+    fdlCompress.left = new FormAttachment( 0, 0 );
+    fdlCompress.right = new FormAttachment( middle, -margin );
+    fdlCompress.top = new FormAttachment( wMaxGroupsInMemory, margin );
+    wlCompress.setLayoutData( fdlCompress );
+    wCompress = new Button( shell, SWT.CHECK );
+    props.setLook( wCompress );
+    FormData fdCompress = new FormData();
+    fdCompress.left = new FormAttachment( middle, 0 );
+    fdCompress.top = new FormAttachment( wlCompress, 0, SWT.CENTER );
+    fdCompress.right = new FormAttachment( 100, 0 );
+    wCompress.setLayoutData( fdCompress );
+    wCompress.addSelectionListener( lsSel );
+
     Label wlGroup = new Label(shell, SWT.NONE);
     wlGroup.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Group.Label" ) );
     props.setLook(wlGroup);
     FormData fdlGroup = new FormData();
     fdlGroup.left = new FormAttachment( 0, 0 );
-    fdlGroup.top = new FormAttachment(wlAlwaysAddResult, 2*margin );
+    fdlGroup.top = new FormAttachment(wlCompress, 2*margin );
     wlGroup.setLayoutData(fdlGroup);
 
     int nrKeyCols = 1;
@@ -315,6 +414,10 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     logDebug( BaseMessages.getString( PKG, "MemoryGroupByDialog.Log.GettingKeyInfo" ) );
 
     wAlwaysAddResult.setSelection( input.isAlwaysGivingBackOneRow() );
+    wDirectory.setText( Const.NVL( input.getDirectory(), "" ) );
+    wPrefix.setText( Const.NVL( input.getPrefix(), "" ) );
+    wMaxGroupsInMemory.setText( Const.NVL( input.getMaxGroupsInMemory(), "" ) );
+    wCompress.setSelection( input.isCompressFiles() );
 
     if ( input.getGroupField() != null ) {
       for ( int i = 0; i < input.getGroupField().length; i++ ) {
@@ -365,6 +468,10 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     int nrFields = wAgg.nrNonEmpty();
 
     input.setAlwaysGivingBackOneRow( wAlwaysAddResult.getSelection() );
+    input.setDirectory( wDirectory.getText() );
+    input.setPrefix( wPrefix.getText() );
+    input.setMaxGroupsInMemory( wMaxGroupsInMemory.getText() );
+    input.setCompressFiles( wCompress.getSelection() );
 
     input.allocate( sizegroup, nrFields );
 
@@ -44,6 +44,7 @@ import org.apache.hop.pipeline.transform.ITransformMeta;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.w3c.dom.Node;
 
+import java.io.File;
 import java.util.List;
 
 /** Created on 02-jun-2003 */
@@ -96,6 +97,10 @@ public class MemoryGroupByMeta extends BaseTransformMeta
 
   public static final int TYPE_GROUP_COUNT_ANY = 16;
 
+  public static final String DEFAULT_DIRECTORY = "${java.io.tmpdir}";
+
+  public static final String DEFAULT_PREFIX = "grp";
+
   public static final String[]
       typeGroupCode = /* WARNING: DO NOT TRANSLATE THIS. WE ARE SERIOUS, DON'T TRANSLATE! */ {
     "-",
@@ -161,6 +166,25 @@ public class MemoryGroupByMeta extends BaseTransformMeta
   /** Flag to indicate that we always give back one row. Defaults to true for existing pipelines. */
   private boolean alwaysGivingBackOneRow;
 
+  /** Directory to store the temp files of partitions which don't fit in memory */
+  @Injection(name = "DIRECTORY")
+  private String directory;
+
+  /** Temp files prefix */
+  @Injection(name = "PREFIX")
+  private String prefix;
+
+  /**
+   * The maximum number of groups kept in memory. When it is reached the rows of new groups are
+   * written to temp files. Empty or 0 keeps all groups in memory.
+   */
+  @Injection(name = "MAX_GROUPS_IN_MEMORY")
+  private String maxGroupsInMemory;
+
+  /** Compress the temp files */
+  @Injection(name = "COMPRESS_FILES")
+  private boolean compressFiles;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -215,6 +239,46 @@ public class MemoryGroupByMeta extends BaseTransformMeta
     this.valueField = valueField;
   }
 
+  /** @return Returns the directory to store the temp files in. */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /** @param directory The directory to store the temp files in. */
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  /** @return Returns the prefix of the temp files. */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /** @param prefix The prefix of the temp files. */
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  /** @return Returns the maximum number of groups kept in memory, empty means no limit. */
+  public String getMaxGroupsInMemory() {
+    return maxGroupsInMemory;
+  }
+
+  /** @param maxGroupsInMemory The maximum number of groups kept in memory. */
+  public void setMaxGroupsInMemory(String maxGroupsInMemory) {
+    this.maxGroupsInMemory = maxGroupsInMemory;
+  }
+
+  /** @return Returns whether the temp files are compressed. */
+  public boolean isCompressFiles() {
+    return compressFiles;
+  }
+
+  /** @param compressFiles Whether to compress the temp files. */
+  public void setCompressFiles(boolean compressFiles) {
+    this.compressFiles = compressFiles;
+  }
+
   @Override
   public void loadXml(Node transformNode, IHopMetadataProvider metadataProvider)
       throws HopXmlException {
@@ -291,6 +355,11 @@ public class MemoryGroupByMeta extends BaseTransformMeta
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase(giveBackRow);
       }
+
+      directory = Const.NVL(XmlHandler.getTagValue(transformNode, "directory"), DEFAULT_DIRECTORY);
+      prefix = Const.NVL(XmlHandler.getTagValue(transformNode, "prefix"), DEFAULT_PREFIX);
+      maxGroupsInMemory = XmlHandler.getTagValue(transformNode, "max_groups_in_memory");
+      compressFiles = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "compress"));
     } catch (Exception e) {
       throw new HopXmlException(
           BaseMessages.getString(
@@ -333,6 +402,11 @@ public class MemoryGroupByMeta extends BaseTransformMeta
     int nrFields = 0;
 
     allocate(sizegroup, nrFields);
+
+    directory = DEFAULT_DIRECTORY;
+    prefix = DEFAULT_PREFIX;
+    maxGroupsInMemory = null;
+    compressFiles = false;
   }
 
   @Override
@@ -456,6 +530,12 @@ public class MemoryGroupByMeta extends BaseTransformMeta
     StringBuilder retval = new StringBuilder(500);
 
     retval.append("      ").append(XmlHandler.addTagValue("give_back_row", alwaysGivingBackOneRow));
+    retval.append("      ").append(XmlHandler.addTagValue("directory", directory));
+    retval.append("      ").append(XmlHandler.addTagValue("prefix", prefix));
+    retval
+        .append("      ")
+        .append(XmlHandler.addTagValue("max_groups_in_memory", maxGroupsInMemory));
+    retval.append("      ").append(XmlHandler.addTagValue("compress", compressFiles));
 
     retval.append("      <group>").append(Const.CR);
     for (int i = 0; i < groupField.length; i++) {
@@ -509,6 +589,29 @@ public class MemoryGroupByMeta extends BaseTransformMeta
               transformMeta);
       remarks.add(cr);
     }
+
+    // The temp directory is only used when the number of groups in memory is limited
+    //
+    if (!Utils.isEmpty(maxGroupsInMemory)) {
+      String realDirectory = variables.resolve(directory);
+      File f = new File(realDirectory);
+      if (f.isDirectory()) {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_OK,
+                BaseMessages.getString(
+                    PKG, "MemoryGroupByMeta.CheckResult.DirectoryExists", realDirectory),
+                transformMeta);
+      } else {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_ERROR,
+                BaseMessages.getString(
+                    PKG, "MemoryGroupByMeta.CheckResult.DirectoryNotExists", realDirectory),
+                transformMeta);
+      }
+      remarks.add(cr);
+    }
   }
 
   @Override
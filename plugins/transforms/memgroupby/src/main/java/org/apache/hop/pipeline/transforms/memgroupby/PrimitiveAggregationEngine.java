@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates without creating objects per group: every group gets a number from an open addressing index and the
+ * accumulators are primitive arrays indexed by that number. A single Integer group field is looked up in a
+ * {@link LongGroupIndex} without going through the value metadata, other group fields use a {@link RowGroupIndex}.
+ * <p>
+ * Only the count, sum, average, minimum and maximum aggregates on Integer and Number fields are handled, see
+ * {@link #isSupported(MemoryGroupByMeta, MemoryGroupByData, boolean)}. When the groups are written out the
+ * accumulators are turned into a regular {@link Aggregate} so the results are calculated exactly the same way.
+ */
+public class PrimitiveAggregationEngine {
+
+  private static final int INITIAL_GROUPS = 1024;
+
+  private final int[] aggregateTypes;
+  private final int[] subjectnrs;
+  private final IValueMeta[] subjectMetas;
+  private final boolean[] integerValues;
+
+  private final IRowMeta groupMeta;
+  private final LongGroupIndex longIndex;
+  private final IValueMeta longGroupMeta;
+  private final int longGroupnr;
+  private final RowGroupIndex rowIndex;
+
+  private long[][] longValues;
+  private double[][] doubleValues;
+  private long[][] counts;
+  private int capacity;
+
+  public PrimitiveAggregationEngine( MemoryGroupByMeta meta, MemoryGroupByData data ) {
+    int nrAggregates = data.subjectnrs.length;
+    aggregateTypes = Arrays.copyOf( meta.getAggregateType(), nrAggregates );
+    subjectnrs = data.subjectnrs;
+    subjectMetas = new IValueMeta[ nrAggregates ];
+    integerValues = new boolean[ nrAggregates ];
+    for ( int i = 0; i < nrAggregates; i++ ) {
+      subjectMetas[ i ] = data.inputRowMeta.getValueMeta( subjectnrs[ i ] );
+      IValueMeta aggValueMeta = data.aggMeta.getValueMeta( i );
+      integerValues[ i ] = aggValueMeta.getType() == IValueMeta.TYPE_INTEGER;
+
+      // The results are calculated from primitives, not taken over from the input rows
+      //
+      aggValueMeta.setStorageType( IValueMeta.STORAGE_TYPE_NORMAL );
+    }
+
+    groupMeta = data.groupMeta;
+    if ( data.groupnrs.length == 1 && groupMeta.getValueMeta( 0 ).getType() == IValueMeta.TYPE_INTEGER ) {
+      longIndex = new LongGroupIndex( INITIAL_GROUPS );
+      longGroupMeta = groupMeta.getValueMeta( 0 );
+      longGroupnr = data.groupnrs[ 0 ];
+      rowIndex = null;
+    } else {
+      longIndex = null;
+      longGroupMeta = null;
+      longGroupnr = -1;
+      rowIndex = new RowGroupIndex( groupMeta, data.groupnrs, INITIAL_GROUPS );
+    }
+
+    allocate( INITIAL_GROUPS );
+  }
+
+  /**
+   * See if all the aggregates can be calculated with primitive accumulators.
+   *
+   * @param meta            the transform metadata
+   * @param data            the transform data with the input, aggregate and group metadata calculated
+   * @param minNullIsValued true if a null value counts as the minimum
+   * @return true if this engine can calculate all the aggregates
+   */
+  public static boolean isSupported( MemoryGroupByMeta meta, MemoryGroupByData data, boolean minNullIsValued ) {
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      IValueMeta subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+      switch ( meta.getAggregateType()[ i ] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          if ( minNullIsValued ) {
+            return false;
+          }
+          // fall through
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          if ( subjMeta.isSortedDescending() ) {
+            return false;
+          }
+          // fall through
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          if ( !isPrimitive( subjMeta ) || !isPrimitive( data.aggMeta.getValueMeta( i ) ) ) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isPrimitive( IValueMeta valueMeta ) {
+    return valueMeta.getType() == IValueMeta.TYPE_INTEGER || valueMeta.getType() == IValueMeta.TYPE_NUMBER;
+  }
+
+  /**
+   * Add a row to the aggregates of its group.
+   *
+   * @param r the input row
+   * @throws HopValueException in case a value can't be converted
+   */
+  public void add( Object[] r ) throws HopValueException {
+    int group;
+    if ( longIndex != null ) {
+      Object key = r[ longGroupnr ];
+      if ( longGroupMeta.isNull( key ) ) {
+        group = longIndex.getNullGroup();
+      } else {
+        group = longIndex.getGroup( longGroupMeta.getInteger( key ) );
+      }
+    } else {
+      group = rowIndex.getGroup( r );
+    }
+    if ( group >= capacity ) {
+      allocate( capacity * 2 );
+    }
+
+    for ( int i = 0; i < aggregateTypes.length; i++ ) {
+      if ( aggregateTypes[ i ] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+        counts[ i ][ group ]++;
+        continue;
+      }
+
+      Object subj = r[ subjectnrs[ i ] ];
+      IValueMeta subjMeta = subjectMetas[ i ];
+      if ( subjMeta.isNull( subj ) ) {
+        continue;
+      }
+      long count = counts[ i ][ group ]++;
+
+      switch ( aggregateTypes[ i ] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          if ( integerValues[ i ] ) {
+            longValues[ i ][ group ] += subjMeta.getInteger( subj );
+          } else if ( count == 0 ) {
+            doubleValues[ i ][ group ] = subjMeta.getNumber( subj );
+          } else {
+            doubleValues[ i ][ group ] += subjMeta.getNumber( subj );
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          if ( integerValues[ i ] ) {
+            long value = subjMeta.getInteger( subj );
+            if ( count == 0 || value < longValues[ i ][ group ] ) {
+              longValues[ i ][ group ] = value;
+            }
+          } else {
+            double value = subjMeta.getNumber( subj );
+            if ( count == 0 || Double.compare( value, doubleValues[ i ][ group ] ) < 0 ) {
+              doubleValues[ i ][ group ] = value;
+            }
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          if ( integerValues[ i ] ) {
+            long value = subjMeta.getInteger( subj );
+            if ( count == 0 || value > longValues[ i ][ group ] ) {
+              longValues[ i ][ group ] = value;
+            }
+          } else {
+            double value = subjMeta.getNumber( subj );
+            if ( count == 0 || Double.compare( value, doubleValues[ i ][ group ] ) > 0 ) {
+              doubleValues[ i ][ group ] = value;
+            }
+          }
+          break;
+        default:
+          // COUNT_ALL: only the count
+          break;
+      }
+    }
+  }
+
+  /**
+   * @param r the input row
+   * @return true if the group of the row was already found
+   * @throws HopValueException in case a value can't be converted
+   */
+  public boolean hasGroup( Object[] r ) throws HopValueException {
+    if ( longIndex != null ) {
+      Object key = r[ longGroupnr ];
+      if ( longGroupMeta.isNull( key ) ) {
+        return longIndex.hasNullGroup();
+      }
+      return longIndex.hasGroup( longGroupMeta.getInteger( key ) );
+    }
+    return rowIndex.hasGroup( r );
+  }
+
+  /**
+   * @return the number of groups found so far
+   */
+  public int getGroupCount() {
+    return longIndex != null ? longIndex.getGroupCount() : rowIndex.getGroupCount();
+  }
+
+  /**
+   * @param group the group number
+   * @return the values of the group fields in normal storage
+   * @throws HopValueException in case a value can't be converted
+   */
+  public Object[] getGroupData( int group ) throws HopValueException {
+    if ( longIndex != null ) {
+      return new Object[] { longIndex.getGroupKey( group ) };
+    }
+    Object[] key = rowIndex.getGroupKey( group );
+    Object[] groupData = new Object[ key.length ];
+    for ( int i = 0; i < key.length; i++ ) {
+      groupData[ i ] = groupMeta.getValueMeta( i ).convertToNormalStorageType( key[ i ] );
+    }
+    return groupData;
+  }
+
+  /**
+   * Convert the accumulators of a group into an aggregate.
+   *
+   * @param group the group number
+   * @return the aggregate as it would have been calculated row by row
+   */
+  public Aggregate getAggregate( int group ) {
+    Aggregate aggregate = new Aggregate();
+    aggregate.agg = new Object[ aggregateTypes.length ];
+    aggregate.counts = new long[ aggregateTypes.length ];
+    for ( int i = 0; i < aggregateTypes.length; i++ ) {
+      aggregate.counts[ i ] = counts[ i ][ group ];
+      if ( longValues[ i ] != null && aggregate.counts[ i ] > 0 ) {
+        aggregate.agg[ i ] = longValues[ i ][ group ];
+      } else if ( doubleValues[ i ] != null && aggregate.counts[ i ] > 0 ) {
+        aggregate.agg[ i ] = doubleValues[ i ][ group ];
+      }
+    }
+    return aggregate;
+  }
+
+  /**
+   * Forget all groups, for example at the end of a batch.
+   */
+  public void clear() {
+    if ( longIndex != null ) {
+      longIndex.clear();
+    } else {
+      rowIndex.clear();
+    }
+    capacity = 0;
+    longValues = null;
+    doubleValues = null;
+    counts = null;
+    allocate( INITIAL_GROUPS );
+  }
+
+  private void allocate( int newCapacity ) {
+    if ( counts == null ) {
+      longValues = new long[ aggregateTypes.length ][];
+      doubleValues = new double[ aggregateTypes.length ][];
+      counts = new long[ aggregateTypes.length ][];
+    }
+    for ( int i = 0; i < aggregateTypes.length; i++ ) {
+      counts[ i ] = counts[ i ] == null ? new long[ newCapacity ] : Arrays.copyOf( counts[ i ], newCapacity );
+      if ( aggregateTypes[ i ] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
+        || aggregateTypes[ i ] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+        continue;
+      }
+      if ( integerValues[ i ] ) {
+        longValues[ i ] = longValues[ i ] == null ? new long[ newCapacity ] : Arrays.copyOf( longValues[ i ], newCapacity );
+      } else {
+        doubleValues[ i ] =
+          doubleValues[ i ] == null ? new double[ newCapacity ] : Arrays.copyOf( doubleValues[ i ], newCapacity );
+      }
+    }
+    capacity = newCapacity;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.Arrays;
+
+/**
+ * Hands out a group number for every distinct combination of group field values. Keys are compared and hashed the
+ * same way as {@link MemoryGroupByData.HashEntry} does it, but the table uses open addressing on plain arrays and the
+ * group fields are only copied out of the row when a new group is found.
+ * <p>
+ * The numbers are handed out in order of appearance, starting at 0.
+ */
+public class RowGroupIndex {
+
+  private static final float LOAD_FACTOR = 0.7f;
+
+  private final IRowMeta groupMeta;
+  private final int[] groupnrs;
+
+  // Reused for every lookup
+  private final Object[] lookupKey;
+  private final Object[] hashKey;
+
+  private int[] hashes;
+  private int[] slots; // group number + 1, 0 means free
+  private int resizeThreshold;
+
+  private Object[][] groupKeys;
+  private int groupCount;
+
+  public RowGroupIndex( IRowMeta groupMeta, int[] groupnrs, int size ) {
+    this.groupMeta = groupMeta;
+    this.groupnrs = groupnrs;
+    this.lookupKey = new Object[ groupnrs.length ];
+    this.hashKey = new Object[ groupnrs.length ];
+
+    int capacity = 2;
+    while ( capacity * LOAD_FACTOR < size ) {
+      capacity <<= 1;
+    }
+    allocate( capacity );
+    groupKeys = new Object[ Math.max( 16, size ) ][];
+  }
+
+  /**
+   * @param row the input row
+   * @return the number of the group the row belongs to, a new one if its group field values weren't seen before
+   * @throws HopValueException in case a group field value can't be converted
+   */
+  public int getGroup( Object[] row ) throws HopValueException {
+    int hash = setLookupKey( row );
+    int slot = findSlot( hash );
+    if ( slots[ slot ] != 0 ) {
+      return slots[ slot ] - 1;
+    }
+
+    // A new group: keep a copy of the key
+    //
+    if ( groupCount == groupKeys.length ) {
+      groupKeys = Arrays.copyOf( groupKeys, groupCount * 2 );
+    }
+    int group = groupCount++;
+    groupKeys[ group ] = lookupKey.clone();
+    hashes[ slot ] = hash;
+    slots[ slot ] = group + 1;
+
+    if ( groupCount >= resizeThreshold ) {
+      resize();
+    }
+    return group;
+  }
+
+  /**
+   * @param row the input row
+   * @return true if the group field values of the row already have a group
+   * @throws HopValueException in case a group field value can't be converted
+   */
+  public boolean hasGroup( Object[] row ) throws HopValueException {
+    return slots[ findSlot( setLookupKey( row ) ) ] != 0;
+  }
+
+  /**
+   * Copy the group field values of the row to the lookup key.
+   *
+   * @return the hash code of the key
+   */
+  private int setLookupKey( Object[] row ) throws HopValueException {
+    for ( int i = 0; i < groupnrs.length; i++ ) {
+      lookupKey[ i ] = row[ groupnrs[ i ] ];
+      hashKey[ i ] = groupMeta.getValueMeta( i ).convertToNormalStorageType( lookupKey[ i ] );
+    }
+    return groupMeta.hashCode( hashKey );
+  }
+
+  /**
+   * @return the slot holding the lookup key or the free slot where it belongs
+   */
+  private int findSlot( int hash ) throws HopValueException {
+    int mask = slots.length - 1;
+    int slot = spread( hash ) & mask;
+    while ( slots[ slot ] != 0 ) {
+      if ( hashes[ slot ] == hash && groupMeta.compare( groupKeys[ slots[ slot ] - 1 ], lookupKey ) == 0 ) {
+        return slot;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @param group the group number
+   * @return the group field values of the group, in the storage type of the input
+   */
+  public Object[] getGroupKey( int group ) {
+    return groupKeys[ group ];
+  }
+
+  public int getGroupCount() {
+    return groupCount;
+  }
+
+  public void clear() {
+    Arrays.fill( slots, 0 );
+    Arrays.fill( groupKeys, 0, groupCount, null );
+    groupCount = 0;
+  }
+
+  private void allocate( int capacity ) {
+    hashes = new int[ capacity ];
+    slots = new int[ capacity ];
+    resizeThreshold = Math.max( 1, Math.min( capacity - 1, (int) ( capacity * LOAD_FACTOR ) ) );
+  }
+
+  private void resize() {
+    int[] oldHashes = hashes;
+    int[] oldSlots = slots;
+    allocate( oldSlots.length * 2 );
+
+    int mask = slots.length - 1;
+    for ( int i = 0; i < oldSlots.length; i++ ) {
+      if ( oldSlots[ i ] != 0 ) {
+        int slot = spread( oldHashes[ i ] ) & mask;
+        while ( slots[ slot ] != 0 ) {
+          slot = ( slot + 1 ) & mask;
+        }
+        hashes[ slot ] = oldHashes[ i ];
+        slots[ slot ] = oldSlots[ i ];
+      }
+    }
+  }
+
+  private static int spread( int hash ) {
+    int h = hash * 0x9E3779B9;
+    return h ^ ( h >>> 16 );
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.pipeline.transform.BaseTransform;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A temporary file holding the input rows of one hash partition which didn't fit in memory. The rows are written and
+ * read back with the input row metadata.
+ */
+public class SpillPartition {
+
+  private final FileObject fileObject;
+  private final int level;
+  private final boolean compressed;
+
+  private DataOutputStream outputStream;
+  private DataInputStream inputStream;
+  private long rowCount;
+
+  /**
+   * Create a new temporary file and open it for writing.
+   *
+   * @param directory  the directory to create the file in
+   * @param prefix     the prefix of the file name
+   * @param level      the number of times the rows in this partition were partitioned
+   * @param compressed true if the file is gzip compressed
+   * @throws HopException in case the file can't be created
+   */
+  public SpillPartition( String directory, String prefix, int level, boolean compressed ) throws HopException {
+    this.level = level;
+    this.compressed = compressed;
+    this.fileObject = HopVfs.createTempFile( prefix, ".tmp", directory );
+    try {
+      OutputStream fileStream = HopVfs.getOutputStream( fileObject, false );
+      if ( compressed ) {
+        outputStream = new DataOutputStream( new GZIPOutputStream( new BufferedOutputStream( fileStream ) ) );
+      } else {
+        outputStream = new DataOutputStream( new BufferedOutputStream( fileStream, 500000 ) );
+      }
+    } catch ( IOException e ) {
+      throw new HopFileException( "Unable to open temp-file " + HopVfs.getFilename( fileObject ), e );
+    }
+  }
+
+  public void writeRow( IRowMeta rowMeta, Object[] row ) throws HopFileException {
+    rowMeta.writeData( outputStream, row );
+    rowCount++;
+  }
+
+  /**
+   * Finish writing, after this the rows can be read back.
+   */
+  public void closeOutput() throws HopFileException {
+    try {
+      if ( outputStream != null ) {
+        outputStream.close();
+        outputStream = null;
+      }
+    } catch ( IOException e ) {
+      throw new HopFileException( "Unable to close temp-file " + HopVfs.getFilename( fileObject ), e );
+    }
+  }
+
+  /**
+   * Open the file to read the {@link #getRowCount()} rows back with {@link #readRow(IRowMeta)}.
+   */
+  public void openInput() throws HopFileException {
+    try {
+      InputStream fileStream = HopVfs.getInputStream( fileObject );
+      if ( compressed ) {
+        inputStream = new DataInputStream( new GZIPInputStream( new BufferedInputStream( fileStream ) ) );
+      } else {
+        inputStream = new DataInputStream( new BufferedInputStream( fileStream, 50000 ) );
+      }
+    } catch ( IOException e ) {
+      throw new HopFileException( "Unable to read temp-file " + HopVfs.getFilename( fileObject ), e );
+    }
+  }
+
+  public Object[] readRow( IRowMeta rowMeta ) throws HopFileException {
+    try {
+      return rowMeta.readData( inputStream );
+    } catch ( SocketTimeoutException e ) {
+      throw new HopFileException( "Unable to read temp-file " + HopVfs.getFilename( fileObject ), e );
+    }
+  }
+
+  /**
+   * Close the streams and remove the file.
+   */
+  public void delete() throws HopFileException {
+    BaseTransform.closeQuietly( outputStream );
+    BaseTransform.closeQuietly( inputStream );
+    outputStream = null;
+    inputStream = null;
+    try {
+      if ( fileObject.exists() ) {
+        fileObject.delete();
+      }
+    } catch ( FileSystemException e ) {
+      throw new HopFileException( "Unable to delete temp-file " + HopVfs.getFilename( fileObject ), e );
+    }
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+}
@@ -38,5 +38,9 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
     check( "AGGREGATETYPE", () -> meta.getAggregateType()[ 0 ] );
     check( "VALUEFIELD", () -> meta.getValueField()[ 0 ] );
     check( "ALWAYSGIVINGBACKONEROW", () -> meta.isAlwaysGivingBackOneRow() );
+    check( "DIRECTORY", () -> meta.getDirectory() );
+    check( "PREFIX", () -> meta.getPrefix() );
+    check( "MAX_GROUPS_IN_MEMORY", () -> meta.getMaxGroupsInMemory() );
+    check( "COMPRESS_FILES", () -> meta.isCompressFiles() );
   }
 }
@@ -66,7 +66,8 @@ public class MemoryGroupByMetaTest implements IInitializer<MemoryGroupByMeta> {
     HopEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-      Arrays.asList( "alwaysGivingBackOneRow", "groupField", "aggregateField", "subjectField", "aggregateType", "valueField" );
+      Arrays.asList( "alwaysGivingBackOneRow", "groupField", "aggregateField", "subjectField", "aggregateType", "valueField",
+        "directory", "prefix", "maxGroupsInMemory", "compressFiles" );
 
     IFieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
       new ArrayLoadSaveValidator<>( new StringLoadSaveValidator(), 5 );
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Aggregates the same rows with and without spilling to disk: the groups written out must be the same.
+ */
+public class MemoryGroupBySpillTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final String TRANSFORM_NAME = "testTransform";
+  private static final int NR_ROWS = 5000;
+  private static final int NR_GROUPS = 300;
+
+  private RowMeta rowMeta;
+  private List<Object[]> rows;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws HopException {
+    HopClientEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "code" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "quantity" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+
+    Random random = new Random( 1234 );
+    rows = new ArrayList<>();
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      long id = random.nextInt( NR_GROUPS );
+      rows.add( new Object[] {
+        id,
+        "code" + ( id % 7 ),
+        i % 11 == 0 ? null : (long) random.nextInt( 100 ),
+        random.nextInt( 1000 ) / 10.0 } );
+    }
+  }
+
+  /**
+   * Integer group and aggregates the primitive aggregation engine supports.
+   */
+  @Test
+  public void testSpillPrimitiveAggregation() throws Exception {
+    MemoryGroupByMeta meta = createMeta( new String[] { "id" },
+      MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL, MemoryGroupByMeta.TYPE_GROUP_MIN,
+      MemoryGroupByMeta.TYPE_GROUP_MAX );
+
+    assertSpillMatchesInMemory( meta );
+  }
+
+  /**
+   * Two group fields and a count distinct: the aggregates are kept in the hash map.
+   */
+  @Test
+  public void testSpillHashMapAggregation() throws Exception {
+    MemoryGroupByMeta meta = createMeta( new String[] { "code", "id" },
+      MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT,
+      MemoryGroupByMeta.TYPE_GROUP_AVERAGE, MemoryGroupByMeta.TYPE_GROUP_MAX );
+
+    assertSpillMatchesInMemory( meta );
+  }
+
+  @Test
+  public void testSpillCompressed() throws Exception {
+    MemoryGroupByMeta meta = createMeta( new String[] { "id" },
+      MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY, MemoryGroupByMeta.TYPE_GROUP_MIN,
+      MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA );
+    meta.setCompressFiles( true );
+
+    assertSpillMatchesInMemory( meta );
+  }
+
+  private void assertSpillMatchesInMemory( MemoryGroupByMeta meta ) throws Exception {
+    List<String> inMemory = runTransform( meta, null );
+    assertEquals( NR_GROUPS, inMemory.size() );
+
+    // A few groups per partition: partitions are spilled again at the next levels
+    //
+    List<String> spilled = runTransform( meta, "10" );
+    assertEquals( inMemory, spilled );
+
+    // All the temp files are removed
+    //
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  private MemoryGroupByMeta createMeta( String[] groupFields, int... aggregateTypes ) {
+    String[] subjects = { "quantity", "quantity", "amount", "amount" };
+
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate( groupFields.length, aggregateTypes.length );
+    meta.setGroupField( groupFields );
+    for ( int i = 0; i < aggregateTypes.length; i++ ) {
+      meta.getAggregateField()[ i ] = "agg" + i;
+      meta.getSubjectField()[ i ] = subjects[ i ];
+      meta.getAggregateType()[ i ] = aggregateTypes[ i ];
+    }
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+    return meta;
+  }
+
+  /**
+   * @return the output rows as strings, sorted since the order of the groups isn't fixed
+   */
+  private List<String> runTransform( MemoryGroupByMeta meta, String maxGroupsInMemory ) throws HopException {
+    meta.setMaxGroupsInMemory( maxGroupsInMemory );
+
+    MemoryGroupByData data = new MemoryGroupByData();
+
+    PipelineMeta pipelineMeta = mock( PipelineMeta.class );
+    TransformMeta transformMeta = new TransformMeta( TRANSFORM_NAME, meta );
+    when( pipelineMeta.findTransform( TRANSFORM_NAME ) ).thenReturn( transformMeta );
+
+    MemoryGroupBy transform = spy( new MemoryGroupBy( transformMeta, meta, data, 0, pipelineMeta, mock( Pipeline.class ) ) );
+
+    // What init() does with the metadata
+    //
+    data.map = new HashMap<>();
+    data.maxGroupsInMemory = Const.toLong( maxGroupsInMemory, 0L );
+    data.spillDirectory = meta.getDirectory();
+    data.compressFiles = meta.isCompressFiles();
+
+    List<String> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      IRowMeta outputRowMeta = (IRowMeta) invocation.getArguments()[ 0 ];
+      output.add( outputRowMeta.getString( (Object[]) invocation.getArguments()[ 1 ] ) );
+      return null;
+    } ).when( transform ).putRow( (IRowMeta) any(), (Object[]) any() );
+    doNothing().when( transform ).setOutputDone();
+    doReturn( rowMeta ).when( transform ).getInputRowMeta();
+
+    Iterator<Object[]> input = rows.iterator();
+    doAnswer( invocation -> input.hasNext() ? input.next().clone() : null ).when( transform ).getRow();
+
+    while ( transform.processRow() ) {
+      // Keep reading
+    }
+    assertTrue( data.spilledPartitions.isEmpty() );
+    transform.dispose();
+
+    Collections.sort( output );
+    return output;
+  }
+}
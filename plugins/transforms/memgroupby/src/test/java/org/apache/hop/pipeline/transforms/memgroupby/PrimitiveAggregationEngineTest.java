@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveAggregationEngineTest {
+
+  private static final int[] TYPES = {
+    MemoryGroupByMeta.TYPE_GROUP_SUM,
+    MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+    MemoryGroupByMeta.TYPE_GROUP_MIN,
+    MemoryGroupByMeta.TYPE_GROUP_MAX,
+    MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+    MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY,
+    MemoryGroupByMeta.TYPE_GROUP_SUM,
+    MemoryGroupByMeta.TYPE_GROUP_MAX,
+  };
+
+  private MemoryGroupByMeta meta;
+  private MemoryGroupByData data;
+
+  @Before
+  public void setUp() {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    inputRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "int" ) );
+    inputRowMeta.addValueMeta( new ValueMetaNumber( "num" ) );
+
+    meta = new MemoryGroupByMeta();
+    meta.setAggregateType( TYPES.clone() );
+
+    data = new MemoryGroupByData();
+    data.inputRowMeta = inputRowMeta;
+    data.subjectnrs = new int[] { 2, 2, 2, 2, 2, 2, 3, 3 };
+    data.aggMeta = new RowMeta();
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      IValueMeta subjMeta = inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+      if ( TYPES[ i ] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL || TYPES[ i ] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+        data.aggMeta.addValueMeta( new ValueMetaInteger( "agg" + i ) );
+      } else {
+        IValueMeta aggMeta = subjMeta.clone();
+        aggMeta.setName( "agg" + i );
+        data.aggMeta.addValueMeta( aggMeta );
+      }
+    }
+  }
+
+  private void setGroupFields( int... groupnrs ) {
+    data.groupnrs = groupnrs;
+    data.groupMeta = new RowMeta();
+    for ( int groupnr : groupnrs ) {
+      data.groupMeta.addValueMeta( data.inputRowMeta.getValueMeta( groupnr ) );
+    }
+  }
+
+  @Test
+  public void testSingleIntegerKey() throws Exception {
+    setGroupFields( 0 );
+    assertTrue( PrimitiveAggregationEngine.isSupported( meta, data, false ) );
+
+    PrimitiveAggregationEngine engine = new PrimitiveAggregationEngine( meta, data );
+    engine.add( new Object[] { 1L, "a", 5L, 1.5 } );
+    engine.add( new Object[] { 2L, "a", null, null } );
+    engine.add( new Object[] { null, "a", 7L, 2.0 } );
+    engine.add( new Object[] { 1L, "a", -3L, 0.25 } );
+    engine.add( new Object[] { 1L, "a", null, null } );
+
+    assertEquals( 3, engine.getGroupCount() );
+    assertArrayEquals( new Object[] { 1L }, engine.getGroupData( 0 ) );
+    assertArrayEquals( new Object[] { 2L }, engine.getGroupData( 1 ) );
+    assertArrayEquals( new Object[] { null }, engine.getGroupData( 2 ) );
+
+    Aggregate first = engine.getAggregate( 0 );
+    assertArrayEquals( new Object[] { 2L, 2L, -3L, 5L, null, null, 1.75, 1.5 }, first.agg );
+    assertEquals( 2L, first.counts[ 1 ] );
+    assertEquals( 2L, first.counts[ 4 ] );
+    assertEquals( 3L, first.counts[ 5 ] );
+
+    // Only nulls: no values, just counts
+    Aggregate second = engine.getAggregate( 1 );
+    assertArrayEquals( new Object[ TYPES.length ], second.agg );
+    assertEquals( 0L, second.counts[ 4 ] );
+    assertEquals( 1L, second.counts[ 5 ] );
+
+    Aggregate nullGroup = engine.getAggregate( 2 );
+    assertArrayEquals( new Object[] { 7L, 7L, 7L, 7L, null, null, 2.0, 2.0 }, nullGroup.agg );
+  }
+
+  @Test
+  public void testCompositeKey() throws Exception {
+    setGroupFields( 0, 1 );
+
+    PrimitiveAggregationEngine engine = new PrimitiveAggregationEngine( meta, data );
+    for ( long i = 0; i < 10000; i++ ) {
+      engine.add( new Object[] { i % 100, i % 2 == 0 ? "even" : "odd", i, (double) i } );
+    }
+
+    // 100 keys, each one either even or odd
+    assertEquals( 100, engine.getGroupCount() );
+    for ( int group = 0; group < engine.getGroupCount(); group++ ) {
+      Object[] groupData = engine.getGroupData( group );
+      long key = (Long) groupData[ 0 ];
+      assertEquals( key % 2 == 0 ? "even" : "odd", groupData[ 1 ] );
+
+      Aggregate aggregate = engine.getAggregate( group );
+      assertEquals( key * 100 + 100 * 99 * 50, aggregate.agg[ 0 ] );
+      assertEquals( key, aggregate.agg[ 2 ] );
+      assertEquals( key + 9900, aggregate.agg[ 3 ] );
+      assertEquals( 100L, aggregate.counts[ 4 ] );
+    }
+  }
+
+  @Test
+  public void testManyGroupsAndClear() throws Exception {
+    setGroupFields( 0 );
+
+    PrimitiveAggregationEngine engine = new PrimitiveAggregationEngine( meta, data );
+    for ( long i = 0; i < 100000; i++ ) {
+      engine.add( new Object[] { i * 1024, null, i, null } );
+      engine.add( new Object[] { i * 1024, null, 1L, null } );
+    }
+    assertEquals( 100000, engine.getGroupCount() );
+    assertEquals( 99999L * 1024, engine.getGroupData( 99999 )[ 0 ] );
+    assertEquals( 100000L, engine.getAggregate( 99999 ).agg[ 0 ] );
+
+    engine.clear();
+    assertEquals( 0, engine.getGroupCount() );
+    engine.add( new Object[] { 5L, null, 3L, null } );
+    assertEquals( 1, engine.getGroupCount() );
+    assertEquals( 3L, engine.getAggregate( 0 ).agg[ 0 ] );
+    assertNull( engine.getAggregate( 0 ).agg[ 6 ] );
+  }
+
+  @Test
+  public void testNotSupported() {
+    setGroupFields( 0 );
+
+    // A null minimum needs the object based aggregates
+    assertFalse( PrimitiveAggregationEngine.isSupported( meta, data, true ) );
+
+    // So do the other aggregates
+    meta.getAggregateType()[ 0 ] = MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT;
+    assertFalse( PrimitiveAggregationEngine.isSupported( meta, data, false ) );
+
+    // and the minimum of a String
+    meta.getAggregateType()[ 0 ] = MemoryGroupByMeta.TYPE_GROUP_MIN;
+    data.subjectnrs[ 0 ] = 1;
+    assertFalse( PrimitiveAggregationEngine.isSupported( meta, data, false ) );
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpillPartitionTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopClientEnvironment.init();
+  }
+
+  @Test
+  public void testWriteAndReadBack() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    for ( boolean compressed : new boolean[] { false, true } ) {
+      SpillPartition partition =
+        new SpillPartition( System.getProperty( "java.io.tmpdir" ), "grp", 1, compressed );
+      try {
+        for ( long i = 0; i < 1000; i++ ) {
+          partition.writeRow( rowMeta, new Object[] { i, i % 3 == 0 ? null : "name" + i } );
+        }
+        partition.closeOutput();
+        assertEquals( 1000, partition.getRowCount() );
+        assertEquals( 1, partition.getLevel() );
+
+        partition.openInput();
+        for ( long i = 0; i < 1000; i++ ) {
+          assertArrayEquals( new Object[] { i, i % 3 == 0 ? null : "name" + i }, partition.readRow( rowMeta ) );
+        }
+      } finally {
+        partition.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testPartitionNrSpreadsPerLevel() {
+    for ( int hash = -1000; hash < 1000; hash++ ) {
+      int nr = MemoryGroupBy.getSpillPartitionNr( hash, 0 );
+      assertTrue( nr >= 0 && nr < MemoryGroupBy.NR_SPILL_PARTITIONS );
+    }
+
+    // The groups which ended up in the same partition must be spread again at the next level
+    //
+    Set<Integer> nextLevel = new HashSet<>();
+    for ( int hash = 0; hash < 100000; hash++ ) {
+      if ( MemoryGroupBy.getSpillPartitionNr( hash, 0 ) == 0 ) {
+        nextLevel.add( MemoryGroupBy.getSpillPartitionNr( hash, 1 ) );
+      }
+    }
+    assertEquals( MemoryGroupBy.NR_SPILL_PARTITIONS, nextLevel.size() );
+  }
+}
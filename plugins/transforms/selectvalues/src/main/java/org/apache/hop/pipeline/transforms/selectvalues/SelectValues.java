@@ -332,23 +332,15 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
   }
 
   public boolean processRow() throws HopException {
-    Object[] rowData = getRow(); // get row from rowset, wait for our turn, indicate busy!
-    if ( rowData == null ) { // no more input to be expected...
+    long linesBefore = getLinesRead();
+
+    Object[][] rows = getRows(); // get a batch of rows from rowset, wait for our turn, indicate busy!
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
     }
 
-    Object[] rowCopy = null;
-    if ( getTransformMeta().isDoingErrorHandling() ) {
-      rowCopy = getInputRowMeta().cloneRow( rowData );
-    }
-
-    if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.GotRowFromPreviousTransform" )
-        + getInputRowMeta().getString( rowData ) );
-    }
-
     if ( first ) {
       first = false;
 
@@ -360,48 +352,72 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
       meta.getMetadataFields( data.metadataRowMeta, getTransformName(), this );
     }
 
-    try {
-      Object[] outputData = rowData;
-
-      if ( data.select ) {
-        outputData = selectValues( getInputRowMeta(), outputData );
-      }
-      if ( data.deselect ) {
-        outputData = removeValues( data.selectRowMeta, outputData );
-      }
-      if ( data.metadata ) {
-        outputData = metadataValues( data.deselectRowMeta, outputData );
-      }
+    // The output rows replace the input rows in the batch, skipping the rows that went to error handling
+    //
+    int outputCount = 0;
+    for ( int i = 0; i < rows.length; i++ ) {
+      Object[] rowData = rows[ i ];
 
-      if ( outputData == null ) {
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+      Object[] rowCopy = null;
+      if ( getTransformMeta().isDoingErrorHandling() ) {
+        rowCopy = getInputRowMeta().cloneRow( rowData );
       }
 
-      // Send the row on its way
-      //
-      putRow( data.metadataRowMeta, outputData );
       if ( log.isRowLevel() ) {
-        logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.WroteRowToNextTransform" )
-          + data.metadataRowMeta.getString( outputData ) );
+        logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.GotRowFromPreviousTransform" )
+          + getInputRowMeta().getString( rowData ) );
       }
 
-    } catch ( HopException e ) {
-      if ( getTransformMeta().isDoingErrorHandling() ) {
-        String field;
-        if ( e instanceof HopConversionException ) {
-          List<IValueMeta> fields = ( (HopConversionException) e ).getFields();
-          field = fields.isEmpty() ? null : fields.get( 0 ).getName();
+      try {
+        Object[] outputData = rowData;
+
+        if ( data.select ) {
+          outputData = selectValues( getInputRowMeta(), outputData );
+        }
+        if ( data.deselect ) {
+          outputData = removeValues( data.selectRowMeta, outputData );
+        }
+        if ( data.metadata ) {
+          outputData = metadataValues( data.deselectRowMeta, outputData );
+        }
+
+        if ( outputData == null ) {
+          putRows( data.metadataRowMeta, rows, outputCount );
+          setOutputDone(); // signal end to receiver(s)
+          return false;
+        }
+
+        rows[ outputCount++ ] = outputData;
+        if ( log.isRowLevel() ) {
+          logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.WroteRowToNextTransform" )
+            + data.metadataRowMeta.getString( outputData ) );
+        }
+
+      } catch ( HopException e ) {
+        if ( getTransformMeta().isDoingErrorHandling() ) {
+          String field;
+          if ( e instanceof HopConversionException ) {
+            List<IValueMeta> fields = ( (HopConversionException) e ).getFields();
+            field = fields.isEmpty() ? null : fields.get( 0 ).getName();
+          } else {
+            field = null;
+          }
+          // Keep the original order: the rows before this one go first
+          //
+          putRows( data.metadataRowMeta, rows, outputCount );
+          outputCount = 0;
+          putError( getInputRowMeta(), rowCopy, 1, e.getMessage(), field, "SELECT001" );
         } else {
-          field = null;
+          throw e;
         }
-        putError( getInputRowMeta(), rowCopy, 1, e.getMessage(), field, "SELECT001" );
-      } else {
-        throw e;
       }
     }
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    // Send the rows on their way
+    //
+    putRows( data.metadataRowMeta, rows, outputCount );
+
+    if ( checkFeedback( linesBefore, getLinesRead() ) ) {
       logBasic( BaseMessages.getString( PKG, "SelectValues.Log.LineNumber" ) + getLinesRead() );
     }
 
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Sorts a buffer of rows on a fork-join pool: the buffer is cut in chunks which are sorted in parallel, after which the
+ * sorted chunks are merged pairwise, again in parallel where possible.
+ * <p>
+ * The row comparators use the value metadata of the rows which isn't safe to share between threads. That is why every
+ * chunk gets its own comparator from the given factory. The sort is stable, just like {@link
+ * java.util.Collections#sort(List, Comparator)}.
+ */
+public class ParallelRowSorter {
+
+  /**
+   * Buffers with fewer rows than this per thread are not worth splitting up.
+   */
+  public static final int MIN_CHUNK_SIZE = 10000;
+
+  private final ForkJoinPool pool;
+  private final int parallelism;
+  private final Supplier<Comparator<Object[]>> comparatorFactory;
+
+  /**
+   * @param pool              the pool to run the sort tasks in
+   * @param parallelism       the maximum number of chunks to sort in parallel
+   * @param comparatorFactory creates a new comparator which can be used in another thread
+   */
+  public ParallelRowSorter( ForkJoinPool pool, int parallelism, Supplier<Comparator<Object[]>> comparatorFactory ) {
+    this.pool = pool;
+    this.parallelism = Math.max( 1, parallelism );
+    this.comparatorFactory = comparatorFactory;
+  }
+
+  /**
+   * @param nrRows the number of rows to sort
+   * @return true if the rows would be sorted on more than one thread
+   */
+  public boolean isParallel( int nrRows ) {
+    return getNrChunks( nrRows ) > 1;
+  }
+
+  /**
+   * Sort the rows in the list.
+   *
+   * @param rows the rows to sort
+   */
+  public void sort( List<Object[]> rows ) {
+    int nrRows = rows.size();
+    int nrChunks = getNrChunks( nrRows );
+    if ( nrChunks <= 1 ) {
+      rows.sort( comparatorFactory.get() );
+      return;
+    }
+
+    // The comparators are created here so the row metadata is only ever cloned on the calling thread
+    //
+    Comparator<Object[]>[] comparators = newComparatorArray( nrChunks );
+    for ( int i = 0; i < nrChunks; i++ ) {
+      comparators[ i ] = comparatorFactory.get();
+    }
+
+    Object[][] array = rows.toArray( new Object[ nrRows ][] );
+    pool.invoke( new SortTask( array, new Object[ nrRows ][], comparators, 0, nrChunks ) );
+
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows.set( i, array[ i ] );
+    }
+  }
+
+  private int getNrChunks( int nrRows ) {
+    return (int) Math.min( parallelism, nrRows / MIN_CHUNK_SIZE );
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Comparator<Object[]>[] newComparatorArray( int size ) {
+    return new Comparator[ size ];
+  }
+
+  /**
+   * Sorts the chunks with the numbers from lowChunk (inclusive) to highChunk (exclusive).
+   */
+  private static class SortTask extends RecursiveAction {
+    private final Object[][] rows;
+    private final Object[][] buffer;
+    private final Comparator<Object[]>[] comparators;
+    private final int lowChunk;
+    private final int highChunk;
+
+    SortTask( Object[][] rows, Object[][] buffer, Comparator<Object[]>[] comparators, int lowChunk, int highChunk ) {
+      this.rows = rows;
+      this.buffer = buffer;
+      this.comparators = comparators;
+      this.lowChunk = lowChunk;
+      this.highChunk = highChunk;
+    }
+
+    @Override
+    protected void compute() {
+      int from = chunkStart( lowChunk );
+      int to = chunkStart( highChunk );
+
+      // The comparator of the first chunk in the range isn't used by any other running task
+      //
+      Comparator<Object[]> comparator = comparators[ lowChunk ];
+      if ( highChunk - lowChunk == 1 ) {
+        Arrays.sort( rows, from, to, comparator );
+        return;
+      }
+
+      int middleChunk = ( lowChunk + highChunk ) >>> 1;
+      invokeAll(
+        new SortTask( rows, buffer, comparators, lowChunk, middleChunk ),
+        new SortTask( rows, buffer, comparators, middleChunk, highChunk ) );
+      merge( from, chunkStart( middleChunk ), to, comparator );
+    }
+
+    private int chunkStart( int chunk ) {
+      return (int) ( (long) rows.length * chunk / comparators.length );
+    }
+
+    /**
+     * Merge the sorted ranges [from, middle) and [middle, to). Only the first range is copied out of the way, to the same
+     * positions in the buffer: the ranges of concurrent merges never overlap.
+     */
+    private void merge( int from, int middle, int to, Comparator<Object[]> comparator ) {
+      if ( comparator.compare( rows[ middle - 1 ], rows[ middle ] ) <= 0 ) {
+        return; // already in order
+      }
+      int leftSize = middle - from;
+      System.arraycopy( rows, from, buffer, from, leftSize );
+
+      int left = 0;
+      int right = middle;
+      int target = from;
+      while ( left < leftSize && right < to ) {
+        if ( comparator.compare( buffer[ from + left ], rows[ right ] ) <= 0 ) {
+          rows[ target++ ] = buffer[ from + left++ ];
+        } else {
+          rows[ target++ ] = rows[ right++ ];
+        }
+      }
+      System.arraycopy( buffer, from + left, rows, target, leftSize - left );
+    }
+  }
+}
@@ -24,6 +24,11 @@ public class RowTempFile {
   public Object[] row;
   public int fileNumber;
 
+  /**
+   * The normalized prefix of the first sort key of the row, see {@link SortKeyPrefix}
+   */
+  public long prefix;
+
   public RowTempFile( Object[] row, int fileNumber ) {
     this.row = row;
     this.fileNumber = fileNumber;
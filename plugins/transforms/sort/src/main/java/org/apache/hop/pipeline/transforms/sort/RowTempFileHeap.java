@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import java.util.Comparator;
+
+/**
+ * A binary min-heap of the current rows of the temp files which are being merged. Taking the smallest row and putting
+ * the next row of the same file in its place costs O(log n) comparisons for n files.
+ * <p>
+ * Rows with the same sort keys come out in the order of the numbers of the files they were read from.
+ */
+public class RowTempFileHeap {
+  private final Comparator<RowTempFile> comparator;
+  private RowTempFile[] heap;
+  private int size;
+
+  public RowTempFileHeap( Comparator<RowTempFile> comparator, int capacity ) {
+    this.comparator = comparator;
+    this.heap = new RowTempFile[ Math.max( 1, capacity ) ];
+  }
+
+  public void add( RowTempFile rowTempFile ) {
+    if ( size == heap.length ) {
+      RowTempFile[] newHeap = new RowTempFile[ size * 2 ];
+      System.arraycopy( heap, 0, newHeap, 0, size );
+      heap = newHeap;
+    }
+    heap[ size ] = rowTempFile;
+    siftUp( size++ );
+  }
+
+  /**
+   * @return the entry with the smallest row or null if the heap is empty
+   */
+  public RowTempFile peek() {
+    return size == 0 ? null : heap[ 0 ];
+  }
+
+  /**
+   * Remove the entry with the smallest row.
+   *
+   * @return the removed entry or null if the heap is empty
+   */
+  public RowTempFile poll() {
+    if ( size == 0 ) {
+      return null;
+    }
+    RowTempFile top = heap[ 0 ];
+    size--;
+    heap[ 0 ] = heap[ size ];
+    heap[ size ] = null;
+    if ( size > 0 ) {
+      siftDown( 0 );
+    }
+    return top;
+  }
+
+  /**
+   * Restore the heap order after the row of the top entry was replaced by the next row of the same file.
+   */
+  public void topChanged() {
+    if ( size > 1 ) {
+      siftDown( 0 );
+    }
+  }
+
+  /**
+   * @param index the position in the heap, 0 to size-1
+   * @return the entry at the given position in the heap, not in sort order
+   */
+  public RowTempFile get( int index ) {
+    return heap[ index ];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void siftUp( int index ) {
+    RowTempFile entry = heap[ index ];
+    while ( index > 0 ) {
+      int parent = ( index - 1 ) >>> 1;
+      if ( compare( entry, heap[ parent ] ) >= 0 ) {
+        break;
+      }
+      heap[ index ] = heap[ parent ];
+      index = parent;
+    }
+    heap[ index ] = entry;
+  }
+
+  private void siftDown( int index ) {
+    RowTempFile entry = heap[ index ];
+    int half = size >>> 1;
+    while ( index < half ) {
+      int child = ( index << 1 ) + 1;
+      int right = child + 1;
+      if ( right < size && compare( heap[ right ], heap[ child ] ) < 0 ) {
+        child = right;
+      }
+      if ( compare( entry, heap[ child ] ) <= 0 ) {
+        break;
+      }
+      heap[ index ] = heap[ child ];
+      index = child;
+    }
+    heap[ index ] = entry;
+  }
+
+  private int compare( RowTempFile one, RowTempFile two ) {
+    int result = comparator.compare( one, two );
+    if ( result != 0 ) {
+      return result;
+    }
+    return Integer.compare( one.fileNumber, two.fileNumber );
+  }
+}
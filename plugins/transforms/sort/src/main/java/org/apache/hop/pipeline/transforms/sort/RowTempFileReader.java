@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.CompressionInputStream;
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.pipeline.transform.BaseTransform;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads back the rows of a temp file written by the Sort rows transform. When the file has sort key prefixes, every
+ * row is preceded by its prefix.
+ */
+public class RowTempFileReader {
+  private final FileObject fileObject;
+  private final boolean withPrefix;
+  private final InputStream inputStream;
+  private final DataInputStream dataInputStream;
+  private int rowsLeft;
+
+  /**
+   * Open a temp file for reading.
+   *
+   * @param fileObject          the temp file
+   * @param nrRows              the number of rows written to the file
+   * @param compressionProvider the provider the file was compressed with or null if it isn't compressed
+   * @param withPrefix          true if every row is preceded by its sort key prefix
+   * @throws IOException in case the file can't be opened
+   */
+  public RowTempFileReader( FileObject fileObject, int nrRows, ICompressionProvider compressionProvider,
+                            boolean withPrefix ) throws IOException {
+    this.fileObject = fileObject;
+    this.rowsLeft = nrRows;
+    this.withPrefix = withPrefix;
+    this.inputStream = HopVfs.getInputStream( fileObject );
+    try {
+      if ( compressionProvider != null ) {
+        CompressionInputStream compressionInputStream =
+          compressionProvider.createInputStream( new BufferedInputStream( inputStream ) );
+        compressionInputStream.nextEntry();
+        dataInputStream = new DataInputStream( new BufferedInputStream( compressionInputStream, 50000 ) );
+      } else {
+        dataInputStream = new DataInputStream( new BufferedInputStream( inputStream, 50000 ) );
+      }
+    } catch ( IOException e ) {
+      BaseTransform.closeQuietly( inputStream );
+      throw e;
+    }
+  }
+
+  /**
+   * @return true if there are rows left to read
+   */
+  public boolean hasNext() {
+    return rowsLeft > 0;
+  }
+
+  /**
+   * Read the next row, and its prefix if the file has them, into the given holder.
+   *
+   * @param rowMeta     the metadata of the rows
+   * @param rowTempFile the holder to read the row into
+   * @throws HopFileException in case the row can't be read
+   */
+  public void readRow( IRowMeta rowMeta, RowTempFile rowTempFile ) throws HopFileException {
+    try {
+      if ( withPrefix ) {
+        rowTempFile.prefix = dataInputStream.readLong();
+      }
+      rowTempFile.row = rowMeta.readData( dataInputStream );
+      rowsLeft--;
+    } catch ( IOException e ) {
+      throw new HopFileException( e ); // a socket timeout should never happen on local files
+    }
+  }
+
+  /**
+   * Close the file. Closing the data stream also closes the underlying streams.
+   */
+  public void close() throws IOException {
+    try {
+      dataInputStream.close();
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  public FileObject getFileObject() {
+    return fileObject;
+  }
+}
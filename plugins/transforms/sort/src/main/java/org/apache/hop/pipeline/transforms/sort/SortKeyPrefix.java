@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+
+/**
+ * Calculates a normalized prefix of the first sort key of a row as a long. The prefixes of two rows compare the same
+ * way as the rows themselves, except that rows with equal prefixes can still be different: <br>
+ * prefix(a) &lt; prefix(b) means a sorts before b, prefix(a) &gt; prefix(b) means a sorts after b and only when the
+ * prefixes are equal the rows need to be compared with {@link IRowMeta#compare(Object[], Object[], int[])}.
+ * <p>
+ * Integers, numbers, dates and booleans are mapped completely, strings on their first 4 characters. Strings which are
+ * compared case insensitive or with a collator and all other data types don't have a prefix.
+ */
+public class SortKeyPrefix {
+
+  private static final int STRING_PREFIX_CHARS = 4;
+
+  private final IValueMeta valueMeta;
+  private final int index;
+  private final boolean descending;
+
+  private SortKeyPrefix( IValueMeta valueMeta, int index ) {
+    this.valueMeta = valueMeta;
+    this.index = index;
+    this.descending = valueMeta.isSortedDescending();
+  }
+
+  /**
+   * @param rowMeta  the row metadata with the sorting criteria applied
+   * @param fieldNrs the indexes of the sort keys
+   * @return the prefix calculator for the first sort key or null if the first key can't be mapped to a prefix
+   */
+  public static SortKeyPrefix create( IRowMeta rowMeta, int[] fieldNrs ) {
+    if ( fieldNrs == null || fieldNrs.length == 0 ) {
+      return null;
+    }
+    IValueMeta valueMeta = rowMeta.getValueMeta( fieldNrs[ 0 ] );
+    if ( !valueMeta.isStorageNormal() ) {
+      return null;
+    }
+
+    // Only the exact classes: subclasses like the timestamp compare differently
+    //
+    Class<?> valueMetaClass = valueMeta.getClass();
+    if ( valueMetaClass == ValueMetaString.class ) {
+      if ( valueMeta.isCaseInsensitive() || !valueMeta.isCollatorDisabled() ) {
+        return null;
+      }
+    } else if ( valueMetaClass != ValueMetaInteger.class && valueMetaClass != ValueMetaNumber.class
+      && valueMetaClass != ValueMetaDate.class && valueMetaClass != ValueMetaBoolean.class ) {
+      return null;
+    }
+    return new SortKeyPrefix( valueMeta, fieldNrs[ 0 ] );
+  }
+
+  /**
+   * @param row the row to calculate the prefix for
+   * @return the normalized prefix of the first sort key of the row
+   * @throws HopValueException in case the key value can't be converted
+   */
+  public long getPrefix( Object[] row ) throws HopValueException {
+    Object value = row[ index ];
+    long prefix;
+    if ( valueMeta.isNull( value ) ) {
+      prefix = Long.MIN_VALUE; // null sorts first
+    } else {
+      switch ( valueMeta.getType() ) {
+        case IValueMeta.TYPE_INTEGER:
+          prefix = valueMeta.getInteger( value );
+          break;
+        case IValueMeta.TYPE_NUMBER:
+          // Flip the bits of negative numbers so the bits sort like Double.compare()
+          //
+          long bits = Double.doubleToLongBits( valueMeta.getNumber( value ) );
+          prefix = bits ^ ( ( bits >> 63 ) & Long.MAX_VALUE );
+          break;
+        case IValueMeta.TYPE_DATE:
+          prefix = valueMeta.getDate( value ).getTime();
+          break;
+        case IValueMeta.TYPE_BOOLEAN:
+          prefix = valueMeta.getBoolean( value ) ? 1L : 0L;
+          break;
+        default:
+          prefix = getStringPrefix( valueMeta.getString( value ) );
+          break;
+      }
+    }
+
+    // Descending: all values including null sort the other way around
+    //
+    return descending ? ~prefix : prefix;
+  }
+
+  private long getStringPrefix( String string ) {
+    if ( valueMeta.isIgnoreWhitespace() ) {
+      string = string.trim();
+    }
+    // The first characters as an unsigned number: String.compareTo() compares char by char
+    //
+    long packed = 0L;
+    for ( int i = 0; i < STRING_PREFIX_CHARS; i++ ) {
+      packed <<= 16;
+      if ( i < string.length() ) {
+        packed |= string.charAt( i );
+      }
+    }
+    return packed ^ Long.MIN_VALUE;
+  }
+}
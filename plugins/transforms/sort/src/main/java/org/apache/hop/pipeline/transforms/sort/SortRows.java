@@ -21,6 +21,8 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionOutputStream;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
@@ -34,14 +36,15 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.io.*;
-import java.net.SocketTimeoutException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Sort the rows in the input-streams based on certain criteria
@@ -114,8 +117,6 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     quickSort( data.buffer );
 
     // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
     int p;
 
     try {
@@ -123,14 +124,7 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
         HopVfs.createTempFile( meta.getPrefix(), ".tmp", resolve( meta.getDirectory() ));
 
       data.files.add( fileObject ); // Remember the files!
-      OutputStream outputStream = HopVfs.getOutputStream( fileObject, false );
-      if ( data.compressFiles ) {
-        gzos = new GZIPOutputStream( new BufferedOutputStream( outputStream ) );
-        dos = new DataOutputStream( gzos );
-      } else {
-        dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
-        gzos = null;
-      }
+      DataOutputStream dos = getDataOutputStream( fileObject );
 
       // Just write the data, nothing else
       List<Integer> duplicates = new ArrayList<>();
@@ -165,7 +159,8 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
             duplicatesIndex++;
         }
         if ( !skip ) {
-          data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
+          Object[] row = data.buffer.get( p );
+          writeTempRow( dos, row, data.keyPrefix == null ? 0L : data.keyPrefix.getPrefix( row ) );
         }
       }
 
@@ -183,12 +178,8 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
       // Clear the list
       data.buffer.clear();
 
-      // Close temp-file
-      dos.close(); // close data stream
-      if ( gzos != null ) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
+      // Close temp-file, this also closes the gzip and file streams
+      dos.close();
 
       // How much memory do we have left?
       //
@@ -205,10 +196,32 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     data.getBufferIndex = 0;
   }
 
-  private DataInputStream getDataInputStream( GZIPInputStream gzipInputStream ) {
-    DataInputStream result = new DataInputStream( gzipInputStream );
-    data.gzis.add( gzipInputStream );
-    return result;
+  private DataOutputStream getDataOutputStream( FileObject fileObject ) throws IOException {
+    OutputStream outputStream = HopVfs.getOutputStream( fileObject, false );
+    if ( data.compressionProvider != null ) {
+      // Buffer in front of the compression stream as well so it gets blocks of data instead of single values
+      //
+      CompressionOutputStream compressionOutputStream =
+        data.compressionProvider.createOutputStream( new BufferedOutputStream( outputStream ) );
+      compressionOutputStream.addEntry( fileObject.getName().getBaseName(), null );
+      return new DataOutputStream( new BufferedOutputStream( compressionOutputStream, 65536 ) );
+    } else {
+      return new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
+    }
+  }
+
+  /**
+   * Write a row to a temp file, preceded by the prefix of its first sort key if we're using those.
+   */
+  private void writeTempRow( DataOutputStream dos, Object[] row, long prefix ) throws HopFileException {
+    if ( data.keyPrefix != null ) {
+      try {
+        dos.writeLong( prefix );
+      } catch ( IOException e ) {
+        throw new HopFileException( "Unable to write sort key to temp-file", e );
+      }
+    }
+    data.outputRowMeta.writeData( dos, row );
   }
 
   // get sorted rows from available files in iterative manner.
@@ -218,47 +231,19 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     Object[] retval;
 
     // Open all files at once and read one row from each file...
-    if ( CollectionUtils.isNotEmpty(data.files) && ( data.dis.isEmpty() || data.fis.isEmpty() ) ) {
-      if ( log.isBasic() ) {
-        logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
-      }
-
+    if ( CollectionUtils.isNotEmpty( data.files ) && data.tempRows == null ) {
       try {
-        for ( int f = 0; f < data.files.size() && !isStopped(); f++ ) {
-          FileObject fileObject = data.files.get( f );
-          String filename = HopVfs.getFilename( fileObject );
-          if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
-          }
-          InputStream fi = HopVfs.getInputStream( fileObject );
-          DataInputStream di;
-          data.fis.add( fi );
-          if ( data.compressFiles ) {
-            di = getDataInputStream( new GZIPInputStream( new BufferedInputStream( fi ) ) );
-          } else {
-            di = new DataInputStream( new BufferedInputStream( fi, 50000 ) );
-          }
-          data.dis.add( di );
-
-          // How long is the buffer?
-          int buffersize = data.bufferSizes.get( f );
-
-          if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.FromFileExpectingRows",
-              filename, buffersize ) );
-          }
+        mergeTempFiles();
 
-          if ( buffersize > 0 ) {
-            Object[] row = data.outputRowMeta.readData( di );
-            data.rowbuffer.add( row ); // new row from input stream
-            data.tempRows.add( new RowTempFile( row, f ) );
-          }
+        if ( log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
         }
-
-        // Sort the data row buffer
-        Collections.sort( data.tempRows, data.comparator );
+        openTempFiles( 0, data.files.size() );
       } catch ( Exception e ) {
         logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+        setErrors( 1 );
+        stopAll();
+        return null;
       }
     }
 
@@ -274,77 +259,172 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     } else {
       // read from disk processing
 
-      if ( data.rowbuffer.isEmpty() ) {
+      if ( data.tempRows.isEmpty() ) {
         retval = null;
       } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
+        // We now have a row waiting for every file: the heap knows which one is the smallest
         //
         if ( log.isRowLevel() ) {
-          for ( int i = 0; i < data.rowbuffer.size() && !isStopped(); i++ ) {
-            Object[] b = data.rowbuffer.get( i );
+          for ( int i = 0; i < data.tempRows.size() && !isStopped(); i++ ) {
+            Object[] b = data.tempRows.get( i ).row;
             logRowlevel( BaseMessages
               .getString( PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString( b ) ) );
           }
         }
 
-        RowTempFile rowTempFile = data.tempRows.remove( 0 );
-        retval = rowTempFile.row;
-        int smallest = rowTempFile.fileNumber;
+        retval = data.tempRows.peek().row;
 
-        // now get another Row for position smallest
+        // now get another Row from the same file
+        //
+        try {
+          nextTempRow();
+        } catch ( HopFileException e ) {
+          logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+          setErrors( 1 );
+          stopAll();
+          return null;
+        }
+      }
+    }
+    return retval;
+  }
 
-        FileObject file = data.files.get( smallest );
-        DataInputStream di = data.dis.get( smallest );
-        InputStream fi = data.fis.get( smallest );
+  /**
+   * Open the temp files with the given positions and put their first rows on the merge heap.
+   *
+   * @param from the position of the first file to open
+   * @param to   the position after the last file to open
+   */
+  private void openTempFiles( int from, int to ) throws IOException, HopFileException {
+    data.tempRows = new RowTempFileHeap( data.comparator, to - from );
+    for ( int f = from; f < to && !isStopped(); f++ ) {
+      FileObject fileObject = data.files.get( f );
+      String filename = HopVfs.getFilename( fileObject );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
+      }
 
-        try {
-          Object[] row2 = data.outputRowMeta.readData( di );
-          RowTempFile extra = new RowTempFile( row2, smallest );
-
-          int index = Collections.binarySearch( data.tempRows, extra, data.comparator );
-          if ( index < 0 ) {
-            data.tempRows.add( index * ( -1 ) - 1, extra );
-          } else {
-            data.tempRows.add( index, extra );
-          }
-        } catch ( HopFileException fe ) { // empty file or EOF mostly
-          GZIPInputStream gzfi = ( data.compressFiles ) ? data.gzis.get( smallest ) : null;
-          try {
-            di.close();
-            fi.close();
-            if ( gzfi != null ) {
-              gzfi.close();
-            }
-            file.delete();
-          } catch ( IOException e ) {
-            logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString() ) );
-            setErrors( 1 );
-            stopAll();
-            return null;
-          }
+      // How long is the buffer?
+      int buffersize = data.bufferSizes.get( f );
 
-          data.files.remove( smallest );
-          data.dis.remove( smallest );
-          data.fis.remove( smallest );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.FromFileExpectingRows", filename, buffersize ) );
+      }
 
-          if ( gzfi != null ) {
-            data.gzis.remove( smallest );
-          }
+      RowTempFileReader reader =
+        new RowTempFileReader( fileObject, buffersize, data.compressionProvider, data.keyPrefix != null );
+      data.readers.add( reader );
+      if ( reader.hasNext() ) {
+        RowTempFile rowTempFile = new RowTempFile( null, data.readers.size() - 1 );
+        reader.readRow( data.outputRowMeta, rowTempFile );
+        data.tempRows.add( rowTempFile );
+      }
+    }
+  }
 
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for ( RowTempFile rtf : data.tempRows ) {
-            if ( rtf.fileNumber > smallest ) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch ( SocketTimeoutException e ) {
-          throw new HopValueException( e ); // should never happen on local files
+  /**
+   * Replace the smallest row on the merge heap by the next row of the same file. The file is closed and removed once
+   * all its rows are read.
+   */
+  private void nextTempRow() throws HopFileException {
+    RowTempFile rowTempFile = data.tempRows.peek();
+    RowTempFileReader reader = data.readers.get( rowTempFile.fileNumber );
+    if ( reader.hasNext() ) {
+      reader.readRow( data.outputRowMeta, rowTempFile );
+      data.tempRows.topChanged();
+    } else {
+      data.tempRows.poll();
+      FileObject file = reader.getFileObject();
+      try {
+        reader.close();
+        file.delete();
+      } catch ( IOException e ) {
+        throw new HopFileException( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile",
+          rowTempFile.fileNumber, file.toString() ), e );
+      }
+    }
+  }
+
+  /**
+   * Merge the temp files in groups until no more than the maximum number of files to merge at once are left. The files
+   * of a group are consecutive and replaced by the merged file in the same position so rows with equal keys keep their
+   * order.
+   */
+  private void mergeTempFiles() throws HopException {
+    if ( data.maxMergeFiles < 2 ) {
+      return;
+    }
+    while ( data.files.size() > data.maxMergeFiles && !isStopped() ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "SortRows.Basic.MergingTempFiles", data.files.size(),
+          data.maxMergeFiles ) );
+      }
+      for ( int from = 0; from < data.files.size() && !isStopped(); from++ ) {
+        int to = Math.min( from + data.maxMergeFiles, data.files.size() );
+        if ( to - from > 1 ) {
+          mergeTempFiles( from, to );
         }
       }
     }
-    return retval;
+  }
+
+  /**
+   * Merge the temp files with the given positions into a new temp file which takes their place.
+   */
+  private void mergeTempFiles( int from, int to ) throws HopException {
+    FileObject fileObject = HopVfs.createTempFile( meta.getPrefix(), ".tmp", resolve( meta.getDirectory() ) );
+    int nrRows = 0;
+    try {
+      try ( DataOutputStream dos = getDataOutputStream( fileObject ) ) {
+        openTempFiles( from, to );
+        while ( !data.tempRows.isEmpty() && !isStopped() ) {
+          RowTempFile rowTempFile = data.tempRows.peek();
+          writeTempRow( dos, rowTempFile.row, rowTempFile.prefix );
+          nrRows++;
+          nextTempRow();
+        }
+      }
+    } catch ( IOException e ) {
+      deleteQuietly( fileObject );
+      throw new HopException( "Error processing temp-file!", e );
+    } catch ( HopException e ) {
+      deleteQuietly( fileObject );
+      throw e;
+    } finally {
+      closeTempFiles();
+
+      // Files which were read to the end are gone already. Remove the others as well: empty files and the files which
+      // weren't read completely because the transform was stopped or the merge failed.
+      //
+      for ( FileObject file : data.files.subList( from, to ) ) {
+        deleteQuietly( file );
+      }
+    }
+
+    data.files.subList( from, to ).clear();
+    data.files.add( from, fileObject );
+    data.bufferSizes.subList( from, to ).clear();
+    data.bufferSizes.add( from, nrRows );
+  }
+
+  private void closeTempFiles() {
+    for ( RowTempFileReader reader : data.readers ) {
+      try {
+        reader.close();
+      } catch ( IOException e ) {
+        // Ignore IOException on close
+      }
+    }
+    data.readers.clear();
+    data.tempRows = null;
+  }
+
+  private void deleteQuietly( FileObject fileObject ) {
+    try {
+      fileObject.delete();
+    } catch ( FileSystemException e ) {
+      logError( e.getLocalizedMessage(), e );
+    }
   }
 
   @Override
@@ -413,6 +493,17 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
         i++;
       }
       data.rowComparator = new RowObjectArrayComparator( data.outputRowMeta, data.fieldnrs );
+      data.keyPrefix = SortKeyPrefix.create( data.outputRowMeta, data.fieldnrs );
+
+      // Sort big buffers on multiple threads, every thread compares with its own copy of the row metadata
+      //
+      int parallelism = Const.toInt( getVariable( Const.HOP_SORT_ROWS_PARALLELISM ), 0 );
+      if ( parallelism <= 0 ) {
+        parallelism = Runtime.getRuntime().availableProcessors();
+      }
+      if ( parallelism > 1 ) {
+        data.sorter = new ParallelRowSorter( ForkJoinPool.commonPool(), parallelism, this::newSorterComparator );
+      }
     } // end if first
 
     // it is not first row and it is null
@@ -536,13 +627,18 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     //
     data.buffer = new ArrayList<>( 5000 );
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<>( 5000 );
-
     data.compressFiles = getVariableBoolean( meta.getCompressFilesVariable(), meta.getCompressFiles() );
+    if ( data.compressFiles ) {
+      String compressionType = Const.NVL( resolve( meta.getCompressionType() ), SortRowsMeta.DEFAULT_COMPRESSION_TYPE );
+      data.compressionProvider =
+        CompressionProviderFactory.getInstance().getCompressionProviderByName( compressionType );
+      if ( data.compressionProvider == null ) {
+        logError( BaseMessages.getString( PKG, "SortRows.Error.UnknownCompressionType", compressionType ) );
+        return false;
+      }
+    }
 
-    data.tempRows = new ArrayList<>();
+    data.maxMergeFiles = Const.toInt( getVariable( Const.HOP_SORT_ROWS_MAX_MERGE_FILES ), 0 );
 
     data.minSortSize = 5000;
 
@@ -560,20 +656,10 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     // Clean out the sort buffer
     data.buffer.clear();
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
 
-    // close any open DataInputStream objects
-    if ( CollectionUtils.isNotEmpty(data.dis) ) {
-      for ( DataInputStream dis : data.dis ) {
-        BaseTransform.closeQuietly( dis );
-      }
-    }
-    // close any open InputStream objects
-    if ( CollectionUtils.isNotEmpty(data.fis) ) {
-      for ( InputStream is : data.fis ) {
-        BaseTransform.closeQuietly( is );
-      }
-    }
+    // close any open temp files
+    closeTempFiles();
+
     // remove temp files
     for ( int f = 0; f < data.files.size(); f++ ) {
       FileObject fileToDelete = data.files.get( f );
@@ -585,6 +671,8 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
         logError( e.getLocalizedMessage(), e );
       }
     }
+    data.files.clear();
+    data.bufferSizes.clear();
   }
 
   /**
@@ -592,7 +680,15 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
    */
   void quickSort( List<Object[]> elements ) {
     if (  CollectionUtils.isNotEmpty(elements) ) {
-      Collections.sort( elements, data.rowComparator );
+      if ( data.sorter != null && data.sorter.isParallel( elements.size() ) ) {
+        try {
+          data.sorter.sort( elements );
+        } finally {
+          collectSorterConversions();
+        }
+      } else {
+        Collections.sort( elements, data.rowComparator );
+      }
 
       long nrConversions = 0L;
       for ( IValueMeta valueMeta : data.outputRowMeta.getValueMetaList() ) {
@@ -605,6 +701,34 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     }
   }
 
+  /**
+   * A comparator for one of the sorter threads, with its own copy of the row metadata. The sorter only calls this on
+   * the transform thread.
+   */
+  private Comparator<Object[]> newSorterComparator() {
+    IRowMeta rowMeta = data.outputRowMeta.clone();
+    for ( IValueMeta valueMeta : rowMeta.getValueMetaList() ) {
+      valueMeta.setNumberOfBinaryStringConversions( 0L );
+    }
+    data.sorterRowMetas.add( rowMeta );
+    return new RowObjectArrayComparator( rowMeta, data.fieldnrs );
+  }
+
+  /**
+   * Add the conversions done by the sorter threads to the row metadata of the transform.
+   */
+  private void collectSorterConversions() {
+    List<IValueMeta> valueMetas = data.outputRowMeta.getValueMetaList();
+    for ( IRowMeta rowMeta : data.sorterRowMetas ) {
+      for ( int i = 0; i < valueMetas.size(); i++ ) {
+        IValueMeta valueMeta = valueMetas.get( i );
+        valueMeta.setNumberOfBinaryStringConversions( valueMeta.getNumberOfBinaryStringConversions()
+          + rowMeta.getValueMeta( i ).getNumberOfBinaryStringConversions() );
+      }
+    }
+    data.sorterRowMetas.clear();
+  }
+
   /**
    * Calling this method will alert the transform that we finished passing records to the transform. Specifically for transforms like
    * "Sort Rows" it means that the buffered rows can be sorted and passed on.
@@ -660,6 +784,11 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
 
     @Override
     public int compare( RowTempFile o1, RowTempFile o2 ) {
+      // Only compare the rows themselves when the prefixes of the first sort key don't tell them apart
+      //
+      if ( data.keyPrefix != null && o1.prefix != o2.prefix ) {
+        return o1.prefix < o2.prefix ? -1 : 1;
+      }
       try {
         return rowMeta.compare( o1.row, o2.row, fieldNrs );
       } catch ( HopValueException e ) {
@@ -18,16 +18,14 @@
 package org.apache.hop.pipeline.transforms.sort;
 
 import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.ICompressionProvider;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 /**
  * @author Matt
@@ -38,20 +36,30 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
   public List<Integer> bufferSizes;
 
+  // The readers of the temp files which are being merged
+  public List<RowTempFileReader> readers;
+
   // To store rows and file references
-  public List<RowTempFile> tempRows;
+  public RowTempFileHeap tempRows;
+
+  // The maximum number of temp files to merge at once, 0 or lower for no limit
+  public int maxMergeFiles;
+
+  // Sorts the buffer on multiple threads, null to sort on the transform thread
+  public ParallelRowSorter sorter;
+
+  // The copies of the row metadata used by the sorter threads since the last sort
+  public List<IRowMeta> sorterRowMetas;
 
   public int[] fieldnrs; // the corresponding field numbers;
   public FileObject fil;
   public IRowMeta outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+  public ICompressionProvider compressionProvider;
+  public SortKeyPrefix keyPrefix;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
@@ -75,10 +83,9 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
     super();
 
     files = new ArrayList<>();
-    fis = new ArrayList<>();
-    gzis = new ArrayList<>();
-    dis = new ArrayList<>();
+    readers = new ArrayList<>();
     bufferSizes = new ArrayList<>();
+    sorterRowMetas = new ArrayList<>();
 
     previous = null; // Heroic
   }
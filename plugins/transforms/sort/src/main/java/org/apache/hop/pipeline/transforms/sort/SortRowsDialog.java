@@ -19,6 +19,7 @@ package org.apache.hop.pipeline.transforms.sort;
 
 
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.util.Utils;
@@ -31,6 +32,7 @@ import org.apache.hop.ui.core.dialog.BaseDialog;
 import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.widget.CheckBoxVar;
 import org.apache.hop.ui.core.widget.ColumnInfo;
+import org.apache.hop.ui.core.widget.ComboVar;
 import org.apache.hop.ui.core.widget.TableView;
 import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
@@ -61,6 +63,8 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
 
   private CheckBoxVar wCompress;
 
+  private ComboVar wCompressionType;
+
   private Button wUniqueRows;
 
   private TableView wFields;
@@ -229,6 +233,25 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
       }
     } );
 
+    // Which compression for temporary files?
+    Label wlCompressionType = new Label(shell, SWT.RIGHT);
+    wlCompressionType.setText( BaseMessages.getString( PKG, "SortRowsDialog.CompressionType.Label" ) );
+    props.setLook(wlCompressionType);
+    FormData fdlCompressionType = new FormData();
+    fdlCompressionType.left = new FormAttachment( 0, 0 );
+    fdlCompressionType.right = new FormAttachment( middle, -margin );
+    fdlCompressionType.top = new FormAttachment( wCompress, margin );
+    wlCompressionType.setLayoutData(fdlCompressionType);
+    wCompressionType = new ComboVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wCompressionType.setItems( CompressionProviderFactory.getInstance().getCompressionProviderNames() );
+    props.setLook( wCompressionType );
+    wCompressionType.addModifyListener( lsMod );
+    FormData fdCompressionType = new FormData();
+    fdCompressionType.left = new FormAttachment( middle, 0 );
+    fdCompressionType.top = new FormAttachment( wCompress, margin );
+    fdCompressionType.right = new FormAttachment( 100, 0 );
+    wCompressionType.setLayoutData(fdCompressionType);
+
     // Using compression for temporary files?
     Label wlUniqueRows = new Label(shell, SWT.RIGHT);
     wlUniqueRows.setText( BaseMessages.getString( PKG, "SortRowsDialog.UniqueRows.Label" ) );
@@ -236,7 +259,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     FormData fdlUniqueRows = new FormData();
     fdlUniqueRows.left = new FormAttachment( 0, 0 );
     fdlUniqueRows.right = new FormAttachment( middle, -margin );
-    fdlUniqueRows.top = new FormAttachment( wCompress, margin );
+    fdlUniqueRows.top = new FormAttachment( wCompressionType, margin );
     wlUniqueRows.setLayoutData(fdlUniqueRows);
     wUniqueRows = new Button( shell, SWT.CHECK );
     wUniqueRows.setToolTipText( BaseMessages.getString( PKG, "SortRowsDialog.UniqueRows.Tooltip" ) );
@@ -411,6 +434,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     wFreeMemory.setText( Const.NVL( input.getFreeMemoryLimit(), "" ) );
     wCompress.setSelection( input.getCompressFiles() );
     wCompress.setVariableName( input.getCompressFilesVariable() );
+    wCompressionType.setText( Const.NVL( input.getCompressionType(), SortRowsMeta.DEFAULT_COMPRESSION_TYPE ) );
     wUniqueRows.setSelection( input.isOnlyPassingUniqueRows() );
 
     Table table = wFields.table;
@@ -461,6 +485,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     log.logDetailed( "Sort rows", "Compression is set to " + wCompress.getSelection() );
     input.setCompressFiles( wCompress.getSelection() );
     input.setCompressFilesVariable( wCompress.getVariableName() );
+    input.setCompressionType( wCompressionType.getText() );
     input.setOnlyPassingUniqueRows( wUniqueRows.getSelection() );
 
     // Table table = wFields.table;
@@ -66,6 +66,9 @@ public class SortRowsMeta extends BaseTransformMeta
   private static final long serialVersionUID = -9075883720765645655L;
   private static final Class<?> PKG = SortRowsMeta.class; // For Translator
 
+  /** The compression used when compressing temp files without a compression type: GZip, like before */
+  public static final String DEFAULT_COMPRESSION_TYPE = "GZip";
+
   /** order by which fields? */
   @Injection(name = "NAME", group = "FIELDS")
   private String[] fieldName;
@@ -122,6 +125,10 @@ public class SortRowsMeta extends BaseTransformMeta
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /** The name of the compression provider to compress the temporary files with */
+  @Injection(name = "COMPRESSION_TYPE")
+  private String compressionType;
+
   public SortRowsMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -217,6 +224,10 @@ public class SortRowsMeta extends BaseTransformMeta
       freeMemoryLimit = XmlHandler.getTagValue(transformNode, "free_memory");
       compressFiles = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "compress"));
       compressFilesVariable = XmlHandler.getTagValue(transformNode, "compress_variable");
+      // Transforms saved before the compression type existed keep compressing with GZip
+      compressionType =
+          Const.NVL(
+              XmlHandler.getTagValue(transformNode, "compression_type"), DEFAULT_COMPRESSION_TYPE);
       onlyPassingUniqueRows =
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "unique_rows"));
 
@@ -255,6 +266,7 @@ public class SortRowsMeta extends BaseTransformMeta
     freeMemoryLimit = null;
     compressFiles = false;
     compressFilesVariable = null;
+    compressionType = "Snappy";
     onlyPassingUniqueRows = false;
 
     int nrFields = 0;
@@ -281,6 +293,7 @@ public class SortRowsMeta extends BaseTransformMeta
     retval
         .append("      ")
         .append(XmlHandler.addTagValue("compress_variable", compressFilesVariable));
+    retval.append("      ").append(XmlHandler.addTagValue("compression_type", compressionType));
     retval.append("      ").append(XmlHandler.addTagValue("unique_rows", onlyPassingUniqueRows));
 
     retval.append("    <fields>").append(Const.CR);
@@ -515,6 +528,16 @@ public class SortRowsMeta extends BaseTransformMeta
     this.onlyPassingUniqueRows = onlyPassingUniqueRows;
   }
 
+  /** @return the name of the compression provider used to compress the temporary files */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /** @param compressionType the name of the compression provider to compress temporary files with */
+  public void setCompressionType(String compressionType) {
+    this.compressionType = compressionType;
+  }
+
   /** @return the compressFilesVariable */
   public String getCompressFilesVariable() {
     return compressFilesVariable;
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelRowSorterTest {
+
+  private static final Comparator<Object[]> KEY_COMPARATOR = Comparator.comparing( row -> (Long) row[ 0 ] );
+
+  @Test
+  public void testSortIsOrderedAndStable() {
+    AtomicInteger nrComparators = new AtomicInteger();
+    ParallelRowSorter sorter = new ParallelRowSorter( ForkJoinPool.commonPool(), 7, () -> {
+      nrComparators.incrementAndGet();
+      return KEY_COMPARATOR;
+    } );
+
+    Random random = new Random( 42 );
+    int nrRows = ParallelRowSorter.MIN_CHUNK_SIZE * 10 + 123;
+    List<Object[]> rows = new ArrayList<>( nrRows );
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows.add( new Object[] { (long) random.nextInt( 1000 ), (long) i } );
+    }
+
+    assertTrue( sorter.isParallel( nrRows ) );
+    sorter.sort( rows );
+    assertEquals( 7, nrComparators.get() );
+
+    assertEquals( nrRows, rows.size() );
+    for ( int i = 1; i < nrRows; i++ ) {
+      Object[] previous = rows.get( i - 1 );
+      Object[] row = rows.get( i );
+      int result = KEY_COMPARATOR.compare( previous, row );
+      assertTrue( result <= 0 );
+      if ( result == 0 ) {
+        // Rows with equal keys keep their original order
+        assertTrue( (Long) previous[ 1 ] < (Long) row[ 1 ] );
+      }
+    }
+  }
+
+  @Test
+  public void testSmallBufferIsSortedOnCallingThread() {
+    ParallelRowSorter sorter = new ParallelRowSorter( ForkJoinPool.commonPool(), 4, () -> KEY_COMPARATOR );
+    assertFalse( sorter.isParallel( ParallelRowSorter.MIN_CHUNK_SIZE ) );
+
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 100; i > 0; i-- ) {
+      rows.add( new Object[] { i } );
+    }
+    sorter.sort( rows );
+    for ( int i = 0; i < rows.size(); i++ ) {
+      assertEquals( (long) i + 1, rows.get( i )[ 0 ] );
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RowTempFileHeapTest {
+
+  private static final Comparator<RowTempFile> COMPARATOR = Comparator.comparing( rtf -> (Long) rtf.row[ 0 ] );
+
+  @Test
+  public void testMergeSortedFiles() {
+    // Simulate 50 sorted files with rows 0, 50, 100, ... for file 0, 1, 51, 101, ... for file 1 and so on
+    //
+    int nrFiles = 50;
+    int rowsPerFile = 100;
+    long[] next = new long[ nrFiles ];
+    RowTempFileHeap heap = new RowTempFileHeap( COMPARATOR, 1 );
+    for ( int f = 0; f < nrFiles; f++ ) {
+      next[ f ] = f;
+      heap.add( new RowTempFile( new Object[] { next[ f ] }, f ) );
+    }
+    assertEquals( nrFiles, heap.size() );
+
+    long expected = 0;
+    while ( !heap.isEmpty() ) {
+      RowTempFile top = heap.peek();
+      assertEquals( expected++, top.row[ 0 ] );
+      next[ top.fileNumber ] += nrFiles;
+      if ( next[ top.fileNumber ] < (long) nrFiles * rowsPerFile ) {
+        top.row = new Object[] { next[ top.fileNumber ] };
+        heap.topChanged();
+      } else {
+        heap.poll();
+      }
+    }
+    assertEquals( (long) nrFiles * rowsPerFile, expected );
+    assertNull( heap.peek() );
+    assertNull( heap.poll() );
+  }
+
+  @Test
+  public void testEqualRowsComeOutInFileOrder() {
+    Random random = new Random( 7 );
+    RowTempFileHeap heap = new RowTempFileHeap( COMPARATOR, 10 );
+    for ( int f = 999; f >= 0; f-- ) {
+      heap.add( new RowTempFile( new Object[] { (long) random.nextInt( 5 ) }, f ) );
+    }
+
+    RowTempFile previous = heap.poll();
+    while ( !heap.isEmpty() ) {
+      RowTempFile rowTempFile = heap.poll();
+      int result = COMPARATOR.compare( previous, rowTempFile );
+      assertTrue( result < 0 || ( result == 0 && previous.fileNumber < rowTempFile.fileNumber ) );
+      previous = rowTempFile;
+    }
+  }
+}
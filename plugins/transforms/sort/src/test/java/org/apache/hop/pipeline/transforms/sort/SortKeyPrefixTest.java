@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SortKeyPrefixTest {
+
+  private static final int[] FIELD_NRS = { 0 };
+
+  @Test
+  public void testIntegerKeys() throws Exception {
+    assertConsistent( new ValueMetaInteger( "key" ),
+      null, Long.MIN_VALUE, -5L, -1L, 0L, 1L, 42L, Long.MAX_VALUE );
+  }
+
+  @Test
+  public void testNumberKeys() throws Exception {
+    assertConsistent( new ValueMetaNumber( "key" ),
+      null, Double.NEGATIVE_INFINITY, -1e10, -1.5, -0.0, 0.0, Double.MIN_VALUE, 1.5, 1e10,
+      Double.POSITIVE_INFINITY, Double.NaN );
+  }
+
+  @Test
+  public void testDateKeys() throws Exception {
+    assertConsistent( new ValueMetaDate( "key" ), null, new Date( -1000L ), new Date( 0L ), new Date( 1000L ) );
+  }
+
+  @Test
+  public void testStringKeys() throws Exception {
+    assertConsistent( new ValueMetaString( "key" ),
+      null, "A", "AB", "ABCD", "ABCDE", "ABCDF", "Z", "a", "\u00e9", "\uffff" );
+  }
+
+  @Test
+  public void testDescending() throws Exception {
+    IValueMeta valueMeta = new ValueMetaInteger( "key" );
+    valueMeta.setSortedDescending( true );
+    assertConsistent( valueMeta, 100L, 5L, 0L, -5L, null );
+  }
+
+  @Test
+  public void testUnsupportedKeys() {
+    IValueMeta caseInsensitive = new ValueMetaString( "key" );
+    caseInsensitive.setCaseInsensitive( true );
+    assertNull( SortKeyPrefix.create( rowMeta( caseInsensitive ), FIELD_NRS ) );
+
+    IValueMeta collator = new ValueMetaString( "key" );
+    collator.setCollatorDisabled( false );
+    assertNull( SortKeyPrefix.create( rowMeta( collator ), FIELD_NRS ) );
+
+    assertNull( SortKeyPrefix.create( rowMeta( new ValueMetaBigNumber( "key" ) ), FIELD_NRS ) );
+    assertNull( SortKeyPrefix.create( rowMeta( new ValueMetaInteger( "key" ) ), new int[ 0 ] ) );
+  }
+
+  /**
+   * The values have to be passed in sort order: the prefixes may never contradict the row comparison.
+   */
+  private void assertConsistent( IValueMeta valueMeta, Object... values ) throws Exception {
+    IRowMeta rowMeta = rowMeta( valueMeta );
+    SortKeyPrefix keyPrefix = SortKeyPrefix.create( rowMeta, FIELD_NRS );
+    assertNotNull( keyPrefix );
+
+    for ( int i = 0; i < values.length; i++ ) {
+      for ( int j = 0; j < values.length; j++ ) {
+        Object[] one = new Object[] { values[ i ] };
+        Object[] two = new Object[] { values[ j ] };
+        int cmp = rowMeta.compare( one, two, FIELD_NRS );
+        String message = values[ i ] + " compared to " + values[ j ];
+        assertEquals( message, Integer.compare( i, j ), Integer.signum( cmp ) );
+
+        int prefixCmp = Long.compare( keyPrefix.getPrefix( one ), keyPrefix.getPrefix( two ) );
+        assertTrue( message, prefixCmp == 0 || prefixCmp == Integer.signum( cmp ) );
+      }
+    }
+  }
+
+  private IRowMeta rowMeta( IValueMeta valueMeta ) {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( valueMeta );
+    return rowMeta;
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.hop.pipeline.transforms.sort;
 
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.xml.XmlHandler;
 import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
 import org.apache.hop.pipeline.transforms.loadsave.LoadSaveTester;
 import org.apache.hop.pipeline.transforms.loadsave.validator.*;
@@ -40,7 +41,7 @@ public class SortRowsMetaTest {
   @Test
   public void testRoundTrips() throws HopException {
     List<String> attributes = Arrays.asList( "Directory", "Prefix", "SortSize", "FreeMemoryLimit", "CompressFiles",
-      "CompressFilesVariable", "OnlyPassingUniqueRows", "FieldName", "Ascending", "CaseSensitive", "CollatorEnabled",
+      "CompressFilesVariable", "CompressionType", "OnlyPassingUniqueRows", "FieldName", "Ascending", "CaseSensitive", "CollatorEnabled",
       "CollatorStrength", "PreSortedField" );
 
     Map<String, String> getterMap = new HashMap<>();
@@ -77,6 +78,33 @@ public class SortRowsMetaTest {
     assertEquals( Collator.IDENTICAL, srm.getDefaultCollationStrength( null ) );
   }
 
+  @Test
+  public void testDefaultCompressionType() throws Exception {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    assertEquals( "Snappy", meta.getCompressionType() );
+
+    // Transforms saved without a compression type keep using GZip
+    String inputXml = "<transform>\n"
+      + "  <name>Sort rows</name>\n"
+      + "  <type>SortRows</type>\n"
+      + "  <compress>Y</compress>\n"
+      + "  <fields></fields>\n"
+      + "</transform>";
+    meta.loadXml( XmlHandler.loadXmlString( inputXml ).getFirstChild(), null );
+    assertEquals( SortRowsMeta.DEFAULT_COMPRESSION_TYPE, meta.getCompressionType() );
+
+    inputXml = "<transform>\n"
+      + "  <name>Sort rows</name>\n"
+      + "  <type>SortRows</type>\n"
+      + "  <compress>Y</compress>\n"
+      + "  <compression_type>None</compression_type>\n"
+      + "  <fields></fields>\n"
+      + "</transform>";
+    meta.loadXml( XmlHandler.loadXmlString( inputXml ).getFirstChild(), null );
+    assertEquals( "None", meta.getCompressionType() );
+  }
+
   @Test
   public void testPDI16559() throws Exception {
     SortRowsMeta sortRowsReal = new SortRowsMeta();
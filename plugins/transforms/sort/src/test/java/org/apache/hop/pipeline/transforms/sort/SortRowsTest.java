@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.hop.core.BlockingRowSet;
+import org.apache.hop.core.Const;
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sorts more rows than fit in the sort buffer, so the rows are spilled to temp files and merged again.
+ */
+public class SortRowsTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<SortRowsMeta, SortRowsData> mockHelper;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopClientEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    mockHelper = new TransformMockHelper<>( "Sort rows", SortRowsMeta.class, SortRowsData.class );
+    when( mockHelper.logChannelFactory.create( any(), any( ILoggingObject.class ) ) )
+      .thenReturn( mockHelper.iLogChannel );
+    when( mockHelper.pipeline.isRunning() ).thenReturn( true );
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  @Test
+  public void testSortWithTempFiles() throws Exception {
+    List<Object[]> output = sort( 1000, "100", null, null, false );
+    assertSorted( 1000, output );
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  @Test
+  public void testSortWithCompressedTempFiles() throws Exception {
+    List<Object[]> output = sort( 1000, "100", null, null, true );
+    assertSorted( 1000, output );
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  /**
+   * 10 temp files merged 3 at a time: the intermediate merge pass has to keep equal keys in their input order.
+   */
+  @Test
+  public void testIntermediateMergePass() throws Exception {
+    when( mockHelper.iLogChannel.isBasic() ).thenReturn( true );
+
+    List<Object[]> output = sort( 1000, "100", "3", null, false );
+    assertSorted( 1000, output );
+    assertEquals( 0, tempFolder.getRoot().list().length );
+
+    ArgumentCaptor<String> messages = ArgumentCaptor.forClass( String.class );
+    verify( mockHelper.iLogChannel, atLeastOnce() ).logBasic( messages.capture() );
+    assertTrue( messages.getAllValues().contains(
+      BaseMessages.getString( SortRows.class, "SortRows.Basic.MergingTempFiles", 10, 3 ) ) );
+  }
+
+  @Test
+  public void testParallelSortWithTempFiles() throws Exception {
+    int nrRows = 5 * ParallelRowSorter.MIN_CHUNK_SIZE;
+    List<Object[]> output = sort( nrRows, Integer.toString( 2 * ParallelRowSorter.MIN_CHUNK_SIZE ), "2", "4", false );
+    assertSorted( nrRows, output );
+    assertEquals( 0, tempFolder.getRoot().list().length );
+  }
+
+  /**
+   * Sort rows with a key with a lot of duplicates and the input row number.
+   */
+  private List<Object[]> sort( int nrRows, String sortSize, String maxMergeFiles, String parallelism,
+                               boolean compress ) throws Exception {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    meta.allocate( 1 );
+    meta.setFieldName( new String[] { "key" } );
+    meta.setAscending( new boolean[] { true } );
+    meta.setCaseSensitive( new boolean[] { true } );
+    meta.setCollatorEnabled( new boolean[] { false } );
+    meta.setCollatorStrength( new int[] { 0 } );
+    meta.setPreSortedField( new boolean[] { false } );
+    meta.setSortSize( sortSize );
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+    meta.setCompressFiles( compress );
+
+    SortRows transform = new SortRows( mockHelper.transformMeta, meta, new SortRowsData(), 0,
+      mockHelper.pipelineMeta, mockHelper.pipeline );
+    transform.setVariable( Const.HOP_SORT_ROWS_MAX_MERGE_FILES, maxMergeFiles );
+    transform.setVariable( Const.HOP_SORT_ROWS_PARALLELISM, Const.NVL( parallelism, "1" ) );
+    assertTrue( transform.init() );
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "nr" ) );
+
+    IRowSet input = new BlockingRowSet( nrRows );
+    Random random = new Random( 42 );
+    for ( long nr = 0; nr < nrRows; nr++ ) {
+      input.putRow( rowMeta, new Object[] { "key" + random.nextInt( 50 ), nr } );
+    }
+    input.setDone();
+    IRowSet outputRowSet = new BlockingRowSet( nrRows );
+    transform.setInputRowSets( new ArrayList<>( Collections.singletonList( input ) ) );
+    transform.setOutputRowSets( new ArrayList<>( Collections.singletonList( outputRowSet ) ) );
+
+    while ( transform.processRow() ) {
+      // Keep sorting
+    }
+    transform.dispose();
+
+    List<Object[]> output = new ArrayList<>();
+    Object[] row;
+    while ( ( row = outputRowSet.getRowImmediate() ) != null ) {
+      output.add( row );
+    }
+    return output;
+  }
+
+  /**
+   * The rows are sorted on the key, rows with the same key keep their input order.
+   */
+  private void assertSorted( int nrRows, List<Object[]> output ) {
+    assertEquals( nrRows, output.size() );
+    for ( int i = 1; i < output.size(); i++ ) {
+      Object[] previous = output.get( i - 1 );
+      Object[] row = output.get( i );
+      int result = ( (String) previous[ 0 ] ).compareTo( (String) row[ 0 ] );
+      assertTrue( "Row " + i + " is out of order", result < 0 || result == 0 && (Long) previous[ 1 ] < (Long) row[ 1 ] );
+    }
+  }
+}
@@ -59,6 +59,11 @@ public class CsvInput
 
   private static final Class<?> PKG = CsvInput.class; // For Translator
 
+  /**
+   * The largest amount of data we look at to find the start of the first row when reading in parallel
+   */
+  private static final int MAX_ROW_START_WINDOW = 16 * 1024 * 1024;
+
   public CsvInput( TransformMeta transformMeta, CsvInputMeta meta, CsvInputData data, int copyNr, PipelineMeta pipelineMeta,
                    Pipeline pipeline ) {
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
@@ -336,18 +341,22 @@ public class CsvInput
       }
 
       data.fc = data.fis.getChannel();
-      data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      if ( !data.memoryMapped ) {
+        data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      }
 
       // If we are running in parallel and we need to skip bytes in the first file, let's do so here.
       //
       if ( data.parallel ) {
-        if ( data.bytesToSkipInFirstFile > 0 ) {
+        // If new lines are possible in enclosed fields, the enclosures tell us where the first row starts.
+        //
+        if ( data.bytesToSkipInFirstFile > 0 && !skipToRowStart() ) {
           data.fc.position( data.bytesToSkipInFirstFile );
 
           // evaluate whether there is a need to skip a row
           if ( needToSkipRow() ) {
             // PDI-16589 - when reading in parallel, the previous code would introduce additional rows and / or invalid data in the output.
-            // in parallel mode we don't support new lines inside field data so it's safe to fast forward until we find a new line.
+            // without enclosures we don't support new lines inside field data in parallel mode so it's safe to fast forward until we find a new line.
             // when a newline is found we need to check for an additional new line character, while in unix systems it's just a single '\n',
             // on windows systems, it's a sequence of '\r' and '\n'. finally we set the start of the buffer to the end buffer position.
             while ( !data.newLineFound() ) {
@@ -492,6 +501,58 @@ public class CsvInput
     }
   }
 
+  /**
+   * Position the file channel at the start of the first row which starts at or after the position where this transform
+   * copy starts reading when new lines are possible in enclosed fields. The skipped bytes are part of the row the
+   * previous transform copy reads.
+   * <p>
+   * We look at a window of data starting with the last character of the previous copy and let the {@link
+   * RowStartFinder} figure out where the first row starts. The window is doubled until we know or until it gets too big.
+   *
+   * @return true if the start of the first row was found, false if we need to skip to the next new line instead.
+   */
+  private boolean skipToRowStart() throws IOException {
+    if ( !meta.isNewlinePossibleInFields() || data.enclosure == null ) {
+      return false;
+    }
+
+    // Start at the last (whole) character before our block
+    //
+    int charLength = data.encodingType.getLength();
+    long windowStart = data.bytesToSkipInFirstFile - charLength;
+    windowStart -= windowStart % charLength;
+
+    RowStartFinder finder =
+      new RowStartFinder( data.delimiter, data.enclosure, data.delimiterMatcher, data.enclosureMatcher, data.crLfMatcher,
+        charLength );
+
+    int windowSize = Math.max( data.preferredBufferSize, 1024 );
+    while ( true ) {
+      // Read until the window is full or until we reach the end of the file
+      //
+      ByteBuffer window = ByteBuffer.allocate( windowSize );
+      int n;
+      do {
+        n = data.fc.read( window, windowStart + window.position() );
+      } while ( n >= 0 && window.hasRemaining() );
+      boolean endOfFile = window.hasRemaining();
+
+      int rowStart = finder.findRowStart( window.array(), window.position(), endOfFile );
+      if ( rowStart >= 0 ) {
+        long position = windowStart + rowStart;
+        data.fc.position( position );
+        data.totalBytesRead += position - data.bytesToSkipInFirstFile;
+        return true;
+      }
+      if ( rowStart == RowStartFinder.UNDECIDED || endOfFile || windowSize >= MAX_ROW_START_WINDOW ) {
+        logBasic( BaseMessages.getString( PKG, "CsvInput.Log.ParallelRowStartNotFound",
+          Long.toString( data.bytesToSkipInFirstFile ), data.filenames[ data.filenr ] ) );
+        return false;
+      }
+      windowSize = Math.min( windowSize * 2, MAX_ROW_START_WINDOW );
+    }
+  }
+
   /**
    * We need to skip row only if a line, that we are currently on is read by the previous transform <b>partly</b>.
    * In other words, we DON'T skip a line if we are just beginning to read it from the first symbol.
@@ -645,7 +706,7 @@ public class CsvInput
               enclosureFound = true;
               boolean keepGoing;
               do {
-                if ( data.moveEndBufferPointer() ) {
+                if ( data.moveEndBufferPointer( data.enclosureTokenizer ) ) {
                   enclosureFound = false;
                   break;
                 }
@@ -680,7 +741,9 @@ public class CsvInput
               ignoreEnclosuresInField = true;
             }
           } else {
-            if ( data.moveEndBufferPointer() ) {
+            // Skip the field content up to the next delimiter, enclosure or line end in one go
+            //
+            if ( data.moveEndBufferPointer( data.fieldTokenizer ) ) {
               endOfBuffer = true;
               break;
             }
@@ -696,15 +759,12 @@ public class CsvInput
         // data.byteBuffer[data.startBuffer]
         //
 
-        byte[] field = data.getField( delimiterFound, enclosureFound, newLineFound, endOfBuffer );
-
-        // Did we have any escaped characters in there?
+        // Escaped enclosures are removed while copying the field out of the buffer
         //
-        if ( escapedEnclosureFound > 0 ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Escaped enclosures found in " + new String( field ) );
-          }
-          field = data.removeEscapedEnclosures( field, escapedEnclosureFound );
+        byte[] field = data.getField( delimiterFound, enclosureFound, newLineFound, endOfBuffer, escapedEnclosureFound );
+
+        if ( escapedEnclosureFound > 0 && log.isRowLevel() ) {
+          logRowlevel( "Escaped enclosures removed from " + new String( field ) );
         }
 
         final int actualFieldIndex = outputIndex++;
@@ -870,6 +930,7 @@ public class CsvInput
       }
 
       data.isAddingRowNumber = !Utils.isEmpty( meta.getRowNumField() );
+      data.memoryMapped = meta.isMemoryMapped();
 
       // Handle parallel reading capabilities...
       //
@@ -907,18 +968,31 @@ public class CsvInput
         }
       }
 
+      byte[] carriageReturn;
+      byte[] lineFeed;
       switch ( data.encodingType ) {
         case DOUBLE_BIG_ENDIAN:
           data.crLfMatcher = new MultiByteBigCrLfMatcher();
+          carriageReturn = new byte[] { 0, '\r' };
+          lineFeed = new byte[] { 0, '\n' };
           break;
         case DOUBLE_LITTLE_ENDIAN:
           data.crLfMatcher = new MultiByteLittleCrLfMatcher();
+          carriageReturn = new byte[] { '\r', 0 };
+          lineFeed = new byte[] { '\n', 0 };
           break;
         default:
           data.crLfMatcher = new SingleByteCrLfMatcher();
+          carriageReturn = new byte[] { '\r' };
+          lineFeed = new byte[] { '\n' };
           break;
       }
 
+      // Find the bytes the matchers need to look at in bulk, skipping the field content in between
+      //
+      data.fieldTokenizer = new FieldTokenizer( data.delimiter, data.enclosure, carriageReturn, lineFeed );
+      data.enclosureTokenizer = new FieldTokenizer( data.enclosure );
+
       return true;
 
     }
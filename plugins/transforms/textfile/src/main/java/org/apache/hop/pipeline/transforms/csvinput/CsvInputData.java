@@ -26,6 +26,7 @@ import org.apache.hop.pipeline.transform.ITransformData;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.List;
 
@@ -34,8 +35,21 @@ import java.util.List;
  * @since 24-jan-2005
  */
 public class CsvInputData extends BaseTransformData implements ITransformData {
+
+  /**
+   * The maximum size of the part of a file we map in memory at once
+   */
+  static final long MAPPING_SIZE = 256L * 1024 * 1024;
+
   public FileChannel fc;
   public ByteBuffer bb;
+
+  /**
+   * Read the files through a memory mapping rather than through the direct byte buffer
+   */
+  public boolean memoryMapped;
+  private MappedByteBuffer mapping;
+  private long mappingEnd;
   public IRowMeta convertRowMeta;
   public IRowMeta outputRowMeta;
 
@@ -76,6 +90,16 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
   public IPatternMatcher enclosureMatcher;
   public ICrLfMatcher crLfMatcher;
 
+  /**
+   * Skips over field content up to the next possible delimiter, enclosure or line end
+   */
+  public FieldTokenizer fieldTokenizer;
+
+  /**
+   * Skips over enclosed content up to the next possible enclosure
+   */
+  public FieldTokenizer enclosureTokenizer;
+
   public IFieldsMapping fieldsMapping;
 
   /**
@@ -99,13 +123,19 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
     //
     bufferSize = endBuffer - startBuffer;
     int newSize = bufferSize + preferredBufferSize;
-    byte[] newByteBuffer = new byte[ newSize + 100 ];
+    if ( byteBuffer.length < newSize + 100 ) {
+      byte[] newByteBuffer = new byte[ newSize + 100 ];
 
-    // copy over the old data...
-    System.arraycopy( byteBuffer, startBuffer, newByteBuffer, 0, bufferSize );
+      // copy over the old data...
+      System.arraycopy( byteBuffer, startBuffer, newByteBuffer, 0, bufferSize );
 
-    // replace the old byte buffer...
-    byteBuffer = newByteBuffer;
+      // replace the old byte buffer...
+      byteBuffer = newByteBuffer;
+    } else {
+      // The fields are copied out of the byte buffer so we can simply re-use it
+      //
+      System.arraycopy( byteBuffer, startBuffer, byteBuffer, 0, bufferSize );
+    }
 
     // Adjust start and end point of data in the byte buffer
     //
@@ -114,6 +144,10 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
   }
 
   private int readBufferFromFile() throws IOException {
+    if ( memoryMapped ) {
+      return readBufferFromMapping();
+    }
+
     // See if the line is not longer than the buffer.
     // In that case we need to increase the size of the byte buffer.
     // Since this method doesn't get called every other character, I'm sure we can spend a bit of time here without
@@ -148,6 +182,35 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
     return n;
   }
 
+  /**
+   * Copy the next block of data straight from the memory mapped file into the byte array. This saves the system call
+   * and the copy through the direct byte buffer for every block.
+   */
+  private int readBufferFromMapping() throws IOException {
+    if ( mapping == null || !mapping.hasRemaining() ) {
+      // Map the next part of the file, starting where the file channel is positioned the first time around.
+      //
+      long position = mapping == null ? fc.position() : mappingEnd;
+      long size = Math.min( fc.size() - position, MAPPING_SIZE );
+      if ( size <= 0 ) {
+        return -1;
+      }
+      mapping = fc.map( FileChannel.MapMode.READ_ONLY, position, size );
+      mappingEnd = position + size;
+    }
+
+    int n = Math.min( mapping.remaining(), preferredBufferSize );
+    bufferSize = endBuffer + n;
+    if ( byteBuffer.length < bufferSize ) {
+      byte[] newByteBuffer = new byte[ bufferSize ];
+      System.arraycopy( byteBuffer, 0, newByteBuffer, 0, endBuffer );
+      byteBuffer = newByteBuffer;
+    }
+    mapping.get( byteBuffer, endBuffer, n );
+
+    return n;
+  }
+
   private void resizeByteBuffer( int newSize ) {
     ByteBuffer newBuffer = ByteBuffer.allocateDirect( newSize ); // Increase by 50%
     newBuffer.position( 0 );
@@ -200,6 +263,21 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
     }
   }
 
+  /**
+   * Moves the endBuffer pointer by at least one, up to the next position where the tokenizer can't rule out one of its
+   * patterns. The bytes in between are counted as read, like moving the pointer one byte at a time would do.
+   *
+   * @param tokenizer the tokenizer that decides which bytes can be skipped
+   * @return true if we reached the end of the byte buffer.
+   * @throws IOException In case we get an error reading from the input file.
+   */
+  boolean moveEndBufferPointer( FieldTokenizer tokenizer ) throws IOException {
+    int next = tokenizer.next( byteBuffer, endBuffer + 1, bufferSize );
+    totalBytesRead += next - endBuffer;
+    endBuffer = next;
+    return resizeBufferIfNeeded();
+  }
+
   /**
    * This method should be used very carefully. Moving pointer without increasing number of written bytes
    * can lead to data corruption.
@@ -222,11 +300,16 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
    * @return the byte array with escaped enclosures escaped.
    */
   byte[] removeEscapedEnclosures( byte[] field, int nrEnclosuresFound ) {
-    byte[] result = new byte[ field.length - nrEnclosuresFound ];
+    return removeEscapedEnclosures( field, 0, field.length, nrEnclosuresFound );
+  }
+
+  private byte[] removeEscapedEnclosures( byte[] source, int start, int length, int nrEnclosuresFound ) {
+    byte[] result = new byte[ length - nrEnclosuresFound ];
     int resultIndex = 0;
-    for ( int i = 0; i < field.length; i++ ) {
-      result[ resultIndex++ ] = field[ i ];
-      if ( field[ i ] == enclosure[ 0 ] && i + 1 < field.length && field[ i + 1 ] == enclosure[ 0 ] ) {
+    int end = start + length;
+    for ( int i = start; i < end; i++ ) {
+      result[ resultIndex++ ] = source[ i ];
+      if ( source[ i ] == enclosure[ 0 ] && i + 1 < end && source[ i + 1 ] == enclosure[ 0 ] ) {
         // Skip the escaped enclosure after adding the first one
         i++;
       }
@@ -235,6 +318,15 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
   }
 
   byte[] getField( boolean delimiterFound, boolean enclosureFound, boolean newLineFound, boolean endOfBuffer ) {
+    return getField( delimiterFound, enclosureFound, newLineFound, endOfBuffer, 0 );
+  }
+
+  /**
+   * Copy the field out of the byte buffer, removing the escaped enclosures on the way. This way the field is copied only
+   * once.
+   */
+  byte[] getField( boolean delimiterFound, boolean enclosureFound, boolean newLineFound, boolean endOfBuffer,
+                   int nrEnclosuresFound ) {
     int fieldStart = startBuffer;
     int fieldEnd = endBuffer;
 
@@ -253,6 +345,10 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
       length = 0;
     }
 
+    if ( nrEnclosuresFound > 0 ) {
+      return removeEscapedEnclosures( byteBuffer, fieldStart, length, nrEnclosuresFound );
+    }
+
     byte[] field = new byte[ length ];
     System.arraycopy( byteBuffer, fieldStart, field, 0, length );
 
@@ -260,6 +356,7 @@ public class CsvInputData extends BaseTransformData implements ITransformData {
   }
 
   void closeFile() throws HopException {
+    mapping = null;
     try {
       if ( fc != null ) {
         fc.close();
@@ -98,6 +98,7 @@ public class CsvInputDialog extends BaseTransformDialog implements ITransformDia
   private boolean isReceivingInput;
   private Button wRunningInParallel;
   private Button wNewlinePossible;
+  private Button wMemoryMapped;
   private ComboVar wEncoding;
 
   private boolean gotEncodings = false;
@@ -449,8 +450,28 @@ public class CsvInputDialog extends BaseTransformDialog implements ITransformDia
         asyncUpdatePreview();
       }
     } );
+    wEnclosure.addModifyListener( e -> setFlags() );
     lastControl = wlNewlinePossible;
 
+    // Read the files through a memory mapping?
+    //
+    Label wlMemoryMapped = new Label( shell, SWT.RIGHT );
+    wlMemoryMapped.setText( BaseMessages.getString( PKG, "CsvInputDialog.MemoryMapped.Label" ) );
+    props.setLook( wlMemoryMapped );
+    FormData fdlMemoryMapped = new FormData();
+    fdlMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdlMemoryMapped.left = new FormAttachment( 0, 0 );
+    fdlMemoryMapped.right = new FormAttachment( middle, -margin );
+    wlMemoryMapped.setLayoutData( fdlMemoryMapped );
+    wMemoryMapped = new Button( shell, SWT.CHECK );
+    wMemoryMapped.setToolTipText( BaseMessages.getString( PKG, "CsvInputDialog.MemoryMapped.Tooltip" ) );
+    props.setLook( wMemoryMapped );
+    FormData fdMemoryMapped = new FormData();
+    fdMemoryMapped.top = new FormAttachment( wlMemoryMapped, 0, SWT.CENTER );
+    fdMemoryMapped.left = new FormAttachment( middle, 0 );
+    wMemoryMapped.setLayoutData( fdMemoryMapped );
+    lastControl = wlMemoryMapped;
+
     // Encoding
     Label wlEncoding = new Label( shell, SWT.RIGHT );
     wlEncoding.setText( BaseMessages.getString( PKG, "CsvInputDialog.Encoding.Label" ) );
@@ -619,9 +640,10 @@ public class CsvInputDialog extends BaseTransformDialog implements ITransformDia
   }
 
   protected void setFlags() {
-    // In case there are newlines in fields, we can't load data in parallel
+    // In case there are newlines in fields, we can only load data in parallel if the fields are enclosed:
+    // the enclosures tell us where the rows start.
     //
-    boolean parallelPossible = !wNewlinePossible.getSelection();
+    boolean parallelPossible = !wNewlinePossible.getSelection() || !Utils.isEmpty( wEnclosure.getText() );
     wlRunningInParallel.setEnabled( parallelPossible );
     wRunningInParallel.setEnabled( parallelPossible );
     if ( !parallelPossible ) {
@@ -689,6 +711,7 @@ public class CsvInputDialog extends BaseTransformDialog implements ITransformDia
     wHeaderPresent.setSelection( inputMeta.isHeaderPresent() );
     wRunningInParallel.setSelection( inputMeta.isRunningInParallel() );
     wNewlinePossible.setSelection( inputMeta.isNewlinePossibleInFields() );
+    wMemoryMapped.setSelection( inputMeta.isMemoryMapped() );
     wRowNumField.setText( Const.NVL( inputMeta.getRowNumField(), "" ) );
     wAddResult.setSelection( inputMeta.isAddResultFile() );
     wEncoding.setText( Const.NVL( inputMeta.getEncoding(), "" ) );
@@ -747,6 +770,7 @@ public class CsvInputDialog extends BaseTransformDialog implements ITransformDia
     inputMeta.setAddResultFile( wAddResult.getSelection() );
     inputMeta.setRunningInParallel( wRunningInParallel.getSelection() );
     inputMeta.setNewlinePossibleInFields( wNewlinePossible.getSelection() );
+    inputMeta.setMemoryMapped( wMemoryMapped.getSelection() );
     inputMeta.setEncoding( wEncoding.getText() );
 
     int nrNonEmptyFields = wFields.nrNonEmpty();
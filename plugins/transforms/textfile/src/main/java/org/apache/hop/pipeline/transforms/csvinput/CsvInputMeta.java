@@ -126,6 +126,9 @@ public class CsvInputMeta extends BaseTransformMeta
   @Injection(name = "NEWLINES_IN_FIELDS")
   private boolean newlinePossibleInFields;
 
+  @Injection(name = "MEMORY_MAPPED")
+  private boolean memoryMapped;
+
   public CsvInputMeta() {
     super();
     allocate(0);
@@ -184,6 +187,7 @@ public class CsvInputMeta extends BaseTransformMeta
         newlinePossibleInFields = "Y".equalsIgnoreCase(nlp);
       }
       encoding = XmlHandler.getTagValue(transformNode, "encoding");
+      memoryMapped = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "memory_mapped"));
 
       Node fields = XmlHandler.getSubNode(transformNode, "fields");
       int nrFields = XmlHandler.countNodes(fields, "field");
@@ -235,6 +239,7 @@ public class CsvInputMeta extends BaseTransformMeta
         .append("    ")
         .append(XmlHandler.addTagValue("newline_possible", newlinePossibleInFields));
     retval.append("    ").append(XmlHandler.addTagValue("encoding", encoding));
+    retval.append("    ").append(XmlHandler.addTagValue("memory_mapped", memoryMapped));
 
     retval.append("    ").append(XmlHandler.openTag("fields")).append(Const.CR);
     for (int i = 0; i < inputFields.length; i++) {
@@ -676,6 +681,16 @@ public class CsvInputMeta extends BaseTransformMeta
     this.newlinePossibleInFields = newlinePossibleInFields;
   }
 
+  /** @return true if the files are read through a memory mapping instead of a read buffer */
+  public boolean isMemoryMapped() {
+    return memoryMapped;
+  }
+
+  /** @param memoryMapped true to read the files through a memory mapping */
+  public void setMemoryMapped(boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+  }
+
   @Override
   public FileObject getHeaderFileObject(final IVariables variables) {
     final String filename = variables.resolve(getFilename());
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.csvinput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the structural characters of a text file (delimiters, enclosures, carriage returns and line feeds) in bulk
+ * instead of testing every byte with the pattern matchers.
+ * <p>
+ * Every pattern is represented by one key byte: its first non-zero byte. Byte buffers are scanned 8 bytes at a time:
+ * each word is compared with all the keys at once using the "has zero byte" bit trick, so plain field content costs a
+ * couple of arithmetic operations per 8 bytes instead of a few compares and branches per byte.
+ * <p>
+ * The tokenizer only rules out positions: a returned position is where one of the patterns <i>may</i> start, the
+ * pattern matchers still decide what is actually found there. Positions that are skipped never start a pattern.
+ * <p>
+ * At most 4 distinct keys are supported, enough for a delimiter, an enclosure, CR and LF.
+ * <p>
+ * A tokenizer keeps a view on the last buffer it scanned: don't share one between threads.
+ */
+public class FieldTokenizer {
+
+  public static final int MAX_KEYS = 4;
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+  private static final int SCALAR_HEAD = 4;
+
+  /**
+   * The key bytes, unused slots repeat the first key
+   */
+  private final byte k0, k1, k2, k3;
+
+  /**
+   * The key bytes repeated in all the bytes of a long
+   */
+  private final long w0, w1, w2, w3;
+
+  /**
+   * The key characters, unused slots repeat the first key
+   */
+  private final char c0, c1, c2, c3;
+
+  /**
+   * The largest position of a key byte in its pattern: how far a pattern can start before its key byte.
+   */
+  private final int keyOffset;
+
+  /**
+   * An empty byte pattern matches everywhere, nothing can be skipped
+   */
+  private final boolean matchesEverywhere;
+
+  /**
+   * The last buffer scanned and its little endian view
+   */
+  private byte[] wrapped;
+  private ByteBuffer words;
+
+  /**
+   * Create a tokenizer for the given byte patterns, as represented in the encoding of the file. Null patterns are
+   * ignored, an empty pattern matches at every position like it does in the pattern matchers.
+   *
+   * @param patterns the delimiter, enclosure, CR, LF, ...
+   */
+  public FieldTokenizer( byte[]... patterns ) {
+    byte[] keys = new byte[ MAX_KEYS ];
+    int nrKeys = 0;
+    int offset = 0;
+    boolean everywhere = false;
+    for ( byte[] pattern : patterns ) {
+      if ( pattern == null ) {
+        continue;
+      }
+      if ( pattern.length == 0 ) {
+        everywhere = true;
+        continue;
+      }
+      int index = 0;
+      while ( index < pattern.length - 1 && pattern[ index ] == 0 ) {
+        index++;
+      }
+      offset = Math.max( offset, index );
+      nrKeys = addKey( keys, nrKeys, pattern[ index ] );
+    }
+    keyOffset = offset;
+    matchesEverywhere = everywhere;
+    k0 = keys[ 0 ];
+    k1 = keys[ nrKeys > 1 ? 1 : 0 ];
+    k2 = keys[ nrKeys > 2 ? 2 : 0 ];
+    k3 = keys[ nrKeys > 3 ? 3 : 0 ];
+    w0 = broadcast( k0 );
+    w1 = broadcast( k1 );
+    w2 = broadcast( k2 );
+    w3 = broadcast( k3 );
+    c0 = (char) ( k0 & 0xFF );
+    c1 = (char) ( k1 & 0xFF );
+    c2 = (char) ( k2 & 0xFF );
+    c3 = (char) ( k3 & 0xFF );
+  }
+
+  /**
+   * Create a tokenizer for the given character patterns. Null or empty patterns are ignored.
+   *
+   * @param patterns the delimiter, enclosure, escape character, ...
+   */
+  public FieldTokenizer( String... patterns ) {
+    char[] keys = new char[ MAX_KEYS ];
+    int nrKeys = 0;
+    for ( String pattern : patterns ) {
+      if ( pattern == null || pattern.isEmpty() ) {
+        continue;
+      }
+      char key = pattern.charAt( 0 );
+      boolean known = false;
+      for ( int i = 0; i < nrKeys; i++ ) {
+        known |= keys[ i ] == key;
+      }
+      if ( !known ) {
+        if ( nrKeys == MAX_KEYS ) {
+          throw new IllegalArgumentException( "A field tokenizer supports at most " + MAX_KEYS + " distinct patterns" );
+        }
+        keys[ nrKeys++ ] = key;
+      }
+    }
+    keyOffset = 0;
+    matchesEverywhere = false;
+    c0 = keys[ 0 ];
+    c1 = keys[ nrKeys > 1 ? 1 : 0 ];
+    c2 = keys[ nrKeys > 2 ? 2 : 0 ];
+    c3 = keys[ nrKeys > 3 ? 3 : 0 ];
+    k0 = (byte) c0;
+    k1 = (byte) c1;
+    k2 = (byte) c2;
+    k3 = (byte) c3;
+    w0 = broadcast( k0 );
+    w1 = broadcast( k1 );
+    w2 = broadcast( k2 );
+    w3 = broadcast( k3 );
+  }
+
+  private static int addKey( byte[] keys, int nrKeys, byte key ) {
+    for ( int i = 0; i < nrKeys; i++ ) {
+      if ( keys[ i ] == key ) {
+        return nrKeys;
+      }
+    }
+    if ( nrKeys == MAX_KEYS ) {
+      throw new IllegalArgumentException( "A field tokenizer supports at most " + MAX_KEYS + " distinct patterns" );
+    }
+    keys[ nrKeys ] = key;
+    return nrKeys + 1;
+  }
+
+  private static long broadcast( byte key ) {
+    return ( key & 0xFFL ) * ONES;
+  }
+
+  /**
+   * Sets the high bit of every zero byte in the word. Bytes above the first zero byte can be flagged as well because of
+   * the borrow, the lowest flagged byte is always exact.
+   */
+  private static long zeroBytes( long word ) {
+    return ( word - ONES ) & ~word & HIGHS;
+  }
+
+  /**
+   * Reads the buffer 8 bytes at a time, the byte at the lowest position ends up in the lowest bits. On a recent JVM
+   * this is a single load.
+   */
+  private ByteBuffer words( byte[] buffer ) {
+    if ( buffer != wrapped ) {
+      wrapped = buffer;
+      words = ByteBuffer.wrap( buffer ).order( ByteOrder.LITTLE_ENDIAN );
+    }
+    return words;
+  }
+
+  /**
+   * @return the position of the first key byte in [from, to[ or -1 if there is none
+   */
+  private int findKey( byte[] buffer, int from, int to ) {
+    if ( matchesEverywhere ) {
+      return from < to ? from : -1;
+    }
+    // Short fields are common: look at the first few bytes one by one before switching to words
+    //
+    int i = from;
+    for ( int head = Math.min( to, from + SCALAR_HEAD ); i < head; i++ ) {
+      byte b = buffer[ i ];
+      if ( b == k0 || b == k1 || b == k2 || b == k3 ) {
+        return i;
+      }
+    }
+    ByteBuffer view = words( buffer );
+    for ( ; i < to - 7; i += 8 ) {
+      long word = view.getLong( i );
+      long found = zeroBytes( word ^ w0 ) | zeroBytes( word ^ w1 ) | zeroBytes( word ^ w2 ) | zeroBytes( word ^ w3 );
+      if ( found != 0 ) {
+        return i + ( Long.numberOfTrailingZeros( found ) >>> 3 );
+      }
+    }
+    for ( ; i < to; i++ ) {
+      byte b = buffer[ i ];
+      if ( b == k0 || b == k1 || b == k2 || b == k3 ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Find the next position in the buffer where one of the patterns may start.
+   *
+   * @param buffer the bytes to scan
+   * @param from   the first position to consider
+   * @param to     the end of the data in the buffer, exclusive
+   * @return the first position in [from, to] which can't be ruled out. When no pattern can start in the buffer this is
+   * <code>to</code>, or a bit before it when the last bytes could be the start of a pattern which continues after the
+   * data read so far.
+   */
+  public int next( byte[] buffer, int from, int to ) {
+    int key = findKey( buffer, from, to );
+    if ( key < 0 ) {
+      return Math.max( from, to - keyOffset );
+    }
+    return Math.max( from, key - keyOffset );
+  }
+
+  /**
+   * Find the next position in the text where one of the patterns may start.
+   *
+   * @param text the characters to scan
+   * @param from the first position to consider
+   * @param to   the end of the text to scan, exclusive
+   * @return the first position in [from, to] which can't be ruled out, <code>to</code> if there is none
+   */
+  public int next( CharSequence text, int from, int to ) {
+    for ( int i = from; i < to; i++ ) {
+      char c = text.charAt( i );
+      if ( c == c0 || c == c1 || c == c2 || c == c3 ) {
+        return i;
+      }
+    }
+    return Math.max( from, to );
+  }
+}
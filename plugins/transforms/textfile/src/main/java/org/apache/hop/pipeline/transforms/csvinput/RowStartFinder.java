@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.csvinput;
+
+import java.util.BitSet;
+
+/**
+ * Finds the start of the first row after an arbitrary position in a CSV file when fields can contain new lines.
+ * <p>
+ * When a file is read in parallel every transform copy starts reading at a byte offset which usually falls somewhere
+ * in the middle of a row. Skipping to the next new line is not enough when enclosed fields can contain new lines: the
+ * new line could be part of a field. Looking at a window of data after the offset we don't know if we start inside or
+ * outside of an enclosed field so we try all possibilities at once: before the first character we can be at the start
+ * of a field (or in an unenclosed field), inside an enclosed field or right after an enclosure inside an enclosed field.
+ * <p>
+ * Every possibility is parsed following RFC-4180 until it turns out to be impossible: an enclosure in the middle of an
+ * unenclosed field, something other than a delimiter, a new line or another enclosure after a closing enclosure or an
+ * enclosed field which doesn't end before the end of the file. As soon as all the remaining possibilities agree on
+ * where the first row starts, we have our answer. If two possibilities arrive at the same row start they continue in
+ * exactly the same way. If they still disagree about the first row at that point, the data can't tell them apart.
+ * <p>
+ * A new line right after the new line which ends a row is skipped, the same way {@link CsvInput} does for "\r\n".
+ */
+public class RowStartFinder {
+
+  /**
+   * More data is needed to determine where the first row starts.
+   */
+  public static final int NEED_MORE_DATA = -1;
+
+  /**
+   * The data doesn't tell where the first row starts: the file doesn't follow RFC-4180 or all possibilities are still
+   * valid.
+   */
+  public static final int UNDECIDED = -2;
+
+  private static final int FIELD_START = 0;
+  private static final int UNENCLOSED = 1;
+  private static final int ENCLOSED = 2;
+  private static final int AFTER_ENCLOSURE = 3;
+
+  private static final int[] START_STATES = { FIELD_START, ENCLOSED, AFTER_ENCLOSURE };
+
+  private final byte[] delimiter;
+  private final byte[] enclosure;
+  private final IPatternMatcher delimiterMatcher;
+  private final IPatternMatcher enclosureMatcher;
+  private final ICrLfMatcher crLfMatcher;
+  private final int charLength;
+  private final int lookAhead;
+
+  public RowStartFinder( byte[] delimiter, byte[] enclosure, IPatternMatcher delimiterMatcher,
+                         IPatternMatcher enclosureMatcher, ICrLfMatcher crLfMatcher, int charLength ) {
+    this.delimiter = delimiter;
+    this.enclosure = enclosure;
+    this.delimiterMatcher = delimiterMatcher;
+    this.enclosureMatcher = enclosureMatcher;
+    this.crLfMatcher = crLfMatcher;
+    this.charLength = charLength;
+    this.lookAhead = Math.max( 2 * charLength, Math.max( delimiter.length, enclosure.length ) );
+  }
+
+  /**
+   * Find the start of the first row in the given data.
+   *
+   * @param buffer    the data, starting with the last character before the position we want to start reading at.
+   * @param length    the number of bytes in the buffer
+   * @param endOfFile true if the buffer contains all the data up to the end of the file
+   * @return the position in the buffer where the first row starts (the length of the data if no row starts in it),
+   * {@link #NEED_MORE_DATA} or {@link #UNDECIDED}
+   */
+  public int findRowStart( byte[] buffer, int length, boolean endOfFile ) {
+    Possibility[] possibilities = new Possibility[ START_STATES.length ];
+    for ( int i = 0; i < START_STATES.length; i++ ) {
+      possibilities[ i ] = parse( i, START_STATES[ i ], buffer, length, endOfFile, possibilities );
+    }
+
+    int rowStart = -1;
+    boolean agreed = true;
+    boolean missing = false;
+    boolean incomplete = false;
+    int group = -1;
+    boolean oneGroup = true;
+    for ( Possibility possibility : possibilities ) {
+      if ( possibility.rejected ) {
+        continue;
+      }
+      if ( possibility.rowStart < 0 ) {
+        agreed = false;
+        missing = true;
+      } else if ( rowStart < 0 ) {
+        rowStart = possibility.rowStart;
+      } else if ( rowStart != possibility.rowStart ) {
+        agreed = false;
+      }
+      incomplete |= !possibility.complete;
+      if ( group < 0 ) {
+        group = possibility.group;
+      } else if ( group != possibility.group ) {
+        oneGroup = false;
+      }
+    }
+
+    if ( group < 0 ) {
+      // Nothing is possible, this is not an RFC-4180 file
+      //
+      return UNDECIDED;
+    }
+    if ( agreed ) {
+      return rowStart;
+    }
+    if ( incomplete && ( missing || !oneGroup ) ) {
+      return NEED_MORE_DATA;
+    }
+
+    // The remaining possibilities ended up doing the same thing without agreeing on the first row
+    //
+    return UNDECIDED;
+  }
+
+  /**
+   * Parse the data assuming we are in the given state before the first character. Parsing stops when the state turns
+   * out to be impossible, at the end of the data or when we start a row where an earlier possibility started one.
+   */
+  private Possibility parse( int index, int state, byte[] buffer, int length, boolean endOfFile,
+                             Possibility[] earlier ) {
+    Possibility possibility = new Possibility( index );
+    int position = 0;
+    while ( true ) {
+      if ( !endOfFile && position + lookAhead > length ) {
+        // We need to see a few more bytes to know what's next
+        //
+        possibility.complete = false;
+        return possibility;
+      }
+      if ( position + charLength > length ) {
+        // The end of the file ends the row, unless we are still in an enclosed field
+        //
+        if ( state == ENCLOSED ) {
+          possibility.rejected = true;
+        } else {
+          possibility.addRowStart( length );
+        }
+        return possibility;
+      }
+
+      if ( matches( delimiterMatcher, buffer, position, length, delimiter ) ) {
+        if ( state == ENCLOSED ) {
+          position += charLength;
+        } else {
+          state = FIELD_START;
+          position += delimiter.length;
+        }
+      } else if ( matches( enclosureMatcher, buffer, position, length, enclosure ) ) {
+        switch ( state ) {
+          case FIELD_START:
+          case AFTER_ENCLOSURE:
+            state = ENCLOSED;
+            break;
+          case ENCLOSED:
+            state = AFTER_ENCLOSURE;
+            break;
+          default:
+            // An enclosure in the middle of a field which isn't enclosed
+            possibility.rejected = true;
+            return possibility;
+        }
+        position += enclosure.length;
+      } else if ( isNewLine( buffer, position ) ) {
+        if ( state == ENCLOSED ) {
+          position += charLength;
+        } else {
+          // End of the row, skip a second new line character like "\r\n"
+          //
+          position += charLength;
+          if ( position + charLength <= length && isNewLine( buffer, position ) ) {
+            position += charLength;
+          }
+          state = FIELD_START;
+          possibility.addRowStart( position );
+
+          // If an earlier possibility started a row here as well, from now on we'll do exactly the same
+          //
+          for ( int i = 0; i < index; i++ ) {
+            if ( earlier[ i ].rowStarts.get( position ) ) {
+              possibility.group = earlier[ i ].group;
+              possibility.rejected = earlier[ i ].rejected;
+              possibility.complete = earlier[ i ].complete;
+              return possibility;
+            }
+          }
+        }
+      } else {
+        switch ( state ) {
+          case FIELD_START:
+            state = UNENCLOSED;
+            break;
+          case AFTER_ENCLOSURE:
+            // Only a delimiter, a new line or an escaped enclosure can follow an enclosure
+            possibility.rejected = true;
+            return possibility;
+          default:
+            break;
+        }
+        position += charLength;
+      }
+    }
+  }
+
+  private boolean matches( IPatternMatcher matcher, byte[] buffer, int position, int length, byte[] pattern ) {
+    return position + pattern.length <= length && matcher.matchesPattern( buffer, position, pattern );
+  }
+
+  private boolean isNewLine( byte[] buffer, int position ) {
+    return crLfMatcher.isReturn( buffer, position ) || crLfMatcher.isLineFeed( buffer, position );
+  }
+
+  /**
+   * The result of parsing the data with one of the possible states before the first character.
+   */
+  private static class Possibility {
+    private final BitSet rowStarts = new BitSet();
+    private int rowStart = -1;
+    private int group;
+    private boolean rejected;
+    private boolean complete = true;
+
+    Possibility( int group ) {
+      this.group = group;
+    }
+
+    void addRowStart( int position ) {
+      if ( rowStart < 0 ) {
+        rowStart = position;
+      }
+      rowStarts.set( position );
+    }
+  }
+}
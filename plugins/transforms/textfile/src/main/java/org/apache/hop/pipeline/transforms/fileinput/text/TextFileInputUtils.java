@@ -30,6 +30,7 @@ import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.transform.errorhandling.AbstractFileErrorHandler;
 import org.apache.hop.pipeline.transform.errorhandling.IFileErrorHandler;
+import org.apache.hop.pipeline.transforms.csvinput.FieldTokenizer;
 import org.apache.hop.pipeline.transforms.file.BaseFileField;
 import org.apache.hop.pipeline.transforms.file.BaseFileInputAdditionalField;
 
@@ -69,6 +70,10 @@ public class TextFileInputUtils {
         int len_encl = ( enclosure == null ? 0 : enclosure.length() );
         int lenEsc = ( escapeCharacter == null ? 0 : escapeCharacter.length() );
 
+        // Skips the content of enclosed fields up to the next enclosure or escape character
+        //
+        FieldTokenizer enclosureTokenizer = new FieldTokenizer( enclosure, escapeCharacter );
+
         while ( pos < length ) {
           int from = pos;
           int next;
@@ -120,7 +125,7 @@ public class TextFileInputUtils {
 
             // Look for a closing enclosure!
             while ( ( !is_enclosure || enclosure_after ) && p < line.length() ) {
-              p++;
+              p = enclosureTokenizer.next( line, p + 1, length );
               enclosure_after = false;
               is_enclosure =
                 len_encl > 0 && p + len_encl < length && line.substring( p, p + len_encl ).equals( enclosure );
@@ -524,6 +529,11 @@ public class TextFileInputUtils {
         int len_encl = ( enclosure == null ? 0 : enclosure.length() );
         int lenEsc = ( escapeCharacters == null ? 0 : escapeCharacters.length() );
 
+        // Skips the content of enclosed fields up to the next enclosure or escape character
+        //
+        FieldTokenizer enclosureTokenizer =
+          new FieldTokenizer( enclosure, escapeCharacters, inf.content.escapeCharacter );
+
         while ( pos < length ) {
           int from = pos;
           int next;
@@ -575,7 +585,7 @@ public class TextFileInputUtils {
 
             // Look for a closing enclosure!
             while ( ( !is_enclosure || enclosure_after ) && p < line.length() ) {
-              p++;
+              p = enclosureTokenizer.next( line, p + 1, length );
               enclosure_after = false;
               is_enclosure =
                 len_encl > 0 && p + len_encl < length && line.substring( p, p + len_encl ).equals( enclosure );
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmark;
+
+import org.apache.hop.pipeline.transforms.csvinput.FieldTokenizer;
+import org.apache.hop.pipeline.transforms.csvinput.ICrLfMatcher;
+import org.apache.hop.pipeline.transforms.csvinput.IPatternMatcher;
+import org.apache.hop.pipeline.transforms.csvinput.MultiByteBigCrLfMatcher;
+import org.apache.hop.pipeline.transforms.csvinput.MultiBytePatternMatcher;
+import org.apache.hop.pipeline.transforms.csvinput.SingleByteCrLfMatcher;
+import org.apache.hop.pipeline.transforms.csvinput.SingleBytePatternMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of finding the delimiters, enclosures and line ends in a buffer of about 1MB.
+ * <p>
+ * The "matchers" benchmark tests every byte with the pattern matchers, like CSV Input used to do. The "tokenizer"
+ * benchmark only tests the positions the {@link FieldTokenizer} can't rule out. The "textFile*" benchmarks do the same
+ * for the lines of the Text File Input transform: testing every character with a substring against skipping to the
+ * next possible enclosure.
+ * <p>
+ * The files are: "narrow" with a few short fields per row, "wide" with many longer fields, "quoted" with enclosed
+ * fields containing delimiters and escaped enclosures, "utf8" with multi-byte characters in the fields and "utf16"
+ * encoded as UTF-16BE, where every character is 2 bytes.
+ * <p>
+ * Run it with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.hop.benchmark.FieldTokenizerBenchmark</code>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class FieldTokenizerBenchmark {
+
+  private static final int FILE_SIZE = 1024 * 1024;
+
+  @Param( { "narrow", "wide", "quoted", "utf8", "utf16" } )
+  public String file;
+
+  private byte[] buffer;
+  private int end;
+  private String[] lines;
+
+  private byte[] delimiter;
+  private byte[] enclosure;
+  private IPatternMatcher delimiterMatcher;
+  private IPatternMatcher enclosureMatcher;
+  private ICrLfMatcher crLfMatcher;
+  private FieldTokenizer tokenizer;
+  private FieldTokenizer lineTokenizer;
+
+  @Setup( Level.Trial )
+  public void setUp() {
+    Random random = new Random( 1234 );
+    StringBuilder text = new StringBuilder( FILE_SIZE );
+    while ( text.length() < FILE_SIZE ) {
+      switch ( file ) {
+        case "narrow":
+          appendRow( text, random, 5, 4, false, "abcdefghij0123456789" );
+          break;
+        case "wide":
+          appendRow( text, random, 50, 40, false, "abcdefghij0123456789 " );
+          break;
+        case "quoted":
+          appendRow( text, random, 10, 30, true, "abcdefghij0123456789 ,\"" );
+          break;
+        default:
+          appendRow( text, random, 10, 20, false, "abcd\u00e9\u00e8\u00ea\u00e0\u00e7\u00f8\u00e6\u00e5\u00df\u20ac0123456789" );
+          break;
+      }
+    }
+    lines = text.toString().split( "\n" );
+
+    Charset charset = "utf16".equals( file ) ? StandardCharsets.UTF_16BE : StandardCharsets.UTF_8;
+    byte[] bytes = text.toString().getBytes( charset );
+    byte[] carriageReturn;
+    byte[] lineFeed;
+    if ( "utf16".equals( file ) ) {
+      delimiter = ",".getBytes( charset );
+      enclosure = "\"".getBytes( charset );
+      carriageReturn = "\r".getBytes( charset );
+      lineFeed = "\n".getBytes( charset );
+      delimiterMatcher = new MultiBytePatternMatcher();
+      enclosureMatcher = new MultiBytePatternMatcher();
+      crLfMatcher = new MultiByteBigCrLfMatcher();
+    } else {
+      delimiter = new byte[] { ',' };
+      enclosure = new byte[] { '"' };
+      carriageReturn = new byte[] { '\r' };
+      lineFeed = new byte[] { '\n' };
+      delimiterMatcher = new SingleBytePatternMatcher();
+      enclosureMatcher = new SingleBytePatternMatcher();
+      crLfMatcher = new SingleByteCrLfMatcher();
+    }
+
+    // The multi-byte matchers look one byte ahead
+    //
+    buffer = new byte[ bytes.length + 1 ];
+    System.arraycopy( bytes, 0, buffer, 0, bytes.length );
+    end = bytes.length;
+
+    tokenizer = new FieldTokenizer( delimiter, enclosure, carriageReturn, lineFeed );
+    lineTokenizer = new FieldTokenizer( "\"" );
+  }
+
+  private static void appendRow( StringBuilder text, Random random, int nrFields, int fieldLength, boolean quoted,
+                                 String characters ) {
+    for ( int field = 0; field < nrFields; field++ ) {
+      if ( field > 0 ) {
+        text.append( ',' );
+      }
+      if ( quoted ) {
+        text.append( '"' );
+      }
+      int length = 1 + random.nextInt( fieldLength * 2 );
+      for ( int i = 0; i < length; i++ ) {
+        char c = characters.charAt( random.nextInt( characters.length() ) );
+        if ( c == '"' ) {
+          text.append( '"' );
+        }
+        if ( !quoted && c == ',' ) {
+          continue;
+        }
+        text.append( c );
+      }
+      if ( quoted ) {
+        text.append( '"' );
+      }
+    }
+    text.append( '\n' );
+  }
+
+  private boolean isStructural( int position ) {
+    return delimiterMatcher.matchesPattern( buffer, position, delimiter )
+      || enclosureMatcher.matchesPattern( buffer, position, enclosure )
+      || crLfMatcher.isReturn( buffer, position )
+      || crLfMatcher.isLineFeed( buffer, position );
+  }
+
+  @Benchmark
+  public int matchers() {
+    int count = 0;
+    for ( int position = 0; position < end; position++ ) {
+      if ( isStructural( position ) ) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int tokenizer() {
+    int count = 0;
+    for ( int position = tokenizer.next( buffer, 0, end ); position < end;
+          position = tokenizer.next( buffer, position + 1, end ) ) {
+      if ( isStructural( position ) ) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int textFileSubstrings() {
+    int count = 0;
+    for ( String line : lines ) {
+      int length = line.length();
+      for ( int p = 0; p < length; p++ ) {
+        if ( p + 1 < length && line.substring( p, p + 1 ).equals( "\"" ) ) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int textFileTokenizer() {
+    int count = 0;
+    for ( String line : lines ) {
+      int length = line.length();
+      for ( int p = lineTokenizer.next( line, 0, length ); p < length; p = lineTokenizer.next( line, p + 1, length ) ) {
+        if ( p + 1 < length && line.substring( p, p + 1 ).equals( "\"" ) ) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  public static void main( String[] args ) throws Exception {
+    new Runner( new OptionsBuilder().include( FieldTokenizerBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
@@ -72,7 +72,8 @@ public class CsvInputMetaTest implements IInitializer<ITransformMeta> {
     PluginRegistry.init( false );
     List<String> attributes =
       Arrays.asList( "bufferSize", "delimiter", "enclosure", "encoding", "filename", "filenameField", "inputFields", "rowNumField",
-        "addResultFile", "headerPresent", "includingFilename", "lazyConversionActive", "newlinePossibleInFields", "runningInParallel" );
+        "addResultFile", "headerPresent", "includingFilename", "lazyConversionActive", "newlinePossibleInFields", "runningInParallel",
+        "memoryMapped" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
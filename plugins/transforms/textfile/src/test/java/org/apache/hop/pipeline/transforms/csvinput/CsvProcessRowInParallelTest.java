@@ -264,6 +264,44 @@ public class CsvProcessRowInParallelTest extends CsvInputUnitTestBase {
     assertEquals( 11, t1 + t2 + t3 + t4 );
   }
 
+  @Test
+  public void newLinesInEnclosedFields_SeveralThreads() throws Exception {
+    final String fileContent =
+      "\"first\nrow\";1\n"
+        + "\"second;\"\"\n\";2\r\n"
+        + "third;3\n"
+        + "\"\nfourth\n\";4\n"
+        + "fifth;\"5\n\"\n"
+        + "\"sixth\";6\n";
+
+    File sharedFile = createTestFile( "UTF-8", fileContent );
+
+    for ( int totalNumberOfTransforms = 2; totalNumberOfTransforms <= 4; totalNumberOfTransforms++ ) {
+      int rows = 0;
+      for ( int transformNr = 0; transformNr < totalNumberOfTransforms; transformNr++ ) {
+        rows += createAndRunOneTransform( sharedFile, transformNr, totalNumberOfTransforms, false, ";", true, false );
+      }
+      assertEquals( 6, rows );
+    }
+  }
+
+  @Test
+  public void memoryMapped_NewLineAtTheEnd_3Threads() throws Exception {
+    final String fileContent =
+      "a;1\r\n"
+        + "b;2\r\n"
+        + "c;3\r\n"
+        + "d;4\r\n"
+        + "e;5\r\n"
+        + "f;6\r\n";
+
+    File sharedFile = createTestFile( "UTF-8", fileContent );
+
+    assertEquals( 2, createAndRunOneTransform( sharedFile, 0, 3, false, ";", false, true ) );
+    assertEquals( 2, createAndRunOneTransform( sharedFile, 1, 3, false, ";", false, true ) );
+    assertEquals( 2, createAndRunOneTransform( sharedFile, 2, 3, false, ";", false, true ) );
+  }
+
   /**
    * So as not to heap up list of taken parameters, we are passing combi, but we expect to see CsvInput class instances
    * in it's content.
@@ -305,18 +343,26 @@ public class CsvProcessRowInParallelTest extends CsvInputUnitTestBase {
 
   private int createAndRunOneTransform( File sharedFile, int transformNr, int totalNumberOfTransforms, boolean headersPresent, String delimiter )
     throws Exception {
-    TransformMetaDataCombi combiTransform1 = createBaseCombi( sharedFile, headersPresent, delimiter );
+    return createAndRunOneTransform( sharedFile, transformNr, totalNumberOfTransforms, headersPresent, delimiter, false, false );
+  }
+
+  private int createAndRunOneTransform( File sharedFile, int transformNr, int totalNumberOfTransforms, boolean headersPresent, String delimiter,
+                                        boolean newlinePossible, boolean memoryMapped ) throws Exception {
+    TransformMetaDataCombi combiTransform1 = createBaseCombi( sharedFile, headersPresent, delimiter, newlinePossible, memoryMapped );
     configureData( (CsvInputData) combiTransform1.data, transformNr, totalNumberOfTransforms );
 
     return processRows( combiTransform1 );
   }
 
-  private TransformMetaDataCombi createBaseCombi( File sharedFile, boolean headerPresent, String delimiter ) {
+  private TransformMetaDataCombi createBaseCombi( File sharedFile, boolean headerPresent, String delimiter, boolean newlinePossible,
+                                                  boolean memoryMapped ) {
 
     TransformMetaDataCombi combi = new TransformMetaDataCombi();
 
     CsvInputData data = new CsvInputData();
     CsvInputMeta meta = createMeta( sharedFile, createInputFileFields( "Field_000", "Field_001" ), headerPresent, delimiter );
+    meta.setNewlinePossibleInFields( newlinePossible );
+    meta.setMemoryMapped( memoryMapped );
 
     CsvInput csvInput = createCsvInput(meta, data);
     csvInput.init();
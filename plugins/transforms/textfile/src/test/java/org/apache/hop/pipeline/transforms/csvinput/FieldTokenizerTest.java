@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.csvinput;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FieldTokenizerTest {
+
+  private static final byte[] CR = { '\r' };
+  private static final byte[] LF = { '\n' };
+
+  @Test
+  public void testNext() {
+    FieldTokenizer tokenizer = new FieldTokenizer( ",".getBytes(), "\"".getBytes(), CR, LF );
+    byte[] bytes = "abcdefghijklm,\"nopqrstuvwxyz\"\r\n".getBytes( StandardCharsets.US_ASCII );
+
+    assertEquals( 13, tokenizer.next( bytes, 0, bytes.length ) );
+    assertEquals( 13, tokenizer.next( bytes, 13, bytes.length ) );
+    assertEquals( 14, tokenizer.next( bytes, 14, bytes.length ) );
+    assertEquals( 28, tokenizer.next( bytes, 15, bytes.length ) );
+    assertEquals( 30, tokenizer.next( bytes, 30, bytes.length ) );
+
+    // Nothing found: the end of the data
+    //
+    assertEquals( 13, tokenizer.next( bytes, 0, 13 ) );
+    assertEquals( 5, tokenizer.next( bytes, 5, 5 ) );
+  }
+
+  @Test
+  public void testUtf16BigEndian() {
+    FieldTokenizer tokenizer = new FieldTokenizer( new byte[] { 0, ',' }, new byte[] { 0, '"' },
+      new byte[] { 0, '\r' }, new byte[] { 0, '\n' } );
+    byte[] bytes = "abcdefgh,ijk\n".getBytes( StandardCharsets.UTF_16BE );
+
+    // The pattern starts one byte before the key byte
+    //
+    assertEquals( 16, tokenizer.next( bytes, 0, bytes.length ) );
+    assertEquals( 24, tokenizer.next( bytes, 18, bytes.length ) );
+
+    // The last byte could be the start of a character which isn't read yet
+    //
+    assertEquals( 14, tokenizer.next( bytes, 0, 15 ) );
+  }
+
+  @Test
+  public void testEmptyPatternMatchesEverywhere() {
+    FieldTokenizer tokenizer = new FieldTokenizer( new byte[ 0 ], CR, LF );
+    byte[] bytes = "abcdefghijklmnop".getBytes( StandardCharsets.US_ASCII );
+    assertEquals( 3, tokenizer.next( bytes, 3, bytes.length ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testTooManyPatterns() {
+    new FieldTokenizer( ",".getBytes(), ";".getBytes(), "\"".getBytes(), CR, LF );
+  }
+
+  @Test
+  public void testCharacters() {
+    FieldTokenizer tokenizer = new FieldTokenizer( "\"", "\\", null, "" );
+    String line = "\"abc\\\"def\",ghi";
+
+    assertEquals( 4, tokenizer.next( line, 1, line.length() ) );
+    assertEquals( 5, tokenizer.next( line, 5, line.length() ) );
+    assertEquals( 9, tokenizer.next( line, 6, line.length() ) );
+    assertEquals( line.length(), tokenizer.next( line, 10, line.length() ) );
+  }
+
+  /**
+   * The tokenizer may never skip a position where one of the matchers finds something.
+   */
+  @Test
+  public void testNeverSkipsAMatch() {
+    Random random = new Random( 42 );
+    byte[] alphabet = { 'a', 'b', ',', '"', '\r', '\n', 0, (byte) 0xE9, (byte) 0x80, (byte) 0x7F };
+    byte[] delimiter = { 0, ',' };
+    byte[] enclosure = { '"', 0 };
+    FieldTokenizer tokenizer = new FieldTokenizer( delimiter, enclosure, CR, LF );
+    MultiBytePatternMatcher matcher = new MultiBytePatternMatcher();
+
+    for ( int run = 0; run < 1000; run++ ) {
+      byte[] bytes = new byte[ random.nextInt( 40 ) + 2 ];
+      for ( int i = 0; i < bytes.length; i++ ) {
+        bytes[ i ] = random.nextInt( 3 ) == 0 ? alphabet[ random.nextInt( alphabet.length ) ] : (byte) 'x';
+      }
+      int to = bytes.length - 1;
+      int from = random.nextInt( to );
+      int next = tokenizer.next( bytes, from, to );
+      assertTrue( next >= from && next <= to );
+      for ( int i = from; i < next; i++ ) {
+        boolean match = matcher.matchesPattern( bytes, i, delimiter ) || matcher.matchesPattern( bytes, i, enclosure )
+          || bytes[ i ] == '\r' || bytes[ i ] == '\n';
+        assertTrue( "Skipped a match at " + i, !match );
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.csvinput;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class RowStartFinderTest {
+
+  private final RowStartFinder finder =
+    new RowStartFinder( ",".getBytes(), "\"".getBytes(), new SingleBytePatternMatcher(), new SingleBytePatternMatcher(),
+      new SingleByteCrLfMatcher(), 1 );
+
+  private int findRowStart( String data, boolean endOfFile ) {
+    byte[] bytes = data.getBytes( StandardCharsets.UTF_8 );
+    return finder.findRowStart( bytes, bytes.length, endOfFile );
+  }
+
+  @Test
+  public void testUnenclosedField() {
+    assertEquals( 3, findRowStart( "bc\nd,e\n", true ) );
+    assertEquals( 4, findRowStart( "bc\r\nd,e\n", true ) );
+  }
+
+  @Test
+  public void testStartRightAfterNewLine() {
+    assertEquals( 1, findRowStart( "\nd,e\n", true ) );
+  }
+
+  @Test
+  public void testNewLineInEnclosedField() {
+    // We start in the middle of the enclosed field "a\nb"
+    //
+    String data = "a\nb\",c\n\"d\",e\n";
+    assertEquals( data.indexOf( "\"d\"" ), findRowStart( data, true ) );
+  }
+
+  @Test
+  public void testEnclosedNewLineInNextRow() {
+    // We start in an unenclosed field, the next row has a new line in an enclosed field
+    //
+    String data = "b,c\n\"x\ny\",z\n\"p\",q\n";
+    assertEquals( 4, findRowStart( data, true ) );
+  }
+
+  @Test
+  public void testEscapedEnclosures() {
+    // We start right between the two enclosures of an escaped enclosure
+    //
+    String data = "\"b\nc\",d\n\"e\",f\n";
+    assertEquals( data.indexOf( "\"e\"" ), findRowStart( data, true ) );
+  }
+
+  @Test
+  public void testEndOfFile() {
+    assertEquals( 4, findRowStart( "abcd", true ) );
+    assertEquals( 3, findRowStart( "ab\"", true ) );
+  }
+
+  @Test
+  public void testNeedMoreData() {
+    // Both an enclosed and an unenclosed start are still possible
+    //
+    assertEquals( RowStartFinder.NEED_MORE_DATA, findRowStart( "a\nb\nc", false ) );
+    assertEquals( 2, findRowStart( "a\nb\nc", true ) );
+  }
+
+  @Test
+  public void testNotRfc4180() {
+    // Enclosures in the middle of unenclosed fields and text after an enclosed field: nothing fits.
+    //
+    assertEquals( RowStartFinder.UNDECIDED, findRowStart( "a\"b\"c\n\"d\"e\n", true ) );
+  }
+}
@@ -19,8 +19,10 @@ package org.apache.hop.pipeline.transforms.update;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.Result;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.database.MergeStagingTable;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
@@ -37,6 +39,7 @@ import org.apache.hop.pipeline.transform.TransformMeta;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Update data in a database table, does NOT ever perform an insert.
@@ -198,6 +201,9 @@ public class Update extends BaseTransform<UpdateMeta, UpdateData> implements ITr
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
 
+      if ( meta.isSetBased() && !first && !mergeStagedRows() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -271,6 +277,10 @@ public class Update extends BaseTransform<UpdateMeta, UpdateData> implements ITr
             + "" + data.valuenrs[ i ] );
         }
       }
+      if ( meta.isSetBased() ) {
+        prepareStagingTable( getInputRowMeta() );
+        return stageRow( r );
+      }
       if ( meta.isSkipLookup() ) {
         // We skip lookup
         // but we need fields for update
@@ -300,6 +310,10 @@ public class Update extends BaseTransform<UpdateMeta, UpdateData> implements ITr
       prepareUpdate( getInputRowMeta() );
     }
 
+    if ( meta.isSetBased() ) {
+      return stageRow( r );
+    }
+
     try {
       Object[] outputRow = lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
       if ( outputRow != null ) {
@@ -331,6 +345,133 @@ public class Update extends BaseTransform<UpdateMeta, UpdateData> implements ITr
     return true;
   }
 
+  /**
+   * Set up the staging table for set based updates: the key columns first, then the columns to update. Only key columns
+   * compared with "=" can be matched in a join.
+   */
+  private void prepareStagingTable( IRowMeta rowMeta ) throws HopException {
+    if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) {
+      throw new HopTransformException( BaseMessages.getString( PKG, "Update.Exception.SetBasedFlagField", meta
+        .getIgnoreFlagField() ) );
+    }
+    IRowMeta stagingRowMeta = new RowMeta();
+    List<Integer> stagingnrs = new ArrayList<>();
+
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      if ( !"=".equals( meta.getKeyCondition()[ i ] ) ) {
+        throw new HopTransformException( BaseMessages.getString( PKG, "Update.Exception.SetBasedKeyCondition",
+          meta.getKeyLookup()[ i ], meta.getKeyCondition()[ i ] ) );
+      }
+      addStagingColumn( stagingRowMeta, stagingnrs, rowMeta, meta.getKeyLookup()[ i ], meta.getKeyStream()[ i ] );
+    }
+    int nrKeys = stagingRowMeta.size();
+
+    List<String> updateColumns = new ArrayList<>();
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      String column = meta.getUpdateLookup()[ i ];
+      if ( stagingRowMeta.indexOfValue( column ) >= 0 ) {
+        // The key values are the same by definition
+        continue;
+      }
+      addStagingColumn( stagingRowMeta, stagingnrs, rowMeta, column, meta.getUpdateStream()[ i ] );
+      updateColumns.add( column );
+    }
+    data.stagingnrs = ArrayUtils.toPrimitive( stagingnrs.toArray( new Integer[ 0 ] ) );
+
+    String tableName = resolve( meta.getTableName() );
+    String stagingTableName = resolve( meta.getStagingTableName() );
+    if ( Utils.isEmpty( stagingTableName ) ) {
+      // Runs executing at the same time each get their own staging table
+      //
+      stagingTableName = MergeStagingTable.getDefaultStagingTableName( tableName, getLogChannelId() );
+    }
+    data.stagingTable = new MergeStagingTable( data.db, resolve( meta.getSchemaName() ), tableName, stagingTableName,
+      stagingRowMeta, nrKeys, updateColumns.toArray( new String[ 0 ] ), new String[ 0 ] );
+    if ( log.isDetailed() ) {
+      for ( String sql : data.stagingTable.getMergeStatements() ) {
+        logDetailed( "Updating from staging table [" + stagingTableName + "] with [" + sql + "]" );
+      }
+    }
+    data.stagingTable.open();
+
+    int commitSize = meta.getCommitSize( this );
+    data.setSize = commitSize > 0 ? commitSize : MergeStagingTable.DEFAULT_SET_SIZE;
+    data.stagedRows = new ArrayList<>( data.setSize );
+  }
+
+  private void addStagingColumn( IRowMeta stagingRowMeta, List<Integer> stagingnrs, IRowMeta rowMeta, String column,
+                                 String field ) throws HopTransformException {
+    if ( stagingRowMeta.indexOfValue( column ) >= 0 ) {
+      // Don't add twice!
+      return;
+    }
+    int fieldnr = rowMeta.indexOfValue( field );
+    if ( fieldnr < 0 ) {
+      throw new HopTransformException( BaseMessages.getString( PKG, "Update.Exception.FieldRequired", field ) );
+    }
+    IValueMeta stagingValue = rowMeta.getValueMeta( fieldnr ).clone();
+    stagingValue.setName( column );
+    stagingRowMeta.addValueMeta( stagingValue );
+    stagingnrs.add( fieldnr );
+  }
+
+  private boolean stageRow( Object[] row ) throws HopException {
+    Object[] stagingRow = new Object[ data.stagingnrs.length ];
+    for ( int i = 0; i < data.stagingnrs.length; i++ ) {
+      stagingRow[ i ] = row[ data.stagingnrs[ i ] ];
+    }
+    data.stagingTable.addRow( stagingRow );
+    data.stagedRows.add( row );
+
+    if ( data.stagedRows.size() >= data.setSize ) {
+      return mergeStagedRows();
+    }
+    return true;
+  }
+
+  /**
+   * Update the table from the staged set and commit. The input rows of the set are passed on when that worked and go to
+   * the error handling when it didn't.
+   */
+  private boolean mergeStagedRows() throws HopException {
+    if ( data.stagedRows.isEmpty() ) {
+      return true;
+    }
+    try {
+      Result result = data.stagingTable.merge();
+      data.db.commit();
+      setLinesUpdated( getLinesUpdated() + result.getNrLinesUpdated() );
+    } catch ( HopException e ) {
+      if ( !data.db.isAutoCommit() ) {
+        data.db.rollback();
+      }
+      if ( !getTransformMeta().isDoingErrorHandling() ) {
+        logError( BaseMessages.getString( PKG, "Update.Log.ErrorInTransform" ), e );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+      for ( Object[] row : data.stagedRows ) {
+        putError( getInputRowMeta(), row, 1, e.toString(), null, "UPD001" );
+      }
+      data.stagedRows.clear();
+      return true;
+    }
+
+    for ( Object[] row : data.stagedRows ) {
+      putRow( data.outputRowMeta, row );
+    }
+    data.stagedRows.clear();
+
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "Update.Log.LineNumber" ) + getLinesRead() );
+      }
+    }
+    return true;
+  }
+
   public void setLookup( IRowMeta rowMeta ) throws HopDatabaseException {
     data.lookupParameterRowMeta = new RowMeta();
     data.lookupReturnRowMeta = new RowMeta();
@@ -469,6 +610,12 @@ public class Update extends BaseTransform<UpdateMeta, UpdateData> implements ITr
         logError( BaseMessages.getString( PKG, "Update.Init.ConnectionMissing", getTransformName() ) );
         return false;
       }
+      // A set-based update can't tell which rows had no matching table row, so it only runs when those rows may be ignored
+      //
+      if ( meta.isSetBased() && !meta.isErrorIgnored() ) {
+        logError( BaseMessages.getString( PKG, "Update.Init.SetBasedLookupFailure", getTransformName() ) );
+        return false;
+      }
       data.db = new Database( this, this, meta.getDatabaseMeta() );
       try {
         data.db.connect( getPartitionId() );
@@ -502,6 +649,9 @@ public class Update extends BaseTransform<UpdateMeta, UpdateData> implements ITr
         }
         data.db.closePreparedStatement( data.prepStatementUpdate );
         data.db.closePreparedStatement( data.prepStatementLookup );
+        if ( data.stagingTable != null ) {
+          data.stagingTable.close();
+        }
       } catch ( HopDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "Update.Log.UnableToCommitUpdateConnection" )
           + data.db + "] :" + e.toString() );
@@ -18,11 +18,13 @@
 package org.apache.hop.pipeline.transforms.update;
 
 import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.MergeStagingTable;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 
 /**
  * @author Matt
@@ -50,6 +52,11 @@ public class UpdateData extends BaseTransformData implements ITransformData {
   public IRowMeta lookupReturnRowMeta;
   public IRowMeta updateParameterRowMeta;
 
+  public MergeStagingTable stagingTable; // set based updates only
+  public int[] stagingnrs; // Stream value nrs of the staging table columns
+  public List<Object[]> stagedRows; // Input rows of the set being staged
+  public int setSize;
+
   public UpdateData() {
     super();
 
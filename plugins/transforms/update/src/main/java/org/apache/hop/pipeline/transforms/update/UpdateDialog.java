@@ -69,6 +69,10 @@ public class UpdateDialog extends BaseTransformDialog implements ITransformDialo
 
   private Button wBatch;
 
+  private Button wSetBased;
+
+  private TextVar wStagingTable;
+
   private Label wlErrorIgnored;
   private Button wErrorIgnored;
 
@@ -245,13 +249,58 @@ public class UpdateDialog extends BaseTransformDialog implements ITransformDialo
       }
     } );
 
+    // Set based update
+    Label wlSetBased = new Label( shell, SWT.RIGHT );
+    wlSetBased.setText( BaseMessages.getString( PKG, "UpdateDialog.SetBased.Label" ) );
+    wlSetBased.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.SetBased.Tooltip" ) );
+    props.setLook( wlSetBased );
+    FormData fdlSetBased = new FormData();
+    fdlSetBased.left = new FormAttachment( 0, 0 );
+    fdlSetBased.top = new FormAttachment( wBatch, margin );
+    fdlSetBased.right = new FormAttachment( middle, -margin );
+    wlSetBased.setLayoutData( fdlSetBased );
+    wSetBased = new Button( shell, SWT.CHECK );
+    wSetBased.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.SetBased.Tooltip" ) );
+    props.setLook( wSetBased );
+    FormData fdSetBased = new FormData();
+    fdSetBased.left = new FormAttachment( middle, 0 );
+    fdSetBased.top = new FormAttachment( wlSetBased, 0, SWT.CENTER );
+    fdSetBased.right = new FormAttachment( 100, 0 );
+    wSetBased.setLayoutData( fdSetBased );
+    wSetBased.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+        setActiveIgnoreLookup();
+      }
+    } );
+
+    // Staging table
+    Label wlStagingTable = new Label( shell, SWT.RIGHT );
+    wlStagingTable.setText( BaseMessages.getString( PKG, "UpdateDialog.StagingTable.Label" ) );
+    wlStagingTable.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.StagingTable.Tooltip" ) );
+    props.setLook( wlStagingTable );
+    FormData fdlStagingTable = new FormData();
+    fdlStagingTable.left = new FormAttachment( 0, 0 );
+    fdlStagingTable.top = new FormAttachment( wSetBased, margin );
+    fdlStagingTable.right = new FormAttachment( middle, -margin );
+    wlStagingTable.setLayoutData( fdlStagingTable );
+    wStagingTable = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wStagingTable.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.StagingTable.Tooltip" ) );
+    props.setLook( wStagingTable );
+    wStagingTable.addModifyListener( lsMod );
+    FormData fdStagingTable = new FormData();
+    fdStagingTable.left = new FormAttachment( middle, 0 );
+    fdStagingTable.top = new FormAttachment( wSetBased, margin );
+    fdStagingTable.right = new FormAttachment( 100, 0 );
+    wStagingTable.setLayoutData( fdStagingTable );
+
     // UsePart update
     Label wlSkipLookup = new Label(shell, SWT.RIGHT);
     wlSkipLookup.setText( BaseMessages.getString( PKG, "UpdateDialog.SkipLookup.Label" ) );
     props.setLook(wlSkipLookup);
     FormData fdlSkipLookup = new FormData();
     fdlSkipLookup.left = new FormAttachment( 0, 0 );
-    fdlSkipLookup.top = new FormAttachment( wBatch, margin );
+    fdlSkipLookup.top = new FormAttachment( wStagingTable, margin );
     fdlSkipLookup.right = new FormAttachment( middle, -margin );
     wlSkipLookup.setLayoutData(fdlSkipLookup);
     wSkipLookup = new Button( shell, SWT.CHECK );
@@ -453,6 +502,7 @@ public class UpdateDialog extends BaseTransformDialog implements ITransformDialo
     wSchema.addSelectionListener( lsDef );
     wTable.addSelectionListener( lsDef );
     wCommit.addSelectionListener( lsDef );
+    wStagingTable.addSelectionListener( lsDef );
     wIgnoreFlagField.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
@@ -489,14 +539,18 @@ public class UpdateDialog extends BaseTransformDialog implements ITransformDialo
   }
 
   public void setActiveIgnoreLookup() {
-    if ( wSkipLookup.getSelection() ) {
+    // Set based updates don't look up the rows either
+    boolean noLookup = wSkipLookup.getSelection() || wSetBased.getSelection();
+    if ( noLookup ) {
       wErrorIgnored.setSelection( false );
       wIgnoreFlagField.setText( "" );
     }
-    wErrorIgnored.setEnabled( !wSkipLookup.getSelection() );
-    wlErrorIgnored.setEnabled( !wSkipLookup.getSelection() );
-    wlIgnoreFlagField.setEnabled( !wSkipLookup.getSelection() && wErrorIgnored.getSelection() );
-    wIgnoreFlagField.setEnabled( !wSkipLookup.getSelection() && wErrorIgnored.getSelection() );
+    wErrorIgnored.setEnabled( !noLookup );
+    wlErrorIgnored.setEnabled( !noLookup );
+    wlIgnoreFlagField.setEnabled( !noLookup && wErrorIgnored.getSelection() );
+    wIgnoreFlagField.setEnabled( !noLookup && wErrorIgnored.getSelection() );
+    wSkipLookup.setEnabled( !wSetBased.getSelection() );
+    wStagingTable.setEnabled( wSetBased.getSelection() );
 
   }
 
@@ -600,6 +654,8 @@ public class UpdateDialog extends BaseTransformDialog implements ITransformDialo
     wCommit.setText( input.getCommitSizeVar() );
     wBatch.setSelection( input.useBatchUpdate() );
     wSkipLookup.setSelection( input.isSkipLookup() );
+    wSetBased.setSelection( input.isSetBased() );
+    wStagingTable.setText( Const.NVL( input.getStagingTableName(), "" ) );
     wErrorIgnored.setSelection( input.isErrorIgnored() );
     if ( input.getIgnoreFlagField() != null ) {
       wIgnoreFlagField.setText( input.getIgnoreFlagField() );
@@ -672,6 +728,8 @@ public class UpdateDialog extends BaseTransformDialog implements ITransformDialo
     inf.setCommitSize( wCommit.getText() );
     inf.setUseBatchUpdate( wBatch.getSelection() );
     inf.setSkipLookup( wSkipLookup.getSelection() );
+    inf.setSetBased( wSetBased.getSelection() );
+    inf.setStagingTableName( wStagingTable.getText() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "UpdateDialog.Log.FoundKeys", nrkeys + "" ) );
@@ -126,6 +126,14 @@ public class UpdateMeta extends BaseTransformMeta implements ITransformMeta<Upda
   @Injection(name = "BATCH_UPDATE")
   private boolean useBatchUpdate;
 
+  /** Update the rows in sets through a staging table instead of one by one */
+  @Injection(name = "SET_BASED")
+  private boolean setBased;
+
+  /** The staging table for set based updates, a table of its own for every run if empty */
+  @Injection(name = "STAGING_TABLE")
+  private String stagingTableName;
+
   @Injection(name = "CONNECTIONNAME")
   public void setConnection(String connectionName) {
     try {
@@ -341,6 +349,8 @@ public class UpdateMeta extends BaseTransformMeta implements ITransformMeta<Upda
       commitSize = (csize == null) ? "0" : csize;
       useBatchUpdate = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "use_batch"));
       skipLookup = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "skip_lookup"));
+      setBased = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "set_based"));
+      stagingTableName = XmlHandler.getTagValue(transformNode, "staging_table");
       errorIgnored = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "error_ignored"));
       ignoreFlagField = XmlHandler.getTagValue(transformNode, "ignore_flag_field");
       schemaName = XmlHandler.getTagValue(transformNode, "lookup", "schema");
@@ -386,6 +396,8 @@ public class UpdateMeta extends BaseTransformMeta implements ITransformMeta<Upda
     updateLookup = null;
     databaseMeta = null;
     commitSize = "100";
+    setBased = false;
+    stagingTableName = "";
     schemaName = "";
     tableName = BaseMessages.getString(PKG, "UpdateMeta.DefaultTableName");
 
@@ -418,6 +430,8 @@ public class UpdateMeta extends BaseTransformMeta implements ITransformMeta<Upda
     retval.append("    " + XmlHandler.addTagValue("skip_lookup", skipLookup));
     retval.append("    " + XmlHandler.addTagValue("commit", commitSize));
     retval.append("    " + XmlHandler.addTagValue("use_batch", useBatchUpdate));
+    retval.append("    " + XmlHandler.addTagValue("set_based", setBased));
+    retval.append("    " + XmlHandler.addTagValue("staging_table", stagingTableName));
     retval.append("    " + XmlHandler.addTagValue("error_ignored", errorIgnored));
     retval.append("    " + XmlHandler.addTagValue("ignore_flag_field", ignoreFlagField));
     retval.append("    <lookup>" + Const.CR);
@@ -866,6 +880,26 @@ public class UpdateMeta extends BaseTransformMeta implements ITransformMeta<Upda
     this.useBatchUpdate = useBatchUpdate;
   }
 
+  /** @return true if the rows are updated in sets through a staging table */
+  public boolean isSetBased() {
+    return setBased;
+  }
+
+  /** @param setBased true to update the rows in sets through a staging table */
+  public void setSetBased(boolean setBased) {
+    this.setBased = setBased;
+  }
+
+  /** @return The staging table for set based updates, empty for the default */
+  public String getStagingTableName() {
+    return stagingTableName;
+  }
+
+  /** @param stagingTableName The staging table for set based updates, empty for the default */
+  public void setStagingTableName(String stagingTableName) {
+    this.stagingTableName = stagingTableName;
+  }
+
   /**
    * If we use injection we can have different arrays lengths. We need synchronize them for
    * consistency behavior with UI
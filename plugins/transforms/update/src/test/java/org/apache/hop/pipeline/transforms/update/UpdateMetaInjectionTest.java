@@ -37,6 +37,8 @@ public class UpdateMetaInjectionTest extends BaseMetadataInjectionTest<UpdateMet
     check( "TABLE_NAME", () -> meta.getTableName() );
     check( "COMMIT_SIZE", () -> meta.getCommitSizeVar() );
     check( "BATCH_UPDATE", () -> meta.useBatchUpdate() );
+    check( "SET_BASED", () -> meta.isSetBased() );
+    check( "STAGING_TABLE", () -> meta.getStagingTableName() );
     check( "SKIP_LOOKUP", () -> meta.isSkipLookup() );
     check( "IGNORE_LOOKUP_FAILURE", () -> meta.isErrorIgnored() );
     check( "FLAG_FIELD", () -> meta.getIgnoreFlagField() );
@@ -91,7 +91,7 @@ public class UpdateMetaTest implements IInitializer<ITransformMeta> {
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "commitSize", "errorIgnored", "ignoreFlagField",
         "skipLookup", "useBatchUpdate", "keyStream", "keyLookup", "keyCondition", "keyStream2",
-        "updateLookup", "updateStream", "databaseMeta" );
+        "updateLookup", "updateStream", "databaseMeta", "setBased", "stagingTableName" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -109,6 +109,8 @@ public class UpdateMetaTest implements IInitializer<ITransformMeta> {
         put( "updateLookup", "getUpdateLookup" );
         put( "updateStream", "getUpdateStream" );
         put( "databaseMeta", "getDatabaseMeta" );
+        put( "setBased", "isSetBased" );
+        put( "stagingTableName", "getStagingTableName" );
       }
     };
     Map<String, String> setterMap = new HashMap<String, String>() {
@@ -127,6 +129,8 @@ public class UpdateMetaTest implements IInitializer<ITransformMeta> {
         put( "updateLookup", "setUpdateLookup" );
         put( "updateStream", "setUpdateStream" );
         put( "databaseMeta", "setDatabaseMeta" );
+        put( "setBased", "setSetBased" );
+        put( "stagingTableName", "setStagingTableName" );
       }
     };
     IFieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
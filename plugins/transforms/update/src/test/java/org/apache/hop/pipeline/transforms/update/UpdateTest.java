@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.update;
+
+import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UpdateTest {
+  private TransformMockHelper<UpdateMeta, UpdateData> smh;
+
+  @Before
+  public void setUp() {
+    smh = new TransformMockHelper<>( "Update", UpdateMeta.class, UpdateData.class );
+    when( smh.logChannelFactory.create( any(), any( ILoggingObject.class ) ) ).thenReturn(
+      smh.iLogChannel );
+    when( smh.pipeline.isRunning() ).thenReturn( true );
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  /**
+   * Rows without a matching table row would be lost silently when updating in sets, so that needs ignored lookup
+   * failures.
+   */
+  @Test
+  public void testSetBasedRequiresIgnoredLookupFailures() {
+    when( smh.iTransformMeta.getDatabaseMeta() ).thenReturn( mock( DatabaseMeta.class ) );
+    when( smh.iTransformMeta.isSetBased() ).thenReturn( true );
+    when( smh.iTransformMeta.isErrorIgnored() ).thenReturn( false );
+
+    Update transform =
+      new Update( smh.transformMeta, smh.iTransformMeta, smh.iTransformData, 0, smh.pipelineMeta, smh.pipeline );
+    assertFalse( transform.init() );
+    assertNull( smh.iTransformData.db );
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.hop.vfs.s3.s3.vfs;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -113,7 +114,14 @@ public class S3FileObject extends S3CommonFileObject {
         this.fileSystem,
         newPath.getValue(),
         newPath.getKey(),
-        ((S3FileSystem) this.fileSystem).getPartSize());
+        this.fileSystem.getPartSize(),
+        this.fileSystem.getUploadThreads());
+  }
+
+  @Override
+  protected GetObjectRequest createGetObjectRequest(String bucketName, String key) {
+    SimpleEntry<String, String> newPath = fixFilePath(key, bucketName);
+    return new GetObjectRequest(newPath.getValue(), newPath.getKey());
   }
 
   @Override
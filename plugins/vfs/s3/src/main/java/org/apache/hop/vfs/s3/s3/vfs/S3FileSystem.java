@@ -21,6 +21,7 @@ import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.hop.core.Const;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.LogChannel;
 import org.apache.hop.core.util.StorageUnitConverter;
@@ -68,11 +69,23 @@ public class S3FileSystem extends S3CommonFileSystem {
     return new S3FileObject(name, this);
   }
 
+  @Override
   public int getPartSize() {
     long parsedPartSize = parsePartSize(s3HopProperty.getPartSize());
     return convertToInt(parsedPartSize);
   }
 
+  @Override
+  public int getUploadThreads() {
+    return Math.max(1, Const.toInt(s3HopProperty.getUploadThreads(), super.getUploadThreads()));
+  }
+
+  @Override
+  public int getDownloadThreads() {
+    return Math.max(
+        1, Const.toInt(s3HopProperty.getDownloadThreads(), super.getDownloadThreads()));
+  }
+
   public long parsePartSize(String partSizeString) {
     long parsePartSize = convertToLong(partSizeString);
     if (parsePartSize < convertToLong(MIN_PART_SIZE)) {
@@ -20,6 +20,7 @@ package org.apache.hop.vfs.s3.s3common;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -69,6 +70,21 @@ public abstract class S3CommonFileObject extends AbstractFileObject {
   protected InputStream doGetInputStream() throws Exception {
     logger.debug("Accessing content {}", getQualifiedName());
     closeS3Object();
+
+    // Read larger objects in parts, with parallel ranged requests
+    int partSize = fileSystem.getPartSize();
+    int threads = fileSystem.getDownloadThreads();
+    long length = s3ObjectMetadata == null ? -1L : s3ObjectMetadata.getContentLength();
+    if (threads > 1 && length > 2L * partSize) {
+      GetObjectRequest request = createGetObjectRequest(bucketName, key);
+      if (s3ObjectMetadata.getETag() != null) {
+        // Fail instead of mixing the parts of two versions if the object is replaced while reading
+        request.withMatchingETagConstraint(s3ObjectMetadata.getETag());
+      }
+      return new S3CommonRangedInputStream(
+          fileSystem.getS3Client(), request, length, partSize, threads);
+    }
+
     S3Object streamS3Object = getS3Object();
     return new S3CommonFileInputStream(streamS3Object.getObjectContent(), streamS3Object);
   }
@@ -306,7 +322,12 @@ public abstract class S3CommonFileObject extends AbstractFileObject {
 
   @Override
   protected OutputStream doGetOutputStream(boolean bAppend) throws Exception {
-    return new S3CommonPipedOutputStream(this.fileSystem, bucketName, key);
+    return new S3CommonPipedOutputStream(
+        this.fileSystem,
+        bucketName,
+        key,
+        this.fileSystem.getPartSize(),
+        this.fileSystem.getUploadThreads());
   }
 
   @Override
@@ -370,6 +391,10 @@ public abstract class S3CommonFileObject extends AbstractFileObject {
     delete();
   }
 
+  protected GetObjectRequest createGetObjectRequest(String bucketName, String key) {
+    return new GetObjectRequest(bucketName, key);
+  }
+
   protected CopyObjectRequest createCopyObjectRequest(
       String sourceBucket, String sourceKey, String destBucket, String destKey) {
     return new CopyObjectRequest(sourceBucket, sourceKey, destBucket, destKey);
@@ -49,6 +49,9 @@ public abstract class S3CommonFileSystem extends AbstractFileSystem {
 
   private static final Logger logger = LoggerFactory.getLogger(S3CommonFileSystem.class);
 
+  /** The default number of parts of an object which are downloaded at the same time */
+  public static final int DEFAULT_DOWNLOAD_THREADS = 4;
+
   protected S3CommonFileSystem(final FileName rootName, final FileSystemOptions fileSystemOptions) {
     super(rootName, null, fileSystemOptions);
   }
@@ -60,6 +63,24 @@ public abstract class S3CommonFileSystem extends AbstractFileSystem {
 
   protected abstract FileObject createFile(AbstractFileName name) throws Exception;
 
+  /** @return the size of the parts of multipart uploads and ranged downloads */
+  public int getPartSize() {
+    return S3CommonPipedOutputStream.DEFAULT_PART_SIZE;
+  }
+
+  /** @return the number of parts of a multipart upload which are uploaded at the same time */
+  public int getUploadThreads() {
+    return S3CommonPipedOutputStream.DEFAULT_UPLOAD_THREADS;
+  }
+
+  /**
+   * @return the number of parts of an object which are downloaded at the same time, 1 reads the
+   *     object with a single request
+   */
+  public int getDownloadThreads() {
+    return DEFAULT_DOWNLOAD_THREADS;
+  }
+
   public AmazonS3 getS3Client() {
     if (client == null && getFileSystemOptions() != null) {
       S3CommonFileSystemConfigBuilder s3CommonFileSystemConfigBuilder =
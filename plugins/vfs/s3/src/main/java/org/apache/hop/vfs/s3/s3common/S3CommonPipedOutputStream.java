@@ -20,7 +20,6 @@ package org.apache.hop.vfs.s3.s3common;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
-import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 import org.apache.hop.core.logging.ILogChannel;
@@ -30,19 +29,26 @@ import org.apache.hop.i18n.BaseMessages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PipedInputStream;
+import java.io.InterruptedIOException;
 import java.io.PipedOutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-/** Custom OutputStream that enables chunked uploads into S3 */
+/**
+ * Custom OutputStream that enables chunked uploads into S3.
+ *
+ * <p>The written data is collected in parts which are uploaded by a pool of threads while the
+ * next part is being filled. There are at most (threads + 1) part buffers, the writer waits for a
+ * buffer to become free when all of them are in use.
+ */
 public class S3CommonPipedOutputStream extends PipedOutputStream {
 
   private static final Class<?> PKG = S3CommonPipedOutputStream.class; // For Translator
@@ -51,20 +57,36 @@ public class S3CommonPipedOutputStream extends PipedOutputStream {
       new LogChannel(BaseMessages.getString(PKG, "TITLE.S3File"));
 
   /** set to aws multipart minimum 5MB. */
-  private static final int DEFAULT_PART_SIZE = 5 * 1024 * 1024;
+  static final int DEFAULT_PART_SIZE = 5 * 1024 * 1024;
 
-  private ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+  /** The default number of parts which are uploaded at the same time */
+  static final int DEFAULT_UPLOAD_THREADS = 4;
+
+  private final ExecutorService executor;
   private boolean initialized = false;
+  private boolean closed = false;
   private boolean blockedUntilDone = true;
-  private PipedInputStream pipedInputStream;
-  private S3AsyncTransferRunner s3AsyncTransferRunner;
   private S3CommonFileSystem fileSystem;
-  private Future<Boolean> result = null;
   private String bucketId;
   private String key;
   /** AWS Multipart part size. */
   private int partSize;
 
+  private int threads;
+
+  /** The part buffers which are no longer used by an upload */
+  private final BlockingQueue<byte[]> freeBuffers;
+
+  private int allocatedBuffers;
+  private byte[] part;
+  private int partLength;
+
+  private String uploadId;
+  private int partNum = 1;
+  private long offset = 0;
+  private final List<Future<PartETag>> partETags = new ArrayList<>();
+  private volatile Exception uploadFailure;
+
   public S3CommonPipedOutputStream(S3CommonFileSystem fileSystem, String bucketId, String key)
       throws IOException {
     this(fileSystem, bucketId, key, DEFAULT_PART_SIZE);
@@ -72,26 +94,36 @@ public class S3CommonPipedOutputStream extends PipedOutputStream {
 
   public S3CommonPipedOutputStream(
       S3CommonFileSystem fileSystem, String bucketId, String key, int partSize) throws IOException {
-    this.pipedInputStream = new PipedInputStream();
-
-    try {
-      this.pipedInputStream.connect(this);
-    } catch (IOException e) {
-      // FATAL, unexpected
-      throw new IOException("could not connect to pipedInputStream", e);
-    }
+    this(fileSystem, bucketId, key, partSize, DEFAULT_UPLOAD_THREADS);
+  }
 
-    this.s3AsyncTransferRunner = new S3AsyncTransferRunner();
+  public S3CommonPipedOutputStream(
+      S3CommonFileSystem fileSystem, String bucketId, String key, int partSize, int threads)
+      throws IOException {
     this.bucketId = bucketId;
     this.key = key;
     this.fileSystem = fileSystem;
     this.partSize = partSize;
+    this.threads = Math.max(1, threads);
+    this.freeBuffers = new ArrayBlockingQueue<>(this.threads + 1);
+    this.executor =
+        Executors.newFixedThreadPool(
+            this.threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "S3 upload " + key);
+              thread.setDaemon(true);
+              return thread;
+            });
   }
 
-  private void initializeWrite() {
+  private void initializeWrite() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
     if (!initialized) {
       initialized = true;
-      result = this.executor.submit(s3AsyncTransferRunner);
+      logger.info(BaseMessages.getString(PKG, "INFO.S3MultiPart.Start"));
+      part = nextBuffer();
     }
   }
 
@@ -106,115 +138,70 @@ public class S3CommonPipedOutputStream extends PipedOutputStream {
   @Override
   public void write(int b) throws IOException {
     initializeWrite();
-    super.write(b);
+    part[partLength++] = (byte) b;
+    if (partLength == partSize) {
+      uploadPart(false);
+    }
   }
 
   @Override
   public void write(byte[] b, int off, int len) throws IOException {
     initializeWrite();
-    super.write(b, off, len);
+    while (len > 0) {
+      int count = Math.min(len, partSize - partLength);
+      System.arraycopy(b, off, part, partLength, count);
+      partLength += count;
+      off += count;
+      len -= count;
+      if (partLength == partSize) {
+        uploadPart(false);
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    // Parts are only uploaded when they are full
   }
 
   @Override
   public void close() throws IOException {
+    if (closed) {
+      return;
+    }
     super.close();
-
-    if (initialized && isBlockedUntilDone()) {
-      while (!result.isDone()) {
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException e) {
-          logger.error(BaseMessages.getString(PKG, "ERROR.S3MultiPart.ExceptionCaught"), e);
-          Thread.currentThread().interrupt();
+    try {
+      if (initialized) {
+        // The last part can be smaller, it's only empty if nothing else was written
+        if (partLength > 0 || partETags.isEmpty()) {
+          uploadPart(true);
+        }
+        closed = true;
+        if (isBlockedUntilDone()) {
+          if (!complete()) {
+            throw new IOException(
+                BaseMessages.getString(PKG, "ERROR.S3MultiPart.Failed", bucketId, key),
+                uploadFailure);
+          }
+        } else {
+          executor.submit(this::complete);
         }
       }
+    } finally {
+      closed = true;
+      this.executor.shutdown();
     }
-    this.executor.shutdown();
   }
 
-  class S3AsyncTransferRunner implements Callable<Boolean> {
-
-    public Boolean call() throws Exception {
-      boolean returnVal = true;
-      List<PartETag> partETags = new ArrayList<>();
-
-      // Transform 1: Initialize
-      InitiateMultipartUploadRequest initRequest;
-      initRequest = new InitiateMultipartUploadRequest(bucketId, key);
-
-      InitiateMultipartUploadResult initResponse = null;
-
-      // NOTE: byte[] max size is ~2GB < 5GB = aws api max part size
-      try (ByteArrayOutputStream baos = new ByteArrayOutputStream(partSize);
-          BufferedInputStream bis = new BufferedInputStream(pipedInputStream, partSize)) {
-        initResponse = fileSystem.getS3Client().initiateMultipartUpload(initRequest);
-        // Transform 2: Upload parts.
-        byte[] tmpBuffer = new byte[partSize];
-        int read = 0;
-        long offset = 0;
-        long totalRead = 0;
-        int partNum = 1;
-
-        S3CommonWindowedSubstream s3is;
-        logger.info(BaseMessages.getString(PKG, "INFO.S3MultiPart.Start"));
-        while ((read = bis.read(tmpBuffer)) >= 0) {
-
-          // if something was actually read
-          if (read > 0) {
-            baos.write(tmpBuffer, 0, read);
-            totalRead += read;
-          }
-
-          if (totalRead > partSize) {
-            s3is = new S3CommonWindowedSubstream(baos.toByteArray());
-
-            UploadPartRequest uploadRequest =
-                new UploadPartRequest()
-                    .withBucketName(bucketId)
-                    .withKey(key)
-                    .withUploadId(initResponse.getUploadId())
-                    .withPartNumber(partNum++)
-                    .withFileOffset(offset)
-                    .withPartSize(totalRead)
-                    .withInputStream(s3is);
-
-            // Upload part and add response to our list.
-            logger.info(
-                BaseMessages.getString(
-                    PKG, "INFO.S3MultiPart.Upload", partNum - 1, offset, Long.toString(totalRead)));
-            partETags.add(fileSystem.getS3Client().uploadPart(uploadRequest).getPartETag());
-
-            offset += totalRead;
-            totalRead = 0; // reset part size counter
-            baos.reset(); // reset output stream to 0
-          }
-        }
-
-        // Transform 2.1 upload last part
-        s3is = new S3CommonWindowedSubstream(baos.toByteArray());
-
-        UploadPartRequest uploadRequest =
-            new UploadPartRequest()
-                .withBucketName(bucketId)
-                .withKey(key)
-                .withUploadId(initResponse.getUploadId())
-                .withPartNumber(partNum++)
-                .withFileOffset(offset)
-                .withPartSize(totalRead)
-                .withInputStream(s3is)
-                .withLastPart(true);
-
-        logger.info(
-            BaseMessages.getString(PKG, "INFO.S3MultiPart.Upload", partNum - 1, offset, totalRead));
-        partETags.add(fileSystem.getS3Client().uploadPart(uploadRequest).getPartETag());
-
-        // Transform 3: Complete.
-        logger.info(BaseMessages.getString(PKG, "INFO.S3MultiPart.Complete"));
-        CompleteMultipartUploadRequest compRequest =
-            new CompleteMultipartUploadRequest(
-                bucketId, key, initResponse.getUploadId(), partETags);
-
-        fileSystem.getS3Client().completeMultipartUpload(compRequest);
+  /** Get a buffer for the next part, waits for an upload to finish if all buffers are in use */
+  private byte[] nextBuffer() throws IOException {
+    byte[] buffer = freeBuffers.poll();
+    if (buffer != null) {
+      return buffer;
+    }
+    if (allocatedBuffers < threads + 1) {
+      try {
+        buffer = new byte[partSize];
       } catch (OutOfMemoryError oome) {
         consoleLog.logError(
             BaseMessages.getString(
@@ -222,22 +209,131 @@ public class S3CommonPipedOutputStream extends PipedOutputStream {
                 "ERROR.S3MultiPart.UploadOutOfMemory",
                 new StorageUnitConverter().byteCountToDisplaySize(partSize)),
             oome);
-        returnVal = false;
+        throw new IOException(oome);
+      }
+      allocatedBuffers++;
+      return buffer;
+    }
+    try {
+      while (buffer == null) {
+        checkUploadFailure();
+        buffer = freeBuffers.poll(1, TimeUnit.SECONDS);
+      }
+      return buffer;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  private void checkUploadFailure() throws IOException {
+    Exception failure = uploadFailure;
+    if (failure != null) {
+      abort();
+      throw new IOException(
+          BaseMessages.getString(PKG, "ERROR.S3MultiPart.Failed", bucketId, key), failure);
+    }
+  }
+
+  /** Hand the current part to the upload threads and continue with an empty one */
+  private void uploadPart(boolean lastPart) throws IOException {
+    checkUploadFailure();
+    if (uploadId == null) {
+      try {
+        uploadId =
+            fileSystem
+                .getS3Client()
+                .initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketId, key))
+                .getUploadId();
       } catch (Exception e) {
         logger.error(BaseMessages.getString(PKG, "ERROR.S3MultiPart.ExceptionCaught"), e);
-        if (initResponse == null) {
-          close();
-        } else {
-          fileSystem
-              .getS3Client()
-              .abortMultipartUpload(
-                  new AbortMultipartUploadRequest(bucketId, key, initResponse.getUploadId()));
-          logger.error(BaseMessages.getString(PKG, "ERROR.S3MultiPart.Aborted"));
-        }
-        returnVal = false;
+        throw new IOException(
+            BaseMessages.getString(PKG, "ERROR.S3MultiPart.Failed", bucketId, key), e);
+      }
+    }
+
+    final String id = uploadId;
+    final byte[] data = part;
+    final int length = partLength;
+    final int number = partNum++;
+    final long partOffset = offset;
+    offset += length;
+
+    partETags.add(
+        executor.submit(
+            () -> {
+              try {
+                UploadPartRequest uploadRequest =
+                    new UploadPartRequest()
+                        .withBucketName(bucketId)
+                        .withKey(key)
+                        .withUploadId(id)
+                        .withPartNumber(number)
+                        .withFileOffset(partOffset)
+                        .withPartSize(length)
+                        .withInputStream(new S3CommonWindowedSubstream(data, 0, length))
+                        .withLastPart(lastPart);
+
+                logger.info(
+                    BaseMessages.getString(
+                        PKG, "INFO.S3MultiPart.Upload", number, partOffset, Long.toString(length)));
+                return fileSystem.getS3Client().uploadPart(uploadRequest).getPartETag();
+              } catch (Exception e) {
+                uploadFailure = e;
+                throw e;
+              } finally {
+                freeBuffers.offer(data);
+              }
+            }));
+
+    partLength = 0;
+    part = lastPart ? null : nextBuffer();
+  }
+
+  /**
+   * Wait for all parts and complete the upload, or abort it if a part failed.
+   *
+   * @return true if the upload completed
+   */
+  private boolean complete() {
+    try {
+      List<PartETag> tags = new ArrayList<>(partETags.size());
+      for (Future<PartETag> partETag : partETags) {
+        tags.add(partETag.get());
       }
+      logger.info(BaseMessages.getString(PKG, "INFO.S3MultiPart.Complete"));
+      fileSystem
+          .getS3Client()
+          .completeMultipartUpload(
+              new CompleteMultipartUploadRequest(bucketId, key, uploadId, tags));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      uploadFailure = e;
+    } catch (ExecutionException e) {
+      uploadFailure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    } catch (Exception e) {
+      uploadFailure = e;
+    }
+    logger.error(BaseMessages.getString(PKG, "ERROR.S3MultiPart.ExceptionCaught"), uploadFailure);
+    abort();
+    return false;
+  }
 
-      return returnVal;
+  private void abort() {
+    for (Future<PartETag> partETag : partETags) {
+      partETag.cancel(true);
+    }
+    if (uploadId != null) {
+      try {
+        fileSystem
+            .getS3Client()
+            .abortMultipartUpload(new AbortMultipartUploadRequest(bucketId, key, uploadId));
+        logger.error(BaseMessages.getString(PKG, "ERROR.S3MultiPart.Aborted"));
+      } catch (Exception e) {
+        logger.error(BaseMessages.getString(PKG, "ERROR.S3MultiPart.ExceptionCaught"), e);
+      }
+      uploadId = null;
     }
   }
 }
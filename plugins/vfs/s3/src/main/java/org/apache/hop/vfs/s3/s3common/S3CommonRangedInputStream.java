@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.vfs.s3.s3common;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.apache.hop.i18n.BaseMessages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * InputStream that reads an S3 object in parts with ranged GET requests. The next parts are
+ * downloaded in parallel while the current part is consumed, and handed out in order. At most one
+ * part per download thread is prefetched, so memory stays bounded at (threads + 1) parts.
+ */
+public class S3CommonRangedInputStream extends InputStream {
+
+  private static final Class<?> PKG = S3CommonRangedInputStream.class; // For Translator
+  private static final Logger logger = LoggerFactory.getLogger(S3CommonRangedInputStream.class);
+
+  /** The number of times the download of a single part is tried */
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final AmazonS3 client;
+  private final GetObjectRequest request;
+  private final long length;
+  private final int partSize;
+  private final int threads;
+  private final ExecutorService executor;
+
+  /** The parts being downloaded, in order */
+  private final Deque<Future<byte[]>> parts = new ArrayDeque<>();
+
+  /** The offset of the next part to download */
+  private long nextOffset;
+
+  /** The offset right after the current part */
+  private long currentEnd;
+
+  private byte[] current;
+  private int position;
+
+  private boolean closed;
+
+  /**
+   * @param client the S3 client
+   * @param request the request for the whole object, the ranges are set per part. Constraints
+   *     like a matching ETag are kept.
+   * @param length the size of the object
+   * @param partSize the size of the parts to download
+   * @param threads the number of parts to download at the same time
+   */
+  public S3CommonRangedInputStream(
+      AmazonS3 client, GetObjectRequest request, long length, int partSize, int threads) {
+    this.client = client;
+    this.request = request;
+    this.length = length;
+    this.partSize = Math.max(1, partSize);
+    this.threads = Math.max(1, threads);
+    this.executor =
+        Executors.newFixedThreadPool(
+            this.threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "S3 download " + request.getKey());
+              thread.setDaemon(true);
+              return thread;
+            });
+    schedule();
+  }
+
+  /** Keep all download threads busy, as long as there are parts left */
+  private void schedule() {
+    while (parts.size() < threads && nextOffset < length) {
+      final long start = nextOffset;
+      final long end = Math.min(length, start + partSize) - 1;
+      parts.add(executor.submit(() -> download(start, end)));
+      nextOffset = end + 1;
+    }
+  }
+
+  private byte[] download(long start, long end) throws IOException {
+    IOException failure = null;
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      if (Thread.currentThread().isInterrupted()) {
+        // The stream was closed or skipped past this part
+        throw new InterruptedIOException();
+      }
+      S3Object s3Object;
+      try {
+        s3Object = client.getObject(createRangeRequest(start, end));
+      } catch (RuntimeException e) {
+        logger.warn(
+            BaseMessages.getString(
+                PKG, "WARN.S3RangedRead.Retry", request.getKey(), start, end, attempt), e);
+        failure = new IOException(e);
+        continue;
+      }
+      if (s3Object == null) {
+        // The ETag constraint failed: the object was replaced while we were reading it
+        throw new IOException(
+            BaseMessages.getString(PKG, "ERROR.S3RangedRead.ObjectChanged", request.getKey()));
+      }
+      try {
+        return readFully(s3Object, start, end);
+      } catch (IOException e) {
+        logger.warn(
+            BaseMessages.getString(
+                PKG, "WARN.S3RangedRead.Retry", request.getKey(), start, end, attempt), e);
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  private GetObjectRequest createRangeRequest(long start, long end) {
+    GetObjectRequest rangeRequest =
+        new GetObjectRequest(request.getBucketName(), request.getKey()).withRange(start, end);
+    rangeRequest.setMatchingETagConstraints(request.getMatchingETagConstraints());
+    return rangeRequest;
+  }
+
+  private byte[] readFully(S3Object s3Object, long start, long end) throws IOException {
+    try (S3ObjectInputStream in = s3Object.getObjectContent()) {
+      byte[] data = new byte[(int) (end - start + 1)];
+      int read = 0;
+      while (read < data.length) {
+        int count = in.read(data, read, data.length - read);
+        if (count < 0) {
+          throw new IOException(
+              BaseMessages.getString(
+                  PKG, "ERROR.S3RangedRead.ShortRead", request.getKey(), start, read, data.length));
+        }
+        read += count;
+      }
+      return data;
+    } finally {
+      s3Object.close();
+    }
+  }
+
+  /** @return false if there are no more parts */
+  private boolean nextPart() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    Future<byte[]> part = parts.poll();
+    if (part == null) {
+      return false;
+    }
+    try {
+      current = part.get();
+      position = 0;
+      currentEnd += current.length;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+    schedule();
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    while (current == null || position == current.length) {
+      if (!nextPart()) {
+        return -1;
+      }
+    }
+    return current[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    int total = 0;
+    while (total < len) {
+      if (current == null || position == current.length) {
+        // Don't wait for the next part if we already have something to return
+        if (total > 0 && (parts.isEmpty() || !parts.peek().isDone())) {
+          break;
+        }
+        if (!nextPart()) {
+          break;
+        }
+        continue;
+      }
+      int count = Math.min(len - total, current.length - position);
+      System.arraycopy(current, position, b, off + total, count);
+      position += count;
+      total += count;
+    }
+    return total == 0 ? -1 : total;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    long remaining = current == null ? 0 : current.length - position;
+    if (n <= remaining) {
+      position += (int) n;
+      return n;
+    }
+
+    // Skip past the current part: drop the downloads we no longer need and start over at the new
+    // offset
+    long offset = currentEnd - remaining;
+    long target = Math.min(length, offset + n);
+    for (Future<byte[]> part : parts) {
+      part.cancel(true);
+    }
+    parts.clear();
+    current = null;
+    position = 0;
+    currentEnd = target;
+    nextOffset = target;
+    schedule();
+    return target - offset;
+  }
+
+  @Override
+  public int available() {
+    return current == null ? 0 : current.length - position;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (Future<byte[]> part : parts) {
+      part.cancel(true);
+    }
+    parts.clear();
+    current = null;
+    executor.shutdownNow();
+  }
+}
@@ -31,6 +31,10 @@ public class S3CommonWindowedSubstream extends ByteArrayInputStream {
     super(buf);
   }
 
+  public S3CommonWindowedSubstream(byte[] buf, int offset, int length) {
+    super(buf, offset, length);
+  }
+
   @Override
   public synchronized long skip(long n) {
     // virtual skip
@@ -25,8 +25,18 @@ public class S3HopProperty {
   // variables
   //
   public static final String S3VFS_PART_SIZE = "HOP_S3_VFS_PART_SIZE";
+  public static final String S3VFS_UPLOAD_THREADS = "HOP_S3_VFS_UPLOAD_THREADS";
+  public static final String S3VFS_DOWNLOAD_THREADS = "HOP_S3_VFS_DOWNLOAD_THREADS";
 
   public String getPartSize() {
     return HopConfig.getInstance().findDescribedVariableValue(S3VFS_PART_SIZE);
   }
+
+  public String getUploadThreads() {
+    return HopConfig.getInstance().findDescribedVariableValue(S3VFS_UPLOAD_THREADS);
+  }
+
+  public String getDownloadThreads() {
+    return HopConfig.getInstance().findDescribedVariableValue(S3VFS_DOWNLOAD_THREADS);
+  }
 }
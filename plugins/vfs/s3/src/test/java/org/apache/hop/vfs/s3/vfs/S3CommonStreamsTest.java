@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.vfs.s3.vfs;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.hop.vfs.s3.s3common.S3CommonFileSystem;
+import org.apache.hop.vfs.s3.s3common.S3CommonPipedOutputStream;
+import org.apache.hop.vfs.s3.s3common.S3CommonRangedInputStream;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Runs the multipart upload and the ranged download against an in-memory stand-in for S3. */
+public class S3CommonStreamsTest {
+
+  private static final int PART_SIZE = 1000;
+
+  private InMemoryS3 s3;
+  private S3CommonFileSystem fileSystem;
+  private byte[] data;
+
+  @Before
+  public void setUp() {
+    s3 = new InMemoryS3();
+    fileSystem = mock(S3CommonFileSystem.class);
+    when(fileSystem.getS3Client()).thenReturn(s3);
+    data = new byte[10 * PART_SIZE + 123];
+    new Random(42).nextBytes(data);
+  }
+
+  @Test
+  public void testParallelUpload() throws Exception {
+    S3CommonPipedOutputStream out =
+        new S3CommonPipedOutputStream(fileSystem, "bucket", "key", PART_SIZE, 3);
+    out.setBlockedUntilDone(true);
+    // Write in odd sized chunks to cross the part boundaries
+    for (int offset = 0; offset < data.length; offset += 77) {
+      out.write(data, offset, Math.min(77, data.length - offset));
+    }
+    out.close();
+
+    assertArrayEquals(data, s3.objects.get("bucket/key"));
+    assertEquals(11, s3.uploadedParts.get());
+    assertTrue(s3.maxConcurrentUploads.get() <= 3);
+  }
+
+  @Test
+  public void testFailedUploadIsAborted() throws Exception {
+    s3.failPart = 4;
+    S3CommonPipedOutputStream out =
+        new S3CommonPipedOutputStream(fileSystem, "bucket", "key", PART_SIZE, 2);
+    out.setBlockedUntilDone(true);
+    try {
+      out.write(data);
+      out.close();
+      fail("the upload should have failed");
+    } catch (IOException e) {
+      // expected
+    }
+    assertFalse(s3.objects.containsKey("bucket/key"));
+    assertTrue(s3.aborted);
+  }
+
+  @Test
+  public void testRangedRead() throws Exception {
+    s3.objects.put("bucket/key", data);
+    try (InputStream in =
+        new S3CommonRangedInputStream(
+            s3, new GetObjectRequest("bucket", "key"), data.length, PART_SIZE, 4)) {
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      byte[] buffer = new byte[333];
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        result.write(buffer, 0, read);
+      }
+      assertArrayEquals(data, result.toByteArray());
+    }
+    assertEquals(11, s3.rangedGets.get());
+  }
+
+  @Test
+  public void testRangedReadSkip() throws Exception {
+    s3.objects.put("bucket/key", data);
+    try (InputStream in =
+        new S3CommonRangedInputStream(
+            s3, new GetObjectRequest("bucket", "key"), data.length, PART_SIZE, 2)) {
+      assertEquals(data[0] & 0xff, in.read());
+      assertEquals(10, in.skip(10));
+      assertEquals(data[11] & 0xff, in.read());
+      assertEquals(5000, in.skip(5000));
+      assertEquals(data[5012] & 0xff, in.read());
+      assertEquals(data.length - 5013, in.skip(Long.MAX_VALUE / 2));
+      assertEquals(-1, in.read());
+    }
+  }
+
+  /** Keeps objects in memory and implements just enough of the S3 API for the streams. */
+  private static class InMemoryS3 extends AbstractAmazonS3 {
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadedParts = new AtomicInteger();
+    private final AtomicInteger concurrentUploads = new AtomicInteger();
+    private final AtomicInteger maxConcurrentUploads = new AtomicInteger();
+    private final AtomicInteger rangedGets = new AtomicInteger();
+    private volatile int failPart = -1;
+    private volatile boolean aborted;
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(
+        InitiateMultipartUploadRequest request) {
+      InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+      result.setUploadId("upload");
+      return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+      int concurrent = concurrentUploads.incrementAndGet();
+      maxConcurrentUploads.accumulateAndGet(concurrent, Math::max);
+      try {
+        if (request.getPartNumber() == failPart) {
+          throw new IllegalStateException("part " + failPart + " failed");
+        }
+        byte[] part = new byte[(int) request.getPartSize()];
+        int read = 0;
+        while (read < part.length) {
+          read += request.getInputStream().read(part, read, part.length - read);
+        }
+        parts.put(request.getPartNumber(), part);
+        uploadedParts.incrementAndGet();
+        Thread.sleep(5);
+
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        return result;
+      } catch (IOException | InterruptedException e) {
+        throw new IllegalStateException(e);
+      } finally {
+        concurrentUploads.decrementAndGet();
+      }
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(
+        CompleteMultipartUploadRequest request) {
+      ByteArrayOutputStream object = new ByteArrayOutputStream();
+      for (PartETag partETag : request.getPartETags()) {
+        byte[] part = parts.get(partETag.getPartNumber());
+        object.write(part, 0, part.length);
+      }
+      objects.put(request.getBucketName() + "/" + request.getKey(), object.toByteArray());
+      return new CompleteMultipartUploadResult();
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+      aborted = true;
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+      byte[] object = objects.get(request.getBucketName() + "/" + request.getKey());
+      long[] range = request.getRange();
+      byte[] content = object;
+      if (range != null) {
+        rangedGets.incrementAndGet();
+        content = Arrays.copyOfRange(object, (int) range[0], (int) range[1] + 1);
+      }
+      S3Object s3Object = new S3Object();
+      s3Object.setObjectContent(new ByteArrayInputStream(content));
+      return s3Object;
+    }
+  }
+}
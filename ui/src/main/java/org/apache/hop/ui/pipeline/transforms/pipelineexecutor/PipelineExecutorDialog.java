@@ -110,6 +110,8 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
   private CCombo wGroupField;
   private Label wlGroupTime;
   private TextVar wGroupTime;
+  private TextVar wPoolSize;
+  private TextVar wMaxConcurrentExecutions;
 
   private Label wlExecutionResultTarget;
   private CCombo wExecutionResultTarget;
@@ -454,6 +456,9 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
     wGroupSize.setText(Const.NVL(pipelineExecutorMeta.getGroupSize(), ""));
     wGroupTime.setText(Const.NVL(pipelineExecutorMeta.getGroupTime(), ""));
     wGroupField.setText(Const.NVL(pipelineExecutorMeta.getGroupField(), ""));
+    wPoolSize.setText(Const.NVL(pipelineExecutorMeta.getPoolSize(), ""));
+    wMaxConcurrentExecutions.setText(
+        Const.NVL(pipelineExecutorMeta.getMaxConcurrentExecutions(), ""));
 
     wExecutionResultTarget.setText(
         pipelineExecutorMeta.getExecutionResultTargetTransformMeta() == null
@@ -746,6 +751,49 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
     fdGroupTime.left = new FormAttachment(0, 0);
     wGroupTime.setLayoutData(fdGroupTime);
 
+    // Number of pipelines to prepare ahead of time
+    //
+    Label wlPoolSize = new Label(wInputComposite, SWT.RIGHT);
+    props.setLook(wlPoolSize);
+    wlPoolSize.setText(BaseMessages.getString(PKG, "PipelineExecutorDialog.PoolSize.Label"));
+    wlPoolSize.setToolTipText(BaseMessages.getString(PKG, "PipelineExecutorDialog.PoolSize.Tooltip"));
+    FormData fdlPoolSize = new FormData();
+    fdlPoolSize.top = new FormAttachment(wGroupTime, 10);
+    fdlPoolSize.left = new FormAttachment(0, 0);
+    wlPoolSize.setLayoutData(fdlPoolSize);
+
+    wPoolSize = new TextVar(variables, wInputComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wPoolSize);
+    wPoolSize.addModifyListener(lsMod);
+    FormData fdPoolSize = new FormData();
+    fdPoolSize.width = 250;
+    fdPoolSize.top = new FormAttachment(wlPoolSize, 5);
+    fdPoolSize.left = new FormAttachment(0, 0);
+    wPoolSize.setLayoutData(fdPoolSize);
+
+    // Maximum number of groups executing at the same time
+    //
+    Label wlMaxConcurrentExecutions = new Label(wInputComposite, SWT.RIGHT);
+    props.setLook(wlMaxConcurrentExecutions);
+    wlMaxConcurrentExecutions.setText(
+        BaseMessages.getString(PKG, "PipelineExecutorDialog.MaxConcurrentExecutions.Label"));
+    wlMaxConcurrentExecutions.setToolTipText(
+        BaseMessages.getString(PKG, "PipelineExecutorDialog.MaxConcurrentExecutions.Tooltip"));
+    FormData fdlMaxConcurrentExecutions = new FormData();
+    fdlMaxConcurrentExecutions.top = new FormAttachment(wPoolSize, 10);
+    fdlMaxConcurrentExecutions.left = new FormAttachment(0, 0);
+    wlMaxConcurrentExecutions.setLayoutData(fdlMaxConcurrentExecutions);
+
+    wMaxConcurrentExecutions =
+        new TextVar(variables, wInputComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wMaxConcurrentExecutions);
+    wMaxConcurrentExecutions.addModifyListener(lsMod);
+    FormData fdMaxConcurrentExecutions = new FormData();
+    fdMaxConcurrentExecutions.width = 250;
+    fdMaxConcurrentExecutions.top = new FormAttachment(wlMaxConcurrentExecutions, 5);
+    fdMaxConcurrentExecutions.left = new FormAttachment(0, 0);
+    wMaxConcurrentExecutions.setLayoutData(fdMaxConcurrentExecutions);
+
     wTab.setControl(wInputComposite);
     wTabFolder.setSelection(wTab);
   }
@@ -1161,6 +1209,8 @@ public class PipelineExecutorDialog extends BaseTransformDialog implements ITran
     pipelineExecutorMeta.setGroupSize(wGroupSize.getText());
     pipelineExecutorMeta.setGroupField(wGroupField.getText());
     pipelineExecutorMeta.setGroupTime(wGroupTime.getText());
+    pipelineExecutorMeta.setPoolSize(wPoolSize.getText());
+    pipelineExecutorMeta.setMaxConcurrentExecutions(wMaxConcurrentExecutions.getText());
 
     pipelineExecutorMeta.setExecutionResultTargetTransform(wExecutionResultTarget.getText());
     pipelineExecutorMeta.setExecutionResultTargetTransformMeta(